@@ -6,9 +6,12 @@ import org.voovan.tools.log.Logger;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
 
 /**
  * 类文字命名
@@ -21,6 +24,8 @@ import java.util.concurrent.ConcurrentSkipListMap;
 public class ByteBufferPool {
     private final static ConcurrentSkipListMap<Integer, ObjectCachedPool> STANDER_MEM_BLOCK_BY_SIZE = new ConcurrentSkipListMap<Integer, ObjectCachedPool>();
     private final static ConcurrentHashMap<Long, MemBlockInfo> MEM_BLOCK_INFOS = new ConcurrentHashMap<Long, MemBlockInfo>();
+    //[Key] = 标准内存块大小(单位: k, -1 表示超过最大标准大小), [Value] = 借出中的字节数
+    private final static ConcurrentSkipListMap<Integer, LongAdder> IN_USE_BYTES = new ConcurrentSkipListMap<Integer, LongAdder>();
 
     public final static UniqueId uniqueId = new UniqueId(444);
     static {
@@ -34,6 +39,7 @@ public class ByteBufferPool {
         private long objectId;
         private int size;
         private ObjectCachedPool objectCachedPool;
+        private volatile int borrowedBytes;
 
         public MemBlockInfo(long objectId, int size, ObjectCachedPool objectCachedPool) {
             this.objectId = objectId;
@@ -108,6 +114,14 @@ public class ByteBufferPool {
      * 初始化
      */
     public static void init() {
+        initSizeClasses();
+
+        for(Integer standerSize : STANDER_MEM_BLOCK_BY_SIZE.keySet()){
+            IN_USE_BYTES.putIfAbsent(standerSize, new LongAdder());
+        }
+    }
+
+    private static void initSizeClasses() {
         STANDER_MEM_BLOCK_BY_SIZE.put(1, getObjectCachedPool());
 
         //2-8K
@@ -155,12 +169,34 @@ public class ByteBufferPool {
         return (ByteBuffer)MEM_BLOCK_INFOS.get(objectId).getByteBuffer();
     }
 
+    /**
+     * 按标准内存块大小遍历借出中的字节数
+     * @param consumer 参数: 标准内存块大小(单位: k, -1 表示超过最大标准大小), 借出中的字节数
+     */
+    public static void forEachInUseBytes(ObjLongConsumer<Integer> consumer){
+        for(Map.Entry<Integer, LongAdder> entry : IN_USE_BYTES.entrySet()){
+            consumer.accept(entry.getKey(), entry.getValue().sum());
+        }
+    }
+
     /**
      * 获取接入对象的 id
      * @param reqireSize 借出的内存块的缓存 id
      * @return 内存块的缓存 id
      */
     public static long borrow(int reqireSize){
+        long objectId = borrow0(reqireSize);
+
+        MemBlockInfo memBlockInfo = MEM_BLOCK_INFOS.get(objectId);
+        if(memBlockInfo != null) {
+            memBlockInfo.borrowedBytes = memBlockInfo.getByteBuffer().capacity();
+            IN_USE_BYTES.get(memBlockInfo.getSize()).add(memBlockInfo.borrowedBytes);
+        }
+
+        return objectId;
+    }
+
+    private static long borrow0(int reqireSize){
         int standerBlockSize = getStanderBlockSize(reqireSize);
         if(standerBlockSize>0) {
             ObjectCachedPool objectCachedPool = STANDER_MEM_BLOCK_BY_SIZE.get(standerBlockSize);
@@ -203,6 +239,9 @@ public class ByteBufferPool {
      */
     public static void restitution(Object objectId){
         MemBlockInfo memBlockInfo = MEM_BLOCK_INFOS.get(objectId);
+        IN_USE_BYTES.get(memBlockInfo.getSize()).add(-memBlockInfo.borrowedBytes);
+        memBlockInfo.borrowedBytes = 0;
+
         if(memBlockInfo.getSize() != -1 && memBlockInfo.isCapicityChanged()){
             TByteBuffer.reallocate(memBlockInfo.getByteBuffer(), memBlockInfo.getSize());
         }
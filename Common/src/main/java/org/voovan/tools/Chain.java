@@ -1,9 +1,13 @@
 package org.voovan.tools;
 
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.function.Predicate;
+
 /**
  * 对象链
+ * 		snapshot() 返回链中元素的不可变数组, 在链被修改前一直复用, 并发遍历时不需要克隆链
  * 
  * @author helyho
  *
@@ -16,6 +20,9 @@ public class Chain<E>  extends ArrayDeque<E> implements Cloneable{
 	private Iterator<E> invertedIterator;
 	private boolean isStop;
 	private E currentObj;
+
+	private volatile Object[] snapshot;
+	private volatile int modifyCount;
 	
 	/**
 	 * 构造函数
@@ -107,6 +114,132 @@ public class Chain<E>  extends ArrayDeque<E> implements Cloneable{
 		}
 	}
 
+	/**
+	 * 获取链中元素的快照
+	 * 		返回的数组在链被修改前一直复用, 调用者不能修改数组的内容
+	 * @return 链中元素的数组
+	 */
+	public Object[] snapshot(){
+		Object[] result = snapshot;
+		if(result == null){
+			int count = modifyCount;
+			result = toArray();
+			if(count == modifyCount) {
+				snapshot = result;
+			}
+		}
+		return result;
+	}
+
+	private void modified(){
+		modifyCount++;
+		snapshot = null;
+	}
+
+	@Override
+	public void addFirst(E e) {
+		super.addFirst(e);
+		modified();
+	}
+
+	@Override
+	public void addLast(E e) {
+		super.addLast(e);
+		modified();
+	}
+
+	@Override
+	public E pollFirst() {
+		E e = super.pollFirst();
+		modified();
+		return e;
+	}
+
+	@Override
+	public E pollLast() {
+		E e = super.pollLast();
+		modified();
+		return e;
+	}
+
+	@Override
+	public boolean removeFirstOccurrence(Object o) {
+		boolean result = super.removeFirstOccurrence(o);
+		modified();
+		return result;
+	}
+
+	@Override
+	public boolean removeLastOccurrence(Object o) {
+		boolean result = super.removeLastOccurrence(o);
+		modified();
+		return result;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		boolean result = super.removeAll(c);
+		modified();
+		return result;
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		boolean result = super.retainAll(c);
+		modified();
+		return result;
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) {
+		boolean result = super.removeIf(filter);
+		modified();
+		return result;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		modified();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new ModifyIterator(super.iterator());
+	}
+
+	@Override
+	public Iterator<E> descendingIterator() {
+		return new ModifyIterator(super.descendingIterator());
+	}
+
+	/**
+	 * 通过迭代器删除元素时使快照失效
+	 */
+	private class ModifyIterator implements Iterator<E> {
+		private Iterator<E> iterator;
+
+		private ModifyIterator(Iterator<E> iterator) {
+			this.iterator = iterator;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		@Override
+		public E next() {
+			return iterator.next();
+		}
+
+		@Override
+		public void remove() {
+			iterator.remove();
+			modified();
+		}
+	}
+
 	/**
 	 *  从当前对象克隆一个 Chain
 	 *  @return 克隆后的对象
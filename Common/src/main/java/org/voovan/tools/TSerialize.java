@@ -1,9 +1,16 @@
 package org.voovan.tools;
 
-import java.io.*;
+import org.voovan.tools.log.Logger;
+import org.voovan.tools.reflect.TReflect;
+import org.voovan.tools.serialize.BinarySerializer;
+import org.voovan.tools.serialize.JdkSerializer;
+import org.voovan.tools.serialize.Serializer;
 
 /**
- * JDK 序列化和反序列化封装
+ * 序列化和反序列化封装
+ *      默认使用 BinarySerializer, 可以通过 framework.properties 中的 Serializer 配置序列化器的类名, 或者调用 setSerializer 指定
+ *      反序列化时自动识别 JDK 和 BinarySerializer 序列化的数据, 切换序列化器后之前的数据仍然可以读取
+ *      序列化和反序列化失败时抛出 SerializeException
  *
  * @author: helyho
  * DBase Framework.
@@ -11,64 +18,61 @@ import java.io.*;
  * Licence: Apache v2 License
  */
 public class TSerialize {
-    public static byte[] serialize(Object object) {
-        if(!(object instanceof Serializable)){
-            throw new IllegalArgumentException("object must be implement Serializable");
-        }
+    private static final JdkSerializer JDK_SERIALIZER = new JdkSerializer();
+    private static final BinarySerializer BINARY_SERIALIZER = new BinarySerializer();
 
-        ObjectOutputStream objectOutputStream = null;
-        ByteArrayOutputStream byteArrayOutputStream = null;
-
-        byte[] result = null;
-        try {
-            byteArrayOutputStream = new ByteArrayOutputStream();
-            objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
-            objectOutputStream.writeObject(object);
-            result = byteArrayOutputStream.toByteArray();
-        } catch (Exception e){
-            result = null;
-        } finally {
-            if (objectOutputStream != null) {
-                try {
-                    objectOutputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
+    private static volatile Serializer serializer = createSerializer();
 
-            if (byteArrayOutputStream != null) {
-                try {
-                    byteArrayOutputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+    private static Serializer createSerializer() {
+        String className = TProperties.getString("framework", "Serializer");
+        if (className != null && !className.trim().isEmpty()) {
+            try {
+                return TReflect.newInstance(className.trim());
+            } catch (Exception e) {
+                Logger.error("Create serializer " + className + " failed, use BinarySerializer", e);
             }
         }
 
-        return result;
+        return BINARY_SERIALIZER;
     }
 
-    public static Object unserialize(byte[] bytes) {
-        ByteArrayInputStream byteArrayInputStream = null;
+    /**
+     * 获取当前使用的序列化器
+     * @return 序列化器
+     */
+    public static Serializer getSerializer() {
+        return serializer;
+    }
 
-        Object result = null;
-        try {
-            byteArrayInputStream = new ByteArrayInputStream(bytes);
-            ObjectInputStream ois = new ObjectInputStream(byteArrayInputStream);
-            result = ois.readObject();
-        } catch (Exception e){
-            result = null;
-        } finally {
-            if (byteArrayInputStream != null) {
-                try {
-                    byteArrayInputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
+    /**
+     * 设置使用的序列化器
+     * @param serializer 序列化器
+     */
+    public static void setSerializer(Serializer serializer) {
+        TSerialize.serializer = serializer == null ? BINARY_SERIALIZER : serializer;
+    }
 
-        }
+    /**
+     * 序列化
+     * @param object 待序列化的对象
+     * @return 字节数组
+     */
+    public static byte[] serialize(Object object) {
+        return serializer.serialize(object);
+    }
 
-        return result;
+    /**
+     * 反序列化
+     * @param bytes 字节数组
+     * @return 反序列化的对象
+     */
+    public static Object unserialize(byte[] bytes) {
+        if (JdkSerializer.isJdkSerialized(bytes)) {
+            return JDK_SERIALIZER.unserialize(bytes);
+        } else if (BinarySerializer.isBinarySerialized(bytes)) {
+            return BINARY_SERIALIZER.unserialize(bytes);
+        } else {
+            return serializer.unserialize(bytes);
+        }
     }
 }
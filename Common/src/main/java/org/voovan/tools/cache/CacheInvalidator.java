@@ -0,0 +1,32 @@
+package org.voovan.tools.cache;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效通知的通道
+ *      用于在多个节点之间同步本地缓存的失效
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public interface CacheInvalidator extends Closeable {
+
+    /**
+     * 发布失效消息
+     * @param message 失效消息
+     */
+    public void publish(byte[] message);
+
+    /**
+     * 订阅失效消息
+     * @param listener 失效消息的监听器, 消息为 null 表示可能丢失了消息(例如重新连接), 需要清空本地缓存
+     */
+    public void subscribe(Consumer<byte[]> listener);
+
+    @Override
+    public void close();
+}
@@ -8,7 +8,11 @@ import net.rubyeye.xmemcached.utils.AddrUtil;
 import org.voovan.tools.TPerformance;
 import org.voovan.tools.TProperties;
 import org.voovan.tools.TSerialize;
+import org.voovan.tools.exception.SerializeException;
 import org.voovan.tools.log.Logger;
+import org.voovan.tools.serialize.BinarySerializer;
+import org.voovan.tools.serialize.JdkSerializer;
+import org.voovan.tools.serialize.Serializer;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
@@ -167,6 +171,7 @@ public class CacheStatic {
 
     /**
      * 序列化
+     *      基本类型和字符串保存为字符串, 其他对象使用 TSerialize 的序列化器
      * @param obj 待序列化的对象
      * @return 字节码
      */
@@ -211,9 +216,19 @@ public class CacheStatic {
             return null;
         }
 
-        if(byteArray[0]==-84 && byteArray[1]==-19 && byteArray[2]==0 && byteArray[3]==5){
+        if(JdkSerializer.isJdkSerialized(byteArray) || BinarySerializer.isBinarySerialized(byteArray)){
             return TSerialize.unserialize(byteArray);
-        } else {
+        }
+
+        Serializer serializer = TSerialize.getSerializer();
+        if(serializer instanceof BinarySerializer || serializer instanceof JdkSerializer) {
+            return new String(byteArray);
+        }
+
+        //自定义的序列化器无法通过数据识别, 反序列化失败的作为字符串处理
+        try {
+            return TSerialize.unserialize(byteArray);
+        } catch (SerializeException e) {
             return new String(byteArray);
         }
     }
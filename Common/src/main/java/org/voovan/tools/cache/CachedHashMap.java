@@ -1,22 +1,26 @@
 package org.voovan.tools.cache;
 
 import org.voovan.Global;
-import org.voovan.tools.CollectionSearch;
-import org.voovan.tools.TEnv;
 import org.voovan.tools.hashwheeltimer.HashWheelTask;
 import org.voovan.tools.hashwheeltimer.HashWheelTimer;
 import org.voovan.tools.json.annotation.NotJSON;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /**
  * 进程内缓存处理类
- *      可字发现对象,在对象没有时自动同步对象到缓存,具备超时, 按照 LRU 的原则清理过期数据
+ *      可字发现对象,在对象没有时自动同步对象到缓存,具备超时
+ *      同一个键的并发加载共享同一个加载过程, 不同键并行加载, 支持过期前提前刷新和批量加载
+ *      超出容量时由淘汰策略在写入时淘汰数据, 默认使用 W-TinyLFU 淘汰策略
  *
  * @author: helyho
  * DBase Framework.
@@ -32,6 +36,9 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
     private int interval = 1000;
     private boolean autoRemove = true;
     private Function destory;
+    private Function<Collection<K>, Map<K, V>> bulkSupplier = null;
+    private int refreshAhead = 0;
+    private ConcurrentHashMap<K, CompletableFuture<V>> loadings = new ConcurrentHashMap<K, CompletableFuture<V>>();
 
     static {
         wheelTimer.rotate();
@@ -39,6 +46,7 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
 
     private ConcurrentHashMap<K, TimeMark> cacheMark = new ConcurrentHashMap<K, TimeMark>();;
     private int maxSize;
+    private volatile EvictionPolicy<K> evictionPolicy;
 
     /**
      * 构造函数
@@ -56,58 +64,189 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
     }
 
 
-    private void createCache(K key, Function<K, V> supplier){
+    /**
+     * 加载数据
+     *      同一个键同时只有一个加载过程, 并发的加载请求共享同一个加载结果, 不同键的加载互不阻塞
+     * @param key 键
+     * @param supplier 数据构造器
+     * @param async 是否在线程池中加载
+     * @return 加载结果, 数据构造器为 null 时返回 null
+     */
+    private CompletableFuture<V> load(K key, Function<K, V> supplier, boolean async){
         if(supplier==null){
-            return;
+            return null;
+        }
+
+        CompletableFuture<V> loading = loadings.get(key);
+        if(loading != null) {
+            return loading;
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<V>();
+        loading = loadings.putIfAbsent(key, future);
+        if(loading != null) {
+            return loading;
         }
 
-        CachedHashMap cachedHashMap = this;
+        Runnable loader = () -> {
+            try {
+                V value = supplier.apply(key);
+                if(value != null) {
+                    store(key, value);
+                }
+                future.complete(value);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                loadings.remove(key, future);
+            }
+        };
 
-        TimeMark timeMark = null;
+        if (async) {
+            Global.getThreadPool().execute(loader);
+        } else {
+            loader.run();
+        }
 
-        synchronized (cacheMark) {
-            timeMark = cacheMark.get(key);
+        return future;
+    }
 
-            if (timeMark == null) {
-                timeMark = new TimeMark(this, key, Integer.MAX_VALUE);
-                cacheMark.put(key, timeMark);
+    /**
+     * 写入加载的数据, 并重新开始计算超时时间
+     * @param key 键
+     * @param value 值
+     */
+    private void store(K key, V value) {
+        cacheMark.putIfAbsent(key, new TimeMark(this, key, Integer.MAX_VALUE));
+        if(super.put(key, value) == null) {
+            onInsert(key);
+        }
+
+        TimeMark timeMark = cacheMark.get(key);
+        if(timeMark != null) {
+            timeMark.refresh(true);
+        }
+    }
+
+    /**
+     * 等待加载完成
+     * @param future 加载结果
+     * @return 加载的数据
+     */
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if(e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
             }
+            throw e;
         }
+    }
 
-        synchronized (timeMark.createFlag) {
-            if (!timeMark.isOnCreate()) {
-                timeMark.tryLockOnCreate();
-
-                //更新缓存数据, 异步
-                if (asyncBuild) {
-                    TimeMark finalTimeMark = timeMark;
-                    Global.getThreadPool().execute(new Runnable() {
-                        @Override
-                        public void run() {
-                            synchronized (supplier) {
-                                V value = supplier.apply(key);
-                                finalTimeMark.refresh(true);
-                                cachedHashMap.put(key, value);
-                            }
-                            finalTimeMark.releaseCreateLock();
-                        }
-                    });
+    /**
+     * 获取对象, 不存在或者过期时通过数据构造器加载
+     * @param key 键
+     * @param appointedSupplier 数据构造器
+     * @param updateLastTime 是否刷新超时时间
+     * @return 值
+     */
+    private V getOrLoad(K key, Function<K, V> appointedSupplier, boolean updateLastTime) {
+        getEvictionPolicy().onAccess(key);
+
+        TimeMark timeMark = cacheMark.get(key);
+        if(timeMark != null && !timeMark.isExpire()) {
+            V value = super.get(key);
+            if(value != null) {
+                timeMark.refresh(updateLastTime);
+
+                //即将过期, 提前异步刷新
+                if(refreshAhead > 0 && appointedSupplier != null && timeMark.isExpire(refreshAhead)) {
+                    load(key, appointedSupplier, true);
                 }
-                //更新缓存数据, 异步
-                else {
-                    synchronized (supplier) {
-                        V value = supplier.apply(key);
-                        timeMark.refresh(true);
-                        cachedHashMap.put(key, value);
+                return value;
+            }
+        }
+
+        //不存在或者过期则重读
+        CompletableFuture<V> future = load(key, appointedSupplier, asyncBuild);
+        V value = future == null ? null : join(future);
+        return value != null ? value : super.get(key);
+    }
+
+    /**
+     * 批量获取对象
+     *      设置了批量数据构造器时, 所有未命中的键通过一次调用加载, 否则每个未命中的键并行加载
+     * @param keys 键的集合
+     * @return 键值对, 不包含不存在的键, 顺序和键的集合一致
+     */
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> hits = new HashMap<K, V>();
+        Map<K, CompletableFuture<V>> loadingMap = new HashMap<K, CompletableFuture<V>>();
+        Map<K, CompletableFuture<V>> ownedMap = new LinkedHashMap<K, CompletableFuture<V>>();
+
+        for(K key : keys) {
+            getEvictionPolicy().onAccess(key);
+
+            TimeMark timeMark = cacheMark.get(key);
+            V value = super.get(key);
+            if(value != null && timeMark != null && !timeMark.isExpire()) {
+                timeMark.refresh(false);
+                hits.put(key, value);
+            } else if(bulkSupplier != null) {
+                CompletableFuture<V> future = new CompletableFuture<V>();
+                CompletableFuture<V> loading = loadings.putIfAbsent(key, future);
+                if(loading == null) {
+                    ownedMap.put(key, future);
+                } else {
+                    loadingMap.put(key, loading);
+                }
+            } else if(supplier != null) {
+                loadingMap.put(key, load(key, supplier, true));
+            } else if(value != null) {
+                hits.put(key, value);
+            }
+        }
+
+        //批量加载
+        if(!ownedMap.isEmpty()) {
+            try {
+                Map<K, V> loaded = bulkSupplier.apply(ownedMap.keySet());
+                for (Entry<K, CompletableFuture<V>> entry : ownedMap.entrySet()) {
+                    V value = loaded == null ? null : loaded.get(entry.getKey());
+                    if (value != null) {
+                        store(entry.getKey(), value);
                     }
-                    timeMark.releaseCreateLock();
+                    entry.getValue().complete(value);
+                }
+            } catch (Throwable e) {
+                for (CompletableFuture<V> future : ownedMap.values()) {
+                    future.completeExceptionally(e);
+                }
+                throw e;
+            } finally {
+                for (Entry<K, CompletableFuture<V>> entry : ownedMap.entrySet()) {
+                    loadings.remove(entry.getKey(), entry.getValue());
                 }
             }
+            loadingMap.putAll(ownedMap);
         }
 
-        while(timeMark.isOnCreate()){
-            TEnv.sleep(1);
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        for(K key : keys) {
+            V value = hits.get(key);
+            if(value == null) {
+                CompletableFuture<V> future = loadingMap.get(key);
+                value = future == null ? null : join(future);
+            }
+
+            if(value != null) {
+                result.put(key, value);
+            }
         }
+        return result;
     }
 
     /**
@@ -132,6 +271,27 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
         return this;
     }
 
+    /**
+     * 设置批量数据创建 Function 对象, 用于 getAll 时一次加载所有未命中的键
+     * @param bulkBuildFunction 批量数据创建 Function 对象, 参数为未命中的键的集合, 返回加载到的键值对
+     * @return CachedHashMap 对象
+     */
+    public CachedHashMap<K, V> bulkSupplier(Function<Collection<K>, Map<K, V>> bulkBuildFunction){
+        this.bulkSupplier = bulkBuildFunction;
+        return this;
+    }
+
+    /**
+     * 设置提前刷新时间
+     *      距离过期时间小于提前刷新时间的数据被访问时, 异步重新加载, 加载完成前返回原来的数据
+     * @param refreshAhead 提前刷新时间, 单位:毫秒, 小于等于 0 不提前刷新
+     * @return CachedHashMap 对象
+     */
+    public CachedHashMap<K, V> refreshAhead(int refreshAhead) {
+        this.refreshAhead = refreshAhead;
+        return this;
+    }
+
     /**
      * 获取对象销毁函数
      * @return 对象销毁函数
@@ -155,9 +315,39 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
      */
     public CachedHashMap<K, V> maxSize(int maxSize) {
         this.maxSize = maxSize;
+        this.evictionPolicy = null;
+        return this;
+    }
+
+    /**
+     * 设置淘汰策略
+     * @param evictionPolicy 淘汰策略
+     * @return CachedHashMap 对象
+     */
+    public CachedHashMap<K, V> evictionPolicy(EvictionPolicy<K> evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
         return this;
     }
 
+    /**
+     * 获取淘汰策略
+     *      没有设置时按最大容量创建 W-TinyLFU 淘汰策略
+     * @return 淘汰策略
+     */
+    public EvictionPolicy<K> getEvictionPolicy() {
+        EvictionPolicy<K> policy = evictionPolicy;
+        if(policy == null) {
+            synchronized (this) {
+                policy = evictionPolicy;
+                if(policy == null) {
+                    policy = new WTinyLfuPolicy<K>(maxSize);
+                    evictionPolicy = policy;
+                }
+            }
+        }
+        return policy;
+    }
+
     /**
      * 设置最失效对象检查周期
      * @param interval 检查周期, 单位:毫秒, 小于零不做超时处理
@@ -192,24 +382,22 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
                 public void run() {
                     if (!cachedHashMap.getCacheMark().isEmpty()) {
                         //清理过期的
-                        for (TimeMark timeMark : (TimeMark[]) cachedHashMap.getCacheMark().values().toArray(new TimeMark[0])) {
+                        for (TimeMark timeMark : (Iterable<TimeMark>) cachedHashMap.getCacheMark().values()) {
                             if (timeMark.isExpire()) {
                                 if (autoRemove) {
                                     //如果返回 null 则 清理对象, 如果返回为非 null 则 刷新对象
-                                    if(destory.apply(cachedHashMap.get(timeMark.key))==null){
+                                    if(destory==null || destory.apply(cachedHashMap.get(timeMark.key))==null){
                                         cachedHashMap.remove(timeMark.getKey());
-                                        cachedHashMap.cacheMark.remove(timeMark.getKey());
                                     } else {
                                         timeMark.refresh(true);
                                     }
 
                                 } else if (cachedHashMap.getSupplier() != null) {
-                                    cachedHashMap.createCache(timeMark.getKey(), cachedHashMap.supplier);
-                                    timeMark.refresh(true);
+                                    //异步重新加载, 加载完成后刷新超时时间
+                                    cachedHashMap.load(timeMark.getKey(), cachedHashMap.supplier, true);
                                 }
                             }
                         }
-                        fixSize();
                     }
                 }
             }, interval);
@@ -241,16 +429,7 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
      */
     @Override
     public V get(Object key){
-        if(cacheMark.containsKey(key) &&
-                !cacheMark.get(key).isExpire() &&
-                !cacheMark.get(key).isOnCreate()) {
-            cacheMark.get(key).refresh(false);
-        } else {
-            //如果不存在则重读
-            createCache((K)key, this.supplier);
-        }
-
-        return super.get(key);
+        return getOrLoad((K)key, this.supplier, false);
     }
 
 
@@ -262,16 +441,7 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
      * @return 值
      */
     public V get(Object key, Function<K, V> appointedSupplier){
-        if(cacheMark.containsKey(key) &&
-                !cacheMark.get(key).isExpire() &&
-                !cacheMark.get(key).isOnCreate()) {
-            cacheMark.get(key).refresh(false);
-        } else {
-            //如果不存在则重读
-            createCache((K)key,appointedSupplier);
-        }
-
-        return super.get(key);
+        return getOrLoad((K)key, appointedSupplier, false);
     }
 
 
@@ -281,16 +451,7 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
      * @return 值
      */
     public V getAndRefresh(Object key){
-        if(cacheMark.containsKey(key) &&
-                !cacheMark.get(key).isExpire() &&
-                !cacheMark.get(key).isOnCreate()) {
-            cacheMark.get(key).refresh(true);
-        } else {
-            //如果不存在则重读
-            createCache((K)key, this.supplier);
-        }
-
-        return this.get(key);
+        return getOrLoad((K)key, this.supplier, true);
     }
 
 
@@ -301,16 +462,7 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
      * @return 值
      */
     public V getAndRefresh(Object key, Function<K, V> appointedSupplier){
-        if(cacheMark.containsKey(key) &&
-                !cacheMark.get(key).isExpire() &&
-                !cacheMark.get(key).isOnCreate()) {
-            cacheMark.get(key).refresh(true);
-        } else {
-            //如果不存在则重读
-            createCache((K)key,appointedSupplier);
-        }
-
-        return this.get(key);
+        return getOrLoad((K)key, appointedSupplier, true);
     }
 
     @Override
@@ -326,10 +478,10 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
     public void putAll(Map<? extends K, ? extends V> m, int expire){
         for (Entry<? extends K, ? extends V> e : m.entrySet()) {
             cacheMark.put(e.getKey(), new TimeMark(this, e.getKey(), expire));
+            if(super.put(e.getKey(), e.getValue()) == null) {
+                onInsert(e.getKey());
+            }
         }
-
-        super.putAll(m);
-//        fixSize();
     }
 
     @Override
@@ -360,8 +512,9 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
         }
 
         cacheMark.putIfAbsent(key, new TimeMark(this, key, expire));
-        super.put(key, value);
-//        fixSize();
+        if(super.put(key, value) == null) {
+            onInsert(key);
+        }
         return value;
     }
 
@@ -392,32 +545,20 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
             return result;
         } else {
             cacheMark.putIfAbsent(key, new TimeMark(this, key, expire));
-//            fixSize();
+            onInsert(key);
             return null;
         }
     }
 
     /**
-     * 清理过多的数据记录
-     */
-    private void fixSize() {
-        //如果超出容量限制
-        int diffSize = this.size() - maxSize;
-        if (diffSize > 0) {
-            //最少访问次数中, 时间最老的进行清楚
-            TimeMark[] removedTimeMark = (TimeMark[]) CollectionSearch.newInstance(cacheMark.values()).addCondition("expireTime", CollectionSearch.Operate.NOT_EQUAL, Integer.MAX_VALUE)
-                    .addCondition("lastTime", CollectionSearch.Operate.LESS, System.currentTimeMillis()-1000)
-                    .sort("visitCount")
-                    .limit(10 * diffSize)
-                    .sort("lastTime")
-                    .limit(diffSize)
-                    .search()
-                    .toArray(new TimeMark[0]);
-            for (TimeMark timeMark : removedTimeMark) {
-                System.out.println("remove");
-                cacheMark.remove(timeMark.getKey());
-                this.remove(timeMark.getKey());
-            }
+     * 通知淘汰策略有新的键写入, 并移除淘汰策略选出的键
+     * @param key 键
+     */
+    private void onInsert(K key) {
+        K evictedKey = getEvictionPolicy().onInsert(key);
+        if(evictedKey != null) {
+            cacheMark.remove(evictedKey);
+            super.remove(evictedKey);
         }
     }
 
@@ -439,18 +580,24 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
     @Override
     public V remove(Object key){
         cacheMark.remove(key);
+        getEvictionPolicy().onRemove((K)key);
         return super.remove(key);
     }
 
     @Override
     public boolean remove(Object key, Object value){
-        cacheMark.remove(key);
-        return super.remove(key, value);
+        if(super.remove(key, value)) {
+            cacheMark.remove(key);
+            getEvictionPolicy().onRemove((K)key);
+            return true;
+        }
+        return false;
     }
 
     @Override
     public void clear() {
         cacheMark.clear();
+        getEvictionPolicy().clear();
         super.clear();
     }
 
@@ -468,9 +615,6 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
         //访问次数
         private volatile AtomicLong visitCount = new AtomicLong(0);
 
-        //是否正在生成数据
-        private volatile AtomicBoolean createFlag = new AtomicBoolean(false);
-
         public TimeMark(CachedHashMap<K,V> mainMap, K key, int expireTime){
             this.key = key;
             this.mainMap = mainMap;
@@ -495,8 +639,17 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
          * @return true: 已过期, false: 未过期
          */
         public boolean isExpire(){
-            if(expireTime.get()!=Long.MAX_VALUE &&
-                    System.currentTimeMillis() - lastTime.get() >= expireTime.get()){
+            return isExpire(0);
+        }
+
+        /**
+         * 在指定的时间后是否过期
+         * @param ahead 提前的时间, 单位:毫秒
+         * @return true: 已过期, false: 未过期
+         */
+        public boolean isExpire(int ahead){
+            if(expireTime.get()!=Integer.MAX_VALUE &&
+                    System.currentTimeMillis() - lastTime.get() >= expireTime.get() - ahead){
                 return true;
             } else {
                 return false;
@@ -526,17 +679,5 @@ public class CachedHashMap<K,V> extends ConcurrentHashMap<K,V> implements CacheM
         public AtomicLong getVisitCount() {
             return visitCount;
         }
-
-        public boolean isOnCreate(){
-            return createFlag.get();
-        }
-
-        public boolean tryLockOnCreate() {
-            return createFlag.compareAndSet(false, true);
-        }
-
-        public void releaseCreateLock() {
-            createFlag.set(false);
-        }
     }
 }
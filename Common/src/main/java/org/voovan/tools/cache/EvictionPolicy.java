@@ -0,0 +1,39 @@
+package org.voovan.tools.cache;
+
+/**
+ * 缓存淘汰策略
+ *      缓存在读写时通知淘汰策略, 由淘汰策略决定需要淘汰的键
+ *      实现类需要自行保证线程安全
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public interface EvictionPolicy<K> {
+
+    /**
+     * 键被访问, 包括未命中的访问
+     * @param key 键
+     */
+    public void onAccess(K key);
+
+    /**
+     * 新的键被写入
+     * @param key 键
+     * @return 需要淘汰的键, 没有需要淘汰的键则返回 null
+     */
+    public K onInsert(K key);
+
+    /**
+     * 键被移除
+     * @param key 键
+     */
+    public void onRemove(K key);
+
+    /**
+     * 清空所有的键
+     */
+    public void clear();
+}
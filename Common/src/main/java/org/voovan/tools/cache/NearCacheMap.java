@@ -0,0 +1,353 @@
+package org.voovan.tools.cache;
+
+import org.voovan.tools.TSerialize;
+import org.voovan.tools.exception.SerializeException;
+import org.voovan.tools.log.Logger;
+
+import java.io.Closeable;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 两级缓存
+ *      本地的 CachedHashMap 作为一级缓存, 远程缓存(例如 RedisMap)作为二级缓存
+ *      读取时先读本地缓存, 未命中时从远程缓存读取并写入本地缓存, 同一个键的并发读取只访问一次远程缓存
+ *      写入和移除时同时写远程缓存和本地缓存, 并通过失效通知使其他节点的本地缓存失效
+ *      本地缓存可以设置超时时间, 作为丢失失效通知时的保护
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class NearCacheMap<K, V> implements CacheMap<K, V>, Closeable {
+    private static final byte TYPE_KEY = 1;
+    private static final byte TYPE_CLEAR = 2;
+
+    private CachedHashMap<K, V> local;
+    private CacheMap<K, V> remote;
+    private CacheInvalidator invalidator;
+    private long nodeId;
+    private int localExpire = 0;
+    private Function<K, V> buildFunction = null;
+    //本地缓存每次失效或写入时递增, 用于发现远程读取期间发生的失效
+    private final AtomicLong version = new AtomicLong(0);
+
+    /**
+     * 构造函数, 使用 Redis 的发布订阅同步本地缓存的失效
+     * @param remote 远程缓存
+     * @param localMaxSize 本地缓存的最大容量
+     * @param channel 失效通知的频道名称
+     */
+    public NearCacheMap(RedisMap<K, V> remote, int localMaxSize, String channel) {
+        this(remote, localMaxSize, new RedisInvalidator(remote.getRedisPool(), channel));
+    }
+
+    /**
+     * 构造函数
+     * @param remote 远程缓存
+     * @param localMaxSize 本地缓存的最大容量
+     * @param invalidator 失效通知的通道, 为 null 时不同步其他节点的本地缓存
+     */
+    public NearCacheMap(CacheMap<K, V> remote, int localMaxSize, CacheInvalidator invalidator) {
+        this.remote = remote;
+        this.invalidator = invalidator;
+        this.nodeId = ThreadLocalRandom.current().nextLong();
+        this.local = new CachedHashMap<K, V>(localMaxSize);
+        this.local.supplier(this::load, false);
+
+        if (invalidator != null) {
+            invalidator.subscribe(this::onInvalidate);
+        }
+    }
+
+    /**
+     * 设置本地缓存的超时时间
+     * @param localExpire 超时时间, 单位: 毫秒, 小于等于 0 不超时
+     * @return NearCacheMap 对象
+     */
+    public NearCacheMap<K, V> localExpire(int localExpire) {
+        this.localExpire = localExpire;
+        return this;
+    }
+
+    /**
+     * 设置远程缓存中也不存在时的数据构造器, 构造的数据会写入远程缓存
+     * @param buildFunction 数据构造器
+     * @return NearCacheMap 对象
+     */
+    public NearCacheMap<K, V> supplier(Function<K, V> buildFunction) {
+        this.buildFunction = buildFunction;
+        return this;
+    }
+
+    /**
+     * 获取本地缓存
+     * @return 本地缓存
+     */
+    public CachedHashMap<K, V> getLocal() {
+        return local;
+    }
+
+    /**
+     * 获取远程缓存
+     * @return 远程缓存
+     */
+    public CacheMap<K, V> getRemote() {
+        return remote;
+    }
+
+    /**
+     * 从远程缓存加载数据, 由本地缓存在未命中时调用
+     *      读取期间本地缓存发生了失效或写入时, 读到的值可能已经过期, 这时返回的值立即超时, 下次读取时重新加载
+     * @param key 键
+     * @return 值
+     */
+    private V load(K key) {
+        long loadVersion = version.get();
+        V value = remote.get(key);
+        if (value == null && buildFunction != null) {
+            value = buildFunction.apply(key);
+            if (value != null) {
+                V exists = remote.putIfAbsent(key, value);
+                value = exists == null ? value : exists;
+            }
+        }
+
+        if (value != null) {
+            if (version.get() != loadVersion) {
+                local.expire(key, 0);
+            } else if (localExpire > 0) {
+                local.expire(key, localExpire);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public V get(Object key) {
+        return local.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return local.get(key) != null || remote.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        remote.put(key, value);
+        putLocal(key, value, localExpire);
+        publish(key);
+        return value;
+    }
+
+    /**
+     * 写入对象
+     * @param key  键
+     * @param value 值
+     * @param expire 远程缓存的超时时间, 单位和远程缓存一致(RedisMap 为秒), 本地缓存按秒处理
+     * @return 被置入的对象
+     */
+    @Override
+    public V put(K key, V value, int expire) {
+        remote.put(key, value, expire);
+        putLocal(key, value, getLocalExpire(expire));
+        publish(key);
+        return value;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        V result = remote.putIfAbsent(key, value);
+        if (result == null) {
+            putLocal(key, value, localExpire);
+            publish(key);
+        }
+        return result;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value, int expire) {
+        V result = remote.putIfAbsent(key, value, expire);
+        if (result == null) {
+            putLocal(key, value, getLocalExpire(expire));
+            publish(key);
+        }
+        return result;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        remote.putAll(map);
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            putLocal(entry.getKey(), entry.getValue(), localExpire);
+            publish(entry.getKey());
+        }
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map, int expire) {
+        remote.putAll(map, expire);
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            putLocal(entry.getKey(), entry.getValue(), getLocalExpire(expire));
+            publish(entry.getKey());
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        V value = remote.remove(key);
+        version.incrementAndGet();
+        local.remove(key);
+        publish(key);
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        version.incrementAndGet();
+        local.clear();
+        publish(null);
+    }
+
+    /**
+     * 只移除本地缓存中的对象
+     * @param key 键
+     */
+    public void invalidateLocal(Object key) {
+        version.incrementAndGet();
+        local.remove(key);
+    }
+
+    @Override
+    public int size() {
+        return remote.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return remote.isEmpty();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return remote.containsValue(value);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return remote.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return remote.values();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return remote.entrySet();
+    }
+
+    @Override
+    public void close() {
+        if (invalidator != null) {
+            invalidator.close();
+        }
+        local.clear();
+    }
+
+    /**
+     * 计算本地缓存的超时时间
+     * @param expire 远程缓存的超时时间, 单位: 秒, 小于等于 0 不超时
+     * @return 本地缓存的超时时间, 单位: 毫秒, 不超过远程缓存的超时时间
+     */
+    private int getLocalExpire(int expire) {
+        if (expire <= 0) {
+            return localExpire;
+        }
+
+        long remoteExpire = Math.min(expire * 1000L, Integer.MAX_VALUE);
+        return (int) (localExpire > 0 ? Math.min(localExpire, remoteExpire) : remoteExpire);
+    }
+
+    private void putLocal(K key, V value, int expire) {
+        version.incrementAndGet();
+        local.remove(key);
+        local.put(key, value);
+        if (expire > 0) {
+            local.expire(key, expire);
+        }
+    }
+
+    /**
+     * 发布失效消息
+     *      消息格式: [类型 1 字节][节点 ID 8 字节][序列化的键]
+     * @param key 键, 为 null 或者无法序列化时通知清空所有数据
+     */
+    private void publish(Object key) {
+        if (invalidator == null) {
+            return;
+        }
+
+        byte[] keyBytes = key instanceof Serializable ? TSerialize.serialize(key) : null;
+        ByteBuffer message = ByteBuffer.allocate(9 + (keyBytes == null ? 0 : keyBytes.length));
+        message.put(keyBytes == null ? TYPE_CLEAR : TYPE_KEY);
+        message.putLong(nodeId);
+        if (keyBytes != null) {
+            message.put(keyBytes);
+        }
+
+        try {
+            invalidator.publish(message.array());
+        } catch (Exception e) {
+            Logger.error("NearCacheMap publish invalidation failed", e);
+        }
+    }
+
+    /**
+     * 处理失效消息
+     * @param message 失效消息
+     */
+    private void onInvalidate(byte[] message) {
+        if (message == null) {
+            version.incrementAndGet();
+            local.clear();
+            return;
+        }
+
+        if (message.length < 9) {
+            return;
+        }
+
+        ByteBuffer byteBuffer = ByteBuffer.wrap(message);
+        byte type = byteBuffer.get();
+        if (byteBuffer.getLong() == nodeId) {
+            return;
+        }
+
+        version.incrementAndGet();
+        if (type == TYPE_CLEAR) {
+            local.clear();
+        } else if (type == TYPE_KEY) {
+            byte[] keyBytes = new byte[byteBuffer.remaining()];
+            byteBuffer.get(keyBytes);
+            try {
+                local.remove(TSerialize.unserialize(keyBytes));
+            } catch (SerializeException e) {
+                //无法识别失效的键, 清空本地缓存以保证一致
+                Logger.warn("NearCacheMap unserialize invalidation key failed, clear the local cache", e);
+                local.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,757 @@
+package org.voovan.tools.cache;
+
+import org.voovan.tools.TSerialize;
+import org.voovan.tools.TUnsafe;
+import org.voovan.tools.exception.SerializeException;
+import org.voovan.tools.log.Logger;
+import sun.misc.Cleaner;
+import sun.misc.Unsafe;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 堆外内存缓存
+ *      值通过编解码器转换为字节后保存在堆外内存中, 堆内只保存键到内存地址的索引, 缓存的数据不增加 GC 的负担
+ *      堆外内存按固定大小的内存页(slab)分配, 每个内存页划分为同样大小的内存块, 内存块的大小按 1.25 倍递增分为多个等级
+ *      写入时选择能容纳值的最小等级, 内存用尽时在同等级中按 CLOCK 算法淘汰最近没有访问的数据, 容量按字节计算
+ *      同等级中没有数据可以淘汰时, 从内存页最多的等级回收一个内存页
+ *      不再使用时需要调用 release 释放堆外内存
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class OffHeapCacheMap<K, V> extends AbstractMap<K, V> implements CacheMap<K, V> {
+    public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final double GROWTH_FACTOR = 1.25;
+    private static final Unsafe UNSAFE = TUnsafe.getUnsafe();
+
+    private final long maxBytes;
+    private final int slabSize;
+    private final int maxSlabs;
+    private final ValueCodec<V> codec;
+
+    private final int[] chunkSizes;
+    private final SlabClass<K>[] slabClasses;
+    private final ConcurrentHashMap<K, Entry<K>> index;
+    private final Slabs slabs;
+    private final ArrayDeque<Long> freeSlabs;
+    private final Cleaner cleaner;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean released = false;
+
+    private long usedBytes = 0;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder rejectCount = new LongAdder();
+
+    /**
+     * 构造函数, 使用 TSerialize 作为编解码器
+     * @param maxBytes 最大使用的堆外内存字节数
+     */
+    public OffHeapCacheMap(long maxBytes) {
+        this(maxBytes, DEFAULT_SLAB_SIZE, new ValueCodec<V>() {
+            @Override
+            public byte[] encode(V value) {
+                return TSerialize.serialize(value);
+            }
+
+            @Override
+            public V decode(byte[] bytes) {
+                //无法反序列化的数据(例如类的结构已经变化)作为未命中处理
+                try {
+                    return (V) TSerialize.unserialize(bytes);
+                } catch (SerializeException e) {
+                    Logger.warn("OffHeapCacheMap unserialize value failed", e);
+                    return null;
+                }
+            }
+        });
+    }
+
+    /**
+     * 构造函数
+     * @param maxBytes 最大使用的堆外内存字节数
+     * @param codec 值的编解码器
+     */
+    public OffHeapCacheMap(long maxBytes, ValueCodec<V> codec) {
+        this(maxBytes, DEFAULT_SLAB_SIZE, codec);
+    }
+
+    /**
+     * 构造函数
+     * @param maxBytes 最大使用的堆外内存字节数
+     * @param slabSize 内存页的大小, 也是能缓存的值的最大字节数
+     * @param codec 值的编解码器
+     */
+    public OffHeapCacheMap(long maxBytes, int slabSize, ValueCodec<V> codec) {
+        if (maxBytes <= 0 || slabSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("maxBytes must be greater than 0 and slabSize must be at least " + MIN_CHUNK_SIZE);
+        }
+
+        this.slabSize = (int) Math.min(slabSize, Math.max(maxBytes, MIN_CHUNK_SIZE));
+        this.maxBytes = maxBytes;
+        this.maxSlabs = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / this.slabSize));
+        this.codec = codec;
+
+        //内存块大小的等级, 按 8 字节对齐
+        ArrayList<Integer> sizes = new ArrayList<Integer>();
+        int size = MIN_CHUNK_SIZE;
+        while (size < this.slabSize) {
+            sizes.add(size);
+            size = (int) Math.min(((long) (size * GROWTH_FACTOR) + 7) & ~7L, Integer.MAX_VALUE);
+        }
+        sizes.add(this.slabSize);
+
+        this.chunkSizes = new int[sizes.size()];
+        this.slabClasses = new SlabClass[sizes.size()];
+        for (int i = 0; i < chunkSizes.length; i++) {
+            chunkSizes[i] = sizes.get(i);
+            slabClasses[i] = new SlabClass<K>(chunkSizes[i]);
+        }
+
+        this.index = new ConcurrentHashMap<K, Entry<K>>();
+        this.slabs = new Slabs(maxSlabs);
+        this.freeSlabs = new ArrayDeque<Long>();
+        this.cleaner = Cleaner.create(this, slabs);
+    }
+
+    /**
+     * 获取最大使用的堆外内存字节数
+     * @return 最大使用的堆外内存字节数
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 获取缓存的值占用的字节数
+     * @return 值占用的字节数
+     */
+    public long getUsedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取已分配的堆外内存字节数
+     * @return 已分配的堆外内存字节数
+     */
+    public long getAllocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) slabs.count * slabSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取内存页末尾不足一个内存块而无法使用的字节数
+     *      内存页划分完后剩余的空间小于本等级的内存块, 等级换用新的内存页时这部分空间留在原内存页中,
+     *      直到原内存页被回收给其他等级
+     * @return 无法使用的字节数
+     */
+    public long getWastedBytes() {
+        lock.readLock().lock();
+        try {
+            long wastedBytes = 0;
+            for (SlabClass<K> slabClass : slabClasses) {
+                //当前的内存页还在划分中, 不计算在内
+                int fullSlabCount = slabClass.slabCount - (slabClass.slabAddress == 0 ? 0 : 1);
+                wastedBytes += (long) fullSlabCount * (slabSize % slabClass.chunkSize);
+            }
+            return wastedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 获取因为值过大或者内存不足而没有缓存的次数
+     * @return 没有缓存的次数
+     */
+    public long getRejectCount() {
+        return rejectCount.sum();
+    }
+
+    @Override
+    public V get(Object key) {
+        Entry<K> entry = index.get(key);
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+
+        byte[] bytes = null;
+        boolean expired = false;
+        lock.readLock().lock();
+        try {
+            if (!entry.removed) {
+                if (entry.isExpire()) {
+                    expired = true;
+                } else {
+                    bytes = new byte[entry.length];
+                    UNSAFE.copyMemory(null, entry.address, bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, entry.length);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (expired) {
+            removeEntry(entry);
+        }
+
+        if (bytes == null) {
+            missCount.increment();
+            return null;
+        }
+
+        entry.visited = true;
+        hitCount.increment();
+        return codec.decode(bytes);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Entry<K> entry = index.get(key);
+        return entry != null && !entry.removed && !entry.isExpire();
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return put(key, value, 0);
+    }
+
+    /**
+     * 写入对象
+     * @param key  键
+     * @param value 值
+     * @param expire 超时时间, 单位: 秒, 小于等于 0 不超时
+     * @return 被置入的对象
+     */
+    @Override
+    public V put(K key, V value, int expire) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+
+        byte[] bytes = codec.encode(value);
+
+        lock.writeLock().lock();
+        try {
+            store(key, bytes, expire);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return value;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return putIfAbsent(key, value, 0);
+    }
+
+    /**
+     * 写入如果对象为空
+     * @param key  键
+     * @param value 值
+     * @param expire 超时时间, 单位: 秒, 小于等于 0 不超时
+     * @return 如果数据存在返回已经存在对象, 如果数据不存在,新的对象被置入,则返回: null
+     */
+    @Override
+    public V putIfAbsent(K key, V value, int expire) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+
+        byte[] bytes = codec.encode(value);
+        byte[] existsBytes = null;
+
+        lock.writeLock().lock();
+        try {
+            Entry<K> entry = index.get(key);
+            if (entry != null && !entry.isExpire()) {
+                existsBytes = new byte[entry.length];
+                UNSAFE.copyMemory(null, entry.address, existsBytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, entry.length);
+                entry.visited = true;
+            } else {
+                store(key, bytes, expire);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return existsBytes == null ? null : codec.decode(existsBytes);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        putAll(map, 0);
+    }
+
+    /**
+     * 写入特定的整个 Map
+     * @param map Map对象
+     * @param expire 超时时间, 单位: 秒, 小于等于 0 不超时
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map, int expire) {
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue(), expire);
+        }
+    }
+
+    /**
+     * 更新某个对象的超时时间
+     * @param key 键
+     * @param expire 超时时间, 单位: 秒, 小于等于 0 不超时
+     * @return true: 成功, false: 键不存在
+     */
+    public boolean expire(K key, int expire) {
+        Entry<K> entry = index.get(key);
+        if (entry == null || entry.removed) {
+            return false;
+        }
+
+        entry.expireTime = expire > 0 ? System.currentTimeMillis() + expire * 1000L : 0;
+        return true;
+    }
+
+    /**
+     * 移除对象
+     *      读取被移除的值不计入命中和未命中的次数
+     * @param key 键
+     * @return 被移除的值, 不存在或者已经超时返回 null
+     */
+    @Override
+    public V remove(Object key) {
+        byte[] bytes = null;
+
+        lock.writeLock().lock();
+        try {
+            Entry<K> entry = index.get(key);
+            if (entry != null && !entry.removed) {
+                if (!entry.isExpire()) {
+                    bytes = new byte[entry.length];
+                    UNSAFE.copyMemory(null, entry.address, bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, entry.length);
+                }
+                index.remove(entry.key, entry);
+                free(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return bytes == null ? null : codec.decode(bytes);
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Entry<K> entry : index.values()) {
+                entry.removed = true;
+            }
+            index.clear();
+
+            for (SlabClass<K> slabClass : slabClasses) {
+                slabClass.clear();
+            }
+
+            freeSlabs.clear();
+            for (int i = 0; i < slabs.count; i++) {
+                freeSlabs.add(slabs.addresses[i]);
+            }
+            usedBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 释放所有的堆外内存, 释放后不能再使用
+     */
+    public void release() {
+        lock.writeLock().lock();
+        try {
+            released = true;
+            clear();
+            freeSlabs.clear();
+            cleaner.clean();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 键的集合, 只读
+     * @return 键的集合
+     */
+    @Override
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * 所有键值对的快照, 修改不会写回缓存
+     * @return 键值对的集合
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        HashMap<K, V> snapshot = new HashMap<K, V>();
+        for (K key : index.keySet()) {
+            V value = get(key);
+            if (value != null) {
+                snapshot.put(key, value);
+            }
+        }
+        return snapshot.entrySet();
+    }
+
+    /**
+     * 写入值, 在写锁内调用
+     * @param key 键
+     * @param bytes 值的字节
+     * @param expire 超时时间, 单位: 秒
+     */
+    private void store(K key, byte[] bytes, int expire) {
+        if (released) {
+            throw new IllegalStateException("OffHeapCacheMap is released");
+        }
+
+        if (bytes == null) {
+            throw new IllegalArgumentException("value encode failed: " + key);
+        }
+
+        Entry<K> oldEntry = index.get(key);
+        if (oldEntry != null) {
+            index.remove(key, oldEntry);
+            free(oldEntry);
+        }
+
+        int classIndex = Arrays.binarySearch(chunkSizes, bytes.length);
+        classIndex = classIndex < 0 ? -classIndex - 1 : classIndex;
+        if (classIndex >= chunkSizes.length) {
+            //值超过内存页的大小
+            rejectCount.increment();
+            return;
+        }
+
+        SlabClass<K> slabClass = slabClasses[classIndex];
+        long address = allocate(slabClass);
+        if (address == 0) {
+            //内存已经分配给了其他等级, 并且本等级没有可以淘汰的数据
+            rejectCount.increment();
+            return;
+        }
+
+        UNSAFE.copyMemory(bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, null, address, bytes.length);
+
+        Entry<K> entry = new Entry<K>(key, address, bytes.length, classIndex);
+        entry.expireTime = expire > 0 ? System.currentTimeMillis() + expire * 1000L : 0;
+        index.put(key, entry);
+        slabClass.add(entry);
+        usedBytes += bytes.length;
+    }
+
+    /**
+     * 从内存块等级中分配一个内存块, 在写锁内调用
+     * @param slabClass 内存块等级
+     * @return 内存地址, 分配失败返回 0
+     */
+    private long allocate(SlabClass<K> slabClass) {
+        long address = slabClass.pollFree();
+        if (address != 0) {
+            return address;
+        }
+
+        //从当前内存页中划分
+        if (slabClass.slabAddress != 0 && slabClass.slabOffset + slabClass.chunkSize <= slabSize) {
+            address = slabClass.slabAddress + slabClass.slabOffset;
+            slabClass.slabOffset += slabClass.chunkSize;
+            return address;
+        }
+
+        //分配新的内存页
+        Long slabAddress = freeSlabs.pollFirst();
+        if (slabAddress == null && slabs.count < maxSlabs) {
+            slabAddress = UNSAFE.allocateMemory(slabSize);
+            slabs.addresses[slabs.count++] = slabAddress;
+        }
+
+        if (slabAddress != null) {
+            slabClass.slabAddress = slabAddress;
+            slabClass.slabOffset = slabClass.chunkSize;
+            slabClass.slabCount++;
+            return slabAddress;
+        }
+
+        //CLOCK 淘汰, 被访问过的数据清除访问标记后获得一次保留的机会
+        Entry<K> victim;
+        while ((victim = slabClass.entries.pollFirst()) != null) {
+            if (victim.removed) {
+                continue;
+            }
+
+            if (victim.visited && !victim.isExpire()) {
+                victim.visited = false;
+                slabClass.entries.addLast(victim);
+                continue;
+            }
+
+            index.remove(victim.key, victim);
+            victim.removed = true;
+            slabClass.liveCount--;
+            usedBytes -= victim.length;
+            evictionCount.increment();
+            return victim.address;
+        }
+
+        //本等级没有数据可以淘汰, 从内存页最多的等级回收一个内存页
+        return reassignSlab(slabClass);
+    }
+
+    /**
+     * 从内存页最多的等级回收一个内存页给指定的等级, 在写锁内调用
+     *      被回收的内存页中的数据全部淘汰
+     *      调用时指定等级当前的内存页已经划分完, 剩余的空间不足一个内存块, 计入 getWastedBytes
+     * @param slabClass 需要内存页的等级
+     * @return 内存地址, 没有可以回收的内存页返回 0
+     */
+    private long reassignSlab(SlabClass<K> slabClass) {
+        SlabClass<K> donor = null;
+        for (SlabClass<K> item : slabClasses) {
+            if (item != slabClass && item.slabCount > 0 && (donor == null || item.slabCount > donor.slabCount)) {
+                donor = item;
+            }
+        }
+
+        if (donor == null) {
+            return 0;
+        }
+
+        //优先回收最久没有访问的数据所在的内存页
+        long address = donor.slabAddress;
+        for (Entry<K> entry : donor.entries) {
+            if (!entry.removed) {
+                address = entry.address;
+                break;
+            }
+        }
+        if (address == 0 && donor.freeCount > 0) {
+            address = donor.freeChunks[0];
+        }
+
+        long slabAddress = slabOf(address);
+        if (slabAddress == 0) {
+            return 0;
+        }
+
+        long slabEnd = slabAddress + slabSize;
+        donor.entries.removeIf(entry -> {
+            if (entry.address < slabAddress || entry.address >= slabEnd) {
+                return false;
+            }
+
+            if (!entry.removed) {
+                index.remove(entry.key, entry);
+                entry.removed = true;
+                slabClasses[entry.classIndex].liveCount--;
+                usedBytes -= entry.length;
+                evictionCount.increment();
+            }
+            return true;
+        });
+
+        int freeCount = 0;
+        for (int i = 0; i < donor.freeCount; i++) {
+            if (donor.freeChunks[i] < slabAddress || donor.freeChunks[i] >= slabEnd) {
+                donor.freeChunks[freeCount++] = donor.freeChunks[i];
+            }
+        }
+        donor.freeCount = freeCount;
+
+        if (donor.slabAddress == slabAddress) {
+            donor.slabAddress = 0;
+            donor.slabOffset = 0;
+        }
+        donor.slabCount--;
+
+        slabClass.slabAddress = slabAddress;
+        slabClass.slabOffset = slabClass.chunkSize;
+        slabClass.slabCount++;
+        return slabAddress;
+    }
+
+    /**
+     * 获取内存地址所在的内存页
+     * @param address 内存地址
+     * @return 内存页的地址, 不在任何内存页中返回 0
+     */
+    private long slabOf(long address) {
+        for (int i = 0; i < slabs.count; i++) {
+            if (address >= slabs.addresses[i] && address < slabs.addresses[i] + slabSize) {
+                return slabs.addresses[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 移除键值对并回收内存块
+     * @param entry 键值对
+     */
+    private void removeEntry(Entry<K> entry) {
+        lock.writeLock().lock();
+        try {
+            if (!entry.removed) {
+                index.remove(entry.key, entry);
+                free(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 回收内存块, 在写锁内调用
+     *      节点只做标记, 在淘汰或者整理时从队列中清理
+     * @param entry 键值对
+     */
+    private void free(Entry<K> entry) {
+        entry.removed = true;
+        SlabClass<K> slabClass = slabClasses[entry.classIndex];
+        slabClass.liveCount--;
+        slabClass.pushFree(entry.address);
+        usedBytes -= entry.length;
+    }
+
+    private static class Entry<K> {
+        private final K key;
+        private final long address;
+        private final int length;
+        private final int classIndex;
+        private volatile long expireTime;
+        private volatile boolean visited;
+        private volatile boolean removed;
+
+        private Entry(K key, long address, int length, int classIndex) {
+            this.key = key;
+            this.address = address;
+            this.length = length;
+            this.classIndex = classIndex;
+        }
+
+        private boolean isExpire() {
+            long time = expireTime;
+            return time > 0 && System.currentTimeMillis() >= time;
+        }
+    }
+
+    /**
+     * 内存块等级
+     */
+    private static class SlabClass<K> {
+        private final int chunkSize;
+        private long slabAddress = 0;
+        private int slabOffset = 0;
+        private long[] freeChunks = new long[16];
+        private int freeCount = 0;
+        private final ArrayDeque<Entry<K>> entries = new ArrayDeque<Entry<K>>();
+        private int liveCount = 0;
+        private int slabCount = 0;
+
+        private SlabClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        private void add(Entry<K> entry) {
+            entries.addLast(entry);
+            liveCount++;
+
+            //队列中已被移除的节点过多时进行整理
+            if (entries.size() > liveCount * 2 + 16) {
+                entries.removeIf(item -> item.removed);
+            }
+        }
+
+        private long pollFree() {
+            return freeCount == 0 ? 0 : freeChunks[--freeCount];
+        }
+
+        private void pushFree(long address) {
+            if (freeCount == freeChunks.length) {
+                freeChunks = Arrays.copyOf(freeChunks, freeChunks.length * 2);
+            }
+            freeChunks[freeCount++] = address;
+        }
+
+        private void clear() {
+            slabAddress = 0;
+            slabOffset = 0;
+            freeCount = 0;
+            entries.clear();
+            liveCount = 0;
+            slabCount = 0;
+        }
+    }
+
+    /**
+     * 已分配的内存页, 同时负责释放
+     */
+    private static class Slabs implements Runnable {
+        private final long[] addresses;
+        private int count = 0;
+
+        private Slabs(int maxSlabs) {
+            this.addresses = new long[maxSlabs];
+        }
+
+        @Override
+        public synchronized void run() {
+            for (int i = 0; i < count; i++) {
+                UNSAFE.freeMemory(addresses[i]);
+            }
+            count = 0;
+        }
+    }
+}
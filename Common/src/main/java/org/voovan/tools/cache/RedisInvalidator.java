@@ -0,0 +1,98 @@
+package org.voovan.tools.cache;
+
+import org.voovan.tools.TEnv;
+import org.voovan.tools.log.Logger;
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis 发布订阅的缓存失效通知
+ *      订阅在独立的线程中进行, 连接断开后每秒重试一次, 重新订阅成功后通知监听器清空本地缓存
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class RedisInvalidator implements CacheInvalidator {
+    private JedisPool redisPool;
+    private byte[] channel;
+    private volatile boolean closed = false;
+    private volatile BinaryJedisPubSub pubSub;
+    private Thread subscribeThread;
+
+    /**
+     * 构造函数
+     * @param redisPool redis 连接池
+     * @param channel 发布订阅的频道名称
+     */
+    public RedisInvalidator(JedisPool redisPool, String channel) {
+        this.redisPool = redisPool;
+        this.channel = channel.getBytes();
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        try (Jedis jedis = redisPool.getResource()) {
+            jedis.publish(channel, message);
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<byte[]> listener) {
+        if (subscribeThread != null) {
+            throw new IllegalStateException("RedisInvalidator is already subscribed");
+        }
+
+        subscribeThread = new Thread(() -> {
+            boolean reconnect = false;
+            while (!closed) {
+                try (Jedis jedis = redisPool.getResource()) {
+                    final boolean needReset = reconnect;
+                    pubSub = new BinaryJedisPubSub() {
+                        @Override
+                        public void onMessage(byte[] channel, byte[] message) {
+                            //处理消息的异常不能中断订阅
+                            try {
+                                listener.accept(message);
+                            } catch (Exception e) {
+                                Logger.error("RedisInvalidator process message failed", e);
+                            }
+                        }
+
+                        @Override
+                        public void onSubscribe(byte[] channel, int subscribedChannels) {
+                            //断开期间的消息已经丢失
+                            if (needReset) {
+                                listener.accept(null);
+                            }
+                        }
+                    };
+
+                    jedis.subscribe(pubSub, channel);
+                } catch (Exception e) {
+                    if (!closed) {
+                        Logger.error("RedisInvalidator subscribe failed, retry after 1s", e);
+                        TEnv.sleep(1000);
+                    }
+                }
+                reconnect = true;
+            }
+        }, "VOOVAN@REDIS_INVALIDATOR");
+        subscribeThread.setDaemon(true);
+        subscribeThread.start();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        BinaryJedisPubSub currentPubSub = pubSub;
+        if (currentPubSub != null && currentPubSub.isSubscribed()) {
+            currentPubSub.unsubscribe();
+        }
+    }
+}
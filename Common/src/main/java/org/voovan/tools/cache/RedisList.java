@@ -4,6 +4,8 @@ import redis.clients.jedis.BinaryClient;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -21,6 +23,8 @@ public class RedisList implements List<String>, Deque<String>, Closeable {
     private JedisPool redisPool;
     private String name = null;
     private int dbIndex = 0;
+    //连接池的数据集, 连接池在每次获取连接时都会切换回这个数据集
+    private int poolDbIndex = 0;
 
     /**
      * 构造函数
@@ -48,6 +52,31 @@ public class RedisList implements List<String>, Deque<String>, Closeable {
         this.name = name;
     }
 
+    /**
+     * 构造函数
+     * @param host        redis 服务地址
+     * @param port        redis 服务端口
+     * @param timeout     redis 连接超时时间
+     * @param poolsize    redis 连接池的大小
+     * @param name        在 redis 中的 HashMap的名称
+     * @param password    redis 服务密码
+     * @param dbIndex     数据集序号
+     */
+    public RedisList(String host, int port, int timeout, int poolsize, String name, String password, int dbIndex){
+        super();
+
+        //如果没有指定JedisPool的配置文件,则使用默认的
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxIdle(poolsize);
+        poolConfig.setMaxTotal(poolsize);
+
+        //连接池直接使用指定的数据集, 获取连接时不需要再执行 SELECT
+        redisPool = new JedisPool(poolConfig, host, port, timeout, password, dbIndex);
+        this.name = name;
+        this.dbIndex = dbIndex;
+        this.poolDbIndex = dbIndex;
+    }
+
     /**
      * 构造函数
      * @param host        redis 服务地址
@@ -87,12 +116,16 @@ public class RedisList implements List<String>, Deque<String>, Closeable {
 
     private Jedis getJedis(){
         Jedis Jedis = redisPool.getResource();
-        Jedis.select(dbIndex);
+        //只有数据集与连接池的不同时才需要 SELECT
+        if(dbIndex != poolDbIndex) {
+            Jedis.select(dbIndex);
+        }
         return Jedis;
     }
 
     /**
      * 选择当前数据集
+     *      与连接池的数据集不同时, 每次获取连接都需要执行 SELECT, 建议通过构造函数指定数据集
      * @param dbIndex 数据集序号
      */
     public void setDbIndex(int dbIndex) {
@@ -286,19 +319,26 @@ public class RedisList implements List<String>, Deque<String>, Closeable {
 
     @Override
     public boolean addAll(Collection<? extends String> c) {
-        for(String item : c){
-            add(item);
+        if(c.isEmpty()){
+            return false;
+        }
+
+        //一次 RPUSH 写入所有数据
+        try (Jedis jedis = getJedis()) {
+            jedis.rpush(name, c.toArray(new String[0]));
         }
         return true;
     }
 
     @Override
     public boolean addAll(int index, Collection<? extends String> c) {
+        String pivot = get(index);
         try (Jedis jedis = getJedis()) {
-            String pivot = get(index);
+            Pipeline pipeline = jedis.pipelined();
             for(String item : c){
-                jedis.linsert(name, BinaryClient.LIST_POSITION.AFTER, pivot, item);
+                pipeline.linsert(name, BinaryClient.LIST_POSITION.AFTER, pivot, item);
             }
+            pipeline.sync();
         }
 
         return true;
@@ -306,13 +346,21 @@ public class RedisList implements List<String>, Deque<String>, Closeable {
 
     @Override
     public boolean removeAll(Collection<?> c) {
+        List<Response<Long>> responses = new ArrayList<Response<Long>>();
         try (Jedis jedis = getJedis()) {
+            Pipeline pipeline = jedis.pipelined();
             for(Object item : c){
-                remove(c);
+                responses.add(pipeline.lrem(name, 0, item.toString()));
             }
+            pipeline.sync();
         }
 
-        return true;
+        for(Response<Long> response : responses) {
+            if(response.get() > 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
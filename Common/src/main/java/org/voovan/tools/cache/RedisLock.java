@@ -19,6 +19,8 @@ public class RedisLock {
     private JedisPool redisPool;
     private String lockName = null;
     private int dbIndex = 0;
+    //连接池的数据集, 连接池在每次获取连接时都会切换回这个数据集
+    private int poolDbIndex = 0;
     private String lockValue = null;
 
     /**
@@ -47,6 +49,31 @@ public class RedisLock {
         this.lockName = lockName;
     }
 
+    /**
+     * 构造函数
+     * @param host        redis 服务地址
+     * @param port        redis 服务端口
+     * @param timeout     redis 连接超时时间
+     * @param poolsize    redis 连接池的大小
+     * @param lockName        锁的键名
+     * @param password    redis 服务密码
+     * @param dbIndex     数据集序号
+     */
+    public RedisLock(String host, int port, int timeout, int poolsize, String lockName, String password, int dbIndex){
+        super();
+
+        //如果没有指定JedisPool的配置文件,则使用默认的
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxIdle(poolsize);
+        poolConfig.setMaxTotal(poolsize);
+
+        //连接池直接使用指定的数据集, 获取连接时不需要再执行 SELECT
+        redisPool = new JedisPool(poolConfig, host, port, timeout, password, dbIndex);
+        this.lockName = lockName;
+        this.dbIndex = dbIndex;
+        this.poolDbIndex = dbIndex;
+    }
+
     /**
      * 构造函数
      * @param host        redis 服务地址
@@ -86,6 +113,7 @@ public class RedisLock {
 
     /**
      * 选择当前数据集
+     *      与连接池的数据集不同时, 每次获取连接都需要执行 SELECT, 建议通过构造函数指定数据集
      * @param dbIndex 数据集序号
      */
     public void setDbIndex(int dbIndex) {
@@ -94,7 +122,10 @@ public class RedisLock {
 
     private Jedis getJedis(){
         Jedis Jedis = redisPool.getResource();
-        Jedis.select(dbIndex);
+        //只有数据集与连接池的不同时才需要 SELECT
+        if(dbIndex != poolDbIndex) {
+            Jedis.select(dbIndex);
+        }
         return Jedis;
     }
 
@@ -3,12 +3,18 @@ package org.voovan.tools.cache;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -20,6 +26,9 @@ import java.util.stream.Collectors;
  *
  *      如果 name 为 null,则采用 redis 的顶层键值系统, 如果 name 为非 null 则使用 redis 的 map 系统
  *
+ *      批量操作 getAll/putAll/removeAll 只需要一次网络往返
+ *      pipelined 中的写操作通过管道批量发送, 读操作前会先等待管道中的写操作完成
+ *
  * @author: helyho
  * Voovan Framework.
  * WebSite: https://github.com/helyho/Voovan
@@ -35,7 +44,10 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
     private JedisPool redisPool;
     private String name = null;
     private int dbIndex = 0;
+    //连接池的数据集, 连接池在每次获取连接时都会切换回这个数据集
+    private int poolDbIndex = 0;
     private Function<K, V> buildFunction = null;
+    private Pipeline pipeline = null;
 
     /**
      * 构造函数
@@ -63,6 +75,31 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
         this.name = name;
     }
 
+    /**
+     * 构造函数
+     * @param host        redis 服务地址
+     * @param port        redis 服务端口
+     * @param timeout     redis 连接超时时间
+     * @param poolsize    redis 连接池的大小
+     * @param name        在 redis 中的 HashMap的名称
+     * @param password    redis 服务密码
+     * @param dbIndex     数据集序号
+     */
+    public RedisMap(String host, int port, int timeout, int poolsize, String name, String password, int dbIndex){
+        super();
+
+        //如果没有指定JedisPool的配置文件,则使用默认的
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxIdle(poolsize);
+        poolConfig.setMaxTotal(poolsize);
+
+        //连接池直接使用指定的数据集, 获取连接时不需要再执行 SELECT
+        redisPool = new JedisPool(poolConfig, host, port, timeout, password, dbIndex);
+        this.name = name;
+        this.dbIndex = dbIndex;
+        this.poolDbIndex = dbIndex;
+    }
+
     /**
      * 构造函数
      * @param host        redis 服务地址
@@ -102,6 +139,20 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
         redisPool = new JedisPool(poolConfig, host, port, timeout);
     }
 
+    /**
+     * 构造函数, 用于批量操作
+     * @param parent 原 RedisMap 对象
+     * @param pipeline 批量操作的管道
+     */
+    private RedisMap(RedisMap<K, V> parent, Pipeline pipeline){
+        this.redisPool = parent.redisPool;
+        this.name = parent.name;
+        this.dbIndex = parent.dbIndex;
+        this.poolDbIndex = parent.poolDbIndex;
+        this.buildFunction = parent.buildFunction;
+        this.pipeline = pipeline;
+    }
+
     /**
      * 构造函数
      * @param name 在 redis 中的 HashMap的名称
@@ -129,18 +180,50 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
 
     /**
      * 选择当前数据集
+     *      与连接池的数据集不同时, 每次获取连接都需要执行 SELECT, 建议通过构造函数指定数据集
      * @param dbIndex 数据集序号
      */
     public void setDbIndex(int dbIndex) {
         this.dbIndex = dbIndex;
     }
 
+    /**
+     * 获取 redis 连接池
+     * @return redis 连接池
+     */
+    public JedisPool getRedisPool() {
+        return redisPool;
+    }
+
     private Jedis getJedis(){
+        //批量操作中, 读操作前等待管道中的写操作完成
+        if(pipeline != null) {
+            pipeline.sync();
+        }
+
         Jedis Jedis = redisPool.getResource();
-        Jedis.select(dbIndex);
+        //只有数据集与连接池的不同时才需要 SELECT
+        if(dbIndex != poolDbIndex) {
+            Jedis.select(dbIndex);
+        }
         return Jedis;
     }
 
+    /**
+     * 批量操作
+     *      batch 中对 RedisMap 的写操作(put, putAll, remove, removeAll, expire, persist)通过管道发送, 不等待响应,
+     *      读操作会先等待管道中的写操作完成, 再通过另一个连接执行, 因此连接池的大小至少为 2
+     *      管道中的 remove 返回 null, removeAll 返回 -1, expire 和 persist 返回 true
+     * @param batch 批量操作
+     */
+    public void pipelined(Consumer<RedisMap<K, V>> batch) {
+        try (Jedis jedis = getJedis()) {
+            Pipeline batchPipeline = jedis.pipelined();
+            batch.accept(new RedisMap<K, V>(this, batchPipeline));
+            batchPipeline.sync();
+        }
+    }
+
     /**
      * 如果参数为空的默认构造方法
      * @param buildFunction
@@ -254,6 +337,15 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
         byte[] keyByteArray = CacheStatic.serialize(key);
         byte[] valueByteArray = CacheStatic.serialize(value);
 
+        if(pipeline != null) {
+            if(name==null){
+                pipeline.set(keyByteArray, valueByteArray);
+            }else {
+                pipeline.hset(name.getBytes(), keyByteArray, valueByteArray);
+            }
+            return value;
+        }
+
         try (Jedis jedis = getJedis()) {
             if(name==null){
                 jedis.set(keyByteArray, valueByteArray);
@@ -276,6 +368,15 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
         byte[] keyByteArray = CacheStatic.serialize(key);
         byte[] valueByteArray = CacheStatic.serialize(value);
 
+        if(pipeline != null) {
+            if(name==null){
+                pipeline.setex(keyByteArray, expire, valueByteArray);
+                return value;
+            }else {
+                throw new UnsupportedOperationException();
+            }
+        }
+
         try (Jedis jedis = getJedis()) {
             if(name==null){
                 if(jedis.setex(keyByteArray, expire, valueByteArray).equals("OK")) {
@@ -364,6 +465,11 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
     public boolean expire(K key, int expire) {
         byte[] keyByteArray = CacheStatic.serialize(key);
 
+        if(pipeline != null && name==null) {
+            pipeline.expire(keyByteArray, expire);
+            return true;
+        }
+
         try (Jedis jedis = getJedis()) {
             if(name==null){
                 return jedis.expire(keyByteArray, expire)==1;
@@ -381,6 +487,11 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
     public boolean persist(K key) {
         byte[] keyByteArray = CacheStatic.serialize(key);
 
+        if(pipeline != null && name==null) {
+            pipeline.persist(keyByteArray);
+            return true;
+        }
+
         try (Jedis jedis = getJedis()) {
             if(name==null){
                 return jedis.persist(keyByteArray)==1;
@@ -395,8 +506,16 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
         byte[] keyByteArray = CacheStatic.serialize(key);
         byte[] valueByteArray;
 
+        if(pipeline != null) {
+            if(name==null){
+                pipeline.del(keyByteArray);
+            }else {
+                pipeline.hdel(name.getBytes(), keyByteArray);
+            }
+            return null;
+        }
+
         try(Jedis jedis = getJedis()) {
-            byte[] value = null;
             if(name==null){
                 valueByteArray = jedis.get(keyByteArray);
                 if(valueByteArray!=null) {
@@ -405,7 +524,7 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
             }else {
                 valueByteArray = jedis.hget(name.getBytes(), keyByteArray);
                 if(valueByteArray!=null) {
-                    jedis.hdel(keyByteArray);
+                    jedis.hdel(name.getBytes(), keyByteArray);
                 }
             }
 
@@ -413,37 +532,145 @@ public class RedisMap<K, V> implements CacheMap<K, V>, Closeable {
         }
     }
 
+    /**
+     * 批量获取
+     *      name 为 null 时使用 MGET, 否则使用 HMGET, 只需要一次网络往返
+     * @param keys 键的集合
+     * @return 键值对, 不包含不存在的键, 顺序和键的集合一致
+     */
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        if(keys.isEmpty()) {
+            return result;
+        }
+
+        List<K> keyList = new ArrayList<K>(keys);
+        byte[][] keyByteArrays = new byte[keyList.size()][];
+        for(int i=0; i<keyByteArrays.length; i++) {
+            keyByteArrays[i] = CacheStatic.serialize(keyList.get(i));
+        }
+
+        List<byte[]> valueByteArrays;
+        try (Jedis jedis = getJedis()) {
+            if(name==null){
+                valueByteArrays = jedis.mget(keyByteArrays);
+            }else {
+                valueByteArrays = jedis.hmget(name.getBytes(), keyByteArrays);
+            }
+        }
+
+        for(int i=0; i<keyList.size(); i++) {
+            byte[] valueByteArray = valueByteArrays.get(i);
+            if(valueByteArray != null) {
+                result.put(keyList.get(i), (V) CacheStatic.unserialize(valueByteArray));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 批量写入
+     *      name 为 null 时使用 MSET, 否则使用 HMSET, 只需要一次网络往返
+     * @param map 键值对
+     */
     @Override
     public void putAll(Map<? extends K, ? extends V> map) {
-        try (Jedis jedis = getJedis()){
-            for (Object obj : map.entrySet()) {
-                Entry entry = (Entry) obj;
+        if(map.isEmpty()) {
+            return;
+        }
 
-                byte[] keyByteArray = CacheStatic.serialize(entry.getKey());
-                byte[] valueByteArray = CacheStatic.serialize(entry.getValue());
+        if(name==null) {
+            byte[][] keysValues = new byte[map.size() * 2][];
+            int index = 0;
+            for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                keysValues[index++] = CacheStatic.serialize(entry.getKey());
+                keysValues[index++] = CacheStatic.serialize(entry.getValue());
+            }
 
-                if(name==null){
-                    jedis.set(keyByteArray, valueByteArray);
-                }else {
-                    jedis.hset(name.getBytes(), keyByteArray, valueByteArray);
-                }
+            if(pipeline != null) {
+                pipeline.mset(keysValues);
+                return;
+            }
+
+            try (Jedis jedis = getJedis()) {
+                jedis.mset(keysValues);
+            }
+        } else {
+            Map<byte[], byte[]> hash = new HashMap<byte[], byte[]>();
+            for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                hash.put(CacheStatic.serialize(entry.getKey()), CacheStatic.serialize(entry.getValue()));
+            }
+
+            if(pipeline != null) {
+                pipeline.hmset(name.getBytes(), hash);
+                return;
+            }
+
+            try (Jedis jedis = getJedis()) {
+                jedis.hmset(name.getBytes(), hash);
             }
         }
     }
 
+    /**
+     * 批量写入并设置超时时间
+     *      通过管道发送所有的 SETEX, 只需要一次网络往返
+     * @param map 键值对
+     * @param expire 超时时间, 单位: 秒
+     */
     public void putAll(Map<? extends K, ? extends V> map, int expire) {
+        if(name!=null) {
+            throw new UnsupportedOperationException();
+        }
+
+        if(pipeline != null) {
+            for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                pipeline.setex(CacheStatic.serialize(entry.getKey()), expire, CacheStatic.serialize(entry.getValue()));
+            }
+            return;
+        }
+
         try (Jedis jedis = getJedis()){
-            for (Object obj : map.entrySet()) {
-                Entry entry = (Entry) obj;
+            Pipeline putPipeline = jedis.pipelined();
+            for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                putPipeline.setex(CacheStatic.serialize(entry.getKey()), expire, CacheStatic.serialize(entry.getValue()));
+            }
+            putPipeline.sync();
+        }
+    }
 
-                byte[] keyByteArray = CacheStatic.serialize(entry.getKey());
-                byte[] valueByteArray = CacheStatic.serialize(entry.getValue());
+    /**
+     * 批量移除
+     *      name 为 null 时使用 DEL, 否则使用 HDEL, 只需要一次网络往返
+     * @param keys 键的集合
+     * @return 被移除的数量
+     */
+    public long removeAll(Collection<K> keys) {
+        if(keys.isEmpty()) {
+            return 0;
+        }
 
-                if(name==null) {
-                    jedis.setex(keyByteArray, expire, valueByteArray);
-                } else {
-                    throw new UnsupportedOperationException();
-                }
+        byte[][] keyByteArrays = new byte[keys.size()][];
+        int index = 0;
+        for(K key : keys) {
+            keyByteArrays[index++] = CacheStatic.serialize(key);
+        }
+
+        if(pipeline != null) {
+            if(name==null){
+                pipeline.del(keyByteArrays);
+            }else {
+                pipeline.hdel(name.getBytes(), keyByteArrays);
+            }
+            return -1;
+        }
+
+        try (Jedis jedis = getJedis()) {
+            if(name==null){
+                return jedis.del(keyByteArrays);
+            }else {
+                return jedis.hdel(name.getBytes(), keyByteArrays);
             }
         }
     }
@@ -0,0 +1,254 @@
+package org.voovan.tools.cache;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界的分段 LRU 缓存
+ *      新数据先进入试用段, 在试用段中被再次访问过的数据晋升到保护段, 保护段超出容量时降级回试用段
+ *      只访问过一次的数据会很快从试用段中被淘汰, 不会挤占热点数据
+ *      读操作无锁, 只设置访问标记(近似 LRU), 写操作和淘汰在锁内进行
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class SegmentedLruMap<K, V> {
+
+    private final ConcurrentHashMap<K, Node<K, V>> nodes;
+    private final ArrayDeque<Node<K, V>> probation;
+    private final ArrayDeque<Node<K, V>> protect;
+    private final int maxSize;
+    private final int protectMaxSize;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * 构造函数
+     * @param maxSize 缓存的最大容量
+     */
+    public SegmentedLruMap(int maxSize) {
+        if(maxSize <= 0){
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+
+        this.maxSize = maxSize;
+        this.protectMaxSize = Math.max(1, maxSize * 4 / 5);
+        this.nodes = new ConcurrentHashMap<K, Node<K, V>>();
+        this.probation = new ArrayDeque<Node<K, V>>();
+        this.protect = new ArrayDeque<Node<K, V>>();
+    }
+
+    /**
+     * 获取缓存的最大容量
+     * @return 缓存的最大容量
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 获取对象
+     * @param key 键
+     * @return 值, 不存在则返回 null
+     */
+    public V get(K key) {
+        Node<K, V> node = nodes.get(key);
+        if(node == null){
+            missCount.increment();
+            return null;
+        }
+
+        node.visited = true;
+        hitCount.increment();
+        return node.value;
+    }
+
+    /**
+     * 写入对象
+     * @param key 键
+     * @param value 值
+     */
+    public void put(K key, V value) {
+        if (key == null || value == null){
+            throw new NullPointerException();
+        }
+
+        Node<K, V> node = nodes.get(key);
+        if(node != null){
+            node.value = value;
+            node.visited = true;
+            return;
+        }
+
+        synchronized (this) {
+            node = new Node<K, V>(key, value);
+            Node<K, V> oldNode = nodes.putIfAbsent(key, node);
+            if(oldNode != null){
+                oldNode.value = value;
+                oldNode.visited = true;
+                return;
+            }
+
+            probation.addLast(node);
+            evict();
+        }
+    }
+
+    /**
+     * 移除对象
+     *      节点只做标记, 在淘汰时从队列中清理
+     * @param key 键
+     * @return 被移除的值
+     */
+    public V remove(K key) {
+        Node<K, V> node = nodes.remove(key);
+        if(node == null){
+            return null;
+        }
+
+        node.removed = true;
+        return node.value;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        nodes.clear();
+        probation.clear();
+        protect.clear();
+    }
+
+    /**
+     * 获取缓存中的对象数量
+     * @return 对象数量
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 淘汰多余的数据, 在锁内调用
+     */
+    private void evict() {
+        //队列中已被移除的节点过多时, 轮转一遍队列进行清理
+        int rotateCount = probation.size() + protect.size() > maxSize * 2 ? probation.size() : 0;
+
+        while(nodes.size() > maxSize || rotateCount > 0) {
+            rotateCount--;
+
+            Node<K, V> node = probation.pollFirst();
+
+            //试用段为空, 从保护段降级
+            if(node == null) {
+                node = protect.pollFirst();
+                if(node == null) {
+                    break;
+                }
+
+                if(!node.removed) {
+                    probation.addLast(node);
+                }
+                continue;
+            }
+
+            if(node.removed) {
+                continue;
+            }
+
+            if(node.visited) {
+                //再次被访问过, 晋升到保护段
+                node.visited = false;
+                protect.addLast(node);
+                fixProtectSize();
+            } else if(nodes.size() > maxSize) {
+                //淘汰
+                if(nodes.remove(node.key, node)) {
+                    evictionCount.increment();
+                }
+            } else {
+                probation.addLast(node);
+            }
+        }
+    }
+
+    /**
+     * 保护段超出容量时, 将最久没有被访问的数据降级到试用段
+     */
+    private void fixProtectSize() {
+        int loopCount = protect.size();
+        while(protect.size() > protectMaxSize && loopCount-- > 0) {
+            Node<K, V> node = protect.pollFirst();
+            if(node.removed) {
+                continue;
+            }
+
+            if(node.visited) {
+                node.visited = false;
+                protect.addLast(node);
+            } else {
+                probation.addLast(node);
+            }
+        }
+
+        //所有数据都被访问过的情况, 强制降级
+        while(protect.size() > protectMaxSize) {
+            Node<K, V> node = protect.pollFirst();
+            if(!node.removed) {
+                probation.addLast(node);
+            }
+        }
+    }
+
+    /**
+     * 获取命中次数
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 获取未命中次数
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 获取淘汰次数
+     * @return 淘汰次数
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 获取命中率
+     * @return 命中率, 没有访问时返回 0
+     */
+    public double getHitRate() {
+        long hit = hitCount.sum();
+        long total = hit + missCount.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private static class Node<K, V> {
+        private final K key;
+        private volatile V value;
+        private volatile boolean visited;
+        private volatile boolean removed;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
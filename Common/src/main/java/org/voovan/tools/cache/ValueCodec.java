@@ -0,0 +1,28 @@
+package org.voovan.tools.cache;
+
+/**
+ * 缓存值的编解码器
+ *      用于需要将值保存为字节的缓存
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public interface ValueCodec<V> {
+
+    /**
+     * 编码
+     * @param value 值
+     * @return 字节数组
+     */
+    public byte[] encode(V value);
+
+    /**
+     * 解码
+     * @param bytes 字节数组
+     * @return 值
+     */
+    public V decode(byte[] bytes);
+}
@@ -0,0 +1,284 @@
+package org.voovan.tools.cache;
+
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * W-TinyLFU 淘汰策略
+ *      新数据先进入窗口段(容量的 1%, LRU), 窗口段溢出的数据作为候选者进入主空间的试用段
+ *      主空间为分段 LRU: 试用段中被再次访问的数据晋升到保护段(主空间的 80%), 保护段溢出时降级回试用段
+ *      容量超出时, 比较候选者和试用段中最久没有访问的数据的访问频率, 淘汰频率低的一方
+ *      只访问一次的数据和扫描式的访问无法挤占高频的数据, 每次写入最多淘汰一个键, 不需要周期性的扫描
+ *      访问记录在锁被占用时丢弃, 读操作不会被写操作阻塞
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class WTinyLfuPolicy<K> implements EvictionPolicy<K> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final int maximum;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    private final HashMap<K, Node<K>> nodes;
+    private final FrequencySketch<K> sketch;
+    private final Queue<K> window;
+    private final Queue<K> probation;
+    private final Queue<K> protect;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 构造函数
+     * @param maximum 缓存的最大容量
+     */
+    public WTinyLfuPolicy(int maximum) {
+        if (maximum <= 0) {
+            throw new IllegalArgumentException("maximum must be greater than 0");
+        }
+
+        this.maximum = maximum;
+        this.windowMaximum = Math.max(1, maximum / 100);
+        this.protectedMaximum = Math.max(0, (maximum - windowMaximum) * 4 / 5);
+        this.nodes = new HashMap<K, Node<K>>();
+        this.sketch = new FrequencySketch<K>(maximum);
+        this.window = new Queue<K>();
+        this.probation = new Queue<K>();
+        this.protect = new Queue<K>();
+    }
+
+    /**
+     * 获取缓存的最大容量
+     * @return 缓存的最大容量
+     */
+    public int getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * 获取键的访问频率估算值
+     * @param key 键
+     * @return 访问频率
+     */
+    public int frequency(K key) {
+        lock.lock();
+        try {
+            return sketch.frequency(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onAccess(K key) {
+        //锁被占用时丢弃本次访问记录
+        if (!lock.tryLock()) {
+            return;
+        }
+
+        try {
+            sketch.increment(key);
+
+            Node<K> node = nodes.get(key);
+            if (node == null) {
+                return;
+            }
+
+            if (node.queue == WINDOW) {
+                window.moveToTail(node);
+            } else if (node.queue == PROBATION) {
+                //晋升到保护段
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protect.addTail(node);
+
+                //保护段溢出, 最久没有访问的数据降级到试用段
+                while (protect.size > protectedMaximum) {
+                    Node<K> demoted = protect.pollHead();
+                    demoted.queue = PROBATION;
+                    probation.addTail(demoted);
+                }
+            } else {
+                protect.moveToTail(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public K onInsert(K key) {
+        lock.lock();
+        try {
+            sketch.increment(key);
+
+            Node<K> node = nodes.get(key);
+            if (node != null) {
+                return null;
+            }
+
+            node = new Node<K>(key);
+            nodes.put(key, node);
+            window.addTail(node);
+
+            //窗口段溢出, 最久没有访问的数据作为候选者进入试用段
+            Node<K> candidate = null;
+            if (window.size > windowMaximum) {
+                candidate = window.pollHead();
+                candidate.queue = PROBATION;
+                probation.addTail(candidate);
+            }
+
+            if (nodes.size() <= maximum) {
+                return null;
+            }
+
+            return evict(candidate);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 淘汰一个键
+     * @param candidate 候选者
+     * @return 被淘汰的键
+     */
+    private K evict(Node<K> candidate) {
+        Node<K> victim = probation.head;
+        if (victim == null || victim == candidate) {
+            victim = protect.head;
+        }
+
+        Node<K> evicted;
+        if (victim == null) {
+            evicted = candidate != null ? candidate : window.head;
+        } else if (candidate == null) {
+            evicted = victim;
+        } else {
+            //候选者的访问频率高于受害者时才被接纳
+            evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+        }
+
+        if (evicted == null) {
+            return null;
+        }
+
+        unlink(evicted);
+        nodes.remove(evicted.key);
+        return evicted.key;
+    }
+
+    @Override
+    public void onRemove(K key) {
+        lock.lock();
+        try {
+            Node<K> node = nodes.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            nodes.clear();
+            window.clear();
+            probation.clear();
+            protect.clear();
+            sketch.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unlink(Node<K> node) {
+        if (node.queue == WINDOW) {
+            window.remove(node);
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+        } else {
+            protect.remove(node);
+        }
+    }
+
+    private static class Node<K> {
+        private final K key;
+        private int queue = WINDOW;
+        private Node<K> prev;
+        private Node<K> next;
+
+        private Node(K key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 双向链表, 头部为最久没有访问的数据
+     */
+    private static class Queue<K> {
+        private Node<K> head;
+        private Node<K> tail;
+        private int size;
+
+        private void addTail(Node<K> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        private Node<K> pollHead() {
+            Node<K> node = head;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        private void remove(Node<K> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        private void moveToTail(Node<K> node) {
+            if (node != tail) {
+                remove(node);
+                addTail(node);
+            }
+        }
+
+        private void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+}
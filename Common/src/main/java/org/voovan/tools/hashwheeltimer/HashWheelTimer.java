@@ -18,6 +18,8 @@ public class HashWheelTimer {
     private HashWheel wheel;
     private int tickStep = 1000;
     private Timer timer;
+    private volatile long tickLag;
+    private volatile long maxTickLag;
 
     /**
      * 构造函数
@@ -91,6 +93,13 @@ public class HashWheelTimer {
                     this.cancel();
                 }
 
+                //实际执行时间相对计划执行时间的延迟
+                long lag = System.currentTimeMillis() - scheduledExecutionTime();
+                tickLag = lag;
+                if(lag > maxTickLag) {
+                    maxTickLag = lag;
+                }
+
                 try {
                     rotateWheel.Tick();
                 } catch (Exception e){
@@ -107,6 +116,22 @@ public class HashWheelTimer {
         return true;
     }
 
+    /**
+     * 获取最近一次轮转的延迟
+     * @return 延迟时间, 单位: 毫秒
+     */
+    public long getTickLag() {
+        return tickLag;
+    }
+
+    /**
+     * 获取轮转的最大延迟
+     * @return 延迟时间, 单位: 毫秒
+     */
+    public long getMaxTickLag() {
+        return maxTickLag;
+    }
+
     /**
      * 停止时间轮的轮转
      */
@@ -0,0 +1,208 @@
+package org.voovan.tools.hashwheeltimer;
+
+import org.voovan.tools.log.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 超时时间轮
+ *      按对象管理超时时间, 用于连接保持等大量对象的超时清理
+ *      刷新超时时间只更新对象的截止时间, 复杂度 O(1), 不移动时间轮中的节点
+ *      每次轮转只处理当前槽中的对象, 未超时的对象按新的截止时间重新放入时间轮
+ *
+ * @author: helyho
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class TimeoutWheel<T> {
+
+    private final Queue<Entry<T>>[] slots;
+    private final ConcurrentHashMap<T, Entry<T>> entries;
+    private final long tickDuration;
+    private final Consumer<T> timeoutHandler;
+    private volatile long lastTick;
+    private final LongAdder timeoutCount = new LongAdder();
+
+    /**
+     * 构造函数
+     * @param size 时间轮的槽数
+     * @param tickDuration 每槽的步长, 单位: 毫秒
+     * @param timeoutHandler 超时处理函数
+     */
+    public TimeoutWheel(int size, long tickDuration, Consumer<T> timeoutHandler) {
+        if(size <= 0 || tickDuration <= 0){
+            throw new IllegalArgumentException("size and tickDuration must be greater than 0");
+        }
+
+        this.slots = new Queue[size];
+        for(int i=0; i<size; i++){
+            slots[i] = new ConcurrentLinkedQueue<Entry<T>>();
+        }
+        this.entries = new ConcurrentHashMap<T, Entry<T>>();
+        this.tickDuration = tickDuration;
+        this.timeoutHandler = timeoutHandler;
+        this.lastTick = System.currentTimeMillis() / tickDuration;
+    }
+
+    /**
+     * 增加对象或刷新对象的超时时间
+     * @param key 对象
+     * @param timeout 超时时间, 单位: 毫秒
+     */
+    public void touch(T key, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+
+        Entry<T> entry = entries.get(key);
+        if(entry == null) {
+            entry = new Entry<T>(key, deadline);
+            Entry<T> oldEntry = entries.putIfAbsent(key, entry);
+            if(oldEntry == null){
+                schedule(entry, deadlineTick(deadline));
+                return;
+            }
+            entry = oldEntry;
+        }
+
+        entry.deadline = deadline;
+
+        //截止时间提前的情况下, 需要放入更早的槽中
+        long tick = deadlineTick(deadline);
+        long scheduledTick = entry.scheduledTick.get();
+        while(tick < scheduledTick) {
+            if(entry.scheduledTick.compareAndSet(scheduledTick, tick)) {
+                slots[slotIndex(tick)].offer(entry);
+                break;
+            }
+            scheduledTick = entry.scheduledTick.get();
+        }
+    }
+
+    /**
+     * 移除对象
+     *      时间轮中的节点在轮转到时被清理
+     * @param key 对象
+     * @return true: 移除成功, false: 对象不存在
+     */
+    public boolean remove(T key) {
+        return entries.remove(key) != null;
+    }
+
+    /**
+     * 判断对象是否在时间轮中
+     * @param key 对象
+     * @return true: 存在, false: 不存在
+     */
+    public boolean contains(T key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * 获取时间轮中的对象数量
+     * @return 对象数量
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 获取已超时的对象总数
+     * @return 超时的对象总数
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    /**
+     * 轮转时间轮, 处理已经到期的槽
+     *      由定时器周期调用, 调用间隔应与步长一致
+     * @return 本次超时的对象数量
+     */
+    public synchronized int tick() {
+        long nowTick = System.currentTimeMillis() / tickDuration;
+        if(nowTick <= lastTick) {
+            return 0;
+        }
+
+        //落后超过一圈时, 每个槽只需处理一次
+        long startTick = Math.max(lastTick + 1, nowTick - slots.length + 1);
+        lastTick = nowTick;
+
+        int count = 0;
+        for(long tick = startTick; tick <= nowTick; tick++) {
+            count += processSlot(slotIndex(tick), nowTick);
+        }
+        return count;
+    }
+
+    private int processSlot(int slotIndex, long nowTick) {
+        Queue<Entry<T>> slot = slots[slotIndex];
+        int count = 0;
+
+        //只处理当前槽中已有的节点, 重新放入当前槽的节点留给下一圈处理
+        for(int i = slot.size(); i > 0; i--) {
+            Entry<T> entry = slot.poll();
+            if(entry == null) {
+                break;
+            }
+
+            //已移除的对象或截止时间提前后留下的重复节点
+            if(entries.get(entry.key) != entry || slotIndex(entry.scheduledTick.get()) != slotIndex) {
+                continue;
+            }
+
+            long tick = (entry.deadline + tickDuration - 1) / tickDuration;
+            if(tick <= nowTick) {
+                if(entries.remove(entry.key, entry)) {
+                    timeoutCount.increment();
+                    count++;
+                    try {
+                        timeoutHandler.accept(entry.key);
+                    } catch (Exception e) {
+                        Logger.error("TimeoutWheel timeout handler error", e);
+                    }
+                }
+            } else {
+                entry.scheduledTick.set(tick);
+                slots[slotIndex(tick)].offer(entry);
+            }
+        }
+
+        return count;
+    }
+
+    private void schedule(Entry<T> entry, long tick) {
+        entry.scheduledTick.set(tick);
+        slots[slotIndex(tick)].offer(entry);
+    }
+
+    /**
+     * 计算截止时间所在的槽, 最早为下一个槽
+     * @param deadline 截止时间
+     * @return 槽的序号
+     */
+    private long deadlineTick(long deadline) {
+        long tick = (deadline + tickDuration - 1) / tickDuration;
+        return Math.max(tick, lastTick + 1);
+    }
+
+    private int slotIndex(long tick) {
+        return (int)(tick % slots.length);
+    }
+
+    private static class Entry<T> {
+        private final T key;
+        private volatile long deadline;
+        private final AtomicLong scheduledTick = new AtomicLong(Long.MAX_VALUE);
+
+        private Entry(T key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -3,6 +3,9 @@ package org.voovan.tools.json;
 import org.voovan.tools.TString;
 import org.voovan.tools.log.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.text.ParseException;
 import java.util.function.Supplier;
@@ -83,6 +86,22 @@ public class JSON {
 		return jsonString;
 	}
 
+	/**
+	 * 将 Java 对象 转换成 JSON 并以 UTF-8 编码写入输出流, 不生成中间的字符串
+	 * 		输出的内容和 toJSON 返回的字符串一致
+	 * @param object   	待转换的对象
+	 * @param outputStream 输出流, 写入完成后不会关闭
+	 */
+	public static void toJSON(Object object, OutputStream outputStream){
+		try {
+			JSONEncode.write(object, outputStream, true, true);
+		} catch (ReflectiveOperationException e) {
+			Logger.error("Reflective Operation failed",e);
+		} catch (IOException e) {
+			Logger.error("Write JSON to OutputStream failed",e);
+		}
+	}
+
 	/**
 	 * 将 JSON字符串 转换成 Java 对象
 	 * @param <T>			范型
@@ -114,6 +133,64 @@ public class JSON {
 	}
 
 
+	/**
+	 * 将 UTF-8 编码的 JSON 字节数组 转换成 Java 对象, 不需要先转换成字符串
+	 * @param <T>			范型
+	 * @param bytes		待转换的 JSON 字节数组
+	 * @param type			转换的目标 java 类
+	 * @param ignoreCase    是否忽略字段大小写
+	 * @return				转换后的 Java 对象
+	 */
+	public static <T> T toObject(byte[] bytes, Type type, boolean ignoreCase){
+		T valueObject = null;
+		try {
+			valueObject = JSONDecode.fromJSON(bytes, type, ignoreCase);
+		} catch (ReflectiveOperationException | ParseException e) {
+			Logger.error("Reflective Operation failed",e);
+		}
+		return valueObject;
+	}
+
+	/**
+	 * 将 UTF-8 编码的 JSON 字节数组 转换成 Java 对象,默认严格限制字段大小写
+	 * @param <T>			范型
+	 * @param bytes		待转换的 JSON 字节数组
+	 * @param type			转换的目标 java 类
+	 * @return				转换后的 Java 对象
+	 */
+	public static <T> T toObject(byte[] bytes, Type type){
+		return toObject(bytes, type, false);
+	}
+
+	/**
+	 * 从 UTF-8 编码的输入流中读取 JSON 并转换成 Java 对象, 读取完成后关闭输入流
+	 * 		输入流只能读取一次, 因此只支持 JSONReader 能够解析的格式
+	 * @param <T>			范型
+	 * @param inputStream	输入流
+	 * @param type			转换的目标 java 类
+	 * @param ignoreCase    是否忽略字段大小写
+	 * @return				转换后的 Java 对象
+	 */
+	public static <T> T toObject(InputStream inputStream, Type type, boolean ignoreCase){
+		T valueObject = null;
+		try (JSONReader reader = new JSONReader(inputStream)) {
+			valueObject = JSONDecode.fromJSON(reader, type, ignoreCase);
+		} catch (ReflectiveOperationException | ParseException | IOException e) {
+			Logger.error("Reflective Operation failed",e);
+		}
+		return valueObject;
+	}
+
+	/**
+	 * 解析 UTF-8 编码的 JSON 字节数组
+	 * 		如果是{}包裹的解析成 HashMap,如果是[]包裹的解析成 ArrayList
+	 * @param bytes	待解析的 JSON 字节数组
+	 * @return 解析后的对象
+	 */
+	public static Object parse(byte[] bytes){
+		return JSONDecode.parse(bytes);
+	}
+
 	/**
 	 * 解析 JSON 字符串
 	 * 		如果是{}包裹的字符串解析成 HashMap,如果是[]包裹的字符串解析成 ArrayList
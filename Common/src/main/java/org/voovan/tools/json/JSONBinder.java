@@ -0,0 +1,338 @@
+package org.voovan.tools.json;
+
+import org.voovan.tools.TDateTime;
+import org.voovan.tools.TString;
+import org.voovan.tools.TUnsafe;
+import org.voovan.tools.reflect.TReflect;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JSON 绑定器
+ * 		从 JSONReader 中读取记号直接填充目标类型的对象, 不生成中间的 Map 和 List
+ * 		每个类的字段信息和构造方法只分析一次, 字段通过 Unsafe 按偏移量赋值
+ * 		类型转换的规则与 TReflect.getObjectFromMap 一致, 字符串可以转换成数字, 对象, 集合等类型
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class JSONBinder {
+
+	private static final Unsafe UNSAFE = TUnsafe.getUnsafe();
+
+	private static final ConcurrentHashMap<Class, ClassInfo> CLASS_INFOS = new ConcurrentHashMap<Class, ClassInfo>();
+
+	/**
+	 * 读取下一个值并转换成指定的类型
+	 * @param reader JSONReader 对象
+	 * @param type 目标类型, 为 null 或 Object 时读取为 Map, List 和基本类型
+	 * @param ignoreCase 匹配字段名时是否忽略大小写
+	 * @param <T> 范型
+	 * @return 转换后的对象
+	 * @throws ReflectiveOperationException 反射异常
+	 * @throws ParseException 解析异常
+	 */
+	public static <T> T bind(JSONReader reader, Type type, boolean ignoreCase) throws ReflectiveOperationException, ParseException {
+		Class clazz = getRawClass(type);
+		JSONReader.Token token = reader.peek();
+
+		if (token == JSONReader.Token.NULL) {
+			reader.nextNull();
+			return null;
+		}
+
+		if (clazz == Object.class) {
+			return (T) reader.readValue();
+		} else if (clazz == String.class) {
+			if (token == JSONReader.Token.BEGIN_OBJECT || token == JSONReader.Token.BEGIN_ARRAY) {
+				return (T) JSON.toJSON(reader.readValue());
+			}
+			return (T) reader.nextString();
+		} else if (clazz == int.class || clazz == Integer.class) {
+			return (T) (Integer) reader.nextInt();
+		} else if (clazz == long.class || clazz == Long.class) {
+			return (T) (Long) reader.nextLong();
+		} else if (clazz == boolean.class || clazz == Boolean.class) {
+			return (T) (Boolean) reader.nextBoolean();
+		} else if (clazz == double.class || clazz == Double.class) {
+			return (T) (Double) reader.nextDouble();
+		} else if (clazz == float.class || clazz == Float.class) {
+			return (T) Float.valueOf(reader.nextString().trim());
+		} else if (clazz == short.class || clazz == Short.class) {
+			return (T) Short.valueOf(reader.nextString().trim());
+		} else if (clazz == byte.class || clazz == Byte.class) {
+			return (T) Byte.valueOf(reader.nextString().trim());
+		} else if (clazz == char.class || clazz == Character.class) {
+			String value = reader.nextString();
+			return (T) (value.isEmpty() ? null : (Character) value.charAt(0));
+		} else if (clazz == BigDecimal.class) {
+			return (T) new BigDecimal(reader.nextString().trim());
+		} else if (clazz == BigInteger.class) {
+			return (T) new BigInteger(reader.nextString().trim());
+		} else if (clazz == AtomicInteger.class) {
+			return (T) new AtomicInteger(reader.nextInt());
+		} else if (clazz == AtomicLong.class) {
+			return (T) new AtomicLong(reader.nextLong());
+		} else if (clazz == AtomicBoolean.class) {
+			return (T) new AtomicBoolean(reader.nextBoolean());
+		} else if (TReflect.isExtendsByClass(clazz, Date.class)) {
+			long time;
+			if (token == JSONReader.Token.NUMBER) {
+				time = reader.nextLong();
+			} else {
+				time = new SimpleDateFormat(TDateTime.STANDER_DATETIME_TEMPLATE).parse(reader.nextString()).getTime();
+			}
+			return (T) TReflect.newInstance(clazz, time);
+		} else if (clazz.isEnum()) {
+			return (T) Enum.valueOf(clazz, reader.nextString());
+		}
+
+		//字符串中的 JSON, 使用 TString.toObject 转换
+		if (token == JSONReader.Token.STRING) {
+			return TString.toObject(reader.nextString(), type, ignoreCase);
+		}
+
+		if (clazz.isArray()) {
+			return (T) bindArray(reader, type, clazz, ignoreCase);
+		} else if (Collection.class.isAssignableFrom(clazz)) {
+			return (T) bindCollection(reader, type, clazz, ignoreCase);
+		} else if (Map.class.isAssignableFrom(clazz)) {
+			return (T) bindMap(reader, type, clazz, ignoreCase);
+		} else {
+			return (T) bindObject(reader, clazz, ignoreCase);
+		}
+	}
+
+	private static Object bindArray(JSONReader reader, Type type, Class clazz, boolean ignoreCase) throws ReflectiveOperationException, ParseException {
+		Type componentType = type instanceof GenericArrayType ?
+				((GenericArrayType) type).getGenericComponentType() : clazz.getComponentType();
+
+		List<Object> items = new ArrayList<Object>();
+		reader.beginArray();
+		while (reader.hasNext()) {
+			items.add(bind(reader, componentType, ignoreCase));
+		}
+		reader.endArray();
+
+		Object array = Array.newInstance(clazz.getComponentType(), items.size());
+		for (int i = 0; i < items.size(); i++) {
+			Array.set(array, i, items.get(i));
+		}
+		return array;
+	}
+
+	private static Collection bindCollection(JSONReader reader, Type type, Class clazz, boolean ignoreCase) throws ReflectiveOperationException, ParseException {
+		Type itemType = getTypeArgument(type, 0);
+		Collection collection = (Collection) getClassInfo(clazz).newInstance();
+
+		reader.beginArray();
+		while (reader.hasNext()) {
+			collection.add(bind(reader, itemType, ignoreCase));
+		}
+		reader.endArray();
+		return collection;
+	}
+
+	private static Map bindMap(JSONReader reader, Type type, Class clazz, boolean ignoreCase) throws ReflectiveOperationException, ParseException {
+		Type keyType = getTypeArgument(type, 0);
+		Type valueType = getTypeArgument(type, 1);
+		boolean stringKey = keyType == Object.class || keyType == String.class;
+		Map map = (Map) getClassInfo(clazz).newInstance();
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			Object key = stringKey ? name : TString.toObject(name, keyType, ignoreCase);
+			map.put(key, bind(reader, valueType, ignoreCase));
+		}
+		reader.endObject();
+		return map;
+	}
+
+	private static Object bindObject(JSONReader reader, Class clazz, boolean ignoreCase) throws ReflectiveOperationException, ParseException {
+		ClassInfo classInfo = getClassInfo(clazz);
+		Object object = classInfo.newInstance();
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			FieldInfo fieldInfo = classInfo.fields.get(name);
+			if (fieldInfo == null && ignoreCase) {
+				fieldInfo = classInfo.lowerCaseFields.get(name.toLowerCase());
+			}
+
+			if (fieldInfo == null) {
+				reader.skipValue();
+				continue;
+			}
+
+			try {
+				fieldInfo.set(object, reader, ignoreCase);
+			} catch (ParseException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new ReflectiveOperationException("Fill object " + clazz.getName() + "#" + fieldInfo.field.getName() + " failed", e);
+			}
+		}
+		reader.endObject();
+		return object;
+	}
+
+	private static ClassInfo getClassInfo(Class clazz) {
+		ClassInfo classInfo = CLASS_INFOS.get(clazz);
+		if (classInfo == null) {
+			classInfo = CLASS_INFOS.computeIfAbsent(clazz, ClassInfo::new);
+		}
+		return classInfo;
+	}
+
+	private static Class getRawClass(Type type) {
+		if (type instanceof Class) {
+			return (Class) type;
+		} else if (type instanceof ParameterizedType) {
+			return (Class) ((ParameterizedType) type).getRawType();
+		} else if (type instanceof GenericArrayType) {
+			return Array.newInstance(getRawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+		} else if (type instanceof WildcardType) {
+			return getRawClass(((WildcardType) type).getUpperBounds()[0]);
+		} else if (type instanceof TypeVariable) {
+			return getRawClass(((TypeVariable) type).getBounds()[0]);
+		} else {
+			return Object.class;
+		}
+	}
+
+	private static Type getTypeArgument(Type type, int index) {
+		if (type instanceof ParameterizedType) {
+			Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+			if (arguments.length > index) {
+				return arguments[index];
+			}
+		}
+		return Object.class;
+	}
+
+	/**
+	 * 类的绑定信息
+	 */
+	private static class ClassInfo {
+		private Constructor constructor;
+		private final Class clazz;
+		private final Map<String, FieldInfo> fields = new HashMap<String, FieldInfo>();
+		private final Map<String, FieldInfo> lowerCaseFields = new HashMap<String, FieldInfo>();
+
+		private ClassInfo(Class clazz) {
+			//不可构造的集合类型使用最常用的类型
+			if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+				if (SortedMap.class.isAssignableFrom(clazz)) {
+					clazz = TreeMap.class;
+				} else if (Map.class.isAssignableFrom(clazz)) {
+					clazz = LinkedHashMap.class;
+				} else if (SortedSet.class.isAssignableFrom(clazz)) {
+					clazz = TreeSet.class;
+				} else if (Set.class.isAssignableFrom(clazz)) {
+					clazz = HashSet.class;
+				} else if (Collection.class.isAssignableFrom(clazz)) {
+					clazz = ArrayList.class;
+				}
+			}
+
+			this.clazz = clazz;
+			try {
+				constructor = clazz.getDeclaredConstructor();
+				constructor.setAccessible(true);
+			} catch (Exception e) {
+				constructor = null;
+			}
+
+			if (Collection.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz)) {
+				return;
+			}
+
+			for (Field field : TReflect.getFields(clazz)) {
+				if (Modifier.isStatic(field.getModifiers())) {
+					continue;
+				}
+
+				//子类的字段优先
+				FieldInfo exists = fields.get(field.getName());
+				if (exists == null || exists.field.getDeclaringClass().isAssignableFrom(field.getDeclaringClass())) {
+					FieldInfo fieldInfo = new FieldInfo(field);
+					fields.put(field.getName(), fieldInfo);
+					lowerCaseFields.put(field.getName().toLowerCase(), fieldInfo);
+				}
+			}
+		}
+
+		private Object newInstance() throws ReflectiveOperationException {
+			if (constructor != null) {
+				return constructor.newInstance();
+			} else {
+				return UNSAFE.allocateInstance(clazz);
+			}
+		}
+	}
+
+	/**
+	 * 字段的绑定信息
+	 */
+	private static class FieldInfo {
+		private final Field field;
+		private final Class type;
+		private final Type genericType;
+		private final long offset;
+
+		private FieldInfo(Field field) {
+			this.field = field;
+			this.type = field.getType();
+			this.genericType = field.getGenericType();
+			this.offset = TUnsafe.getFieldOffset(field);
+		}
+
+		private void set(Object object, JSONReader reader, boolean ignoreCase) throws ReflectiveOperationException, ParseException {
+			if (type.isPrimitive()) {
+				//null 不改变基本类型字段的值
+				if (reader.peek() == JSONReader.Token.NULL) {
+					reader.nextNull();
+				} else if (type == int.class) {
+					UNSAFE.putInt(object, offset, reader.nextInt());
+				} else if (type == long.class) {
+					UNSAFE.putLong(object, offset, reader.nextLong());
+				} else if (type == boolean.class) {
+					UNSAFE.putBoolean(object, offset, reader.nextBoolean());
+				} else if (type == double.class) {
+					UNSAFE.putDouble(object, offset, reader.nextDouble());
+				} else if (type == float.class) {
+					UNSAFE.putFloat(object, offset, (Float) bind(reader, type, ignoreCase));
+				} else if (type == short.class) {
+					UNSAFE.putShort(object, offset, (Short) bind(reader, type, ignoreCase));
+				} else if (type == byte.class) {
+					UNSAFE.putByte(object, offset, (Byte) bind(reader, type, ignoreCase));
+				} else if (type == char.class) {
+					Character value = bind(reader, type, ignoreCase);
+					UNSAFE.putChar(object, offset, value == null ? '\0' : value);
+				}
+			} else {
+				Object value = bind(reader, genericType, ignoreCase);
+				if (value != null && !type.isInstance(value)) {
+					throw new ReflectiveOperationException("Conver field object error! Exception type: " +
+							type.getName() + ", Object type: " + value.getClass().getName());
+				}
+				UNSAFE.putObject(object, offset, value);
+			}
+		}
+	}
+}
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.*;
 
@@ -25,10 +26,69 @@ public class JSONDecode {
 	private static int E_OBJECT = 1;
 	private static int E_ARRAY = -1;
 
+	/**
+	 * 解析 JSON 字符串
+	 * 		{}或者[]包裹的字符串使用 JSONReader 解析, JSONReader 无法解析时(例如包含不带引号的字符串值或者函数)使用原有的解析方式
+	 * @param jsonStr 待解析的 JSON 字符串
+	 * @return 解析后的对象
+	 */
 	public static Object parse(String jsonStr) {
+		if (isContainer(jsonStr)) {
+			try {
+				return new JSONReader(jsonStr).readValue();
+			} catch (ParseException e) {
+				//使用原有的解析方式
+			}
+		}
+
 		return parse(new StringReader(jsonStr.trim() + "\0"));
 	}
 
+	/**
+	 * 解析 UTF-8 编码的 JSON 字节数组
+	 * @param bytes 待解析的 JSON 字节数组
+	 * @return 解析后的对象
+	 */
+	public static Object parse(byte[] bytes) {
+		if (isContainer(bytes)) {
+			try {
+				return new JSONReader(bytes).readValue();
+			} catch (ParseException e) {
+				//使用原有的解析方式
+			}
+		}
+
+		return parse(new StringReader(new String(bytes, StandardCharsets.UTF_8).trim() + "\0"));
+	}
+
+	/**
+	 * 判断是否是{}或者[]包裹的 JSON 字符串, 以注释开始的也认为是
+	 */
+	private static boolean isContainer(String jsonStr) {
+		for (int i = 0; i < jsonStr.length(); i++) {
+			char c = jsonStr.charAt(i);
+			if (!Character.isWhitespace(c) && c != '\uFEFF') {
+				return c == '{' || c == '[' || c == '/';
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 判断是否是{}或者[]包裹的 JSON 字节数组
+	 */
+	private static boolean isContainer(byte[] bytes) {
+		//跳过 UTF-8 的 BOM
+		int i = bytes.length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF ? 3 : 0;
+		for (; i < bytes.length; i++) {
+			byte b = bytes[i];
+			if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+				return b == '{' || b == '[' || b == '/';
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * 解析 JSON 字符串
 	 *         如果是{}包裹的对象解析成 HashMap,如果是[]包裹的对象解析成 ArrayList
@@ -371,7 +431,68 @@ public class JSONDecode {
 			return null;
 		}
 
-		Object parseObject = parse(jsonStr);
+		//{}或者[]包裹的字符串直接绑定到目标类型
+		if(isContainer(jsonStr)){
+			try {
+				return fromJSON(new JSONReader(jsonStr), type, ignoreCase);
+			} catch (ParseException e) {
+				//使用原有的解析方式
+			}
+		}
+
+		return fromObject(parse(new StringReader(jsonStr.trim() + "\0")), jsonStr, type, ignoreCase);
+	}
+
+	/**
+	 * 解析 UTF-8 编码的 JSON 字节数组成为参数指定的类
+	 * @param <T>         范型
+	 * @param bytes       JSON 字节数组
+	 * @param type        JSON 将要转换的目标类
+	 * @param ignoreCase 是否在字段匹配时忽略大小写
+	 * @return                    JSON 转换后的 Java 对象
+	 * @throws ReflectiveOperationException  反射异常
+	 * @throws ParseException 解析异常
+	 */
+	public static <T>T fromJSON(byte[] bytes, Type type, boolean ignoreCase) throws ReflectiveOperationException, ParseException {
+		if(bytes==null){
+			return null;
+		}
+
+		if(isContainer(bytes)){
+			try {
+				return fromJSON(new JSONReader(bytes), type, ignoreCase);
+			} catch (ParseException e) {
+				//使用原有的解析方式
+			}
+		}
+
+		String jsonStr = new String(bytes, StandardCharsets.UTF_8);
+		return fromObject(parse(new StringReader(jsonStr.trim() + "\0")), jsonStr, type, ignoreCase);
+	}
+
+	/**
+	 * 从 JSONReader 中读取一个值并绑定到参数指定的类
+	 * @param <T>         范型
+	 * @param reader      JSONReader 对象
+	 * @param type        JSON 将要转换的目标类
+	 * @param ignoreCase 是否在字段匹配时忽略大小写
+	 * @return                    JSON 转换后的 Java 对象
+	 * @throws ReflectiveOperationException  反射异常
+	 * @throws ParseException 解析异常
+	 */
+	public static <T>T fromJSON(JSONReader reader, Type type, boolean ignoreCase) throws ReflectiveOperationException, ParseException {
+		T result = JSONBinder.bind(reader, type, ignoreCase);
+		if(reader.peek() != JSONReader.Token.END){
+			throw new ParseException("Unexpected content after the document", 0);
+		}
+		return result;
+	}
+
+	/**
+	 * 将原有的解析方式解析出的对象转换成参数指定的类
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <T>T fromObject(Object parseObject, String jsonStr, Type type, boolean ignoreCase) throws ReflectiveOperationException, ParseException {
 
 		if(parseObject == null){
 			parseObject = jsonStr;
@@ -1,17 +1,13 @@
 package org.voovan.tools.json;
 
-import org.voovan.tools.TDateTime;
-import org.voovan.tools.TString;
-import org.voovan.tools.reflect.TReflect;
-
-import java.lang.reflect.Array;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
-import java.util.Collection;
-import java.util.Date;
-import java.util.Map;
 
 /**
  * JSON打包类
+ *      通过 JSONWriter 直接写入 UTF-8 编码的字节缓冲区, 不再先转换成 Map 和中间字符串
  *
  * @author helyho
  * <p>
@@ -22,145 +18,76 @@ import java.util.Map;
 public class JSONEncode {
 
     /**
-     * 分析自定义对象为JSON字符串
+     * 写入顶层的对象
      *
-     * @param object 自定义对象
-     * @return JSON字符串
-     * @throws ReflectiveOperationException
-     */
-    private static String complexObject(Object object) throws ReflectiveOperationException {
-        return mapObject(TReflect.getMapfromObject(object));
-    }
-
-    /**
-     * 分析Map对象为JSON字符串
-     *
-     * @param mapObject map对象
-     * @return JSON字符串
-     * @throws ReflectiveOperationException
+     * @param writer JSONWriter 对象
+     * @param object 要转换的对象
+     * @param unquote 字符串类型的值是否去掉两端的引号
+     * @throws ReflectiveOperationException 反射异常
      */
-    private static String mapObject(Map<?, ?> mapObject) throws ReflectiveOperationException {
-        String mapString = "{";
-        StringBuilder contentStringBuilder = new StringBuilder();
-        String ContentString = null;
-
-        Object[] keys = mapObject.keySet().toArray();
-
-        for (Object mapkey : keys) {
-            Object key = fromObject(mapkey);
-            String Value = fromObject(mapObject.get(mapkey));
-            contentStringBuilder.append(key);
-            contentStringBuilder.append(":");
-            contentStringBuilder.append(Value);
-            contentStringBuilder.append(",");
+    static void writeObject(JSONWriter writer, Object object, boolean unquote) throws ReflectiveOperationException {
+        if (object instanceof BigDecimal) {
+            BigDecimal bigDecimal = (BigDecimal) object;
+            writer.writeAscii(BigDecimal.ZERO.compareTo(bigDecimal) == 0 ? "0" : bigDecimal.toPlainString());
+            return;
         }
 
-        ContentString = contentStringBuilder.toString();
-        if (!ContentString.trim().isEmpty()){
-            ContentString = ContentString.substring(0, ContentString.length() - 1);
+        String stringValue = unquote && object != null ? JSONWriter.stringValue(object) : null;
+        if (stringValue != null) {
+            writer.writeStringContent(stringValue);
+        } else {
+            writer.writeValue(object);
         }
-
-        mapString = mapString + ContentString + "}";
-
-        return mapString;
     }
 
     /**
-     * 分析Collection对象为JSON字符串
+     * 将对象转换成JSON字符串
      *
-     * @param listObject List对象
-     * @return JSON字符串
-     * @throws ReflectiveOperationException
+     * @param object 要转换的对象
+     * @return 类型:String 		对象对应的JSON字符串
+     * @throws ReflectiveOperationException 反射异常
      */
-    private static String CollectionObject(Collection<Object> listObject) throws ReflectiveOperationException {
-        return arrayObject(listObject.toArray());
+    public static String fromObject(Object object) throws ReflectiveOperationException {
+        JSONWriter writer = JSONWriter.acquire(null, JSON.isConvertEscapeChar());
+        try {
+            writeObject(writer, object, false);
+            return writer.toString();
+        } finally {
+            writer.release();
+        }
     }
 
     /**
-     * 分析Array对象为JSON字符串
+     * 将对象转换成 JSON 并以 UTF-8 编码写入输出流, 不产生中间的字符串
      *
-     * @param arrayObject Array对象
-     * @throws ReflectiveOperationException
-     * @return JSON字符串
+     * @param object 要转换的对象
+     * @param outputStream 输出流, 写入完成后不会关闭
+     * @throws ReflectiveOperationException 反射异常
+     * @throws IOException IO 异常
      */
-    private static String arrayObject(Object[] arrayObject) throws ReflectiveOperationException {
-        String arrayString = "[";
-        String ContentString = "";
-        StringBuilder ContentStringBuilder = new StringBuilder();
-
-        for (Object object : arrayObject) {
-            String Value = fromObject(object);
-            ContentStringBuilder.append(Value);
-            ContentStringBuilder.append(",");
-        }
-
-        ContentString = ContentStringBuilder.toString();
-
-        if (!ContentString.trim().isEmpty()) {
-            ContentString = ContentString.substring(0, ContentString.length() - 1);
-        }
-
-        arrayString = arrayString + ContentString + "]";
-        return arrayString;
+    public static void fromObject(Object object, OutputStream outputStream) throws ReflectiveOperationException, IOException {
+        write(object, outputStream, JSON.isConvertEscapeChar(), false);
     }
 
     /**
-     * 将对象转换成JSON字符串
+     * 将对象转换成 JSON 并以 UTF-8 编码写入输出流
      *
      * @param object 要转换的对象
-     * @return 类型:String 		对象对应的JSON字符串
+     * @param outputStream 输出流
+     * @param convertEscapeChar 是否转换转义字符
+     * @param unquote 字符串类型的值是否去掉两端的引号
      * @throws ReflectiveOperationException 反射异常
+     * @throws IOException IO 异常
      */
-    @SuppressWarnings("unchecked")
-    public static String fromObject(Object object) throws ReflectiveOperationException {
-        String value = null;
-
-        if (object == null) {
-            value = "null";
-        } else if (object instanceof BigDecimal) {
-            if(BigDecimal.ZERO.compareTo((BigDecimal)object)==0){
-                object = BigDecimal.ZERO;
-            }
-
-            value = ((BigDecimal) object).toPlainString();
-        } else if (object instanceof Date) {
-            value = "\"" + TDateTime.format(((Date)object), TDateTime.STANDER_DATETIME_TEMPLATE)+ "\"";;
-        } else if (object instanceof Map) {
-            Map<Object, Object> mapObject = (Map<Object, Object>) object;
-            value = mapObject(mapObject);
-        } else if (object instanceof Collection) {
-            Collection<Object> collectionObject = (Collection<Object>)object;
-            value = CollectionObject(collectionObject);
-        } else if (object.getClass().isArray()) {
-            Object[] arrayObject = (Object[])object;
-            //如果是 java 基本类型, 则转换成对象数组
-            if(object.getClass().getComponentType().isPrimitive()) {
-                int length = Array.getLength(object);
-                arrayObject = new Object[length];
-                for(int i=0;i<length;i++){
-                    arrayObject[i] = Array.get(object, i);
-                }
-            } else {
-                arrayObject = (Object[])object;
-            }
-            value = arrayObject(arrayObject);
-        } else if (object instanceof Integer ||  object instanceof Float ||
-                object instanceof Double || object instanceof Boolean ||
-                object instanceof Long || object instanceof Short) {
-            value = object.toString();
-        } else if (TReflect.isBasicType(object.getClass())) {
-            //这里这么做的目的是方便 js 中通过 eval 方法产生 js 对象
-            String strValue = object.toString();
-            if(JSON.isConvertEscapeChar()) {
-                strValue = TString.convertEscapeChar(object.toString());
-            }
-            value = "\"" + strValue + "\"";
-        }  else {
-            value = complexObject(object);
+    static void write(Object object, OutputStream outputStream, boolean convertEscapeChar, boolean unquote) throws ReflectiveOperationException, IOException {
+        JSONWriter writer = JSONWriter.acquire(outputStream, convertEscapeChar);
+        try {
+            writeObject(writer, object, unquote);
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            writer.release();
         }
-
-        return value;
     }
-
-
 }
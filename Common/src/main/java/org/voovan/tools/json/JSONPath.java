@@ -1,7 +1,6 @@
 package org.voovan.tools.json;
 
 import org.voovan.tools.TObject;
-import org.voovan.tools.TString;
 import org.voovan.tools.reflect.TReflect;
 
 import java.text.ParseException;
@@ -38,41 +37,16 @@ public class JSONPath {
      * @throws ReflectiveOperationException 反射操作异常
      */
     public Object value(String pathQry) throws ReflectiveOperationException {
-        Object currentPathObject = parsedObj;
-        String[] pathElems = pathQry.split("/");
-        ArrayList result = new ArrayList();
-
-        for (String pathElem : pathElems) {
-            pathElem = pathElem.trim();
-
-            if (pathElem.isEmpty()) {
-                continue;
-            }
-
-            //获取 list 索引位置
-            if ( pathElem.indexOf("[") > -1 &&  pathElem.indexOf("]") > -1 ) {
-                String[] pathElemSegms = pathElem.trim().split("\\[");
-
-                for(int i=0;i<pathElemSegms.length;i++ ){
-                    String pathElemSegm = pathElemSegms[i];
-                    if(pathElemSegm.isEmpty()){
-                        continue;
-                    }
-                    if(pathElemSegm.endsWith("]")){
-                        int index = Integer.parseInt(TString.removeSuffix(pathElemSegms[i]));
-                        currentPathObject = ((List)currentPathObject).get(index);
-                    }else {
-                        currentPathObject = (List) ((Map) currentPathObject).get(pathElemSegms[i]);
-                    }
-                }
-            }else{
-                currentPathObject =  ((Map)currentPathObject).get(pathElem);
-            }
-
-
-        }
+        return JSONPathQuery.compile(pathQry).value(parsedObj);
+    }
 
-        return currentPathObject;
+    /**
+     * 获取预编译的 JSONPath 查询对应的节点数据
+     * @param query 预编译的 JSONPath 查询
+     * @return  节点的数据
+     */
+    public Object value(JSONPathQuery query) {
+        return query.value(parsedObj);
     }
 
 
@@ -240,4 +214,14 @@ public class JSONPath {
     public static JSONPath newInstance(String jsonStr){
         return new JSONPath(jsonStr);
     }
+
+    /**
+     * 编译 JSONPath 路径
+     *      编译后的查询可以重复使用, 也可以直接在 JSONReader 上查询, 不需要先解析整个 JSON
+     * @param pathQry JSONPath 路径
+     * @return  编译后的查询对象
+     */
+    public static JSONPathQuery compile(String pathQry){
+        return JSONPathQuery.compile(pathQry);
+    }
 }
@@ -0,0 +1,325 @@
+package org.voovan.tools.json;
+
+import org.voovan.tools.TString;
+
+import java.lang.reflect.Type;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的 JSONPath 查询
+ *      路径只解析一次, 可以在多个线程中重复使用
+ *      可以对已经解析的对象查询, 也可以直接在 JSONReader 上查询, 不在路径上的节点直接跳过, 不会生成对象
+ *
+ * @author helyho
+ *         <p>
+ *         Voovan Framework.
+ *         WebSite: https://github.com/helyho/Voovan
+ *         Licence: Apache v2 License
+ */
+public class JSONPathQuery {
+
+    private final String path;
+
+    //每一级的键名, 为 null 时表示这一级是数组索引
+    private final String[] names;
+    private final int[] indexes;
+
+    private JSONPathQuery(String path, String[] names, int[] indexes) {
+        this.path = path;
+        this.names = names;
+        this.indexes = indexes;
+    }
+
+    /**
+     * 编译 JSONPath 路径
+     *      路径格式和 JSONPath 一致, 例如: /data/list[0]/name
+     * @param pathQry JSONPath 路径
+     * @return 编译后的查询对象
+     */
+    public static JSONPathQuery compile(String pathQry) {
+        List<String> names = new ArrayList<String>();
+        List<Integer> indexes = new ArrayList<Integer>();
+
+        for (String pathElem : pathQry.split("/")) {
+            pathElem = pathElem.trim();
+
+            if (pathElem.isEmpty()) {
+                continue;
+            }
+
+            //获取 list 索引位置
+            if (pathElem.indexOf("[") > -1 && pathElem.indexOf("]") > -1) {
+                for (String pathElemSegm : pathElem.split("\\[")) {
+                    if (pathElemSegm.isEmpty()) {
+                        continue;
+                    }
+
+                    if (pathElemSegm.endsWith("]")) {
+                        names.add(null);
+                        indexes.add(Integer.parseInt(TString.removeSuffix(pathElemSegm).trim()));
+                    } else {
+                        names.add(pathElemSegm);
+                        indexes.add(-1);
+                    }
+                }
+            } else {
+                names.add(pathElem);
+                indexes.add(-1);
+            }
+        }
+
+        int[] indexArray = new int[indexes.size()];
+        for (int i = 0; i < indexArray.length; i++) {
+            indexArray[i] = indexes.get(i);
+        }
+
+        return new JSONPathQuery(pathQry, names.toArray(new String[0]), indexArray);
+    }
+
+    /**
+     * 获取查询的路径
+     * @return JSONPath 路径
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 在已经解析的对象上查询
+     * @param parsedObj JSON.parse 解析后的对象
+     * @return 节点的数据, 节点不存在或者类型不匹配时返回 null
+     */
+    public Object value(Object parsedObj) {
+        return value(parsedObj, 0);
+    }
+
+    private Object value(Object currentPathObject, int step) {
+        for (int i = step; i < names.length && currentPathObject != null; i++) {
+            if (names[i] != null) {
+                currentPathObject = currentPathObject instanceof Map ? ((Map) currentPathObject).get(names[i]) : null;
+            } else if (currentPathObject instanceof List) {
+                List list = (List) currentPathObject;
+                currentPathObject = indexes[i] < list.size() ? list.get(indexes[i]) : null;
+            } else {
+                currentPathObject = null;
+            }
+        }
+
+        return currentPathObject;
+    }
+
+    /**
+     * 从 JSONReader 中读取路径对应的节点数据
+     *      只解析路径上的节点, 找到节点后不再读取后续的内容
+     * @param reader JSONReader 对象
+     * @return 节点的数据, 节点不存在或者类型不匹配时返回 null
+     * @throws ParseException 解析异常
+     */
+    public Object value(JSONReader reader) throws ParseException {
+        return values(reader, this)[0];
+    }
+
+    /**
+     * 从 JSONReader 中读取路径对应的节点并直接转换成 Java 对象, 不生成中间的 Map 和 List
+     * @param <T>        范型
+     * @param reader     JSONReader 对象
+     * @param type       转换的目标 java 类
+     * @param ignoreCase 是否忽略字段大小写
+     * @return 转换后的 Java 对象, 节点不存在或者类型不匹配时返回 null
+     * @throws ParseException 解析异常
+     * @throws ReflectiveOperationException 反射异常
+     */
+    public <T> T value(JSONReader reader, Type type, boolean ignoreCase) throws ParseException, ReflectiveOperationException {
+        if (!seek(reader)) {
+            return null;
+        }
+
+        return JSONBinder.bind(reader, type, ignoreCase);
+    }
+
+    /**
+     * 将 JSONReader 移动到路径对应的节点上
+     * @param reader JSONReader 对象
+     * @return true: 节点存在, false: 节点不存在
+     * @throws ParseException 解析异常
+     */
+    private boolean seek(JSONReader reader) throws ParseException {
+        for (int i = 0; i < names.length; i++) {
+            boolean found = false;
+            if (names[i] != null) {
+                if (reader.peek() != JSONReader.Token.BEGIN_OBJECT) {
+                    return false;
+                }
+
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (names[i].equals(reader.nextName())) {
+                        found = true;
+                        break;
+                    }
+                    reader.skipValue();
+                }
+            } else {
+                if (reader.peek() != JSONReader.Token.BEGIN_ARRAY) {
+                    return false;
+                }
+
+                reader.beginArray();
+                for (int index = 0; reader.hasNext(); index++) {
+                    if (index == indexes[i]) {
+                        found = true;
+                        break;
+                    }
+                    reader.skipValue();
+                }
+            }
+
+            if (!found) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * 在一次读取中获取多个路径对应的节点数据
+     *      每个节点只会读取一次, 不在任何路径上的节点直接跳过, 所有路径都找到后不再读取后续的内容
+     * @param reader  JSONReader 对象
+     * @param queries 查询对象
+     * @return 和查询对象顺序一致的节点数据, 节点不存在或者类型不匹配时为 null
+     * @throws ParseException 解析异常
+     */
+    public static Object[] values(JSONReader reader, JSONPathQuery... queries) throws ParseException {
+        Selection selection = new Selection(queries.length);
+
+        int[] active = new int[queries.length];
+        for (int i = 0; i < active.length; i++) {
+            active[i] = i;
+        }
+
+        if (active.length > 0 && reader.peek() != JSONReader.Token.END) {
+            select(reader, queries, active, 0, selection);
+        }
+
+        return selection.results;
+    }
+
+    /**
+     * 读取当前节点, 并处理经过这个节点的查询
+     *      返回时节点已经完整读取, 除非所有的查询都已经完成
+     */
+    private static void select(JSONReader reader, JSONPathQuery[] queries, int[] active, int step, Selection selection) throws ParseException {
+        //有查询在这个节点结束, 生成节点的对象, 更深的查询在这个对象上完成
+        for (int queryIndex : active) {
+            if (queries[queryIndex].names.length == step) {
+                Object value = reader.readValue();
+                for (int activeIndex : active) {
+                    selection.complete(activeIndex, queries[activeIndex].value(value, step));
+                }
+                return;
+            }
+        }
+
+        JSONReader.Token token = reader.peek();
+        if (token == JSONReader.Token.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+
+                int[] matched = match(queries, active, step, name, -1, selection);
+                if (matched == null) {
+                    reader.skipValue();
+                } else {
+                    select(reader, queries, matched, step + 1, selection);
+                    if (selection.remaining == 0) {
+                        return;
+                    }
+                }
+            }
+            reader.endObject();
+        } else if (token == JSONReader.Token.BEGIN_ARRAY) {
+            reader.beginArray();
+            for (int index = 0; reader.hasNext(); index++) {
+                int[] matched = match(queries, active, step, null, index, selection);
+                if (matched == null) {
+                    reader.skipValue();
+                } else {
+                    select(reader, queries, matched, step + 1, selection);
+                    if (selection.remaining == 0) {
+                        return;
+                    }
+                }
+            }
+            reader.endArray();
+        } else {
+            reader.skipValue();
+        }
+
+        //节点已经读取完成, 经过这个节点但未找到的查询不会在其他位置出现
+        for (int queryIndex : active) {
+            selection.complete(queryIndex, null);
+        }
+    }
+
+    /**
+     * 获取下一级匹配键名或者索引的查询
+     * @return 匹配的查询序号, 没有匹配时返回 null
+     */
+    private static int[] match(JSONPathQuery[] queries, int[] active, int step, String name, int index, Selection selection) {
+        int[] matched = null;
+        int count = 0;
+        for (int queryIndex : active) {
+            JSONPathQuery query = queries[queryIndex];
+            boolean isMatch = name == null ?
+                    query.names[step] == null && query.indexes[step] == index :
+                    name.equals(query.names[step]);
+
+            if (isMatch && !selection.completed[queryIndex]) {
+                if (matched == null) {
+                    matched = new int[active.length];
+                }
+                matched[count++] = queryIndex;
+            }
+        }
+
+        if (matched != null && count != matched.length) {
+            int[] result = new int[count];
+            System.arraycopy(matched, 0, result, 0, count);
+            matched = result;
+        }
+
+        return matched;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    /**
+     * 多路径查询的结果
+     */
+    private static class Selection {
+        private final Object[] results;
+        private final boolean[] completed;
+        private int remaining;
+
+        private Selection(int size) {
+            results = new Object[size];
+            completed = new boolean[size];
+            remaining = size;
+        }
+
+        private void complete(int queryIndex, Object value) {
+            if (!completed[queryIndex]) {
+                completed[queryIndex] = true;
+                results[queryIndex] = value;
+                remaining--;
+            }
+        }
+    }
+}
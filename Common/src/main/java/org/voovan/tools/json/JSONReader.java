@@ -0,0 +1,780 @@
+package org.voovan.tools.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON 流式读取器
+ * 		直接从 UTF-8 编码的字节数组, ByteBuffer 或者 InputStream 中按记号(Token)读取, 不需要先转换成字符串
+ * 		除标准 JSON 外还支持: 单引号字符串, 不带引号的键, '=' 分隔键值, 行注释和块注释, 末尾多余的逗号
+ * 		语法错误时抛出 ParseException, 错误的位置为字节偏移量
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class JSONReader implements Closeable {
+
+	/**
+	 * JSON 记号
+	 */
+	public enum Token {
+		BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END
+	}
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_OBJECT = 2;
+	private static final int DANGLING_NAME = 3;
+	private static final int NONEMPTY_OBJECT = 4;
+	private static final int EMPTY_ARRAY = 5;
+	private static final int NONEMPTY_ARRAY = 6;
+
+	private byte[] buffer;
+	private int position;
+	private int limit;
+	private long consumed = 0;
+	private InputStream inputStream;
+	private ByteBuffer byteBuffer;
+
+	private int[] stack = new int[32];
+	private int stackSize = 0;
+
+	private Token peeked = null;
+	private boolean peekedBoolean;
+	private int peekedQuote;
+
+	private char[] chars = new char[64];
+	private int charsLength;
+
+	/**
+	 * 构造函数
+	 * @param bytes UTF-8 编码的字节数组
+	 */
+	public JSONReader(byte[] bytes) {
+		this(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * 构造函数
+	 * @param bytes UTF-8 编码的字节数组
+	 * @param offset 起始位置
+	 * @param length 长度
+	 */
+	public JSONReader(byte[] bytes, int offset, int length) {
+		this.buffer = bytes;
+		this.position = offset;
+		this.limit = offset + length;
+		this.consumed = -offset;
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * 构造函数
+	 * 		读取 ByteBuffer 中 position 到 limit 之间的数据, 不改变 ByteBuffer 的 position
+	 * @param byteBuffer UTF-8 编码的 ByteBuffer
+	 */
+	public JSONReader(ByteBuffer byteBuffer) {
+		if (byteBuffer.hasArray()) {
+			this.buffer = byteBuffer.array();
+			this.position = byteBuffer.arrayOffset() + byteBuffer.position();
+			this.limit = byteBuffer.arrayOffset() + byteBuffer.limit();
+			this.consumed = -this.position;
+		} else {
+			this.byteBuffer = byteBuffer.duplicate();
+			this.buffer = new byte[Math.min(BUFFER_SIZE, Math.max(byteBuffer.remaining(), 16))];
+		}
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * 构造函数
+	 * @param inputStream UTF-8 编码的输入流
+	 */
+	public JSONReader(InputStream inputStream) {
+		this.inputStream = inputStream;
+		this.buffer = new byte[BUFFER_SIZE];
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * 构造函数
+	 * @param jsonStr JSON 字符串
+	 */
+	public JSONReader(String jsonStr) {
+		this(jsonStr.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void push(int scope) {
+		if (stackSize == stack.length) {
+			int[] newStack = new int[stackSize * 2];
+			System.arraycopy(stack, 0, newStack, 0, stackSize);
+			stack = newStack;
+		}
+		stack[stackSize++] = scope;
+	}
+
+	/**
+	 * 缓冲区的数据读取完后, 从数据源中读取后续的数据
+	 * @return true: 读取到了数据, false: 没有更多的数据
+	 */
+	private boolean fill() throws ParseException {
+		if (inputStream == null && byteBuffer == null) {
+			return false;
+		}
+
+		consumed += limit;
+		position = 0;
+		limit = 0;
+
+		if (byteBuffer != null) {
+			int length = Math.min(byteBuffer.remaining(), buffer.length);
+			byteBuffer.get(buffer, 0, length);
+			limit = length;
+		} else {
+			try {
+				int length = inputStream.read(buffer, 0, buffer.length);
+				limit = length < 0 ? 0 : length;
+			} catch (IOException e) {
+				throw (ParseException) new ParseException("JSONReader read failed: " + e.getMessage(), (int) consumed).initCause(e);
+			}
+		}
+
+		return limit > 0;
+	}
+
+	private int read() throws ParseException {
+		if (position < limit || fill()) {
+			return buffer[position++] & 0xFF;
+		}
+		return -1;
+	}
+
+	private int peekByte() throws ParseException {
+		if (position < limit || fill()) {
+			return buffer[position] & 0xFF;
+		}
+		return -1;
+	}
+
+	/**
+	 * 读取下一个非空白字符, 跳过注释
+	 */
+	private int nextNonWhitespace() throws ParseException {
+		while (true) {
+			int c = read();
+			if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == 0xEF && skipBom()) {
+				continue;
+			}
+
+			if (c == '/') {
+				int next = peekByte();
+				if (next == '/') {
+					do {
+						c = read();
+					} while (c != '\n' && c != -1);
+					continue;
+				} else if (next == '*') {
+					read();
+					int prev = 0;
+					while (true) {
+						c = read();
+						if (c == -1) {
+							throw error("Unterminated comment");
+						}
+						if (prev == '*' && c == '/') {
+							break;
+						}
+						prev = c;
+					}
+					continue;
+				}
+			}
+
+			return c;
+		}
+	}
+
+	/**
+	 * 跳过 UTF-8 的 BOM (0xEF 0xBB 0xBF), 0xEF 已经读取
+	 */
+	private boolean skipBom() throws ParseException {
+		if (consumed + position == 1 && peekByte() == 0xBB) {
+			read();
+			return read() == 0xBF;
+		}
+		return false;
+	}
+
+	private ParseException error(String message) {
+		long offset = Math.max(consumed + position - 1, 0);
+		return new ParseException(message + " at byte " + offset, (int) offset);
+	}
+
+	/**
+	 * 查看下一个记号, 不消耗它
+	 * @return 下一个记号
+	 * @throws ParseException 解析异常
+	 */
+	public Token peek() throws ParseException {
+		if (peeked != null) {
+			return peeked;
+		}
+
+		int scope = stack[stackSize - 1];
+		int c;
+		if (scope == EMPTY_ARRAY || scope == NONEMPTY_ARRAY) {
+			stack[stackSize - 1] = NONEMPTY_ARRAY;
+			c = nextNonWhitespace();
+			if (scope == NONEMPTY_ARRAY) {
+				if (c == ',') {
+					c = nextNonWhitespace();
+				} else if (c != ']') {
+					throw error("Expected ',' or ']'");
+				}
+			}
+
+			if (c == ']') {
+				return peeked = Token.END_ARRAY;
+			} else if (c == -1) {
+				throw error("Unterminated array");
+			}
+			position--;
+		} else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT) {
+			stack[stackSize - 1] = DANGLING_NAME;
+			c = nextNonWhitespace();
+			if (scope == NONEMPTY_OBJECT) {
+				if (c == ',') {
+					c = nextNonWhitespace();
+				} else if (c != '}') {
+					throw error("Expected ',' or '}'");
+				}
+			}
+
+			if (c == '}') {
+				return peeked = Token.END_OBJECT;
+			} else if (c == '"' || c == '\'') {
+				peekedQuote = c;
+				return peeked = Token.NAME;
+			} else if (isNameChar(c)) {
+				position--;
+				peekedQuote = 0;
+				return peeked = Token.NAME;
+			} else {
+				throw error("Expected name");
+			}
+		} else if (scope == DANGLING_NAME) {
+			stack[stackSize - 1] = NONEMPTY_OBJECT;
+			c = nextNonWhitespace();
+			if (c != ':' && c != '=') {
+				throw error("Expected ':'");
+			}
+		} else if (scope == EMPTY_DOCUMENT) {
+			stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+		} else {
+			c = nextNonWhitespace();
+			if (c == -1) {
+				return peeked = Token.END;
+			}
+			throw error("Unexpected content after the document");
+		}
+
+		c = nextNonWhitespace();
+		switch (c) {
+			case '{':
+				push(EMPTY_OBJECT);
+				return peeked = Token.BEGIN_OBJECT;
+			case '[':
+				push(EMPTY_ARRAY);
+				return peeked = Token.BEGIN_ARRAY;
+			case '"':
+			case '\'':
+				peekedQuote = c;
+				return peeked = Token.STRING;
+			case 't':
+				expectLiteral("rue");
+				peekedBoolean = true;
+				return peeked = Token.BOOLEAN;
+			case 'f':
+				expectLiteral("alse");
+				peekedBoolean = false;
+				return peeked = Token.BOOLEAN;
+			case 'n':
+				expectLiteral("ull");
+				return peeked = Token.NULL;
+			case -1:
+				if (stackSize == 1) {
+					return peeked = Token.END;
+				}
+				throw error("Unexpected end of input");
+			default:
+				if (c == '-' || (c >= '0' && c <= '9')) {
+					position--;
+					return peeked = Token.NUMBER;
+				}
+				throw error("Unexpected character '" + (char) c + "'");
+		}
+	}
+
+	private void expectLiteral(String literal) throws ParseException {
+		for (int i = 0; i < literal.length(); i++) {
+			if (read() != literal.charAt(i)) {
+				throw error("Expected literal");
+			}
+		}
+
+		int c = peekByte();
+		if (isNameChar(c)) {
+			throw error("Expected literal");
+		}
+	}
+
+	private static boolean isNameChar(int c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+				c == '_' || c == '$' || c == '-' || c == '.' || c >= 0x80;
+	}
+
+	private void expect(Token token) throws ParseException {
+		if (peek() != token) {
+			throw error("Expected " + token + " but was " + peeked);
+		}
+		peeked = null;
+	}
+
+	/**
+	 * 消耗对象的开始 {
+	 * @throws ParseException 解析异常
+	 */
+	public void beginObject() throws ParseException {
+		expect(Token.BEGIN_OBJECT);
+	}
+
+	/**
+	 * 消耗对象的结束 }
+	 * @throws ParseException 解析异常
+	 */
+	public void endObject() throws ParseException {
+		expect(Token.END_OBJECT);
+		stackSize--;
+	}
+
+	/**
+	 * 消耗数组的开始 [
+	 * @throws ParseException 解析异常
+	 */
+	public void beginArray() throws ParseException {
+		expect(Token.BEGIN_ARRAY);
+	}
+
+	/**
+	 * 消耗数组的结束 ]
+	 * @throws ParseException 解析异常
+	 */
+	public void endArray() throws ParseException {
+		expect(Token.END_ARRAY);
+		stackSize--;
+	}
+
+	/**
+	 * 当前的对象或者数组中是否还有元素
+	 * @return true: 还有元素
+	 * @throws ParseException 解析异常
+	 */
+	public boolean hasNext() throws ParseException {
+		Token token = peek();
+		return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END;
+	}
+
+	/**
+	 * 读取对象中的键
+	 * @return 键
+	 * @throws ParseException 解析异常
+	 */
+	public String nextName() throws ParseException {
+		expect(Token.NAME);
+		if (peekedQuote == 0) {
+			charsLength = 0;
+			while (isNameChar(peekByte())) {
+				appendUtf8(read());
+			}
+			return new String(chars, 0, charsLength);
+		}
+		return readString(peekedQuote);
+	}
+
+	/**
+	 * 读取字符串, 数字和布尔值会以字符串的形式返回
+	 * @return 字符串
+	 * @throws ParseException 解析异常
+	 */
+	public String nextString() throws ParseException {
+		Token token = peek();
+		if (token == Token.STRING) {
+			peeked = null;
+			return readString(peekedQuote);
+		} else if (token == Token.NUMBER) {
+			return nextNumber();
+		} else if (token == Token.BOOLEAN) {
+			peeked = null;
+			return peekedBoolean ? "true" : "false";
+		} else {
+			throw error("Expected STRING but was " + token);
+		}
+	}
+
+	/**
+	 * 读取数字的文本
+	 * @return 数字的文本
+	 * @throws ParseException 解析异常
+	 */
+	public String nextNumber() throws ParseException {
+		expect(Token.NUMBER);
+		readNumberChars();
+		return new String(chars, 0, charsLength);
+	}
+
+	/**
+	 * 读取 long 类型的数字, 数字为字符串时也进行转换
+	 * @return long 类型的数字
+	 * @throws ParseException 解析异常
+	 */
+	public long nextLong() throws ParseException {
+		if (peek() != Token.NUMBER) {
+			return Long.parseLong(nextString().trim());
+		}
+
+		peeked = null;
+		readNumberChars();
+		if (charsLength > 0 && charsLength < 19) {
+			boolean negative = chars[0] == '-';
+			long value = 0;
+			int i = negative ? 1 : 0;
+			for (; i < charsLength; i++) {
+				char c = chars[i];
+				if (c < '0' || c > '9') {
+					break;
+				}
+				value = value * 10 + (c - '0');
+			}
+
+			if (i == charsLength && (i > 1 || !negative)) {
+				return negative ? -value : value;
+			}
+		}
+		return Long.parseLong(new String(chars, 0, charsLength));
+	}
+
+	/**
+	 * 读取 int 类型的数字, 数字为字符串时也进行转换
+	 * @return int 类型的数字
+	 * @throws ParseException 解析异常
+	 */
+	public int nextInt() throws ParseException {
+		long value = nextLong();
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw new NumberFormatException("For input string: \"" + value + "\"");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * 读取 double 类型的数字, 数字为字符串时也进行转换
+	 * @return double 类型的数字
+	 * @throws ParseException 解析异常
+	 */
+	public double nextDouble() throws ParseException {
+		return Double.parseDouble(nextString().trim());
+	}
+
+	/**
+	 * 读取布尔值, 值为字符串时也进行转换
+	 * @return 布尔值
+	 * @throws ParseException 解析异常
+	 */
+	public boolean nextBoolean() throws ParseException {
+		if (peek() == Token.BOOLEAN) {
+			peeked = null;
+			return peekedBoolean;
+		}
+		return Boolean.parseBoolean(nextString().trim());
+	}
+
+	/**
+	 * 消耗 null
+	 * @throws ParseException 解析异常
+	 */
+	public void nextNull() throws ParseException {
+		expect(Token.NULL);
+	}
+
+	/**
+	 * 跳过下一个值, 如果是对象或者数组则跳过其全部内容
+	 * 		跳过的键, 字符串和数字只做扫描, 不生成对象
+	 * @throws ParseException 解析异常
+	 */
+	public void skipValue() throws ParseException {
+		int depth = 0;
+		do {
+			Token token = peek();
+			switch (token) {
+				case BEGIN_OBJECT: beginObject(); depth++; break;
+				case BEGIN_ARRAY: beginArray(); depth++; break;
+				case END_OBJECT: endObject(); depth--; break;
+				case END_ARRAY: endArray(); depth--; break;
+				case NAME: {
+					peeked = null;
+					if (peekedQuote == 0) {
+						while (isNameChar(peekByte())) {
+							position++;
+						}
+					} else {
+						skipString(peekedQuote);
+					}
+					break;
+				}
+				case STRING: peeked = null; skipString(peekedQuote); break;
+				case NUMBER: peeked = null; skipNumberChars(); break;
+				case BOOLEAN: nextBoolean(); break;
+				case NULL: nextNull(); break;
+				default: throw error("Unexpected end of input");
+			}
+		} while (depth > 0);
+	}
+
+	/**
+	 * 读取下一个值
+	 * 		对象读取为 LinkedHashMap, 数组读取为 ArrayList
+	 * 		整数读取为 Integer 或 Long, 小数按精度读取为 Float, Double 或 BigDecimal
+	 * @return 读取的值
+	 * @throws ParseException 解析异常
+	 */
+	public Object readValue() throws ParseException {
+		switch (peek()) {
+			case BEGIN_OBJECT: {
+				Map<String, Object> map = new LinkedHashMap<String, Object>();
+				beginObject();
+				while (hasNext()) {
+					String name = nextName();
+					map.put(name, readValue());
+				}
+				endObject();
+				return map;
+			}
+			case BEGIN_ARRAY: {
+				List<Object> list = new ArrayList<Object>();
+				beginArray();
+				while (hasNext()) {
+					list.add(readValue());
+				}
+				endArray();
+				return list;
+			}
+			case STRING: return nextString();
+			case NUMBER: return toNumber(nextNumber());
+			case BOOLEAN: return nextBoolean();
+			case NULL: nextNull(); return null;
+			default: throw error("Unexpected " + peeked);
+		}
+	}
+
+	/**
+	 * 将数字的文本转换成数字对象
+	 * @param value 数字的文本
+	 * @return 数字对象
+	 */
+	static Object toNumber(String value) {
+		boolean isDecimal = false;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '.' || c == 'e' || c == 'E') {
+				isDecimal = true;
+				break;
+			}
+		}
+
+		if (!isDecimal) {
+			if (value.length() < 19) {
+				long longValue = Long.parseLong(value);
+				if (longValue <= Integer.MAX_VALUE && longValue >= -Integer.MAX_VALUE) {
+					return (int) longValue;
+				}
+				return longValue;
+			}
+			return new BigDecimal(value);
+		}
+
+		Float floatValue = Float.valueOf(value);
+		if (floatValue.toString().equals(value)) {
+			return floatValue;
+		}
+
+		Double doubleValue = Double.valueOf(value);
+		if (doubleValue.toString().equals(value)) {
+			return doubleValue;
+		}
+
+		return new BigDecimal(value);
+	}
+
+	private void readNumberChars() throws ParseException {
+		charsLength = 0;
+		while (true) {
+			int c = peekByte();
+			if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+				position++;
+				if (charsLength == chars.length) {
+					growChars();
+				}
+				chars[charsLength++] = (char) c;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void skipNumberChars() throws ParseException {
+		while (true) {
+			int c = peekByte();
+			if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+				position++;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 跳过字符串, 开始的引号已经消耗
+	 * 		UTF-8 多字节字符的每个字节都不小于 0x80, 不会和引号或者反斜杠混淆, 因此按字节扫描即可
+	 */
+	private void skipString(int quote) throws ParseException {
+		while (true) {
+			int c = read();
+			if (c == quote) {
+				return;
+			} else if (c == '\\') {
+				c = read();
+			}
+
+			if (c == -1) {
+				throw error("Unterminated string");
+			}
+		}
+	}
+
+	/**
+	 * 读取字符串, 开始的引号已经消耗
+	 */
+	private String readString(int quote) throws ParseException {
+		boolean convertEscapeChar = JSON.isConvertEscapeChar();
+
+		//快速路径: 缓冲区中包含完整的 ASCII 字符串且没有转义字符
+		for (int i = position; i < limit; i++) {
+			byte b = buffer[i];
+			if (b == quote) {
+				String value = new String(buffer, position, i - position, StandardCharsets.ISO_8859_1);
+				position = i + 1;
+				return value;
+			} else if (b == '\\' || b < 0) {
+				break;
+			}
+		}
+
+		charsLength = 0;
+		while (true) {
+			int c = read();
+			if (c == quote) {
+				return new String(chars, 0, charsLength);
+			} else if (c == -1) {
+				throw error("Unterminated string");
+			} else if (c == '\\') {
+				c = read();
+				if (!convertEscapeChar) {
+					appendChar('\\');
+					appendUtf8(c);
+					continue;
+				}
+
+				switch (c) {
+					case 'n': appendChar('\n'); break;
+					case 'r': appendChar('\r'); break;
+					case 't': appendChar('\t'); break;
+					case 'b': appendChar('\b'); break;
+					case 'f': appendChar('\f'); break;
+					case 'u': {
+						int value = 0;
+						for (int i = 0; i < 4; i++) {
+							int hex = Character.digit(read(), 16);
+							if (hex < 0) {
+								throw error("Malformed unicode escape");
+							}
+							value = (value << 4) | hex;
+						}
+						appendChar((char) value);
+						break;
+					}
+					case -1: throw error("Unterminated string");
+					default: appendUtf8(c);
+				}
+			} else {
+				appendUtf8(c);
+			}
+		}
+	}
+
+	/**
+	 * 追加一个 UTF-8 编码的字符, c 是该字符的第一个字节
+	 */
+	private void appendUtf8(int c) throws ParseException {
+		if (c < 0x80) {
+			appendChar((char) c);
+		} else if ((c >> 5) == 0x06) {
+			appendChar((char) (((c & 0x1F) << 6) | (read() & 0x3F)));
+		} else if ((c >> 4) == 0x0E) {
+			appendChar((char) (((c & 0x0F) << 12) | ((read() & 0x3F) << 6) | (read() & 0x3F)));
+		} else if ((c >> 3) == 0x1E) {
+			int codePoint = ((c & 0x07) << 18) | ((read() & 0x3F) << 12) | ((read() & 0x3F) << 6) | (read() & 0x3F);
+			appendChar(Character.highSurrogate(codePoint));
+			appendChar(Character.lowSurrogate(codePoint));
+		} else {
+			throw error("Malformed UTF-8 character");
+		}
+	}
+
+	private void appendChar(char c) {
+		if (charsLength == chars.length) {
+			growChars();
+		}
+		chars[charsLength++] = c;
+	}
+
+	private void growChars() {
+		char[] newChars = new char[chars.length * 2];
+		System.arraycopy(chars, 0, newChars, 0, charsLength);
+		chars = newChars;
+	}
+
+	/**
+	 * 关闭读取器, 数据源是 InputStream 时关闭输入流
+	 * @throws IOException IO 异常
+	 */
+	@Override
+	public void close() throws IOException {
+		if (inputStream != null) {
+			inputStream.close();
+		}
+	}
+}
@@ -0,0 +1,567 @@
+package org.voovan.tools.json;
+
+import org.voovan.tools.TDateTime;
+import org.voovan.tools.TUnsafe;
+import org.voovan.tools.json.annotation.NotJSON;
+import org.voovan.tools.reflect.TReflect;
+import org.voovan.tools.reflect.annotation.NotSerialization;
+import sun.misc.Unsafe;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JSON 流式写入器
+ * 		将 Java 对象以 UTF-8 编码直接写入可复用的字节缓冲区, 设置了 OutputStream 时缓冲区写满后写入输出流, 不产生中间的字符串
+ * 		复杂对象按类缓存字段写入器, 字段名预先编码, 字段值通过 Unsafe 按偏移量读取, 基本类型的字段不装箱
+ * 		输出的格式与原有的 JSONEncode 保持一致
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class JSONWriter {
+
+	private static final Unsafe UNSAFE = TUnsafe.getUnsafe();
+
+	private static final int BUFFER_SIZE = 8192;
+
+	//超过这个大小的缓冲区使用后不再复用, 避免线程长期持有大块内存
+	private static final int MAX_POOLED_SIZE = 1024 * 1024;
+
+	//字符串每次编码的字符数, 保证单次需要的缓冲区大小有上限
+	private static final int STRING_CHUNK = 1024;
+
+	private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] MIN_LONG = "-9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+
+	//和 TString.convertEscapeChar 一致, 需要转换为 \\uXXXX 的字符
+	private static final boolean[] ESCAPE_CHARS = new boolean[128];
+	static {
+		for (char c : new char[]{'\f', '\'', '\r', '"', '\b', '\t', '\n'}) {
+			ESCAPE_CHARS[c] = true;
+		}
+	}
+
+	private static final ConcurrentHashMap<Class, ClassWriter> CLASS_WRITERS = new ConcurrentHashMap<Class, ClassWriter>();
+
+	private static final ThreadLocal<JSONWriter> THREAD_WRITER = ThreadLocal.withInitial(JSONWriter::new);
+
+	private byte[] buffer;
+	private int size;
+	private OutputStream outputStream;
+	private boolean convertEscapeChar = true;
+	private boolean inUse;
+
+	/**
+	 * 构造函数, 所有内容写入内部的缓冲区
+	 */
+	public JSONWriter() {
+		this.buffer = new byte[BUFFER_SIZE];
+	}
+
+	/**
+	 * 构造函数
+	 * @param outputStream 输出流, 缓冲区写满或者调用 flush 时写入
+	 */
+	public JSONWriter(OutputStream outputStream) {
+		this();
+		this.outputStream = outputStream;
+	}
+
+	/**
+	 * 获取当前线程复用的写入器, 使用完成后必须调用 release
+	 * @param outputStream 输出流, 为 null 时所有内容写入缓冲区
+	 * @param convertEscapeChar 是否转换转义字符
+	 * @return JSONWriter 对象
+	 */
+	static JSONWriter acquire(OutputStream outputStream, boolean convertEscapeChar) {
+		JSONWriter writer = THREAD_WRITER.get();
+		//嵌套使用时不复用
+		if (writer.inUse) {
+			writer = new JSONWriter();
+		}
+
+		writer.inUse = true;
+		writer.size = 0;
+		writer.outputStream = outputStream;
+		writer.convertEscapeChar = convertEscapeChar;
+		return writer;
+	}
+
+	/**
+	 * 归还当前线程复用的写入器
+	 */
+	void release() {
+		inUse = false;
+		size = 0;
+		outputStream = null;
+		if (buffer.length > MAX_POOLED_SIZE) {
+			buffer = new byte[BUFFER_SIZE];
+		}
+	}
+
+	public boolean isConvertEscapeChar() {
+		return convertEscapeChar;
+	}
+
+	/**
+	 * 设置是否进行 EscapeChar 的转换
+	 * @param convertEscapeChar true: 是, false: 否
+	 */
+	public void setConvertEscapeChar(boolean convertEscapeChar) {
+		this.convertEscapeChar = convertEscapeChar;
+	}
+
+	/**
+	 * 缓冲区中尚未写入输出流的字节数
+	 * @return 字节数
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 获取缓冲区中的内容
+	 * @return 字节数组
+	 */
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[size];
+		System.arraycopy(buffer, 0, bytes, 0, size);
+		return bytes;
+	}
+
+	/**
+	 * 将缓冲区中的内容写入输出流
+	 * @param outputStream 输出流
+	 * @throws IOException IO 异常
+	 */
+	public void writeTo(OutputStream outputStream) throws IOException {
+		outputStream.write(buffer, 0, size);
+	}
+
+	/**
+	 * 将缓冲区中的内容写入构造时指定的输出流
+	 * @throws IOException IO 异常
+	 */
+	public void flush() throws IOException {
+		if (outputStream != null) {
+			if (size > 0) {
+				outputStream.write(buffer, 0, size);
+				size = 0;
+			}
+			outputStream.flush();
+		}
+	}
+
+	/**
+	 * 清空缓冲区
+	 */
+	public void reset() {
+		size = 0;
+	}
+
+	@Override
+	public String toString() {
+		return new String(buffer, 0, size, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 保证缓冲区还能写入指定的字节数
+	 * @param length 字节数
+	 */
+	private void ensureCapacity(int length) {
+		if (size + length <= buffer.length) {
+			return;
+		}
+
+		if (outputStream != null && size > 0) {
+			try {
+				outputStream.write(buffer, 0, size);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			size = 0;
+			if (length <= buffer.length) {
+				return;
+			}
+		}
+
+		byte[] newBuffer = new byte[Math.max(buffer.length * 2, size + length)];
+		System.arraycopy(buffer, 0, newBuffer, 0, size);
+		buffer = newBuffer;
+	}
+
+	/**
+	 * 写入一个 ASCII 字符
+	 * @param c 字符
+	 */
+	public void writeByte(char c) {
+		ensureCapacity(1);
+		buffer[size++] = (byte) c;
+	}
+
+	private void writeBytes(byte[] bytes) {
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, size, bytes.length);
+		size += bytes.length;
+	}
+
+	/**
+	 * 写入只包含 ASCII 字符的字符串, 不加引号也不转义
+	 * @param value 字符串
+	 */
+	public void writeAscii(String value) {
+		int length = value.length();
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++) {
+			buffer[size++] = (byte) value.charAt(i);
+		}
+	}
+
+	public void writeNull() {
+		writeBytes(NULL);
+	}
+
+	public void writeBoolean(boolean value) {
+		writeBytes(value ? TRUE : FALSE);
+	}
+
+	/**
+	 * 写入整数, 直接按位生成字符不创建字符串
+	 * @param value 整数
+	 */
+	public void writeLong(long value) {
+		if (value == Long.MIN_VALUE) {
+			writeBytes(MIN_LONG);
+			return;
+		}
+
+		ensureCapacity(20);
+		if (value < 0) {
+			buffer[size++] = '-';
+			value = -value;
+		}
+
+		int length = 1;
+		for (long i = value; i >= 10; i /= 10) {
+			length++;
+		}
+
+		int position = size + length;
+		do {
+			buffer[--position] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		size += length;
+	}
+
+	/**
+	 * 写入带引号的字符串
+	 * @param value 字符串
+	 */
+	public void writeString(String value) {
+		writeByte('"');
+		writeStringContent(value);
+		writeByte('"');
+	}
+
+	/**
+	 * 写入字符串的内容, 不加引号
+	 * 		按块编码为 UTF-8, 每块只检查一次缓冲区, 需要转义的字符转换为 \\uXXXX
+	 * @param value 字符串
+	 */
+	public void writeStringContent(String value) {
+		int length = value.length();
+		int i = 0;
+		while (i < length) {
+			int end = Math.min(i + STRING_CHUNK, length);
+			//最后一个字符可能是代理对的高位, 多预留一个字符
+			ensureCapacity((end - i + 1) * 6);
+
+			byte[] buffer = this.buffer;
+			int position = size;
+			for (; i < end; i++) {
+				char c = value.charAt(i);
+				if (c < 0x80) {
+					if (convertEscapeChar && ESCAPE_CHARS[c]) {
+						buffer[position++] = '\\';
+						buffer[position++] = 'u';
+						buffer[position++] = '0';
+						buffer[position++] = '0';
+						buffer[position++] = HEX[c >> 4];
+						buffer[position++] = HEX[c & 0xF];
+					} else {
+						buffer[position++] = (byte) c;
+					}
+				} else if (c < 0x800) {
+					buffer[position++] = (byte) (0xC0 | (c >> 6));
+					buffer[position++] = (byte) (0x80 | (c & 0x3F));
+				} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, value.charAt(++i));
+					buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+					buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+					buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+					buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+				} else if (Character.isSurrogate(c)) {
+					//不成对的代理字符, 与 String.getBytes 的处理一致
+					buffer[position++] = '?';
+				} else {
+					buffer[position++] = (byte) (0xE0 | (c >> 12));
+					buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+					buffer[position++] = (byte) (0x80 | (c & 0x3F));
+				}
+			}
+			size = position;
+		}
+	}
+
+	/**
+	 * 获取按 JSON 字符串输出的值
+	 * @param object 对象
+	 * @return 字符串形式的值, 不按字符串输出时返回 null
+	 */
+	static String stringValue(Object object) {
+		if (object instanceof String) {
+			return (String) object;
+		} else if (object instanceof Date) {
+			return TDateTime.format((Date) object, TDateTime.STANDER_DATETIME_TEMPLATE);
+		} else if (object instanceof Enum) {
+			return ((Enum) object).name();
+		} else if (object instanceof Boolean || (object instanceof Number && !(object instanceof Byte))) {
+			return null;
+		} else if (TReflect.isBasicType(object.getClass())) {
+			//Character, Byte 等其他 java.lang 中的类型
+			return object.toString();
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * 写入一个对象
+	 * @param object 对象
+	 * @throws ReflectiveOperationException 反射异常
+	 */
+	public void writeValue(Object object) throws ReflectiveOperationException {
+		if (object == null) {
+			writeNull();
+		} else if (object instanceof String) {
+			writeString((String) object);
+		} else if (object instanceof Integer || object instanceof Long || object instanceof Short) {
+			writeLong(((Number) object).longValue());
+		} else if (object instanceof Boolean) {
+			writeBoolean((Boolean) object);
+		} else if (object instanceof Double || object instanceof Float) {
+			writeAscii(object.toString());
+		} else if (object instanceof Map) {
+			writeMap((Map<?, ?>) object);
+		} else if (object instanceof Collection) {
+			writeCollection((Collection<?>) object);
+		} else if (object.getClass().isArray()) {
+			writeArray(object);
+		} else if (object instanceof AtomicInteger || object instanceof AtomicLong) {
+			writeLong(((Number) object).longValue());
+		} else if (object instanceof AtomicBoolean) {
+			writeBoolean(((AtomicBoolean) object).get());
+		} else if (object instanceof BigDecimal) {
+			BigDecimal bigDecimal = (BigDecimal) object;
+			writeString(BigDecimal.ZERO.compareTo(bigDecimal) == 0 ? "0" : bigDecimal.toPlainString());
+		} else {
+			//已经分析过的复杂对象直接写入
+			ClassWriter classWriter = CLASS_WRITERS.get(object.getClass());
+			if (classWriter != null) {
+				classWriter.write(this, object);
+				return;
+			}
+
+			String stringValue = stringValue(object);
+			if (stringValue != null) {
+				writeString(stringValue);
+			} else {
+				getClassWriter(object.getClass()).write(this, object);
+			}
+		}
+	}
+
+	private void writeMap(Map<?, ?> map) throws ReflectiveOperationException {
+		writeByte('{');
+		boolean first = true;
+		synchronized (map) {
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				if (!first) {
+					writeByte(',');
+				}
+				first = false;
+				writeValue(entry.getKey());
+				writeByte(':');
+				writeValue(entry.getValue());
+			}
+		}
+		writeByte('}');
+	}
+
+	private void writeCollection(Collection<?> collection) throws ReflectiveOperationException {
+		writeByte('[');
+		boolean first = true;
+		synchronized (collection) {
+			for (Object item : collection) {
+				if (!first) {
+					writeByte(',');
+				}
+				first = false;
+				writeValue(item);
+			}
+		}
+		writeByte(']');
+	}
+
+	private void writeArray(Object array) throws ReflectiveOperationException {
+		writeByte('[');
+		if (array instanceof Object[]) {
+			Object[] objects = (Object[]) array;
+			for (int i = 0; i < objects.length; i++) {
+				if (i > 0) {
+					writeByte(',');
+				}
+				writeValue(objects[i]);
+			}
+		} else if (array instanceof int[]) {
+			int[] ints = (int[]) array;
+			for (int i = 0; i < ints.length; i++) {
+				if (i > 0) {
+					writeByte(',');
+				}
+				writeLong(ints[i]);
+			}
+		} else if (array instanceof long[]) {
+			long[] longs = (long[]) array;
+			for (int i = 0; i < longs.length; i++) {
+				if (i > 0) {
+					writeByte(',');
+				}
+				writeLong(longs[i]);
+			}
+		} else {
+			int length = Array.getLength(array);
+			for (int i = 0; i < length; i++) {
+				if (i > 0) {
+					writeByte(',');
+				}
+				writeValue(Array.get(array, i));
+			}
+		}
+		writeByte(']');
+	}
+
+	private static ClassWriter getClassWriter(Class clazz) {
+		ClassWriter classWriter = CLASS_WRITERS.get(clazz);
+		if (classWriter == null) {
+			classWriter = new ClassWriter(clazz);
+			ClassWriter exists = CLASS_WRITERS.putIfAbsent(clazz, classWriter);
+			if (exists != null) {
+				classWriter = exists;
+			}
+		}
+		return classWriter;
+	}
+
+	/**
+	 * 类的字段写入器
+	 */
+	private static class ClassWriter {
+		private final FieldWriter[] fieldWriters;
+
+		private ClassWriter(Class clazz) {
+			//使用 HashMap 排列字段, 字段的输出顺序和原有通过 TReflect.getMapfromObject 转换时一致
+			Map<String, FieldWriter> fieldWriterMap = new HashMap<String, FieldWriter>();
+			for (Field field : TReflect.getFields(clazz)) {
+				if (Modifier.isStatic(field.getModifiers()) ||
+						field.getName().contains("$") ||
+						field.getAnnotation(NotSerialization.class) != null ||
+						field.getAnnotation(NotJSON.class) != null) {
+					continue;
+				}
+
+				//子类的字段优先
+				FieldWriter exists = fieldWriterMap.get(field.getName());
+				if (exists == null || exists.field.getDeclaringClass().isAssignableFrom(field.getDeclaringClass())) {
+					fieldWriterMap.put(field.getName(), new FieldWriter(field));
+				}
+			}
+
+			fieldWriters = fieldWriterMap.values().toArray(new FieldWriter[0]);
+		}
+
+		private void write(JSONWriter writer, Object object) throws ReflectiveOperationException {
+			writer.writeByte('{');
+			for (int i = 0; i < fieldWriters.length; i++) {
+				if (i > 0) {
+					writer.writeByte(',');
+				}
+				fieldWriters[i].write(writer, object);
+			}
+			writer.writeByte('}');
+		}
+	}
+
+	/**
+	 * 字段写入器
+	 */
+	private static class FieldWriter {
+		private final Field field;
+		private final Class type;
+		private final long offset;
+		//预先编码的 "字段名":
+		private final byte[] name;
+
+		private FieldWriter(Field field) {
+			this.field = field;
+			this.type = field.getType();
+			this.offset = TUnsafe.getFieldOffset(field);
+			this.name = ("\"" + field.getName() + "\":").getBytes(StandardCharsets.UTF_8);
+		}
+
+		private void write(JSONWriter writer, Object object) throws ReflectiveOperationException {
+			writer.writeBytes(name);
+			if (!type.isPrimitive()) {
+				writer.writeValue(UNSAFE.getObject(object, offset));
+			} else if (type == int.class) {
+				writer.writeLong(UNSAFE.getInt(object, offset));
+			} else if (type == long.class) {
+				writer.writeLong(UNSAFE.getLong(object, offset));
+			} else if (type == boolean.class) {
+				writer.writeBoolean(UNSAFE.getBoolean(object, offset));
+			} else if (type == double.class) {
+				writer.writeAscii(Double.toString(UNSAFE.getDouble(object, offset)));
+			} else if (type == float.class) {
+				writer.writeAscii(Float.toString(UNSAFE.getFloat(object, offset)));
+			} else if (type == short.class) {
+				writer.writeLong(UNSAFE.getShort(object, offset));
+			} else if (type == byte.class) {
+				writer.writeString(Byte.toString(UNSAFE.getByte(object, offset)));
+			} else if (type == char.class) {
+				writer.writeString(String.valueOf(UNSAFE.getChar(object, offset)));
+			}
+		}
+	}
+}
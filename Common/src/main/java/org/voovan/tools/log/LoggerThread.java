@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -20,6 +21,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Licence: Apache v2 License
  */
 public class LoggerThread implements Runnable {
+	private static final CopyOnWriteArrayList<LoggerThread> LOGGER_THREADS = new CopyOnWriteArrayList<LoggerThread>();
+
 	private ArrayBlockingQueue<String>	logQueue;
 	private OutputStream[] outputStreams;
 	private volatile AtomicBoolean finished = new AtomicBoolean(false);
@@ -38,6 +41,26 @@ public class LoggerThread implements Runnable {
 		return finished.get();
 	}
 
+	/**
+	 * 获取等待输出的日志数量
+	 * @return 等待输出的日志数量
+	 */
+	public int getQueueSize() {
+		return logQueue.size();
+	}
+
+	/**
+	 * 获取所有运行中的日志线程等待输出的日志数量
+	 * @return 等待输出的日志数量
+	 */
+	public static int getTotalQueueSize() {
+		int queueSize = 0;
+		for(LoggerThread loggerThread : LOGGER_THREADS) {
+			queueSize += loggerThread.getQueueSize();
+		}
+		return queueSize;
+	}
+
 	/**
 	 * 获取日志输出流集合
 	 * @return 输出流数组
@@ -120,6 +143,7 @@ public class LoggerThread implements Runnable {
 		} catch (IOException | InterruptedException e) {
 			e.printStackTrace();
 		} finally {
+			LOGGER_THREADS.remove(this);
 			try {
 				for (OutputStream outputStream : outputStreams) {
 					if (outputStream != null) {
@@ -140,6 +164,7 @@ public class LoggerThread implements Runnable {
 	 */
 	public synchronized static LoggerThread start(OutputStream[] outputStreams) {
 		LoggerThread loggerThread = new LoggerThread(outputStreams);
+		LOGGER_THREADS.add(loggerThread);
 		Thread loggerMainThread = new Thread(loggerThread,"VOOVAN@LOGGER_THREAD");
 		loggerMainThread.start();
 		return loggerThread;
@@ -0,0 +1,288 @@
+package org.voovan.tools.metric;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟直方图
+ *      以纳秒为单位, 按对数分桶(每个 2 的幂区间再线性分为 16 个子桶, 相对误差不超过 6.25%)
+ *      按时间片滚动统计, 可以计算最近一段时间(例如 1 分钟, 5 分钟)内的百分位数
+ *      记录操作无锁, 只有时间片切换时才会创建新的时间片对象
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * 可记录的最大值 2^36 纳秒(约 68 秒), 超出的值按最大值记录
+     */
+    private static final int MAX_VALUE_BITS = 36;
+    public static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final long slotDuration;
+    private final AtomicReferenceArray<Slot> slots;
+
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator minTime = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    /**
+     * 构造函数
+     *      时间片为 15 秒, 保留最近 5 分钟的数据
+     */
+    public LatencyHistogram() {
+        this(15000, 300000);
+    }
+
+    /**
+     * 构造函数
+     * @param slotDuration 时间片的长度, 单位: 毫秒
+     * @param maxWindow 可统计的最大时间窗口, 单位: 毫秒
+     */
+    public LatencyHistogram(long slotDuration, long maxWindow) {
+        if(slotDuration <= 0 || maxWindow < slotDuration){
+            throw new IllegalArgumentException("slotDuration must be greater than 0 and not greater than maxWindow");
+        }
+
+        this.slotDuration = slotDuration;
+        //多保留一个时间片, 当前时间片未满时仍能覆盖完整的时间窗口
+        this.slots = new AtomicReferenceArray<Slot>((int) (maxWindow / slotDuration) + 1);
+    }
+
+    /**
+     * 记录一次耗时
+     * @param nanos 耗时, 单位: 纳秒
+     */
+    public void record(long nanos) {
+        nanos = Math.min(Math.max(nanos, 0), MAX_VALUE);
+
+        totalCount.increment();
+        totalTime.add(nanos);
+        maxTime.accumulate(nanos);
+        minTime.accumulate(nanos);
+
+        currentSlot(System.currentTimeMillis()).record(nanos);
+    }
+
+    /**
+     * 获取累计的记录次数
+     * @return 累计的记录次数
+     */
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * 获取累计的耗时
+     * @return 累计的耗时, 单位: 纳秒
+     */
+    public long getTotalTime() {
+        return totalTime.sum();
+    }
+
+    /**
+     * 获取累计的最大耗时
+     * @return 最大耗时, 单位: 纳秒
+     */
+    public long getMaxTime() {
+        return maxTime.get();
+    }
+
+    /**
+     * 获取累计的最小耗时
+     * @return 最小耗时, 单位: 纳秒, 没有记录时返回 0
+     */
+    public long getMinTime() {
+        long min = minTime.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    /**
+     * 获取最近一段时间的统计快照
+     * @param window 时间窗口, 单位: 毫秒, 按时间片对齐, 不超过构造时指定的最大时间窗口
+     * @return 统计快照
+     */
+    public Snapshot snapshot(long window) {
+        long currentTimeMillis = System.currentTimeMillis();
+        long currentEpoch = currentTimeMillis / slotDuration;
+        long slotCount = Math.min(Math.max(1, window / slotDuration), slots.length() - 1);
+
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+
+        for(int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            //当前时间片未满, 因此包含前 slotCount 个完整的时间片
+            if(slot == null || slot.epoch > currentEpoch || slot.epoch < currentEpoch - slotCount) {
+                continue;
+            }
+
+            for(int j = 0; j < BUCKET_COUNT; j++) {
+                counts[j] += slot.counts.get(j);
+            }
+            count += slot.count.sum();
+            sum += slot.sum.sum();
+            max = Math.max(max, slot.max.get());
+        }
+
+        return new Snapshot(counts, count, sum, max, slotCount * slotDuration + currentTimeMillis % slotDuration + 1);
+    }
+
+    private Slot currentSlot(long currentTimeMillis) {
+        long epoch = currentTimeMillis / slotDuration;
+        int index = (int) (epoch % slots.length());
+
+        Slot slot = slots.get(index);
+        while(slot == null || slot.epoch < epoch) {
+            Slot newSlot = new Slot(epoch);
+            if(slots.compareAndSet(index, slot, newSlot)) {
+                return newSlot;
+            }
+            slot = slots.get(index);
+        }
+
+        return slot;
+    }
+
+    /**
+     * 计算值所在的桶
+     * @param value 值
+     * @return 桶的索引
+     */
+    static int bucketIndex(long value) {
+        if(value < SUB_BUCKET_COUNT * 2) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * 计算桶能容纳的最大值
+     * @param index 桶的索引
+     * @return 桶能容纳的最大值
+     */
+    static long bucketUpperBound(int index) {
+        if(index < SUB_BUCKET_COUNT * 2) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static class Slot {
+        private final long epoch;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Slot(long epoch) {
+            this.epoch = epoch;
+        }
+
+        private void record(long nanos) {
+            counts.incrementAndGet(bucketIndex(nanos));
+            count.increment();
+            sum.add(nanos);
+            max.accumulate(nanos);
+        }
+    }
+
+    /**
+     * 直方图的统计快照
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+        private final long window;
+
+        private Snapshot(long[] counts, long count, long sum, long max, long window) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.window = window;
+        }
+
+        /**
+         * 获取记录次数
+         * @return 记录次数
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 获取耗时总和
+         * @return 耗时总和, 单位: 纳秒
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * 获取最大耗时
+         * @return 最大耗时, 单位: 纳秒
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * 获取平均耗时
+         * @return 平均耗时, 单位: 纳秒
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * 获取每秒的记录次数
+         * @return 每秒的记录次数
+         */
+        public double getRate() {
+            return count * 1000d / window;
+        }
+
+        /**
+         * 获取百分位数
+         * @param percentile 百分位, 取值范围 0 ~ 1, 例如: 0.99
+         * @return 百分位数, 单位: 纳秒, 为所在桶的上界, 不超过最大耗时
+         */
+        public long getPercentile(double percentile) {
+            if(count == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile * count));
+            long accumulated = 0;
+            for(int i = 0; i < counts.length; i++) {
+                accumulated += counts[i];
+                if(accumulated >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+
+            return max;
+        }
+    }
+}
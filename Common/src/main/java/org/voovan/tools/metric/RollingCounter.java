@@ -0,0 +1,110 @@
+package org.voovan.tools.metric;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 滑动时间窗口计数器
+ *      按时间片滚动计数, 可以获取最近一段时间内的计数, 计数操作无锁
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class RollingCounter {
+
+    private final long slotDuration;
+    private final AtomicReferenceArray<Slot> slots;
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * 构造函数
+     *      时间片为 10 秒, 保留最近 1 分钟的数据
+     */
+    public RollingCounter() {
+        this(10000, 60000);
+    }
+
+    /**
+     * 构造函数
+     * @param slotDuration 时间片的长度, 单位: 毫秒
+     * @param maxWindow 可统计的最大时间窗口, 单位: 毫秒
+     */
+    public RollingCounter(long slotDuration, long maxWindow) {
+        if(slotDuration <= 0 || maxWindow < slotDuration){
+            throw new IllegalArgumentException("slotDuration must be greater than 0 and not greater than maxWindow");
+        }
+
+        this.slotDuration = slotDuration;
+        this.slots = new AtomicReferenceArray<Slot>((int) (maxWindow / slotDuration) + 1);
+    }
+
+    /**
+     * 计数加 1
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * 增加计数
+     * @param value 增加的值
+     */
+    public void add(long value) {
+        total.add(value);
+
+        long epoch = System.currentTimeMillis() / slotDuration;
+        int index = (int) (epoch % slots.length());
+
+        Slot slot = slots.get(index);
+        while(slot == null || slot.epoch < epoch) {
+            Slot newSlot = new Slot(epoch);
+            if(slots.compareAndSet(index, slot, newSlot)) {
+                slot = newSlot;
+                break;
+            }
+            slot = slots.get(index);
+        }
+
+        slot.count.add(value);
+    }
+
+    /**
+     * 获取累计的计数
+     * @return 累计的计数
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * 获取最近一段时间内的计数
+     * @param window 时间窗口, 单位: 毫秒, 按时间片对齐, 不超过构造时指定的最大时间窗口
+     * @return 时间窗口内的计数
+     */
+    public long get(long window) {
+        long currentEpoch = System.currentTimeMillis() / slotDuration;
+        long slotCount = Math.min(Math.max(1, window / slotDuration), slots.length() - 1);
+
+        long count = 0;
+        for(int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if(slot != null && slot.epoch <= currentEpoch && slot.epoch >= currentEpoch - slotCount) {
+                count += slot.count.sum();
+            }
+        }
+
+        return count;
+    }
+
+    private static class Slot {
+        private final long epoch;
+        private final LongAdder count = new LongAdder();
+
+        private Slot(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package org.voovan.tools.metric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 有界的高频项计数器
+ *      使用 Space-Saving 算法, 最多跟踪 capacity 个键, 已跟踪的键计数无锁
+ *      容量已满时新的键替换计数最小的键, 并继承其计数作为误差上界, 高频项的计数不会被低估
+ *      键按哈希分到多个分段, 每个分段独立加锁并使用最小堆查找计数最小的键
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ *
+ * @param <K> 键的类型
+ * @param <V> 与键关联的附加数据的类型
+ */
+public class TopKCounter<K, V> {
+
+    /**
+     * 每个分段最少跟踪的键的数量, 容量较小时不分段
+     */
+    private static final int MIN_STRIPE_CAPACITY = 16;
+    private static final int MAX_STRIPES = 16;
+
+    private final int capacity;
+    private final Function<K, V> valueBuilder;
+    private final ConcurrentHashMap<K, Entry<K, V>> entries;
+    private final Stripe<K, V>[] stripes;
+
+    /**
+     * 构造函数
+     * @param capacity 最多跟踪的键的数量
+     */
+    public TopKCounter(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * 构造函数
+     * @param capacity 最多跟踪的键的数量
+     * @param valueBuilder 附加数据的构造函数, 开始跟踪一个键时调用, 可以为 null
+     */
+    public TopKCounter(int capacity, Function<K, V> valueBuilder) {
+        if(capacity <= 0){
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+
+        this.capacity = capacity;
+        this.valueBuilder = valueBuilder;
+        this.entries = new ConcurrentHashMap<K, Entry<K, V>>(capacity * 2);
+
+        int stripeCount = 1;
+        while(stripeCount * 2 <= MAX_STRIPES && stripeCount * 2 * MIN_STRIPE_CAPACITY <= capacity) {
+            stripeCount = stripeCount * 2;
+        }
+
+        this.stripes = new Stripe[stripeCount];
+        for(int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<K, V>(capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * 获取最多跟踪的键的数量
+     * @return 最多跟踪的键的数量
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 获取当前跟踪的键的数量
+     * @return 当前跟踪的键的数量
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 键的计数加 1
+     *      计数时计数项可能正被其他线程淘汰, 计数后确认计数项仍在跟踪中, 否则重新跟踪并计数, 避免计数丢失
+     * @param key 键
+     * @return 键对应的计数项
+     */
+    public Entry<K, V> increment(K key) {
+        while(true) {
+            Entry<K, V> entry = entries.get(key);
+            if(entry == null) {
+                entry = track(key);
+            }
+
+            entry.count.increment();
+            if(entries.get(key) == entry) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * 获取键对应的计数项
+     * @param key 键
+     * @return 计数项, 未跟踪则返回 null
+     */
+    public Entry<K, V> get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 按计数从大到小获取计数项
+     * @param size 获取的数量
+     * @return 计数项的集合
+     */
+    public List<Entry<K, V>> top(int size) {
+        List<Entry<K, V>> result = new ArrayList<Entry<K, V>>(entries.values());
+        result.sort((entry1, entry2) -> Long.compare(entry2.getCount(), entry1.getCount()));
+        return size < result.size() ? result.subList(0, size) : result;
+    }
+
+    /**
+     * 清空计数
+     */
+    public void clear() {
+        for(Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                for(Entry<K, V> entry : stripe.heap) {
+                    entries.remove(entry.key);
+                }
+                stripe.heap.clear();
+            }
+        }
+    }
+
+    private Entry<K, V> track(K key) {
+        int hash = key.hashCode();
+        hash = hash ^ (hash >>> 16);
+        Stripe<K, V> stripe = stripes[hash & (stripes.length - 1)];
+
+        synchronized (stripe) {
+            Entry<K, V> entry = entries.get(key);
+            if(entry != null) {
+                return entry;
+            }
+
+            long error = 0;
+            if(stripe.heap.size() >= stripe.capacity) {
+                Entry<K, V> minEntry = stripe.pollMin();
+                entries.remove(minEntry.key);
+                error = minEntry.heapCount;
+            }
+
+            entry = new Entry<K, V>(key, valueBuilder == null ? null : valueBuilder.apply(key), error);
+            stripe.heap.add(entry);
+            entries.put(key, entry);
+            return entry;
+        }
+    }
+
+    /**
+     * 分段
+     *      堆中按加入堆时的计数排序, 计数只增不减, 堆中的计数不大于实际计数
+     *      取出的计数项计数已变化时按实际计数重新加入堆, 直到取出的计数项计数未变化, 即为计数最小的键
+     * @param <K> 键的类型
+     * @param <V> 附加数据的类型
+     */
+    private static class Stripe<K, V> {
+        private final int capacity;
+        private final PriorityQueue<Entry<K, V>> heap;
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+            this.heap = new PriorityQueue<Entry<K, V>>(capacity, (entry1, entry2) -> Long.compare(entry1.heapCount, entry2.heapCount));
+        }
+
+        private Entry<K, V> pollMin() {
+            while(true) {
+                Entry<K, V> entry = heap.poll();
+                long count = entry.getCount();
+                if(count <= entry.heapCount) {
+                    return entry;
+                }
+
+                entry.heapCount = count;
+                heap.add(entry);
+            }
+        }
+    }
+
+    /**
+     * 计数项
+     * @param <K> 键的类型
+     * @param <V> 附加数据的类型
+     */
+    public static class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private final long error;
+        private final LongAdder count = new LongAdder();
+        //加入分段的堆时的计数, 由分段的锁保护
+        private long heapCount;
+
+        private Entry(K key, V value, long error) {
+            this.key = key;
+            this.value = value;
+            this.error = error;
+            this.count.add(error);
+            this.heapCount = error;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * 获取计数, 包含替换时继承的误差
+         * @return 计数
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * 获取计数的误差上界, 实际计数不小于 getCount() - getError()
+         * @return 计数的误差上界
+         */
+        public long getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,573 @@
+package org.voovan.tools.reflect;
+
+import org.voovan.tools.TString;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类的反射元数据缓存
+ * 		通过 ClassValue 和类关联, 类卸载时随之回收, 查找时不需要拼接字符串作为键
+ * 		所有缓存都可以被多个线程同时读写
+ * 		字段的读写, 方法和构造方法的调用使用 MethodHandle, 无法生成 MethodHandle 时使用反射
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+class ClassMetadata {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	//缓存中表示查找不到的对象
+	private static final Object NOT_FOUND = new Object();
+
+	private static final ClassValue<ClassMetadata> METADATAS = new ClassValue<ClassMetadata>() {
+		@Override
+		protected ClassMetadata computeValue(Class<?> type) {
+			return new ClassMetadata(type);
+		}
+	};
+
+	private final Class<?> clazz;
+
+	private volatile Field[] fields;
+	private volatile Map<String, Field> fieldMap;
+	private volatile Method[] methods;
+	private volatile Constructor[] constructors;
+
+	private final ConcurrentHashMap<String, Field> ignoreCaseFields = new ConcurrentHashMap<String, Field>();
+	private final ConcurrentHashMap<String, Method[]> namedMethods = new ConcurrentHashMap<String, Method[]>();
+	private final ConcurrentHashMap<MemberKey, Object> methodCache = new ConcurrentHashMap<MemberKey, Object>();
+	private final ConcurrentHashMap<MemberKey, Constructor> constructorCache = new ConcurrentHashMap<MemberKey, Constructor>();
+	private final ConcurrentHashMap<Class, Boolean> interfaceCache = new ConcurrentHashMap<Class, Boolean>();
+	private final ConcurrentHashMap<Class, Boolean> superClassCache = new ConcurrentHashMap<Class, Boolean>();
+
+	//当前类中声明的成员的访问器
+	private final ConcurrentHashMap<Field, FieldAccessor> fieldAccessors = new ConcurrentHashMap<Field, FieldAccessor>();
+	private final ConcurrentHashMap<Member, Invoker> invokers = new ConcurrentHashMap<Member, Invoker>();
+
+	private ClassMetadata(Class<?> clazz) {
+		this.clazz = clazz;
+	}
+
+	/**
+	 * 获取类的元数据
+	 * @param clazz 类对象
+	 * @return 类的元数据
+	 */
+	static ClassMetadata get(Class<?> clazz) {
+		return METADATAS.get(clazz);
+	}
+
+	/**
+	 * 获取类及其父类的所有 Field
+	 * @return Field 数组
+	 */
+	Field[] getFields() {
+		Field[] fields = this.fields;
+		if (fields == null) {
+			HashSet<Field> fieldSet = new HashSet<Field>();
+			for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+				fieldSet.addAll(Arrays.asList(current.getDeclaredFields()));
+			}
+			fields = fieldSet.toArray(new Field[0]);
+			this.fields = fields;
+		}
+		return fields;
+	}
+
+	/**
+	 * 按名称查找 Field, 子类中声明的优先
+	 * @param fieldName Field 名称
+	 * @return Field 对象, 找不到时返回 null
+	 */
+	Field findField(String fieldName) {
+		Map<String, Field> fieldMap = this.fieldMap;
+		if (fieldMap == null) {
+			fieldMap = new HashMap<String, Field>();
+			for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+				for (Field field : current.getDeclaredFields()) {
+					if (!fieldMap.containsKey(field.getName())) {
+						fieldMap.put(field.getName(), field);
+					}
+				}
+			}
+			this.fieldMap = fieldMap;
+		}
+		return fieldMap.get(fieldName);
+	}
+
+	/**
+	 * 按名称查找 Field, 不区分大小写, 并且支持下划线形式的名称
+	 * @param fieldName Field 名称
+	 * @return Field 对象, 找不到时返回 null
+	 */
+	Field findFieldIgnoreCase(String fieldName) {
+		Field field = ignoreCaseFields.get(fieldName);
+		if (field == null) {
+			String camelName = TString.underlineToCamel(fieldName);
+			for (Field fieldItem : getFields()) {
+				if (fieldItem.getName().equalsIgnoreCase(fieldName) || fieldItem.getName().equalsIgnoreCase(camelName)) {
+					//只缓存找到的结果, 避免外部传入的名称使缓存无限增长
+					ignoreCaseFields.put(fieldName, fieldItem);
+					field = fieldItem;
+					break;
+				}
+			}
+		}
+		return field;
+	}
+
+	/**
+	 * 获取类及其父类的所有方法
+	 * @return Method 数组
+	 */
+	Method[] getMethods() {
+		Method[] methods = this.methods;
+		if (methods == null) {
+			HashSet<Method> methodSet = new HashSet<Method>();
+			for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+				methodSet.addAll(Arrays.asList(current.getDeclaredMethods()));
+			}
+			methods = methodSet.toArray(new Method[0]);
+			this.methods = methods;
+		}
+		return methods;
+	}
+
+	/**
+	 * 获取指定名称的所有方法
+	 * @param name 方法名
+	 * @return Method 数组
+	 */
+	Method[] getMethods(String name) {
+		Method[] methods = namedMethods.get(name);
+		if (methods == null) {
+			HashSet<Method> methodSet = new HashSet<Method>();
+			for (Method method : getMethods()) {
+				if (method.getName().equals(name)) {
+					methodSet.add(method);
+				}
+			}
+			methods = methodSet.toArray(new Method[0]);
+			namedMethods.put(name, methods);
+		}
+		return methods;
+	}
+
+	/**
+	 * 按名称和参数类型查找方法, 子类中声明的优先
+	 * @param name 方法名
+	 * @param paramTypes 参数类型
+	 * @return Method 对象, 找不到时返回 null
+	 */
+	Method findMethod(String name, Class<?>[] paramTypes) {
+		MemberKey key = new MemberKey(name, paramTypes, paramTypes.length);
+		Object method = methodCache.get(key);
+		if (method == null) {
+			method = NOT_FOUND;
+			for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+				try {
+					method = current.getDeclaredMethod(name, paramTypes);
+					break;
+				} catch (NoSuchMethodException e) {
+					continue;
+				}
+			}
+			methodCache.put(key.copy(), method);
+		}
+		return method == NOT_FOUND ? null : (Method) method;
+	}
+
+	/**
+	 * 按名称和参数数量查找方法
+	 * @param name 方法名
+	 * @param paramCount 参数数量
+	 * @return Method 数组
+	 */
+	Method[] findMethod(String name, int paramCount) {
+		MemberKey key = new MemberKey(name, null, paramCount);
+		Object methods = methodCache.get(key);
+		if (methods == null) {
+			HashSet<Method> methodSet = new HashSet<Method>();
+			for (Method method : getMethods(name)) {
+				if (method.getParameterTypes().length == paramCount) {
+					methodSet.add(method);
+				}
+			}
+			methods = methodSet.toArray(new Method[0]);
+			methodCache.put(key, methods);
+		}
+		return (Method[]) methods;
+	}
+
+	/**
+	 * 获取类的所有 public 构造方法
+	 * @return Constructor 数组
+	 */
+	Constructor[] getConstructors() {
+		Constructor[] constructors = this.constructors;
+		if (constructors == null) {
+			constructors = clazz.getConstructors();
+			this.constructors = constructors;
+		}
+		return constructors;
+	}
+
+	/**
+	 * 按参数类型查找 public 构造方法
+	 * @param paramTypes 参数类型
+	 * @return Constructor 对象
+	 * @throws NoSuchMethodException 找不到构造方法
+	 */
+	Constructor findConstructor(Class<?>[] paramTypes) throws NoSuchMethodException {
+		MemberKey key = new MemberKey(null, paramTypes, paramTypes.length);
+		Constructor constructor = constructorCache.get(key);
+		if (constructor == null) {
+			constructor = clazz.getConstructor(paramTypes);
+			constructorCache.put(key.copy(), constructor);
+		}
+		return constructor;
+	}
+
+	/**
+	 * 判断是否实现了某个接口, 包括接口的父接口
+	 * @param interfaceClass 接口
+	 * @return true: 实现了这个接口, false: 没有实现这个接口
+	 */
+	boolean isImpByInterface(Class<?> interfaceClass) {
+		Boolean result = interfaceCache.get(interfaceClass);
+		if (result == null) {
+			result = false;
+			for (Class<?> interfaceItem : clazz.getInterfaces()) {
+				if (interfaceItem == interfaceClass || get(interfaceItem).isImpByInterface(interfaceClass)) {
+					result = true;
+					break;
+				}
+			}
+			interfaceCache.put(interfaceClass, result);
+		}
+		return result;
+	}
+
+	/**
+	 * 判断是否继承于某个类, 包括父类的父类
+	 * @param extendsClass 父类
+	 * @return true: 继承于这个类, false: 不继承于这个类
+	 */
+	boolean isExtendsByClass(Class<?> extendsClass) {
+		Boolean result = superClassCache.get(extendsClass);
+		if (result == null) {
+			result = false;
+			for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+				if (current == extendsClass) {
+					result = true;
+					break;
+				}
+			}
+			superClassCache.put(extendsClass, result);
+		}
+		return result;
+	}
+
+	/**
+	 * 获取 Field 的访问器
+	 * @param field Field 对象
+	 * @return 访问器
+	 */
+	static FieldAccessor getFieldAccessor(Field field) {
+		ConcurrentHashMap<Field, FieldAccessor> fieldAccessors = get(field.getDeclaringClass()).fieldAccessors;
+		FieldAccessor fieldAccessor = fieldAccessors.get(field);
+		if (fieldAccessor == null) {
+			fieldAccessor = new FieldAccessor(field);
+			FieldAccessor exists = fieldAccessors.putIfAbsent(field, fieldAccessor);
+			if (exists != null) {
+				fieldAccessor = exists;
+			}
+		}
+		return fieldAccessor;
+	}
+
+	/**
+	 * 获取方法或构造方法的调用器
+	 * @param executable Method 或者 Constructor 对象
+	 * @return 调用器
+	 */
+	static Invoker getInvoker(Executable executable) {
+		ConcurrentHashMap<Member, Invoker> invokers = get(executable.getDeclaringClass()).invokers;
+		Invoker invoker = invokers.get(executable);
+		//可访问标记改变后重新生成
+		if (invoker == null || invoker.accessible != executable.isAccessible()) {
+			invoker = new Invoker(executable);
+			invokers.put(executable, invoker);
+		}
+		return invoker;
+	}
+
+	/**
+	 * 检查参数值是否可以赋值给参数类型, 规则和反射调用一致, 基本类型允许扩展转换
+	 * @param type 参数类型
+	 * @param value 参数值
+	 * @return true: 可以赋值, false: 不可以赋值
+	 */
+	private static boolean isAssignable(Class<?> type, Object value) {
+		if (!type.isPrimitive()) {
+			return value == null || type.isInstance(value);
+		}
+
+		if (value == null) {
+			return false;
+		}
+
+		Class<?> valueClass = value.getClass();
+		if (type == int.class) {
+			return valueClass == Integer.class || valueClass == Short.class || valueClass == Byte.class || valueClass == Character.class;
+		} else if (type == long.class) {
+			return valueClass == Long.class || isAssignable(int.class, value);
+		} else if (type == double.class) {
+			return valueClass == Double.class || valueClass == Float.class || isAssignable(long.class, value);
+		} else if (type == float.class) {
+			return valueClass == Float.class || isAssignable(long.class, value);
+		} else if (type == short.class) {
+			return valueClass == Short.class || valueClass == Byte.class;
+		} else if (type == boolean.class) {
+			return valueClass == Boolean.class;
+		} else if (type == byte.class) {
+			return valueClass == Byte.class;
+		} else if (type == char.class) {
+			return valueClass == Character.class;
+		}
+		return false;
+	}
+
+	/**
+	 * Field 访问器
+	 */
+	static class FieldAccessor {
+		private final Field field;
+		private final boolean isStatic;
+		//(Object)Object
+		private final MethodHandle getter;
+		//(Object, Object)void
+		private final MethodHandle setter;
+
+		private FieldAccessor(Field field) {
+			this.field = field;
+			this.isStatic = Modifier.isStatic(field.getModifiers());
+			field.setAccessible(true);
+
+			MethodHandle getter;
+			try {
+				getter = LOOKUP.unreflectGetter(field);
+				if (isStatic) {
+					getter = MethodHandles.dropArguments(getter, 0, Object.class);
+				}
+				getter = getter.asType(MethodType.methodType(Object.class, Object.class));
+			} catch (IllegalAccessException e) {
+				getter = null;
+			}
+			this.getter = getter;
+
+			MethodHandle setter;
+			try {
+				setter = LOOKUP.unreflectSetter(field);
+				if (isStatic) {
+					setter = MethodHandles.dropArguments(setter, 0, Object.class);
+				}
+				setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			} catch (IllegalAccessException e) {
+				//static final 的字段等, 使用反射处理
+				setter = null;
+			}
+			this.setter = setter;
+		}
+
+		private void checkTarget(Object obj) {
+			if (!isStatic && !field.getDeclaringClass().isInstance(obj)) {
+				throw new IllegalArgumentException("Can not access field " + field + " on " + (obj == null ? "null" : obj.getClass().getName()));
+			}
+		}
+
+		Object get(Object obj) throws IllegalAccessException {
+			if (getter == null) {
+				return field.get(obj);
+			}
+
+			checkTarget(obj);
+			try {
+				return (Object) getter.invokeExact(obj);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		void set(Object obj, Object value) throws IllegalAccessException {
+			if (setter == null) {
+				field.set(obj, value);
+				return;
+			}
+
+			checkTarget(obj);
+			if (!isAssignable(field.getType(), value)) {
+				throw new IllegalArgumentException("Can not set " + field.getType().getName() + " field " + field +
+						" to " + (value == null ? "null value" : value.getClass().getName()));
+			}
+
+			try {
+				setter.invokeExact(obj, value);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * 方法和构造方法的调用器
+	 * 		参数的检查和异常的包装与反射调用一致, 被调用的方法抛出的异常包装为 InvocationTargetException
+	 */
+	static class Invoker {
+		private final Executable executable;
+		private final boolean accessible;
+		private final boolean isStatic;
+		private final Class<?>[] parameterTypes;
+		//方法: (Object, Object[])Object, 构造方法: (Object[])Object
+		private final MethodHandle handle;
+
+		private Invoker(Executable executable) {
+			this.executable = executable;
+			this.accessible = executable.isAccessible();
+			this.isStatic = Modifier.isStatic(executable.getModifiers());
+			this.parameterTypes = executable.getParameterTypes();
+
+			MethodHandle handle;
+			try {
+				if (executable instanceof Method) {
+					handle = LOOKUP.unreflect((Method) executable).asFixedArity();
+					if (isStatic) {
+						handle = MethodHandles.dropArguments(handle, 0, Object.class);
+					}
+				} else {
+					handle = LOOKUP.unreflectConstructor((Constructor) executable).asFixedArity();
+				}
+				handle = handle.asType(handle.type().generic()).asSpreader(Object[].class, parameterTypes.length);
+			} catch (IllegalAccessException e) {
+				//无访问权限或者抽象类的构造方法等, 使用反射处理并由反射给出对应的异常
+				handle = null;
+			}
+			this.handle = handle;
+		}
+
+		private void checkArguments(Object obj, Object[] args) {
+			if (executable instanceof Method && !isStatic && !executable.getDeclaringClass().isInstance(obj)) {
+				throw obj == null ? new NullPointerException() : new IllegalArgumentException("object is not an instance of declaring class");
+			}
+
+			int length = args == null ? 0 : args.length;
+			if (length != parameterTypes.length) {
+				throw new IllegalArgumentException("wrong number of arguments");
+			}
+
+			for (int i = 0; i < length; i++) {
+				if (!isAssignable(parameterTypes[i], args[i])) {
+					throw new IllegalArgumentException("argument type mismatch");
+				}
+			}
+		}
+
+		/**
+		 * 调用方法
+		 * @param obj 执行方法的对象, 静态方法为 null
+		 * @param args 参数
+		 * @return 方法的返回值
+		 * @throws ReflectiveOperationException 反射异常
+		 */
+		Object invoke(Object obj, Object[] args) throws ReflectiveOperationException {
+			if (handle == null) {
+				return ((Method) executable).invoke(obj, args);
+			}
+
+			checkArguments(obj, args);
+			Object[] arguments = args == null ? new Object[0] : args;
+			try {
+				return (Object) handle.invokeExact(obj, arguments);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+
+		/**
+		 * 调用构造方法
+		 * @param args 参数
+		 * @return 新的对象
+		 * @throws ReflectiveOperationException 反射异常
+		 */
+		Object newInstance(Object[] args) throws ReflectiveOperationException {
+			if (handle == null) {
+				return ((Constructor) executable).newInstance(args);
+			}
+
+			checkArguments(null, args);
+			Object[] arguments = args == null ? new Object[0] : args;
+			try {
+				return (Object) handle.invokeExact(arguments);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+	}
+
+	/**
+	 * 方法和构造方法缓存的键
+	 */
+	private static class MemberKey {
+		private final String name;
+		private final Class<?>[] paramTypes;
+		private final int paramCount;
+		private final int hashCode;
+
+		private MemberKey(String name, Class<?>[] paramTypes, int paramCount) {
+			this.name = name;
+			this.paramTypes = paramTypes;
+			this.paramCount = paramCount;
+			this.hashCode = 31 * (31 * Objects.hashCode(name) + Arrays.hashCode(paramTypes)) + paramCount;
+		}
+
+		/**
+		 * 复制参数类型数组, 避免调用者修改放入缓存的键
+		 * @return 新的键
+		 */
+		private MemberKey copy() {
+			return new MemberKey(name, paramTypes == null ? null : paramTypes.clone(), paramCount);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof MemberKey)) {
+				return false;
+			}
+			MemberKey other = (MemberKey) obj;
+			return paramCount == other.paramCount &&
+					Objects.equals(name, other.name) &&
+					Arrays.equals(paramTypes, other.paramTypes);
+		}
+	}
+}
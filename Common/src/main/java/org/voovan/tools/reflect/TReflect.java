@@ -28,14 +28,6 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class TReflect {
 
-	private static Map<String, Field> fields = new HashMap<String ,Field>();
-	private static Map<String, Method> methods = new HashMap<String ,Method>();
-	private static Map<String, Constructor> constructors = new HashMap<String ,Constructor>();
-	private static Map<String, Field[]> fieldArrays = new HashMap<String ,Field[]>();
-	private static Map<String, Method[]> methodArrays = new HashMap<String ,Method[]>();
-	private static Map<String, Constructor[]> constructorArrays = new HashMap<String ,Constructor[]>();
-	private static Map<String, Boolean> classHierarchy = new HashMap<String ,Boolean>();
-
 	/**
 	 * 获得类所有的Field
 	 *
@@ -43,21 +35,7 @@ public class TReflect {
 	 * @return Field数组
 	 */
 	public static Field[] getFields(Class<?> clazz) {
-		String mark = clazz.getCanonicalName();
-		Field[] fields = fieldArrays.get(mark);
-
-		if(fields == null){
-			HashSet<Field> fieldArray = new HashSet<Field>();
-			for (; clazz!=null && clazz != Object.class; clazz = clazz.getSuperclass()) {
-				Field[] tmpFields = clazz.getDeclaredFields();
-				fieldArray.addAll(Arrays.asList(tmpFields));
-			}
-			fields = fieldArray.toArray(new Field[]{});
-			fieldArrays.put(mark, fields);
-			fieldArray.clear();
-		}
-
-		return fields;
+		return ClassMetadata.get(clazz).getFields();
 	}
 
 	/**
@@ -71,27 +49,7 @@ public class TReflect {
 	 */
 	public static Field findField(Class<?> clazz, String fieldName)
 			throws ReflectiveOperationException {
-
-		String mark = new StringBuilder(clazz.getCanonicalName()).append("#").append(fieldName).toString();
-
-		Field field = fields.get(mark);
-
-		if(field==null){
-
-			for (; clazz!=null && clazz != Object.class; clazz = clazz.getSuperclass()) {
-				try {
-					field = clazz.getDeclaredField(fieldName);
-					break;
-				}catch(ReflectiveOperationException e){
-					field = null;
-				}
-			}
-
-			fields.put(mark, field);
-
-		}
-
-		return field;
+		return ClassMetadata.get(clazz).findField(fieldName);
 	}
 
 	/**
@@ -104,20 +62,7 @@ public class TReflect {
 	 */
 	public static Field findFieldIgnoreCase(Class<?> clazz, String fieldName)
 			throws ReflectiveOperationException{
-
-		String mark = new StringBuilder(clazz.getCanonicalName()).append("#").append(fieldName).toString();
-
-		Field field = fields.get(mark);
-		if (field==null){
-			for (Field fieldItem : getFields(clazz)) {
-				if (fieldItem.getName().equalsIgnoreCase(fieldName) || fieldItem.getName().equalsIgnoreCase(TString.underlineToCamel(fieldName))) {
-					fields.put(mark, fieldItem);
-					field = fieldItem;
-					break;
-				}
-			}
-		}
-		return field;
+		return ClassMetadata.get(clazz).findFieldIgnoreCase(fieldName);
 	}
 
 	/**
@@ -174,9 +119,22 @@ public class TReflect {
 	@SuppressWarnings("unchecked")
 	static public <T> T getFieldValue(Object obj, String fieldName)
 			throws ReflectiveOperationException {
-		Field field = findField(obj.getClass(), fieldName);
-		field.setAccessible(true);
-		return (T) field.get(obj);
+		return (T) ClassMetadata.getFieldAccessor(getField(obj, fieldName)).get(obj);
+	}
+
+	/**
+	 * 查找对象中指定名称的 Field
+	 * @param obj  对象
+	 * @param fieldName Field 名称
+	 * @return Field 对象
+	 * @throws NoSuchFieldException 无 Field 异常
+	 */
+	private static Field getField(Object obj, String fieldName) throws NoSuchFieldException {
+		Field field = ClassMetadata.get(obj.getClass()).findField(fieldName);
+		if(field == null){
+			throw new NoSuchFieldException(obj.getClass().getName() + "#" + fieldName);
+		}
+		return field;
 	}
 
 	/**
@@ -190,9 +148,7 @@ public class TReflect {
 	 */
 	public static void setFieldValue(Object obj, String fieldName,
 									 Object fieldValue) throws ReflectiveOperationException {
-		Field field = findField(obj.getClass(), fieldName);
-		field.setAccessible(true);
-		field.set(obj, fieldValue);
+		ClassMetadata.getFieldAccessor(getField(obj, fieldName)).set(obj, fieldValue);
 	}
 
 	/**
@@ -232,29 +188,7 @@ public class TReflect {
 	 */
 	public static Method findMethod(Class<?> clazz, String name,
 									Class<?>... paramTypes) throws ReflectiveOperationException {
-		StringBuilder markBuilder = new StringBuilder(clazz.getCanonicalName()).append("#").append(name);
-		for(Class<?> paramType : paramTypes){
-			markBuilder.append("$").append(paramType.getCanonicalName());
-		}
-
-		String mark = markBuilder.toString();
-
-		Method method = methods.get(mark);
-		if (method == null){
-
-			for (; clazz!=null && clazz != Object.class; clazz = clazz.getSuperclass()) {
-				try {
-					method = clazz.getDeclaredMethod(name, paramTypes);
-					break;
-				}catch(ReflectiveOperationException e){
-					method = null;
-				}
-			}
-
-			methods.put(mark, method);
-		}
-
-		return method;
+		return ClassMetadata.get(clazz).findMethod(name, paramTypes);
 	}
 
 	/**
@@ -267,24 +201,7 @@ public class TReflect {
 	 */
 	public static Method[] findMethod(Class<?> clazz, String name,
 									  int paramCount) throws ReflectiveOperationException {
-		String mark = new StringBuilder(clazz.getCanonicalName()).append("#").append(name).append("@").append(paramCount).toString();
-
-		Method[] methods = methodArrays.get(mark);
-
-		if (methods==null){
-			HashSet<Method> methodList = new HashSet<Method>();
-			Method[] allMethods = getMethods(clazz, name);
-			for (Method method : allMethods) {
-				if (method.getParameterTypes().length == paramCount) {
-					methodList.add(method);
-				}
-			}
-			methods = methodList.toArray(new Method[]{});
-			methodArrays.put(mark,methods);
-			methodList.clear();
-		}
-
-		return methods;
+		return ClassMetadata.get(clazz).findMethod(name, paramCount);
 	}
 
 	/**
@@ -293,24 +210,7 @@ public class TReflect {
 	 * @return Method 对象数组
 	 */
 	public static Method[] getMethods(Class<?> clazz) {
-
-		Method[] methods = null;
-
-		String mark = clazz.getCanonicalName();
-
-		if(methodArrays.containsKey(mark)){
-			return methodArrays.get(mark);
-		} else {
-			HashSet<Method> methodList = new HashSet<Method>();
-			for (; clazz!=null && clazz != Object.class; clazz = clazz.getSuperclass()) {
-				Method[] tmpMethods = clazz.getDeclaredMethods();
-				methodList.addAll(Arrays.asList(tmpMethods));
-			}
-			methods = methodList.toArray(new Method[]{});
-			methodList.clear();
-			methodArrays.put(mark,methods);
-		}
-		return methods;
+		return ClassMetadata.get(clazz).getMethods();
 	}
 
 	/**
@@ -321,25 +221,7 @@ public class TReflect {
 	 * @return Method 对象数组
 	 */
 	public static Method[] getMethods(Class<?> clazz,String name) {
-
-		Method[] methods = null;
-
-		String mark = new StringBuilder(clazz.getCanonicalName()).append("#").append(name).toString();
-
-		if(methodArrays.containsKey(mark)){
-			return methodArrays.get(mark);
-		} else {
-			HashSet<Method> methodList = new HashSet<Method>();
-			Method[] allMethods = getMethods(clazz);
-			for (Method method : allMethods) {
-				if (method.getName().equals(name))
-					methodList.add(method);
-			}
-			methods = methodList.toArray(new Method[0]);
-			methodList.clear();
-			methodArrays.put(mark,methods);
-		}
-		return methods;
+		return ClassMetadata.get(clazz).getMethods(name);
 	}
 
 	/**
@@ -377,7 +259,7 @@ public class TReflect {
 	 */
 	public static <T> T invokeMethod(Object obj, Method method, Object... parameters)
 			throws ReflectiveOperationException {
-		return (T)method.invoke(obj, parameters);
+		return (T)ClassMetadata.getInvoker(method).invoke(obj, parameters);
 	}
 
 	/**
@@ -402,7 +284,7 @@ public class TReflect {
 		try {
 			method = findMethod(objClass, name, parameterTypes);
 			method.setAccessible(true);
-			return (T)method.invoke(obj, args);
+			return (T)ClassMetadata.getInvoker(method).invoke(obj, args);
 		}catch(Exception e){
 			Exception lastExecption = e;
 
@@ -414,7 +296,7 @@ public class TReflect {
 					//匹配参数数量相等的方法
 					if (methodParamTypes.length == args.length) {
 						try{
-							return (T)similarMethod.invoke(obj, args);
+							return (T)ClassMetadata.getInvoker(similarMethod).invoke(obj, args);
 						} catch (Exception ex){
 							//不处理
 						}
@@ -458,7 +340,7 @@ public class TReflect {
 							}
 							method = similarMethod;
 							method.setAccessible(true);
-							return (T)method.invoke(obj, convertedParams);
+							return (T)ClassMetadata.getInvoker(method).invoke(obj, convertedParams);
 						} catch (Exception ex) {
 							lastExecption = ex;
 							continue;
@@ -510,45 +392,28 @@ public class TReflect {
 
 
 		Class<?>[] parameterTypes = getArrayClasses(args);
-
-		StringBuilder markBuilder = new StringBuilder(targetClazz.getCanonicalName());
-		for(Class<?> paramType : parameterTypes){
-			markBuilder.append("$").append(paramType.getCanonicalName());
-		}
-
-		String mark = markBuilder.toString();
-
-		Constructor<T> constructor = constructors.get(mark);
+		ClassMetadata classMetadata = ClassMetadata.get(targetClazz);
+		Constructor<T> constructor = null;
 
 		try {
 
-			if (constructor == null){
-				if (args.length == 0) {
-					try {
-						constructor = targetClazz.getConstructor();
-					}catch (Exception e) {
-						return (T) TUnsafe.getUnsafe().allocateInstance(targetClazz);
-					}
-				} else {
-					constructor = targetClazz.getConstructor(parameterTypes);
+			if (args.length == 0) {
+				try {
+					constructor = classMetadata.findConstructor(parameterTypes);
+				}catch (Exception e) {
+					return (T) TUnsafe.getUnsafe().allocateInstance(targetClazz);
 				}
-
-				constructors.put(mark, constructor);
+			} else {
+				constructor = classMetadata.findConstructor(parameterTypes);
 			}
 
-			return constructor.newInstance(args);
+			return (T) ClassMetadata.getInvoker(constructor).newInstance(args);
 
 		}catch(Exception e){
 			Exception lastExecption = e;
 			if(constructor==null) {
 
-				//缓存构造函数
-				mark = targetClazz.getCanonicalName();
-				Constructor[] constructors =  constructorArrays.get(mark);
-				if(constructors == null){
-					constructors = targetClazz.getConstructors();
-					constructorArrays.put(mark, constructors);
-				}
+				Constructor[] constructors = classMetadata.getConstructors();
 
 				for (Constructor similarConstructor : constructors) {
 					Class[] methodParamTypes = similarConstructor.getParameterTypes();
@@ -556,7 +421,7 @@ public class TReflect {
 					if (methodParamTypes.length == args.length) {
 
 						try{
-							return (T) similarConstructor.newInstance(args);
+							return (T) ClassMetadata.getInvoker(similarConstructor).newInstance(args);
 						} catch (Exception ex){
 							//不处理
 						}
@@ -584,7 +449,7 @@ public class TReflect {
 							}
 							constructor = similarConstructor;
 
-							return constructor.newInstance(convertedParams);
+							return (T) ClassMetadata.getInvoker(constructor).newInstance(convertedParams);
 						} catch (Exception ex) {
 							continue;
 						}
@@ -977,27 +842,7 @@ public class TReflect {
 			return true;
 		}
 
-		String marker = new StringBuilder(type.toString()).append("@").append(interfaceClass.toString()).toString();
-
-		Boolean result = classHierarchy.get(marker);
-
-
-		if(result==null) {
-			Class<?>[] interfaces = type.getInterfaces();
-			for (Class<?> interfaceItem : interfaces) {
-				if (interfaceItem == interfaceClass) {
-					classHierarchy.put(marker, true);
-					return true;
-				} else {
-					return isImpByInterface(interfaceItem, interfaceClass);
-				}
-			}
-
-			classHierarchy.put(marker, false);
-			return false;
-		}
-
-		return result;
+		return ClassMetadata.get(type).isImpByInterface(interfaceClass);
 	}
 
 
@@ -1014,24 +859,7 @@ public class TReflect {
 			return true;
 		}
 
-		String marker = new StringBuilder(type.toString()).append("#").append(extendsClass.toString()).toString();
-		Boolean result = classHierarchy.get(marker);
-
-		if(result == null) {
-			Class<?> superClass = type;
-			do {
-				if (superClass == extendsClass) {
-					classHierarchy.put(marker, true);
-					return true;
-				}
-				superClass = superClass.getSuperclass();
-			} while (superClass != null && Object.class != superClass);
-
-			classHierarchy.put(marker, false);
-			return false;
-		}
-
-		return result;
+		return ClassMetadata.get(type).isExtendsByClass(extendsClass);
 	}
 
 	/**
@@ -0,0 +1,842 @@
+package org.voovan.tools.serialize;
+
+import org.voovan.tools.TUnsafe;
+import org.voovan.tools.exception.SerializeException;
+import org.voovan.tools.reflect.TReflect;
+import org.voovan.tools.reflect.annotation.NotSerialization;
+import sun.misc.Unsafe;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 二进制序列化器
+ *      格式: 魔数(0xC3 'V') + 版本 + 带类型标记的值
+ *      1. 整数使用 zigzag 变长编码, 字符串使用 UTF-8 编码
+ *      2. 类名在同一次序列化中只写入一次, 之后使用序号引用
+ *      3. 对象按类的字段结构(Schema)顺序写入字段值, 不写入字段名, Schema 按类缓存, 字段通过 Unsafe 按偏移量读写
+ *      4. 同一个对象多次出现时写入引用, 支持循环引用
+ *      5. static, transient 和 NotSerialization 注解的字段不序列化, 反序列化时不调用构造方法
+ *      6. 无法通过无参构造方法创建的集合和 Map 会转换为 ArrayList, LinkedHashSet, TreeSet, LinkedHashMap 或 TreeMap
+ *      7. 自定义了 writeObject/readObject/readResolve/writeReplace 或者包含 transient 字段的 Serializable 类,
+ *         以及带有 Comparator 的排序集合, 使用 JDK 序列化写入, 以保证对象的状态完整
+ *      类的字段结构发生变化后, 之前序列化的数据无法再反序列化
+ *      序列化使用线程内复用的缓冲区, 只在最后复制一次结果
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class BinarySerializer implements Serializer {
+
+    private static final byte MAGIC_0 = (byte) 0xC3;
+    private static final byte MAGIC_1 = 'V';
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte CHAR = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte STRING = 10;
+    private static final byte BYTES = 11;
+    private static final byte ARRAY = 12;
+    private static final byte COLLECTION = 13;
+    private static final byte MAP = 14;
+    private static final byte OBJECT = 15;
+    private static final byte ENUM = 16;
+    private static final byte REFERENCE = 17;
+    private static final byte DATE = 18;
+    private static final byte BIG_DECIMAL = 19;
+    private static final byte BIG_INTEGER = 20;
+    private static final byte CLASS = 21;
+    private static final byte JDK = 22;
+
+    /**
+     * 复用的缓冲区超过这个大小时, 使用后丢弃
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final Unsafe UNSAFE = TUnsafe.getUnsafe();
+    private static final JdkSerializer JDK_SERIALIZER = new JdkSerializer();
+
+    private static final ThreadLocal<Output> OUTPUTS = ThreadLocal.withInitial(Output::new);
+    private static final ConcurrentHashMap<Class, Schema> SCHEMAS = new ConcurrentHashMap<Class, Schema>();
+    private static final ConcurrentHashMap<String, Class> CLASSES = new ConcurrentHashMap<String, Class>();
+    private static final ConcurrentHashMap<Class, Class> INSTANTIABLE_TYPES = new ConcurrentHashMap<Class, Class>();
+    private static final ConcurrentHashMap<Class, Constructor> CONSTRUCTORS = new ConcurrentHashMap<Class, Constructor>();
+
+    static {
+        for (Class clazz : new Class[]{boolean.class, byte.class, char.class, short.class, int.class, long.class,
+                float.class, double.class, void.class}) {
+            CLASSES.put(clazz.getName(), clazz);
+        }
+    }
+
+    /**
+     * 判断字节数组是否是 BinarySerializer 序列化的数据
+     *      0xC3 之后只能是 0x80~0xBF, 因此不会与 UTF-8 的字符串混淆
+     * @param bytes 字节数组
+     * @return true: 是 BinarySerializer 序列化的数据
+     */
+    public static boolean isBinarySerialized(byte[] bytes) {
+        return bytes != null && bytes.length >= 3 && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    @Override
+    public byte[] serialize(Object object) {
+        if (object == null) {
+            return null;
+        }
+
+        Output output = OUTPUTS.get();
+        if (output.inUse) {
+            output = new Output();
+        }
+
+        output.inUse = true;
+        try {
+            output.ensure(3);
+            output.buffer[output.position++] = MAGIC_0;
+            output.buffer[output.position++] = MAGIC_1;
+            output.buffer[output.position++] = VERSION;
+            write(output, object);
+            return Arrays.copyOf(output.buffer, output.position);
+        } catch (SerializeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializeException("BinarySerializer serialize " + object.getClass().getName() + " failed", e);
+        } finally {
+            output.reset();
+        }
+    }
+
+    @Override
+    public <T> T unserialize(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        if (!isBinarySerialized(bytes)) {
+            throw new SerializeException("BinarySerializer unserialize failed, not a binary serialized data");
+        }
+
+        if (bytes[2] != VERSION) {
+            throw new SerializeException("BinarySerializer unserialize failed, unsupported version " + bytes[2]);
+        }
+
+        try {
+            return (T) read(new Input(bytes, 3));
+        } catch (SerializeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializeException("BinarySerializer unserialize failed", e);
+        }
+    }
+
+    private static void write(Output output, Object value) {
+        if (value == null) {
+            output.writeByte(NULL);
+            return;
+        }
+
+        Class clazz = value.getClass();
+        if (clazz == String.class) {
+            output.writeByte(STRING);
+            output.writeString((String) value);
+        } else if (clazz == Integer.class) {
+            output.writeByte(INT);
+            output.writeVarInt(zigzag((Integer) value));
+        } else if (clazz == Long.class) {
+            output.writeByte(LONG);
+            output.writeVarLong(zigzag((Long) value));
+        } else if (clazz == Boolean.class) {
+            output.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (clazz == Double.class) {
+            output.writeByte(DOUBLE);
+            output.writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (clazz == Float.class) {
+            output.writeByte(FLOAT);
+            output.writeInt(Float.floatToRawIntBits((Float) value));
+        } else if (clazz == Short.class) {
+            output.writeByte(SHORT);
+            output.writeVarInt(zigzag((Short) value));
+        } else if (clazz == Byte.class) {
+            output.writeByte(BYTE);
+            output.writeByte((Byte) value);
+        } else if (clazz == Character.class) {
+            output.writeByte(CHAR);
+            output.writeVarInt((Character) value);
+        } else if (clazz == byte[].class) {
+            byte[] bytes = (byte[]) value;
+            output.writeByte(BYTES);
+            output.writeVarInt(bytes.length);
+            output.writeBytes(bytes, 0, bytes.length);
+        } else if (value instanceof Date) {
+            output.writeByte(DATE);
+            writeClass(output, clazz);
+            output.writeVarLong(zigzag(((Date) value).getTime()));
+            if (value instanceof Timestamp) {
+                output.writeVarInt(((Timestamp) value).getNanos());
+            }
+        } else if (clazz == BigDecimal.class) {
+            output.writeByte(BIG_DECIMAL);
+            output.writeString(value.toString());
+        } else if (clazz == BigInteger.class) {
+            output.writeByte(BIG_INTEGER);
+            output.writeString(value.toString());
+        } else if (value instanceof Enum) {
+            output.writeByte(ENUM);
+            writeClass(output, ((Enum) value).getDeclaringClass());
+            output.writeString(((Enum) value).name());
+        } else if (value instanceof Class) {
+            output.writeByte(CLASS);
+            writeClass(output, (Class) value);
+        } else {
+            int reference = output.reference(value);
+            if (reference >= 0) {
+                output.writeByte(REFERENCE);
+                output.writeVarInt(reference);
+            } else if (clazz.isArray()) {
+                writeArray(output, value, clazz.getComponentType());
+            } else if (value instanceof Serializable && hasComparator(value)) {
+                writeJdk(output, value);
+            } else if (value instanceof Collection) {
+                Collection collection = (Collection) value;
+                output.writeByte(COLLECTION);
+                writeClass(output, getInstantiableType(clazz));
+                output.writeVarInt(collection.size());
+                for (Object item : collection) {
+                    write(output, item);
+                }
+            } else if (value instanceof Map) {
+                Map<Object, Object> map = (Map<Object, Object>) value;
+                output.writeByte(MAP);
+                writeClass(output, getInstantiableType(clazz));
+                output.writeVarInt(map.size());
+                for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                    write(output, entry.getKey());
+                    write(output, entry.getValue());
+                }
+            } else {
+                Schema schema = getSchema(clazz);
+                if (schema.customized && value instanceof Serializable) {
+                    writeJdk(output, value);
+                } else {
+                    output.writeByte(OBJECT);
+                    writeClass(output, clazz);
+                    writeFields(output, value, schema);
+                }
+            }
+        }
+    }
+
+    /**
+     * 使用 JDK 序列化写入对象, 对象内部的引用不与外部共享
+     */
+    private static void writeJdk(Output output, Object value) {
+        byte[] bytes = JDK_SERIALIZER.serialize(value);
+        output.writeByte(JDK);
+        output.writeVarInt(bytes.length);
+        output.writeBytes(bytes, 0, bytes.length);
+    }
+
+    private static void writeFields(Output output, Object value, Schema schema) {
+        long[] offsets = schema.offsets;
+        char[] types = schema.types;
+        for (int i = 0; i < offsets.length; i++) {
+            long offset = offsets[i];
+            switch (types[i]) {
+                case 'Z': output.writeByte(UNSAFE.getBoolean(value, offset) ? TRUE : FALSE); break;
+                case 'B': output.writeByte(UNSAFE.getByte(value, offset)); break;
+                case 'C': output.writeVarInt(UNSAFE.getChar(value, offset)); break;
+                case 'S': output.writeVarInt(zigzag(UNSAFE.getShort(value, offset))); break;
+                case 'I': output.writeVarInt(zigzag(UNSAFE.getInt(value, offset))); break;
+                case 'J': output.writeVarLong(zigzag(UNSAFE.getLong(value, offset))); break;
+                case 'F': output.writeInt(Float.floatToRawIntBits(UNSAFE.getFloat(value, offset))); break;
+                case 'D': output.writeLong(Double.doubleToRawLongBits(UNSAFE.getDouble(value, offset))); break;
+                default: write(output, UNSAFE.getObject(value, offset));
+            }
+        }
+    }
+
+    private static void writeArray(Output output, Object array, Class componentType) {
+        int length = Array.getLength(array);
+        output.writeByte(ARRAY);
+        writeClass(output, componentType);
+        output.writeVarInt(length);
+
+        if (componentType == int.class) {
+            for (int item : (int[]) array) {
+                output.writeVarInt(zigzag(item));
+            }
+        } else if (componentType == long.class) {
+            for (long item : (long[]) array) {
+                output.writeVarLong(zigzag(item));
+            }
+        } else if (componentType == double.class) {
+            for (double item : (double[]) array) {
+                output.writeLong(Double.doubleToRawLongBits(item));
+            }
+        } else if (componentType == float.class) {
+            for (float item : (float[]) array) {
+                output.writeInt(Float.floatToRawIntBits(item));
+            }
+        } else if (componentType == short.class) {
+            for (short item : (short[]) array) {
+                output.writeVarInt(zigzag(item));
+            }
+        } else if (componentType == char.class) {
+            for (char item : (char[]) array) {
+                output.writeVarInt(item);
+            }
+        } else if (componentType == boolean.class) {
+            for (boolean item : (boolean[]) array) {
+                output.writeByte(item ? TRUE : FALSE);
+            }
+        } else {
+            for (Object item : (Object[]) array) {
+                write(output, item);
+            }
+        }
+    }
+
+    /**
+     * 写入类, 第一次出现时写入 0 + 类名 + 字段结构的哈希值, 之后写入序号
+     */
+    private static void writeClass(Output output, Class clazz) {
+        if (output.classes == null) {
+            output.classes = new IdentityHashMap<Class, Integer>();
+        }
+
+        Integer index = output.classes.get(clazz);
+        if (index == null) {
+            output.classes.put(clazz, output.classes.size() + 1);
+            output.writeVarInt(0);
+            output.writeString(clazz.getName());
+            output.writeVarInt(clazz.isPrimitive() || clazz.isArray() ? 0 : getSchema(clazz).hash);
+        } else {
+            output.writeVarInt(index);
+        }
+    }
+
+    private static Object read(Input input) throws ReflectiveOperationException {
+        byte type = input.readByte();
+        switch (type) {
+            case NULL: return null;
+            case TRUE: return Boolean.TRUE;
+            case FALSE: return Boolean.FALSE;
+            case BYTE: return input.readByte();
+            case SHORT: return (short) unzigzag(input.readVarInt());
+            case CHAR: return (char) input.readVarInt();
+            case INT: return unzigzag(input.readVarInt());
+            case LONG: return unzigzag(input.readVarLong());
+            case FLOAT: return Float.intBitsToFloat(input.readInt());
+            case DOUBLE: return Double.longBitsToDouble(input.readLong());
+            case STRING: return input.readString();
+            case BYTES: {
+                byte[] bytes = new byte[input.readVarInt()];
+                input.readBytes(bytes);
+                return bytes;
+            }
+            case DATE: return readDate(input);
+            case BIG_DECIMAL: return new BigDecimal(input.readString());
+            case BIG_INTEGER: return new BigInteger(input.readString());
+            case ENUM: {
+                Class clazz = readClass(input);
+                return Enum.valueOf(clazz, input.readString());
+            }
+            case CLASS: return readClass(input);
+            case JDK: {
+                byte[] bytes = new byte[input.readVarInt()];
+                input.readBytes(bytes);
+                Object object = JDK_SERIALIZER.unserialize(bytes);
+                input.references.add(object);
+                return object;
+            }
+            case REFERENCE: return input.references.get(input.readVarInt());
+            case ARRAY: return readArray(input);
+            case COLLECTION: {
+                Collection collection = (Collection) newInstance(readClass(input));
+                input.references.add(collection);
+                int size = input.readVarInt();
+                for (int i = 0; i < size; i++) {
+                    collection.add(read(input));
+                }
+                return collection;
+            }
+            case MAP: {
+                Map map = (Map) newInstance(readClass(input));
+                input.references.add(map);
+                int size = input.readVarInt();
+                for (int i = 0; i < size; i++) {
+                    map.put(read(input), read(input));
+                }
+                return map;
+            }
+            case OBJECT: {
+                Class clazz = readClass(input);
+                Schema schema = getSchema(clazz);
+                if (input.classHash != schema.hash) {
+                    throw new SerializeException("BinarySerializer unserialize failed, the fields of " + clazz.getName() + " has changed");
+                }
+
+                Object object = UNSAFE.allocateInstance(clazz);
+                input.references.add(object);
+                readFields(input, object, schema);
+                return object;
+            }
+            default:
+                throw new SerializeException("BinarySerializer unserialize failed, unknown type " + type + " at " + (input.position - 1));
+        }
+    }
+
+    /**
+     * 读取日期, 保持 Date 的具体子类型, 例如 java.sql.Date 和 Timestamp
+     */
+    private static Date readDate(Input input) throws ReflectiveOperationException {
+        Class clazz = readClass(input);
+        long time = unzigzag(input.readVarLong());
+        if (clazz == Date.class) {
+            return new Date(time);
+        }
+
+        //java.sql 中的日期类型没有无参构造方法
+        Date date = (Date) UNSAFE.allocateInstance(clazz);
+        date.setTime(time);
+        if (date instanceof Timestamp) {
+            ((Timestamp) date).setNanos(input.readVarInt());
+        }
+        return date;
+    }
+
+    private static void readFields(Input input, Object object, Schema schema) throws ReflectiveOperationException {
+        long[] offsets = schema.offsets;
+        char[] types = schema.types;
+        for (int i = 0; i < offsets.length; i++) {
+            long offset = offsets[i];
+            switch (types[i]) {
+                case 'Z': UNSAFE.putBoolean(object, offset, input.readByte() == TRUE); break;
+                case 'B': UNSAFE.putByte(object, offset, input.readByte()); break;
+                case 'C': UNSAFE.putChar(object, offset, (char) input.readVarInt()); break;
+                case 'S': UNSAFE.putShort(object, offset, (short) unzigzag(input.readVarInt())); break;
+                case 'I': UNSAFE.putInt(object, offset, unzigzag(input.readVarInt())); break;
+                case 'J': UNSAFE.putLong(object, offset, unzigzag(input.readVarLong())); break;
+                case 'F': UNSAFE.putFloat(object, offset, Float.intBitsToFloat(input.readInt())); break;
+                case 'D': UNSAFE.putDouble(object, offset, Double.longBitsToDouble(input.readLong())); break;
+                default: UNSAFE.putObject(object, offset, read(input));
+            }
+        }
+    }
+
+    private static Object readArray(Input input) throws ReflectiveOperationException {
+        Class componentType = readClass(input);
+        int length = input.readVarInt();
+        Object array = Array.newInstance(componentType, length);
+        input.references.add(array);
+
+        if (componentType == int.class) {
+            int[] values = (int[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = unzigzag(input.readVarInt());
+            }
+        } else if (componentType == long.class) {
+            long[] values = (long[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = unzigzag(input.readVarLong());
+            }
+        } else if (componentType == double.class) {
+            double[] values = (double[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = Double.longBitsToDouble(input.readLong());
+            }
+        } else if (componentType == float.class) {
+            float[] values = (float[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = Float.intBitsToFloat(input.readInt());
+            }
+        } else if (componentType == short.class) {
+            short[] values = (short[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = (short) unzigzag(input.readVarInt());
+            }
+        } else if (componentType == char.class) {
+            char[] values = (char[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = (char) input.readVarInt();
+            }
+        } else if (componentType == boolean.class) {
+            boolean[] values = (boolean[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = input.readByte() == TRUE;
+            }
+        } else {
+            Object[] values = (Object[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = read(input);
+            }
+        }
+
+        return array;
+    }
+
+    private static Class readClass(Input input) throws ClassNotFoundException {
+        int index = input.readVarInt();
+        if (index > 0) {
+            input.classHash = input.classHashes[index - 1];
+            return input.classes.get(index - 1);
+        }
+
+        String className = input.readString();
+        int classHash = input.readVarInt();
+
+        Class clazz = CLASSES.get(className);
+        if (clazz == null) {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            clazz = Class.forName(className, false, classLoader == null ? BinarySerializer.class.getClassLoader() : classLoader);
+            CLASSES.put(className, clazz);
+        }
+
+        if (input.classes.size() == input.classHashes.length) {
+            input.classHashes = Arrays.copyOf(input.classHashes, input.classHashes.length * 2);
+        }
+        input.classHashes[input.classes.size()] = classHash;
+        input.classes.add(clazz);
+        input.classHash = classHash;
+        return clazz;
+    }
+
+    private static Object newInstance(Class clazz) throws ReflectiveOperationException {
+        Constructor constructor = CONSTRUCTORS.get(clazz);
+        if (constructor == null) {
+            constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            CONSTRUCTORS.put(clazz, constructor);
+        }
+        return constructor.newInstance();
+    }
+
+    /**
+     * 获取集合或 Map 反序列化时使用的类型, 没有无参构造方法的类型转换为常用的实现
+     */
+    private static Class getInstantiableType(Class clazz) {
+        Class type = INSTANTIABLE_TYPES.get(clazz);
+        if (type == null) {
+            type = clazz;
+            try {
+                if (!Modifier.isPublic(clazz.getModifiers()) || !Modifier.isPublic(clazz.getConstructor().getModifiers())) {
+                    type = null;
+                }
+            } catch (NoSuchMethodException e) {
+                type = null;
+            }
+
+            if (type == null) {
+                if (Map.class.isAssignableFrom(clazz)) {
+                    type = SortedMap.class.isAssignableFrom(clazz) ? TreeMap.class : LinkedHashMap.class;
+                } else if (Set.class.isAssignableFrom(clazz)) {
+                    type = SortedSet.class.isAssignableFrom(clazz) ? TreeSet.class : LinkedHashSet.class;
+                } else {
+                    type = ArrayList.class;
+                }
+            }
+
+            INSTANTIABLE_TYPES.put(clazz, type);
+        }
+        return type;
+    }
+
+    /**
+     * 判断是否是带有 Comparator 的排序集合, Comparator 无法通过无参构造方法恢复
+     */
+    private static boolean hasComparator(Object value) {
+        return (value instanceof SortedMap && ((SortedMap) value).comparator() != null) ||
+                (value instanceof SortedSet && ((SortedSet) value).comparator() != null) ||
+                (value instanceof PriorityQueue && ((PriorityQueue) value).comparator() != null);
+    }
+
+    private static Schema getSchema(Class clazz) {
+        Schema schema = SCHEMAS.get(clazz);
+        if (schema == null) {
+            schema = SCHEMAS.computeIfAbsent(clazz, Schema::new);
+        }
+        return schema;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 类的字段结构
+     *      按字段名排序, 保存字段的偏移量和类型
+     */
+    private static class Schema {
+        private final long[] offsets;
+        private final char[] types;
+        private final int hash;
+        //是否自定义了 JDK 序列化过程或者包含 transient 字段, 按字段写入会丢失对象的状态
+        private final boolean customized;
+
+        private Schema(Class clazz) {
+            boolean hasTransient = false;
+            List<Field> fieldList = new ArrayList<Field>();
+            for (Field field : TReflect.getFields(clazz)) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isTransient(modifiers) && !Modifier.isStatic(modifiers)) {
+                    hasTransient = true;
+                }
+
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) ||
+                        field.getAnnotation(NotSerialization.class) != null) {
+                    continue;
+                }
+                fieldList.add(field);
+            }
+            customized = hasTransient || isCustomSerialization(clazz);
+
+            fieldList.sort((field1, field2) -> {
+                int result = field1.getName().compareTo(field2.getName());
+                return result != 0 ? result : field1.getDeclaringClass().getName().compareTo(field2.getDeclaringClass().getName());
+            });
+
+            offsets = new long[fieldList.size()];
+            types = new char[fieldList.size()];
+            int fieldsHash = 1;
+            for (int i = 0; i < fieldList.size(); i++) {
+                Field field = fieldList.get(i);
+                Class type = field.getType();
+                offsets[i] = TUnsafe.getFieldOffset(field);
+                types[i] = type == boolean.class ? 'Z' : type == byte.class ? 'B' : type == char.class ? 'C' :
+                        type == short.class ? 'S' : type == int.class ? 'I' : type == long.class ? 'J' :
+                        type == float.class ? 'F' : type == double.class ? 'D' : 'L';
+                fieldsHash = 31 * fieldsHash + (field.getName() + ":" + type.getName()).hashCode();
+            }
+            hash = fieldsHash;
+        }
+
+        private static boolean isCustomSerialization(Class clazz) {
+            for (Class current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Method method : current.getDeclaredMethods()) {
+                    String name = method.getName();
+                    Class[] parameterTypes = method.getParameterTypes();
+                    if ((name.equals("writeObject") && parameterTypes.length == 1 && parameterTypes[0] == ObjectOutputStream.class) ||
+                            (name.equals("readObject") && parameterTypes.length == 1 && parameterTypes[0] == ObjectInputStream.class) ||
+                            ((name.equals("readResolve") || name.equals("writeReplace")) && parameterTypes.length == 0)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 序列化的输出缓冲区, 每个线程复用一个
+     */
+    private static class Output {
+        private byte[] buffer = new byte[1024];
+        private int position = 0;
+        private boolean inUse = false;
+        private IdentityHashMap<Object, Integer> references;
+        private IdentityHashMap<Class, Integer> classes;
+
+        private void reset() {
+            position = 0;
+            inUse = false;
+            references = null;
+            classes = null;
+            if (buffer.length > MAX_POOLED_BUFFER_SIZE) {
+                buffer = new byte[1024];
+            }
+        }
+
+        /**
+         * 获取对象的引用序号, 对象第一次出现时记录并返回 -1
+         */
+        private int reference(Object value) {
+            if (references == null) {
+                references = new IdentityHashMap<Object, Integer>();
+            }
+
+            Integer index = references.putIfAbsent(value, references.size());
+            return index == null ? -1 : index;
+        }
+
+        private void ensure(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+
+        private void writeByte(byte value) {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        private void writeBytes(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+
+        private void writeInt(int value) {
+            ensure(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        private void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        /**
+         * 写入字符串, ASCII 字符串直接写入缓冲区, 否则按 UTF-8 编码后写入
+         */
+        private void writeString(String value) {
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) >= 0x80) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    writeVarInt(bytes.length);
+                    writeBytes(bytes, 0, bytes.length);
+                    return;
+                }
+            }
+
+            writeVarInt(length);
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                buffer[position++] = (byte) value.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * 反序列化的输入
+     */
+    private static class Input {
+        private final byte[] buffer;
+        private int position;
+        private final ArrayList<Object> references = new ArrayList<Object>();
+        private final ArrayList<Class> classes = new ArrayList<Class>();
+        private int[] classHashes = new int[8];
+        private int classHash;
+
+        private Input(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        private void check(int length) {
+            if (position + length > buffer.length) {
+                throw new SerializeException("BinarySerializer unserialize failed, unexpected end of data");
+            }
+        }
+
+        private byte readByte() {
+            check(1);
+            return buffer[position++];
+        }
+
+        private void readBytes(byte[] bytes) {
+            check(bytes.length);
+            System.arraycopy(buffer, position, bytes, 0, bytes.length);
+            position += bytes.length;
+        }
+
+        private int readInt() {
+            check(4);
+            return ((buffer[position++] & 0xFF) << 24) | ((buffer[position++] & 0xFF) << 16) |
+                    ((buffer[position++] & 0xFF) << 8) | (buffer[position++] & 0xFF);
+        }
+
+        private long readLong() {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        private int readVarInt() {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte value = readByte();
+                result |= (value & 0x7F) << shift;
+                if (value >= 0) {
+                    return result;
+                }
+            }
+            throw new SerializeException("BinarySerializer unserialize failed, malformed varint");
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte value = readByte();
+                result |= (long) (value & 0x7F) << shift;
+                if (value >= 0) {
+                    return result;
+                }
+            }
+            throw new SerializeException("BinarySerializer unserialize failed, malformed varint");
+        }
+
+        private String readString() {
+            int length = readVarInt();
+            check(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.voovan.tools.serialize;
+
+import org.voovan.tools.exception.SerializeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * JDK 序列化器
+ *      对象必须实现 Serializable 接口
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class JdkSerializer implements Serializer {
+
+    /**
+     * 判断字节数组是否是 JDK 序列化的数据(以 0xACED0005 开始)
+     * @param bytes 字节数组
+     * @return true: 是 JDK 序列化的数据
+     */
+    public static boolean isJdkSerialized(byte[] bytes) {
+        return bytes != null && bytes.length >= 4 &&
+                bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED && bytes[2] == 0 && bytes[3] == 5;
+    }
+
+    @Override
+    public byte[] serialize(Object object) {
+        if (object == null) {
+            return null;
+        }
+
+        if (!(object instanceof Serializable)) {
+            throw new IllegalArgumentException("object must be implement Serializable");
+        }
+
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(object);
+        } catch (Exception e) {
+            throw new SerializeException("JdkSerializer serialize " + object.getClass().getName() + " failed", e);
+        }
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    @Override
+    public <T> T unserialize(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (T) objectInputStream.readObject();
+        } catch (Exception e) {
+            throw new SerializeException("JdkSerializer unserialize failed", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.voovan.tools.serialize;
+
+import org.voovan.tools.exception.SerializeException;
+import org.voovan.tools.json.JSON;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON 序列化器
+ *      格式为: 类名 + '\n' + JSON 字符串, 便于人工查看缓存中的数据
+ *      集合和 Map 中元素的类型不会保存, 适用于结构简单的对象
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class JsonSerializer implements Serializer {
+
+    @Override
+    public byte[] serialize(Object object) {
+        if (object == null) {
+            return null;
+        }
+
+        try {
+            return (object.getClass().getName() + "\n" + JSON.toJSON(object)).getBytes(StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new SerializeException("JsonSerializer serialize " + object.getClass().getName() + " failed", e);
+        }
+    }
+
+    @Override
+    public <T> T unserialize(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        String content = new String(bytes, StandardCharsets.UTF_8);
+        int index = content.indexOf('\n');
+        if (index <= 0) {
+            throw new SerializeException("JsonSerializer unserialize failed, class name not found");
+        }
+
+        try {
+            Class clazz = Class.forName(content.substring(0, index));
+            return (T) JSON.toObject(content.substring(index + 1), clazz);
+        } catch (Exception e) {
+            throw new SerializeException("JsonSerializer unserialize failed", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.voovan.tools.serialize;
+
+/**
+ * 序列化器
+ *      TSerialize 和缓存通过此接口完成对象和字节的转换, 失败时抛出 SerializeException
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public interface Serializer {
+
+    /**
+     * 序列化
+     * @param object 待序列化的对象
+     * @return 字节数组, 对象为 null 时返回 null
+     */
+    public byte[] serialize(Object object);
+
+    /**
+     * 反序列化
+     * @param bytes 字节数组
+     * @param <T> 范型
+     * @return 反序列化的对象, 字节数组为 null 时返回 null
+     */
+    public <T> T unserialize(byte[] bytes);
+}
@@ -4,8 +4,10 @@ import org.voovan.tools.TProperties;
 
 import java.util.Timer;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 线程池
@@ -21,6 +23,7 @@ public class ThreadPool {
 	protected static int MIN_POOL_SIZE = 10*cpuCoreCount;
 	protected static int MAX_POOL_SIZE = 100*cpuCoreCount;
 	protected static int STATUS_INTERVAL = 3000;
+	private final static LongAdder REJECTED_COUNT = new LongAdder();
 
 	/**
 	 * 获取线程池最小活动线程数
@@ -62,6 +65,14 @@ public class ThreadPool {
 	private ThreadPool(){
 	}
 
+	/**
+	 * 获取通过 ThreadPool 创建的线程池拒绝的任务数
+	 * @return 拒绝的任务数
+	 */
+	public static long getRejectedCount() {
+		return REJECTED_COUNT.sum();
+	}
+
 	private static ThreadPoolExecutor createThreadPool(){
 		ThreadPoolExecutor threadPoolInstance = createThreadPool(MIN_POOL_SIZE, MAX_POOL_SIZE, 1000*60);
 
@@ -83,6 +94,11 @@ public class ThreadPool {
 		ThreadPoolExecutor threadPoolInstance = new ThreadPoolExecutor(mimPoolSize, maxPoolSize, threadTimeout, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(cpuCoreCount*500));
 		//设置allowCoreThreadTimeOut,允许回收超时的线程
 		threadPoolInstance.allowCoreThreadTimeOut(true);
+		//与默认的 AbortPolicy 一致, 同时统计拒绝的任务数
+		threadPoolInstance.setRejectedExecutionHandler((runnable, executor) -> {
+			REJECTED_COUNT.increment();
+			throw new RejectedExecutionException("Task " + runnable.toString() + " rejected from " + executor.toString());
+		});
 
 		return threadPoolInstance;
 	}
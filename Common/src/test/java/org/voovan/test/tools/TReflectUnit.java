@@ -0,0 +1,131 @@
+package org.voovan.test.tools;
+
+import junit.framework.TestCase;
+import org.voovan.tools.reflect.TReflect;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TReflectUnit extends TestCase {
+
+	public static class Parent implements Serializable, Comparable<Parent> {
+		private String name = "parent";
+		private static int count = 1;
+
+		public int compareTo(Parent o) {
+			return 0;
+		}
+	}
+
+	public static class Child extends Parent {
+		private String name = "child";
+		private long size;
+		private final int id;
+
+		public Child() {
+			this.id = 0;
+		}
+
+		public Child(int id) {
+			this.id = id;
+		}
+
+		private String hello(String value, int times) {
+			return value + times;
+		}
+
+		public static int sum(int a, long b) {
+			return (int) (a + b);
+		}
+
+		public void fail() {
+			throw new IllegalStateException("fail");
+		}
+	}
+
+	public TReflectUnit(String name) {
+		super(name);
+	}
+
+	public void testField() throws Exception {
+		Child child = new Child(3);
+		assertEquals("child", TReflect.getFieldValue(child, "name"));
+		assertEquals(3, (int) TReflect.getFieldValue(child, "id"));
+		assertNotNull(TReflect.findFieldIgnoreCase(Child.class, "SIZE"));
+
+		TReflect.setFieldValue(child, "size", 10);
+		assertEquals(10L, child.size);
+		TReflect.setFieldValue(child, "id", 5);
+		assertEquals(5, child.id);
+
+		try {
+			TReflect.setFieldValue(child, "size", "10");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		try {
+			TReflect.getFieldValue(child, "none");
+			fail();
+		} catch (NoSuchFieldException e) {
+		}
+
+		//匿名类没有 canonicalName
+		Object anonymous = new Object() {
+			private int value = 7;
+		};
+		assertEquals(7, (int) TReflect.getFieldValue(anonymous, "value"));
+	}
+
+	public void testMethod() throws Exception {
+		Child child = new Child();
+		assertEquals("a2", TReflect.invokeMethod(child, "hello", "a", 2));
+		assertEquals(3, (int) TReflect.invokeMethod(Child.class, TReflect.findMethod(Child.class, "sum", int.class, long.class), 1, 2));
+		assertEquals(3, (int) TReflect.invokeMethod(Child.class, "sum", 1, 2L));
+
+		try {
+			TReflect.invokeMethod(child, TReflect.findMethod(Child.class, "fail"));
+			fail();
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+
+		assertEquals(5, ((Child) TReflect.newInstance(Child.class, 5)).id);
+		assertTrue(TReflect.newInstance(List.class) instanceof ArrayList);
+	}
+
+	public void testHierarchy() {
+		assertTrue(TReflect.isImpByInterface(Parent.class, Comparable.class));
+		assertTrue(TReflect.isImpByInterface(TreeMap.class, Map.class));
+		assertTrue(TReflect.isExtendsByClass(Child.class, Parent.class));
+		assertFalse(TReflect.isExtendsByClass(Parent.class, Child.class));
+	}
+
+	public void testConcurrent() throws Exception {
+		int threadCount = 8;
+		CountDownLatch latch = new CountDownLatch(threadCount);
+		AtomicInteger errors = new AtomicInteger();
+		for (int i = 0; i < threadCount; i++) {
+			new Thread(() -> {
+				try {
+					for (int j = 0; j < 1000; j++) {
+						Child child = new Child(j);
+						if ((int) TReflect.getFieldValue(child, "id") != j ||
+								!TReflect.invokeMethod(child, "hello", "a", j).equals("a" + j)) {
+							errors.incrementAndGet();
+						}
+					}
+				} catch (Exception e) {
+					errors.incrementAndGet();
+				} finally {
+					latch.countDown();
+				}
+			}).start();
+		}
+		latch.await();
+		assertEquals(0, errors.get());
+	}
+}
@@ -52,6 +52,28 @@ public class CachedHashMapTest extends TestCase{
         }
     }
 
+    public void testEviction(){
+        CachedHashMap<String, String> cachedHashMap = new CachedHashMap<String, String>().maxSize(100).create();
+
+        //高频访问的数据
+        for(int i=0;i<50;i++) {
+            cachedHashMap.put("hot_" + i, "value_" + i);
+            for(int x=0;x<5;x++) {
+                cachedHashMap.get("hot_" + i);
+            }
+        }
+
+        //只访问一次的扫描数据
+        for(int i=0;i<1000;i++) {
+            cachedHashMap.put("scan_" + i, "value_" + i);
+        }
+
+        assertEquals(100, cachedHashMap.size());
+        for(int i=0;i<50;i++) {
+            assertNotNull(cachedHashMap.get("hot_" + i));
+        }
+    }
+
     public void testLockTest(){
         CachedHashMap cachedHashMap = new CachedHashMap().create();
 
@@ -0,0 +1,157 @@
+package org.voovan.test.tools.cache;
+
+import junit.framework.TestCase;
+import org.voovan.tools.cache.CacheInvalidator;
+import org.voovan.tools.cache.CachedHashMap;
+import org.voovan.tools.TEnv;
+import org.voovan.tools.cache.NearCacheMap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * NearCacheMap 单元测试
+ *      使用进程内的失效通知通道代替 Redis 发布订阅
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class NearCacheMapUnit extends TestCase {
+
+    private static class LocalInvalidator implements CacheInvalidator {
+        private CopyOnWriteArrayList<Consumer<byte[]>> listeners;
+
+        private LocalInvalidator(CopyOnWriteArrayList<Consumer<byte[]>> listeners) {
+            this.listeners = listeners;
+        }
+
+        @Override
+        public void publish(byte[] message) {
+            for(Consumer<byte[]> listener : listeners) {
+                listener.accept(message);
+            }
+        }
+
+        @Override
+        public void subscribe(Consumer<byte[]> listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public void testInvalidate() {
+        CachedHashMap<String, String> remote = new CachedHashMap<String, String>();
+        CopyOnWriteArrayList<Consumer<byte[]>> listeners = new CopyOnWriteArrayList<Consumer<byte[]>>();
+
+        NearCacheMap<String, String> node1 = new NearCacheMap<String, String>(remote, 100, new LocalInvalidator(listeners));
+        NearCacheMap<String, String> node2 = new NearCacheMap<String, String>(remote, 100, new LocalInvalidator(listeners));
+
+        node1.put("key", "value_1");
+        assertEquals("value_1", node2.get("key"));
+        assertTrue(node2.getLocal().getCacheMark().containsKey("key"));
+
+        //其他节点的写入使本地缓存失效
+        node1.put("key", "value_2");
+        assertFalse(node2.getLocal().getCacheMark().containsKey("key"));
+        assertEquals("value_2", node2.get("key"));
+
+        node2.remove("key");
+        assertNull(node1.get("key"));
+
+        node1.put("key", "value_3");
+        node2.get("key");
+        node1.clear();
+        assertFalse(node2.getLocal().getCacheMark().containsKey("key"));
+    }
+
+    public void testInvalidateWhileLoading() {
+        CopyOnWriteArrayList<Consumer<byte[]>> listeners = new CopyOnWriteArrayList<Consumer<byte[]>>();
+        List<NearCacheMap<String, String>> writers = new ArrayList<NearCacheMap<String, String>>();
+
+        //读取远程缓存期间, 其他节点写入了新的值
+        CachedHashMap<String, String> remote = new CachedHashMap<String, String>() {
+            @Override
+            public String get(Object key) {
+                String value = super.get(key);
+                if ("value_1".equals(value)) {
+                    writers.get(0).put("key", "value_2");
+                }
+                return value;
+            }
+        };
+        remote.put("key", "value_1");
+
+        NearCacheMap<String, String> node1 = new NearCacheMap<String, String>(remote, 100, new LocalInvalidator(listeners));
+        NearCacheMap<String, String> node2 = new NearCacheMap<String, String>(remote, 100, new LocalInvalidator(listeners));
+        writers.add(node1);
+
+        assertEquals("value_1", node2.get("key"));
+        assertEquals("value_2", node2.get("key"));
+        assertEquals("value_2", node2.get("key"));
+    }
+
+    public void testBadInvalidation() {
+        CachedHashMap<String, String> remote = new CachedHashMap<String, String>();
+        CopyOnWriteArrayList<Consumer<byte[]>> listeners = new CopyOnWriteArrayList<Consumer<byte[]>>();
+        NearCacheMap<String, String> nearCacheMap = new NearCacheMap<String, String>(remote, 100, new LocalInvalidator(listeners));
+
+        nearCacheMap.put("key", "value");
+        assertTrue(nearCacheMap.getLocal().getCacheMark().containsKey("key"));
+
+        //无法反序列化的键清空本地缓存
+        ByteBuffer message = ByteBuffer.allocate(13);
+        message.put((byte) 1).putLong(0).put(new byte[]{(byte) 0xC3, 'V', 1, 127});
+        listeners.get(0).accept(message.array());
+        assertFalse(nearCacheMap.getLocal().getCacheMark().containsKey("key"));
+        assertEquals("value", nearCacheMap.get("key"));
+    }
+
+    public void testLocalExpire() {
+        CachedHashMap<String, String> remote = new CachedHashMap<String, String>();
+        NearCacheMap<String, String> nearCacheMap = new NearCacheMap<String, String>(remote, 100, null).localExpire(50);
+
+        //远程缓存不超时时使用本地缓存的超时时间
+        nearCacheMap.put("key", "value_1", 0);
+        remote.put("key", "value_2");
+        assertEquals("value_1", nearCacheMap.get("key"));
+        TEnv.sleep(100);
+        assertEquals("value_2", nearCacheMap.get("key"));
+
+        //超时时间转换为毫秒时不溢出
+        nearCacheMap.put("key", "value_3", 3000000);
+        remote.put("key", "value_4");
+        TEnv.sleep(100);
+        assertEquals("value_4", nearCacheMap.get("key"));
+    }
+
+    public void testLoad() {
+        AtomicInteger remoteCount = new AtomicInteger(0);
+        CachedHashMap<String, String> remote = new CachedHashMap<String, String>();
+        remote.supplier(key -> {
+            remoteCount.incrementAndGet();
+            return null;
+        }, false);
+
+        NearCacheMap<String, String> nearCacheMap = new NearCacheMap<String, String>(remote, 100, null)
+                .supplier(key -> "build_" + key);
+
+        assertEquals("build_key", nearCacheMap.get("key"));
+        assertEquals("build_key", remote.get("key"));
+
+        //本地命中不访问远程缓存
+        for(int i=0;i<100;i++) {
+            assertEquals("build_key", nearCacheMap.get("key"));
+        }
+        assertEquals(1, remoteCount.get());
+    }
+}
@@ -0,0 +1,117 @@
+package org.voovan.test.tools.cache;
+
+import junit.framework.TestCase;
+import org.voovan.tools.TEnv;
+import org.voovan.tools.cache.OffHeapCacheMap;
+import org.voovan.tools.cache.ValueCodec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * OffHeapCacheMap 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class OffHeapCacheMapUnit extends TestCase {
+
+    private ValueCodec<String> codec = new ValueCodec<String>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    public void testBasic() {
+        OffHeapCacheMap<String, String> offHeapCacheMap = new OffHeapCacheMap<String, String>(1024 * 1024, codec);
+
+        offHeapCacheMap.put("key_1", "value_1");
+        assertEquals("value_1", offHeapCacheMap.get("key_1"));
+        assertNull(offHeapCacheMap.putIfAbsent("key_2", "value_2"));
+        assertEquals("value_2", offHeapCacheMap.putIfAbsent("key_2", "value_3"));
+
+        offHeapCacheMap.put("key_expire", "value", 1);
+        assertEquals("value", offHeapCacheMap.get("key_expire"));
+        TEnv.sleep(1100);
+        assertNull(offHeapCacheMap.get("key_expire"));
+
+        offHeapCacheMap.remove("key_1");
+        assertNull(offHeapCacheMap.get("key_1"));
+        assertEquals(1, offHeapCacheMap.size());
+
+        offHeapCacheMap.release();
+    }
+
+    public void testEviction() {
+        OffHeapCacheMap<String, String> offHeapCacheMap = new OffHeapCacheMap<String, String>(256 * 1024, 64 * 1024, codec);
+
+        StringBuilder value = new StringBuilder();
+        for(int i=0;i<1000;i++) {
+            value.append('v');
+        }
+
+        for(int i=0;i<10000;i++) {
+            offHeapCacheMap.put("key_" + i, value.toString());
+        }
+
+        assertTrue(offHeapCacheMap.getUsedBytes() <= offHeapCacheMap.getMaxBytes());
+        assertTrue(offHeapCacheMap.getEvictionCount() > 0);
+        assertEquals(value.toString(), offHeapCacheMap.get("key_9999"));
+
+        //小的值可以从其他等级回收内存
+        offHeapCacheMap.put("small", "s");
+        assertEquals("s", offHeapCacheMap.get("small"));
+
+        offHeapCacheMap.release();
+    }
+
+    public void testRemove() {
+        OffHeapCacheMap<String, String> offHeapCacheMap = new OffHeapCacheMap<String, String>(1024 * 1024, codec);
+
+        offHeapCacheMap.put("key_1", "value_1");
+        assertEquals("value_1", offHeapCacheMap.get("key_1"));
+
+        //移除时读取旧值不计入命中和未命中
+        assertEquals("value_1", offHeapCacheMap.remove("key_1"));
+        assertNull(offHeapCacheMap.remove("key_1"));
+        assertEquals(1, offHeapCacheMap.getHitCount());
+        assertEquals(0, offHeapCacheMap.getMissCount());
+        assertEquals(0, offHeapCacheMap.getUsedBytes());
+        assertEquals(0, offHeapCacheMap.size());
+
+        offHeapCacheMap.release();
+    }
+
+    public void testWastedBytes() {
+        //内存块等级: 64, 80, 104, 136, 176, 200
+        OffHeapCacheMap<String, String> offHeapCacheMap = new OffHeapCacheMap<String, String>(400, 200, codec);
+
+        StringBuilder value = new StringBuilder();
+        for(int i=0;i<150;i++) {
+            value.append('v');
+        }
+
+        //176 字节的内存块, 每个内存页末尾剩余 24 字节
+        offHeapCacheMap.put("key_1", value.toString());
+        assertEquals(0, offHeapCacheMap.getWastedBytes());
+        offHeapCacheMap.put("key_2", value.toString());
+        assertEquals(24, offHeapCacheMap.getWastedBytes());
+
+        //第一个内存页被回收给 64 字节的等级后不再计算
+        offHeapCacheMap.put("small", "s");
+        assertEquals("s", offHeapCacheMap.get("small"));
+        assertNull(offHeapCacheMap.get("key_1"));
+        assertEquals(value.toString(), offHeapCacheMap.get("key_2"));
+        assertEquals(0, offHeapCacheMap.getWastedBytes());
+
+        offHeapCacheMap.release();
+    }
+}
@@ -5,6 +5,8 @@ import org.voovan.tools.cache.RedisList;
 import org.voovan.tools.json.JSON;
 import org.voovan.tools.log.Logger;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -104,6 +106,20 @@ public class RedisListUnit extends TestCase{
 
 
 
+    public void testAddAll() throws IOException {
+        RedisList bulkList = new RedisList("10.0.0.101", 6379, 2000, 100, "test_bulk_list", null);
+        bulkList.removeAll(Arrays.asList("a", "b", "c"));
+        assertTrue(bulkList.addAll(Arrays.asList("a", "b", "c", "b")));
+        assertEquals(4, bulkList.size());
+        assertEquals("c", bulkList.get(2));
+
+        assertTrue(bulkList.removeAll(Arrays.asList("b", "none")));
+        assertEquals(2, bulkList.size());
+        assertFalse(bulkList.removeAll(Arrays.asList("none")));
+        bulkList.removeAll(Arrays.asList("a", "c"));
+        bulkList.close();
+    }
+
     @Override
     protected void tearDown() throws Exception {
         super.tearDown();
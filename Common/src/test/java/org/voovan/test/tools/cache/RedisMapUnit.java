@@ -8,6 +8,10 @@ import org.voovan.tools.cache.RedisMap;
 import org.voovan.tools.json.JSON;
 import org.voovan.tools.log.Logger;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
 /**
  * 类文字命名
  *
@@ -81,6 +85,55 @@ public class RedisMapUnit extends TestCase{
         Logger.simple(JSON.toJSON(scriptEntity));
     }
 
+    public void testGetAll(){
+        redisMapOld.putAll(TObject.asMap("bulk1", "value1", "bulk2", "value2", "bulk3", "value3"));
+        Map result = redisMapOld.getAll(Arrays.asList("bulk3", "bulk1", "none"));
+        assertEquals(2, result.size());
+        assertEquals("value3", result.get("bulk3"));
+        assertEquals("value1", result.get("bulk1"));
+
+        assertEquals(2, redisMapOld.removeAll(Arrays.asList("bulk1", "bulk2", "none")));
+        assertFalse(redisMapOld.containsKey("bulk1"));
+        assertTrue(redisMapOld.containsKey("bulk3"));
+        redisMapOld.remove("bulk3");
+    }
+
+    public void testPipelined(){
+        RedisMap<String, String> pipelineMap = redisMapOld;
+        pipelineMap.pipelined(redisMap -> {
+            redisMap.put("pipeline1", "value1");
+            redisMap.put("pipeline2", "value2");
+            //读操作可以读取到管道中之前的写操作
+            assertEquals("value1", redisMap.get("pipeline1"));
+            redisMap.remove("pipeline2");
+        });
+
+        assertEquals("value1", redisMapOld.get("pipeline1"));
+        assertFalse(redisMapOld.containsKey("pipeline2"));
+        redisMapOld.remove("pipeline1");
+    }
+
+    public void testDbIndex() throws IOException {
+        RedisMap redisMap1 = new RedisMap("127.0.0.1", 6379, 2000, 2, "test", null, 1);
+        redisMap1.put("db", "db1");
+        redisMapOld.put("db", "db0");
+        assertEquals("db1", redisMap1.get("db"));
+        assertEquals("db0", redisMapOld.get("db"));
+
+        //连接池的数据集不同时, 每次获取连接都切换数据集
+        RedisMap redisMapSelected = new RedisMap("127.0.0.1", 6379, 2000, 2, "test", null);
+        redisMapSelected.setDbIndex(1);
+        for(int i=0;i<5;i++) {
+            assertEquals("db1", redisMapSelected.get("db"));
+            assertEquals("db0", redisMapOld.get("db"));
+        }
+
+        redisMap1.remove("db");
+        redisMapOld.remove("db");
+        redisMap1.close();
+        redisMapSelected.close();
+    }
+
     public void testLazyLoad(){
         redisMapOld.supplier((key) -> {
             return key+"_loaded";
@@ -0,0 +1,61 @@
+package org.voovan.test.tools.cache;
+
+import junit.framework.TestCase;
+import org.voovan.tools.cache.SegmentedLruMap;
+
+/**
+ * SegmentedLruMap 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class SegmentedLruMapUnit extends TestCase {
+
+    public void testBounded(){
+        SegmentedLruMap<String, Integer> lruMap = new SegmentedLruMap<String, Integer>(100);
+        for(int i=0; i<100000; i++){
+            lruMap.put("/item/" + i, i);
+        }
+        assertEquals(100, lruMap.size());
+        assertEquals(100000 - 100, lruMap.getEvictionCount());
+        assertEquals(Integer.valueOf(99999), lruMap.get("/item/99999"));
+    }
+
+    public void testHotKeySurvive(){
+        SegmentedLruMap<String, Integer> lruMap = new SegmentedLruMap<String, Integer>(100);
+        for(int i=0; i<10; i++){
+            lruMap.put("/hot/" + i, i);
+        }
+
+        for(int i=0; i<10000; i++){
+            lruMap.put("/item/" + i, i);
+            lruMap.get("/hot/" + (i % 10));
+        }
+
+        for(int i=0; i<10; i++){
+            assertEquals(Integer.valueOf(i), lruMap.get("/hot/" + i));
+        }
+        assertTrue(lruMap.size() <= 100);
+    }
+
+    public void testRemoveAndStatistics(){
+        SegmentedLruMap<String, Integer> lruMap = new SegmentedLruMap<String, Integer>(10);
+        lruMap.put("a", 1);
+        assertEquals(Integer.valueOf(1), lruMap.remove("a"));
+        assertNull(lruMap.get("a"));
+        lruMap.put("b", 2);
+        assertEquals(Integer.valueOf(2), lruMap.get("b"));
+        assertEquals(1, lruMap.getHitCount());
+        assertEquals(1, lruMap.getMissCount());
+        assertEquals(0.5, lruMap.getHitRate());
+
+        for(int i=0; i<1000; i++){
+            lruMap.put("k" + i, i);
+            lruMap.remove("k" + i);
+        }
+        assertEquals(1, lruMap.size());
+    }
+}
@@ -0,0 +1,76 @@
+package org.voovan.test.tools.hashwheeltimer;
+
+import junit.framework.TestCase;
+import org.voovan.tools.TEnv;
+import org.voovan.tools.hashwheeltimer.TimeoutWheel;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TimeoutWheel 单元测试
+ *
+ * @author: helyho
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class TimeoutWheelUnit extends TestCase {
+
+    private Set<Integer> timeoutKeys;
+    private TimeoutWheel<Integer> timeoutWheel;
+
+    public void setUp(){
+        timeoutKeys = ConcurrentHashMap.newKeySet();
+        timeoutWheel = new TimeoutWheel<Integer>(8, 10, key -> timeoutKeys.add(key));
+    }
+
+    private void tickFor(int millis){
+        long end = System.currentTimeMillis() + millis;
+        while(System.currentTimeMillis() < end){
+            timeoutWheel.tick();
+            TEnv.sleep(2);
+        }
+    }
+
+    public void testTimeout(){
+        for(int i=0; i<1000; i++){
+            timeoutWheel.touch(i, 30);
+        }
+        timeoutWheel.touch(-1, 300);
+        assertEquals(1001, timeoutWheel.size());
+
+        tickFor(100);
+        assertEquals(1000, timeoutKeys.size());
+        assertEquals(1, timeoutWheel.size());
+        assertFalse(timeoutKeys.contains(-1));
+
+        //超时时间大于时间轮一圈的长度
+        tickFor(300);
+        assertTrue(timeoutKeys.contains(-1));
+        assertEquals(1001, timeoutWheel.getTimeoutCount());
+    }
+
+    public void testRefreshAndRemove(){
+        timeoutWheel.touch(1, 50);
+        timeoutWheel.touch(2, 50);
+        for(int i=0; i<10; i++){
+            tickFor(20);
+            timeoutWheel.touch(1, 50);
+        }
+        assertTrue(timeoutKeys.contains(2));
+        assertFalse(timeoutKeys.contains(1));
+
+        timeoutWheel.remove(1);
+        tickFor(100);
+        assertFalse(timeoutKeys.contains(1));
+        assertEquals(0, timeoutWheel.size());
+    }
+
+    public void testEarlierDeadline(){
+        timeoutWheel.touch(1, 10000);
+        timeoutWheel.touch(1, 20);
+        tickFor(100);
+        assertTrue(timeoutKeys.contains(1));
+    }
+}
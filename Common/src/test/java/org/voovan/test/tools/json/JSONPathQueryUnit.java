@@ -0,0 +1,71 @@
+package org.voovan.test.tools.json;
+
+import junit.framework.TestCase;
+import org.voovan.tools.json.JSON;
+import org.voovan.tools.json.JSONPath;
+import org.voovan.tools.json.JSONPathQuery;
+import org.voovan.tools.json.JSONReader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+public class JSONPathQueryUnit extends TestCase {
+
+	private static final String JSON_STRING = "{\"skip\":{\"x\":[1,\"a\\\"b\",{\"y\":null}]}, \"data\":{\"list\":[{\"name\":\"n0\"},{\"name\":\"n1\",\"tags\":[\"t0\",\"t1\"]}]," +
+			"\"count\":2, \"bean\":{\"bint\":32,\"string\":\"中文\"}}, \"tail\":[true, 1.5e3]}";
+
+	public JSONPathQueryUnit(String name) {
+		super(name);
+	}
+
+	public void testValue() throws Exception {
+		JSONPathQuery query = JSONPath.compile("/data/list[1]/tags[0]");
+		assertEquals("t0", query.value(new JSONReader(JSON_STRING)));
+		assertEquals("t0", query.value(JSON.parse(JSON_STRING)));
+		assertEquals("t0", query.value(new JSONReader(new ByteArrayInputStream(JSON_STRING.getBytes(StandardCharsets.UTF_8)))));
+
+		//节点不存在或者类型不匹配
+		assertNull(JSONPathQuery.compile("/data/list[5]").value(new JSONReader(JSON_STRING)));
+		assertNull(JSONPathQuery.compile("/data/count/x").value(new JSONReader(JSON_STRING)));
+		assertNull(JSONPathQuery.compile("/data[0]").value(new JSONReader(JSON_STRING)));
+		assertNull(JSONPathQuery.compile("/none").value(new JSONReader("")));
+
+		Map map = (Map) JSONPathQuery.compile("/").value(new JSONReader(JSON_STRING));
+		assertEquals(3, map.size());
+
+		//找到节点后不再读取后续的内容
+		assertEquals(1, ((Number) JSONPathQuery.compile("/a/b").value(new JSONReader("{\"a\":{\"b\":1,\"c\":2}, \"d\": @@@"))).intValue());
+
+		TestObject2 bean = JSONPathQuery.compile("/data/bean").value(new JSONReader(JSON_STRING), TestObject2.class, false);
+		assertEquals(32, bean.getBint());
+		assertEquals("中文", bean.getString());
+	}
+
+	public void testValues() throws Exception {
+		String[] paths = new String[]{"/data/count", "/data/list[1]", "/data/list[1]/tags[1]", "/tail[1]", "/data/list[0]/name", "/skip/x[1]", "/none", "/data/list[2]"};
+		JSONPathQuery[] queries = new JSONPathQuery[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			queries[i] = JSONPathQuery.compile(paths[i]);
+		}
+
+		Object[] results = JSONPathQuery.values(new JSONReader(JSON_STRING), queries);
+		JSONPath jsonPath = JSONPath.newInstance(JSON_STRING);
+		for (int i = 0; i < paths.length; i++) {
+			assertEquals(paths[i], jsonPath.value(paths[i]), results[i]);
+		}
+
+		assertEquals("a\"b", results[5]);
+		assertEquals(2, ((List) ((Map) results[1]).get("tags")).size());
+		assertNull(results[6]);
+	}
+
+	public void testJSONPath() throws Exception {
+		JSONPath jsonPath = new JSONPath(JSONPathTest.tmpStr);
+		JSONPathQuery query = JSONPath.compile("/[0]/Version/Index");
+		assertEquals(jsonPath.value("/[0]/Version/Index"), query.value(new JSONReader(JSONPathTest.tmpStr)));
+		assertEquals(jsonPath.value(query), query.value(new JSONReader(JSONPathTest.tmpStr)));
+		assertNotNull(jsonPath.value(query));
+	}
+}
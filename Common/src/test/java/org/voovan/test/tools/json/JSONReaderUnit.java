@@ -0,0 +1,101 @@
+package org.voovan.test.tools.json;
+
+import junit.framework.TestCase;
+import org.voovan.tools.json.JSON;
+import org.voovan.tools.json.JSONDecode;
+import org.voovan.tools.json.JSONReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+
+public class JSONReaderUnit extends TestCase {
+
+	private static final String JSON_STRING = "﻿// comment\n" +
+			"{\"bint\":32, \"string\":\"hel\\\"yho\\u4E2D文\", /* comment */ " +
+			"'tb2':{\"bint\":-56,\"string\":\"😀emoji\",\"list\":[\"tb2 list item\"],\"map\":{\"k\":\"v\"}}," +
+			"list:[\"listitem1\", 2, 3.5, true, null, {\"a\":[]},], " +
+			"\"map\":{\"mapitem1\":\"mapitem1\"}, \"unknown\":{\"x\":[1,{\"y\":2}]}}";
+
+	public JSONReaderUnit(String name) {
+		super(name);
+	}
+
+	public void testTokens() throws Exception {
+		JSONReader reader = new JSONReader("{\"a\":[1,\"x\",false,null],\"b\":{}}");
+		reader.beginObject();
+		assertEquals("a", reader.nextName());
+		reader.beginArray();
+		assertEquals(1, reader.nextInt());
+		assertEquals("x", reader.nextString());
+		assertFalse(reader.nextBoolean());
+		reader.nextNull();
+		assertFalse(reader.hasNext());
+		reader.endArray();
+		assertEquals("b", reader.nextName());
+		reader.skipValue();
+		reader.endObject();
+		assertEquals(JSONReader.Token.END, reader.peek());
+	}
+
+	public void testReadValue() throws Exception {
+		Map<String, Object> map = (Map<String, Object>) new JSONReader(JSON_STRING).readValue();
+		assertEquals(32, map.get("bint"));
+		assertEquals("hel\"yho中文", map.get("string"));
+		assertEquals("😀emoji", ((Map) map.get("tb2")).get("string"));
+
+		List list = (List) map.get("list");
+		assertEquals(6, list.size());
+		assertEquals(3.5F, list.get(2));
+		assertNull(list.get(4));
+	}
+
+	public void testBind() throws Exception {
+		byte[] bytes = JSON_STRING.getBytes(StandardCharsets.UTF_8);
+		assertBinded(JSON.<TestObject>toObject(bytes, TestObject.class));
+		assertBinded(JSON.<TestObject>toObject(JSON_STRING, TestObject.class));
+
+		//每次只读取一个字节, 验证跨缓冲区的读取
+		InputStream inputStream = new ByteArrayInputStream(bytes) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+		assertBinded(JSON.<TestObject>toObject(inputStream, TestObject.class, false));
+
+		ByteBuffer byteBuffer = ByteBuffer.allocateDirect(bytes.length);
+		byteBuffer.put(bytes);
+		byteBuffer.flip();
+		assertBinded(JSONDecode.<TestObject>fromJSON(new JSONReader(byteBuffer), TestObject.class, false));
+		assertEquals(0, byteBuffer.position());
+
+		TestObject testObject = JSON.toObject("{\"BINT\":12,\"String\":\"s\"}", TestObject.class, true);
+		assertEquals(12, testObject.getBint());
+		assertEquals("s", testObject.getString());
+	}
+
+	private void assertBinded(TestObject testObject) {
+		assertEquals(32, testObject.getBint());
+		assertEquals("hel\"yho中文", testObject.getString());
+		assertEquals(-56, testObject.getTb2().getBint());
+		assertEquals("😀emoji", testObject.getTb2().getString());
+		assertEquals("tb2 list item", testObject.getTb2().getList().get(0));
+		assertEquals("v", testObject.getTb2().getMap().get("k"));
+		assertEquals(6, testObject.getList().size());
+		assertEquals("mapitem1", testObject.getMap().get("mapitem1"));
+	}
+
+	public void testError() throws Exception {
+		try {
+			new JSONReader("{\"a\":1 \"b\":2}").readValue();
+			fail();
+		} catch (ParseException e) {
+			assertEquals(7, e.getErrorOffset());
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package org.voovan.test.tools.json;
+
+import junit.framework.TestCase;
+import org.voovan.tools.json.JSON;
+import org.voovan.tools.json.JSONEncode;
+import org.voovan.tools.json.JSONWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class JSONWriterUnit extends TestCase {
+
+	public JSONWriterUnit(String name) {
+		super(name);
+	}
+
+	private TestObject createTestObject(int index) {
+		TestObject testObject = new TestObject();
+		testObject.setString("helyho\r\n中文😀" + index);
+		testObject.setBint(index);
+		testObject.getList().add("listitem" + index);
+		testObject.getMap().put("mapitem", index);
+		testObject.getTb2().setString("bingo\"" + index);
+		return testObject;
+	}
+
+	public void testString() throws Exception {
+		JSONWriter writer = new JSONWriter();
+		writer.writeString("a\"b\r\n中文😀");
+		assertEquals("\"a\\u0022b\\u000d\\u000a中文😀\"", writer.toString());
+
+		writer.reset();
+		writer.setConvertEscapeChar(false);
+		writer.writeString("a\"b");
+		assertEquals("\"a\"b\"", writer.toString());
+
+		writer.reset();
+		writer.writeLong(Long.MIN_VALUE);
+		writer.writeByte(',');
+		writer.writeLong(-120);
+		writer.writeByte(',');
+		writer.writeValue(new Object[]{new int[]{1, 2}, TimeUnit.DAYS, 'c', null});
+		assertEquals("-9223372036854775808,-120,[[1,2],\"DAYS\",\"c\",null]", writer.toString());
+	}
+
+	public void testOutputStream() throws Exception {
+		List<TestObject> list = new ArrayList<TestObject>();
+		for (int i = 0; i < 1000; i++) {
+			list.add(createTestObject(i));
+		}
+
+		//超过缓冲区大小, 验证分段写入输出流
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		JSONEncode.fromObject(list, outputStream);
+		String jsonStr = JSONEncode.fromObject(list);
+		assertEquals(jsonStr, new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+
+		List<TestObject> result = JSON.toObject(jsonStr, List.class);
+		assertEquals(1000, result.size());
+
+		outputStream.reset();
+		JSON.toJSON("str\"ing", outputStream);
+		assertEquals(JSON.toJSON("str\"ing"), new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+	}
+}
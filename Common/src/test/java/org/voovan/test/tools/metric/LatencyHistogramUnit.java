@@ -0,0 +1,109 @@
+package org.voovan.test.tools.metric;
+
+import junit.framework.TestCase;
+import org.voovan.tools.metric.LatencyHistogram;
+import org.voovan.tools.metric.TopKCounter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * LatencyHistogram 和 TopKCounter 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class LatencyHistogramUnit extends TestCase {
+
+    public LatencyHistogramUnit(String name) {
+        super(name);
+    }
+
+    public void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(60000);
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1000000000L, snapshot.getMax());
+        assertEquals(500.5, snapshot.getMean() / 1000000d, 0.001);
+
+        //对数分桶的相对误差不超过 6.25%, 取桶的上界因此不会小于实际值
+        long p50 = snapshot.getPercentile(0.5);
+        assertTrue(p50 >= 500000000L && p50 <= 500000000L * 1.0625);
+        long p99 = snapshot.getPercentile(0.99);
+        assertTrue(p99 >= 990000000L && p99 <= 990000000L * 1.0625);
+        assertEquals(1000000000L, snapshot.getPercentile(1));
+
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(1000000L, histogram.getMinTime());
+    }
+
+    public void testTopK() {
+        TopKCounter<String, String> topKCounter = new TopKCounter<String, String>(3, key -> "value-" + key);
+        for(int i = 0; i < 100; i++) {
+            topKCounter.increment("hot");
+        }
+        for(int i = 0; i < 10; i++) {
+            topKCounter.increment("warm");
+        }
+        //低频的键相互替换, 并继承被替换的键的计数作为误差
+        for(int i = 0; i < 5; i++) {
+            topKCounter.increment("cold-" + i);
+        }
+
+        assertEquals(3, topKCounter.size());
+        assertEquals("hot", topKCounter.top(1).get(0).getKey());
+        assertEquals(100, topKCounter.top(1).get(0).getCount());
+        assertEquals("value-hot", topKCounter.top(1).get(0).getValue());
+        assertEquals("warm", topKCounter.top(2).get(1).getKey());
+        assertEquals("cold-4", topKCounter.top(3).get(2).getKey());
+        assertEquals(5, topKCounter.top(3).get(2).getCount());
+        assertEquals(4, topKCounter.top(3).get(2).getError());
+    }
+
+    public void testTopKStriped() throws Exception {
+        //容量较大时分段跟踪
+        TopKCounter<String, String> topKCounter = new TopKCounter<String, String>(64);
+        List<Thread> threads = new ArrayList<Thread>();
+        for(int t = 0; t < 4; t++) {
+            final int index = t;
+            threads.add(new Thread(() -> {
+                for(int i = 0; i < 20000; i++) {
+                    topKCounter.increment("hot-" + (i % 4));
+                    topKCounter.increment("cold-" + index + "-" + i);
+                }
+            }));
+        }
+        for(Thread thread : threads) {
+            thread.start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(topKCounter.size() <= 64);
+        Set<String> topKeys = new HashSet<String>();
+        for(TopKCounter.Entry<String, String> entry : topKCounter.top(4)) {
+            topKeys.add(entry.getKey());
+            assertTrue(entry.getCount() - entry.getError() <= 20000);
+            assertTrue(entry.getCount() >= 20000);
+        }
+        assertEquals(4, topKeys.size());
+        for(int i = 0; i < 4; i++) {
+            assertTrue(topKeys.contains("hot-" + i));
+        }
+
+        topKCounter.clear();
+        assertEquals(0, topKCounter.size());
+        topKCounter.increment("key");
+        assertEquals(1, topKCounter.get("key").getCount());
+    }
+}
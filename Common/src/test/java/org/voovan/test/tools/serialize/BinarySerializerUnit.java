@@ -0,0 +1,190 @@
+package org.voovan.test.tools.serialize;
+
+import junit.framework.TestCase;
+import org.voovan.test.tools.json.TestObject;
+import org.voovan.tools.TSerialize;
+import org.voovan.tools.reflect.annotation.NotSerialization;
+import org.voovan.tools.serialize.BinarySerializer;
+import org.voovan.tools.serialize.JdkSerializer;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BinarySerializer 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class BinarySerializerUnit extends TestCase {
+
+    private BinarySerializer serializer = new BinarySerializer();
+
+    public static class Node implements Serializable {
+        private String name;
+        private int level;
+        private long id;
+        private double score;
+        private boolean leaf;
+        private char tag;
+        @NotSerialization
+        private String cache = "cache";
+        private TimeUnit unit;
+        private int[] values;
+        private Date date;
+        private BigDecimal amount;
+        private Node parent;
+        private List<Node> children = new ArrayList<Node>();
+        private Map<String, Object> attributes = new HashMap<String, Object>();
+    }
+
+    public static class Counter implements Serializable {
+        private String name;
+        private transient int hits;
+
+        private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            hits = -1;
+        }
+    }
+
+    private Node createNode() {
+        Node root = new Node();
+        root.name = "根节点";
+        root.level = -1;
+        root.id = Long.MAX_VALUE;
+        root.score = 3.14;
+        root.tag = 'R';
+        root.unit = TimeUnit.SECONDS;
+        root.values = new int[]{1, -2, Integer.MIN_VALUE};
+        root.date = new Date();
+        root.amount = new BigDecimal("12.50");
+        root.attributes.put("count", 10);
+        root.attributes.put("list", Arrays.asList("a", "b"));
+        root.attributes.put("empty", null);
+
+        for (int i = 0; i < 3; i++) {
+            Node child = new Node();
+            child.name = "child" + i;
+            child.level = i;
+            child.leaf = true;
+            child.parent = root;
+            root.children.add(child);
+        }
+        return root;
+    }
+
+    public void testObject() {
+        Node root = createNode();
+        byte[] bytes = serializer.serialize(root);
+        assertTrue(BinarySerializer.isBinarySerialized(bytes));
+
+        Node result = serializer.unserialize(bytes);
+        assertEquals(root.name, result.name);
+        assertEquals(root.level, result.level);
+        assertEquals(root.id, result.id);
+        assertEquals(root.score, result.score);
+        assertEquals(root.tag, result.tag);
+        assertEquals(root.unit, result.unit);
+        assertNull(result.cache);
+        assertTrue(Arrays.equals(root.values, result.values));
+        assertEquals(root.date, result.date);
+        assertEquals(root.amount, result.amount);
+        assertEquals(root.attributes, result.attributes);
+        assertEquals(3, result.children.size());
+        assertEquals("child2", result.children.get(2).name);
+        assertTrue(result.children.get(1).leaf);
+        assertSame(result, result.children.get(0).parent);
+    }
+
+    public void testValue() {
+        assertNull(serializer.serialize(null));
+        assertEquals("中文 ascii", serializer.unserialize(serializer.serialize("中文 ascii")));
+        assertEquals(-123, (int) serializer.unserialize(serializer.serialize(-123)));
+        assertEquals(Long.MIN_VALUE, (long) serializer.unserialize(serializer.serialize(Long.MIN_VALUE)));
+        assertTrue(Arrays.equals(new byte[]{1, 2, 3}, (byte[]) serializer.unserialize(serializer.serialize(new byte[]{1, 2, 3}))));
+
+        Object[] array = new Object[]{"a", 1, null, TimeUnit.DAYS};
+        assertTrue(Arrays.equals(array, (Object[]) serializer.unserialize(serializer.serialize(array))));
+
+        List<String> list = Collections.unmodifiableList(Arrays.asList("x", "y"));
+        assertEquals(list, serializer.unserialize(serializer.serialize(list)));
+
+        TreeMap<String, Integer> treeMap = new TreeMap<String, Integer>();
+        treeMap.put("b", 2);
+        treeMap.put("a", 1);
+        assertEquals(treeMap, serializer.unserialize(serializer.serialize(treeMap)));
+    }
+
+    public void testJdkType() {
+        Timestamp timestamp = new Timestamp(1700000000123L);
+        timestamp.setNanos(123456789);
+        Timestamp timestampResult = serializer.unserialize(serializer.serialize(timestamp));
+        assertEquals(timestamp, timestampResult);
+        assertEquals(123456789, timestampResult.getNanos());
+
+        java.sql.Date sqlDate = new java.sql.Date(1700000000123L);
+        Object sqlDateResult = serializer.unserialize(serializer.serialize(sqlDate));
+        assertEquals(java.sql.Date.class, sqlDateResult.getClass());
+        assertEquals(sqlDate.getTime(), ((java.sql.Date) sqlDateResult).getTime());
+
+        Time time = new Time(1700000000123L);
+        assertEquals(time, serializer.unserialize(serializer.serialize(time)));
+
+        Node node = new Node();
+        node.date = timestamp;
+        assertEquals(timestamp, ((Node) serializer.unserialize(serializer.serialize(node))).date);
+
+        TreeMap<String, Integer> treeMap = new TreeMap<String, Integer>(Collections.reverseOrder());
+        treeMap.put("a", 1);
+        treeMap.put("b", 2);
+        TreeMap<String, Integer> treeMapResult = serializer.unserialize(serializer.serialize(treeMap));
+        assertEquals("b", treeMapResult.firstKey());
+        treeMapResult.put("c", 3);
+        assertEquals("c", treeMapResult.firstKey());
+
+        LongAdder longAdder = new LongAdder();
+        longAdder.add(42);
+        assertEquals(42, ((LongAdder) serializer.unserialize(serializer.serialize(longAdder))).sum());
+
+        //自定义了 readObject 的类使用 JDK 序列化
+        Counter counter = new Counter();
+        counter.name = "counter";
+        counter.hits = 10;
+        List<Counter> counters = new ArrayList<Counter>();
+        counters.add(counter);
+        counters.add(counter);
+        List<Counter> countersResult = serializer.unserialize(serializer.serialize(counters));
+        assertEquals("counter", countersResult.get(0).name);
+        assertEquals(-1, countersResult.get(0).hits);
+        assertSame(countersResult.get(0), countersResult.get(1));
+    }
+
+    public void testCompat() {
+        TestObject testObject = new TestObject();
+        testObject.setString("helyho");
+        testObject.setBint(32);
+        testObject.getList().add("listitem1");
+        testObject.getMap().put("mapitem1", "mapitem1");
+
+        byte[] jdkBytes = new JdkSerializer().serialize(testObject);
+        byte[] binaryBytes = TSerialize.serialize(testObject);
+        assertTrue(binaryBytes.length < jdkBytes.length);
+
+        TestObject result = (TestObject) TSerialize.unserialize(jdkBytes);
+        assertEquals("helyho", result.getString());
+        result = (TestObject) TSerialize.unserialize(binaryBytes);
+        assertEquals("helyho", result.getString());
+        assertEquals(32, result.getBint());
+        assertEquals("listitem1", result.getList().get(0));
+        assertEquals("mapitem1", result.getMap().get("mapitem1"));
+    }
+}
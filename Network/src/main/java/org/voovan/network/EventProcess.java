@@ -5,7 +5,6 @@ import org.voovan.network.Event.EventName;
 import org.voovan.network.exception.IoFilterException;
 import org.voovan.network.exception.SendMessageException;
 import org.voovan.tools.ByteBufferChannel;
-import org.voovan.tools.Chain;
 import org.voovan.tools.TByteBuffer;
 
 import java.io.IOException;
@@ -198,15 +197,15 @@ public class EventProcess {
 	 */
 	public static Object filterDecoder(IoSession session, ByteBuffer readedBuffer) throws IoFilterException{
 		Object result = readedBuffer;
-		Chain<IoFilter> filterChain = session.socketContext().filterChain().clone();
-		while (filterChain.hasNext()) {
-			IoFilter fitler = filterChain.next();
+		//使用过滤器链的快照, 不需要为每个消息克隆过滤器链
+		Object[] filters = session.socketContext().filterChain().snapshot();
+		for (int i = 0; i < filters.length; i++) {
+			IoFilter fitler = (IoFilter) filters[i];
 			result = fitler.decode(session, result);
 			if(result == null){
 				break;
 			}
 		}
-		filterChain.clear();
 		return result;
 	}
 
@@ -218,16 +217,14 @@ public class EventProcess {
 	 * @throws IoFilterException 过滤器异常
 	 */
 	public static ByteBuffer filterEncoder(IoSession session,Object result) throws IoFilterException{
-		Chain<IoFilter> filterChain = session.socketContext().filterChain().clone();
-		filterChain.rewind();
-		while (filterChain.hasPrevious()) {
-			IoFilter fitler = filterChain.previous();
+		Object[] filters = session.socketContext().filterChain().snapshot();
+		for (int i = filters.length - 1; i >= 0; i--) {
+			IoFilter fitler = (IoFilter) filters[i];
 			result = fitler.encode(session, result);
 			if(result == null){
 				break;
 			}
 		}
-		filterChain.clear();
 
 		if(result instanceof ByteBuffer) {
 			return (ByteBuffer)result;
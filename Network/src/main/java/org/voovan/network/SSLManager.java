@@ -33,6 +33,7 @@ public class SSLManager {
 	private SSLContext context;
 	private boolean needClientAuth;
 	private String protocol;
+	private String[] applicationProtocols;
 
 	/**
 	 * 构造函数
@@ -56,6 +57,15 @@ public class SSLManager {
 		this.protocol = protocol;
 	}
 
+	/**
+	 * 设置服务端通过 ALPN 协商的应用层协议
+	 * 		按优先级排列, 例如: h2, http/1.1, 运行时不支持 ALPN 时忽略
+	 * @param applicationProtocols 应用层协议
+	 */
+	public void setApplicationProtocols(String... applicationProtocols) {
+		this.applicationProtocols = applicationProtocols;
+	}
+
 	/**
 	 * 读取管理证书, 文件形式
 	 * @param manageCertFile   证书地址
@@ -182,6 +192,17 @@ public class SSLManager {
 		engine.setUseClientMode(false);
 		engine.setNeedClientAuth(needClientAuth);
 
+		if(applicationProtocols != null) {
+			try {
+				SSLParameters sslParameters = engine.getSSLParameters();
+				sslParameters.setApplicationProtocols(applicationProtocols);
+				engine.setSSLParameters(sslParameters);
+			} catch (NoSuchMethodError e) {
+				//JDK 8u252 之前的版本不支持 ALPN
+				applicationProtocols = null;
+			}
+		}
+
 		SSLParser sslParser = new SSLParser(engine, session);
 		session.setSSLParser(sslParser);
 
@@ -0,0 +1,57 @@
+package org.voovan.network;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Socket 流量统计
+ * 		统计所有 Socket 连接在传输层收发的字节数(包含 SSL 加密后的数据)
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class SocketStatistics {
+	private static final LongAdder READ_BYTES = new LongAdder();
+	private static final LongAdder SENT_BYTES = new LongAdder();
+
+	private SocketStatistics(){
+	}
+
+	/**
+	 * 增加接收的字节数
+	 * @param length 接收的字节数
+	 */
+	public static void addReadBytes(int length){
+		if(length > 0) {
+			READ_BYTES.add(length);
+		}
+	}
+
+	/**
+	 * 增加发送的字节数
+	 * @param length 发送的字节数
+	 */
+	public static void addSentBytes(int length){
+		if(length > 0) {
+			SENT_BYTES.add(length);
+		}
+	}
+
+	/**
+	 * 获取累计接收的字节数
+	 * @return 累计接收的字节数
+	 */
+	public static long getReadBytes(){
+		return READ_BYTES.sum();
+	}
+
+	/**
+	 * 获取累计发送的字节数
+	 * @return 累计发送的字节数
+	 */
+	public static long getSentBytes(){
+		return SENT_BYTES.sum();
+	}
+}
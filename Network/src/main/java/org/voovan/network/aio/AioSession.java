@@ -2,6 +2,7 @@ package org.voovan.network.aio;
 
 import org.voovan.network.IoSession;
 import org.voovan.network.MessageSplitter;
+import org.voovan.network.SocketStatistics;
 import org.voovan.network.exception.RestartException;
 import org.voovan.tools.log.Logger;
 
@@ -146,6 +147,7 @@ public class AioSession extends IoSession<AioSocket> {
                 }
             }
         }
+        SocketStatistics.addSentBytes(totalSendByte);
         return totalSendByte;
     }
 
@@ -5,6 +5,7 @@ import org.voovan.network.EventTrigger;
 import org.voovan.network.HeartBeat;
 import org.voovan.network.MessageLoader;
 import org.voovan.network.SSLParser;
+import org.voovan.network.SocketStatistics;
 import org.voovan.tools.ByteBufferChannel;
 
 import java.io.IOException;
@@ -47,6 +48,7 @@ public class ReadCompletionHandler implements CompletionHandler<Integer,  ByteBu
 				readTempBuffer.flip();
 
 				if (length > 0) {
+					SocketStatistics.addReadBytes(length);
 
 					tmpByteBufferChannel.clear();
 
@@ -5,7 +5,6 @@ import org.voovan.network.IoSession;
 import org.voovan.network.MessageSplitter;
 import org.voovan.tools.TByteBuffer;
 
-import java.math.BigInteger;
 import java.nio.ByteBuffer;
 
 /**
@@ -21,6 +20,17 @@ public class HttpMessageSplitter implements MessageSplitter {
 
     private static final String	BODY_TAG	= "\r\n\r\n";
     private static final String HTTP_PROTCOL = "HTTP";
+    private static final byte[] HTTP2_PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes();
+
+    /**
+     * 会话属性: 已经接收到 HTTP/2 连接前言, 与 WebServerHandler.SessionParam.HTTP2_PREFACE 一致
+     */
+    public static final int HTTP2_PREFACE_RECEIVED = 0x7777;
+
+    /**
+     * 允许接收的 HTTP/2 帧的最大负载长度, 与服务端通告的 SETTINGS_MAX_FRAME_SIZE 一致
+     */
+    public static final int HTTP2_MAX_FRAME_SIZE = 16384;
     private int result = -1;
 
 //    private int contentLength = -1;
@@ -35,8 +45,16 @@ public class HttpMessageSplitter implements MessageSplitter {
             return -1;
         }
 
-        if( "WebSocket".equals(session.getAttribute(0x1111)) ){
+        Object type = session.getAttribute(0x1111);
+        boolean http2Preface = session.getAttribute(HTTP2_PREFACE_RECEIVED) != null;
+        if( "WebSocket".equals(type) ){
             result = isWebSocketFrame(byteBuffer);
+        }else if( !http2Preface && isHttp2Preface(byteBuffer) ){
+            //HTTP/2 连接前言, 可能来自 prior knowledge, ALPN 协商或者 h2c 升级
+            //h2c 升级时前言在 101 响应之后到达, 这时会话类型已经是 HTTP2, 因此必须在帧之前判断
+            result = byteBuffer.remaining() >= HTTP2_PREFACE.length ? HTTP2_PREFACE.length : -1;
+        }else if( http2Preface || "HTTP2".equals(type) ){
+            result = isHttp2Frame(byteBuffer);
         }else{
             result = isHttpFrame(byteBuffer);
 
@@ -115,6 +133,45 @@ public class HttpMessageSplitter implements MessageSplitter {
         return false;
     }
 
+    /**
+     * 判断缓冲区中的数据是否以 HTTP/2 连接前言开始
+     * @param byteBuffer 缓冲区对象
+     * @return true: 是连接前言或者连接前言的开始部分, false: 不是连接前言
+     */
+    public static boolean isHttp2Preface(ByteBuffer byteBuffer) {
+        int position = byteBuffer.position();
+        int length = Math.min(byteBuffer.remaining(), HTTP2_PREFACE.length);
+        for(int i = 0; i < length; i++) {
+            if(byteBuffer.get(position + i) != HTTP2_PREFACE[i]) {
+                return false;
+            }
+        }
+
+        //前言未接收完整时等待后续数据
+        return length > 0;
+    }
+
+    /**
+     * 判断缓冲区中的数据是否是一个完整的 HTTP/2 帧
+     *      负载长度超过 HTTP2_MAX_FRAME_SIZE 时只分割出帧头, 由解析方返回 FRAME_SIZE_ERROR, 不缓冲帧的负载
+     * @param byteBuffer 缓冲区对象
+     * @return -1: 帧不完整, 大于0: 帧的长度(包含 9 字节的帧头)
+     */
+    public static int isHttp2Frame(ByteBuffer byteBuffer) {
+        if(byteBuffer.remaining() < 9) {
+            return -1;
+        }
+
+        int position = byteBuffer.position();
+        int length = ((byteBuffer.get(position) & 0xFF) << 16) | ((byteBuffer.get(position + 1) & 0xFF) << 8) | (byteBuffer.get(position + 2) & 0xFF);
+        if(length > HTTP2_MAX_FRAME_SIZE) {
+            return 9;
+        }
+
+        length = length + 9;
+        return byteBuffer.remaining() >= length ? length : -1;
+    }
+
     /**
      * 判断缓冲区中的数据是否是一个 WebSocket 帧
      * @param buffer 缓冲区对象
@@ -156,17 +213,18 @@ public class HttpMessageSplitter implements MessageSplitter {
             }
             if (payloadlength == 126) {
                 expectPackagesize += 2;
-                byte[] sizebytes = new byte[3];
-                sizebytes[1] = buffer.get();
-                sizebytes[2] = buffer.get();
-                payloadlength = new BigInteger(sizebytes).intValue();
+                if (buffer.remaining() < 2) {
+                    buffer.position(0);
+                    return -2;
+                }
+                payloadlength = buffer.getShort() & 0xFFFF;
             } else {
                 expectPackagesize += 8;
-                byte[] bytes = new byte[8];
-                for (int i = 0; i < 8; i++) {
-                    bytes[i] = buffer.get();
+                if (buffer.remaining() < 8) {
+                    buffer.position(0);
+                    return -2;
                 }
-                long length = new BigInteger(bytes).longValue();
+                long length = buffer.getLong();
                 if (length <= Integer.MAX_VALUE) {
                     payloadlength = (int) length;
                 }
@@ -93,6 +93,7 @@ public class NioSelector {
 											}
 											break;
 										}else if(readSize>0){
+											SocketStatistics.addReadBytes(readSize);
 											readTempBuffer.flip();
 
 											tmpByteBufferChannel.clear();
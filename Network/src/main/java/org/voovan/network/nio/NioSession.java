@@ -2,6 +2,7 @@ package org.voovan.network.nio;
 
 import org.voovan.network.IoSession;
 import org.voovan.network.MessageSplitter;
+import org.voovan.network.SocketStatistics;
 import org.voovan.network.exception.RestartException;
 import org.voovan.tools.TEnv;
 import org.voovan.tools.log.Logger;
@@ -134,6 +135,7 @@ public class NioSession extends IoSession<NioSocket> {
 				}
 			}
 		}
+		SocketStatistics.addSentBytes(totalSendByte);
 		return totalSendByte;
 	}
 
@@ -107,6 +107,7 @@ public class UdpSelector {
                                             }
                                             break;
                                         } else if (readSize > 0) {
+                                            SocketStatistics.addReadBytes(readSize);
                                             readTempBuffer.flip();
 
                                             tmpByteBufferChannel.writeEnd(readTempBuffer);
@@ -2,6 +2,7 @@ package org.voovan.network.udp;
 
 import org.voovan.network.IoSession;
 import org.voovan.network.MessageSplitter;
+import org.voovan.network.SocketStatistics;
 import org.voovan.network.exception.RestartException;
 import org.voovan.tools.TEnv;
 import org.voovan.tools.log.Logger;
@@ -145,6 +146,7 @@ public class UdpSession extends IoSession<UdpSocket> {
 				}
 			}
 		}
+		SocketStatistics.addSentBytes(totalSendByte);
 		return totalSendByte;
 	}
 
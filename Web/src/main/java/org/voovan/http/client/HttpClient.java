@@ -1,5 +1,6 @@
 package org.voovan.http.client;
 
+import org.voovan.Global;
 import org.voovan.http.message.Request;
 import org.voovan.http.message.Response;
 import org.voovan.http.message.packet.Cookie;
@@ -20,6 +21,7 @@ import org.voovan.network.messagesplitter.HttpMessageSplitter;
 import org.voovan.tools.TEnv;
 import org.voovan.tools.TObject;
 import org.voovan.tools.TString;
+import org.voovan.tools.hashwheeltimer.HashWheelTask;
 import org.voovan.tools.log.Logger;
 
 import java.io.Closeable;
@@ -33,6 +35,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * HTTP 请求调用
@@ -45,12 +48,16 @@ import java.util.Map.Entry;
 public class HttpClient implements Closeable{
 
 	private AioSocket socket;
+	private HttpClientHandler httpClientHandler;
 	private Request request;
+	private String hostString;
 	private Map<String, Object> parameters;
 	private String charset="UTF-8";
 	private String urlString;
 	private boolean isSSL = false;
 	private boolean isWebSocket = false;
+	//已发送请求但还没有收到响应, 超时或出错后保持为 true, 此时连接上可能还有迟到的响应
+	private volatile boolean responsePending = false;
 	private WebSocketRouter webSocketRouter;
 
 	/**
@@ -136,20 +143,17 @@ public class HttpClient implements Closeable{
 				port = 443;
 			}
 
+			this.hostString = hostString;
 			parameters = new HashMap<String, Object>();
 
 			request = new Request();
-			//初始化请求参数,默认值
-			request.header().put("Host", hostString);
-			request.header().put("Pragma", "no-cache");
-			request.header().put("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8");
-			request.header().put("User-Agent", "Voovan Http Client");
-			request.header().put("Accept-Encoding","gzip");
-			request.header().put("Connection","keep-alive");
+			initRequestHeader();
 
 			socket = new AioSocket(hostString, port==-1?80:port, timeOut*1000);
 			socket.filterChain().add(new HttpClientFilter(this));
 			socket.messageSplitter(new HttpMessageSplitter());
+			httpClientHandler = new HttpClientHandler();
+			socket.handler(httpClientHandler);
 
 			if(isSSL){
 				try {
@@ -167,6 +171,32 @@ public class HttpClient implements Closeable{
 		}
 	}
 
+	/**
+	 * 初始化请求参数,默认值
+	 */
+	private void initRequestHeader(){
+		request.header().put("Host", hostString);
+		request.header().put("Pragma", "no-cache");
+		request.header().put("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8");
+		request.header().put("User-Agent", "Voovan Http Client");
+		request.header().put("Accept-Encoding","gzip");
+		request.header().put("Connection","keep-alive");
+	}
+
+	/**
+	 * 重置请求对象
+	 * 		清理请求方法, Header, Cookie 和参数, 恢复默认的请求头, 用于连接池中复用连接
+	 */
+	public void reset(){
+		request.protocol().clear();
+		request.header().clear();
+		request.cookies().clear();
+		request.body().clear();
+		request.parts().clear();
+		parameters.clear();
+		initRequestHeader();
+	}
+
 	/**
 	 * 获取 Socket 连接
 	 * @return Socket对象
@@ -426,19 +456,15 @@ public class HttpClient implements Closeable{
 			throw new SendMessageException("The WebSocket is connect, you can't send http request.");
 		}
 
-		//设置默认的报文 Body 类型
-		if(request.protocol().getMethod().equals("POST") && request.parts().size()>0){
-			setBodyType(Request.RequestType.BODY_MULTIPART);
-		}else if(request.protocol().getMethod().equals("POST")) {
-			setBodyType(Request.RequestType.BODY_URLENCODED);
-		}else{
-			setBodyType(Request.RequestType.NORMAL);
+		if(httpClientHandler.isPending()){
+			throw new SendMessageException("The HttpClient has a pending async request.");
 		}
 
 		//构造 Request 对象
-		buildRequest(TString.isNullOrEmpty(location)?"/":location);
+		prepareRequest(location);
 
 		//发送报文
+		responsePending = true;
 		try {
 			request.send(socket.getSession());
 		}catch(IOException e){
@@ -458,6 +484,7 @@ public class HttpClient implements Closeable{
 
 			//结束操作
 			finished(request, response);
+			responsePending = false;
 
 			return response;
 		}catch(ReadMessageException e){
@@ -479,6 +506,98 @@ public class HttpClient implements Closeable{
 		return send("/");
 	}
 
+	/**
+	 * 设置报文 Body 类型并构造请求
+	 * @param location 请求 URL
+	 */
+	private void prepareRequest(String location){
+		//设置默认的报文 Body 类型
+		if(request.protocol().getMethod().equals("POST") && request.parts().size()>0){
+			setBodyType(Request.RequestType.BODY_MULTIPART);
+		}else if(request.protocol().getMethod().equals("POST")) {
+			setBodyType(Request.RequestType.BODY_URLENCODED);
+		}else{
+			setBodyType(Request.RequestType.NORMAL);
+		}
+
+		//构造 Request 对象
+		buildRequest(TString.isNullOrEmpty(location)?"/":location);
+	}
+
+	/**
+	 * 异步发送请求
+	 * 		发送后不等待响应, 响应由读取事件完成返回的 CompletableFuture
+	 * 		在 CompletableFuture 完成之前不能使用当前 HttpClient 发送其他请求
+	 * @param location 请求 URL
+	 * @return 响应对象的 CompletableFuture
+	 */
+	public synchronized CompletableFuture<Response> sendAsync(String location) {
+		CompletableFuture<Response> responseFuture = new CompletableFuture<Response>();
+
+		if(isWebSocket){
+			responseFuture.completeExceptionally(new SendMessageException("The WebSocket is connect, you can't send http request."));
+			return responseFuture;
+		}
+
+		CompletableFuture<Object> readFuture = new CompletableFuture<Object>();
+		if(!httpClientHandler.await(readFuture)){
+			responseFuture.completeExceptionally(new SendMessageException("The HttpClient has a pending async request."));
+			return responseFuture;
+		}
+
+		//读取超时
+		int timeout = Math.max(1, socket.getReadTimeout()/1000);
+		HashWheelTask timeoutTask = new HashWheelTask() {
+			@Override
+			public void run() {
+				if(readFuture.completeExceptionally(new ReadMessageException("sendAsync read timeout"))) {
+					httpClientHandler.cancel(readFuture);
+				}
+				this.cancel();
+			}
+		};
+		Global.getHashWheelTimer().addTask(timeoutTask, timeout);
+
+		//构造 Request 对象
+		prepareRequest(location);
+
+		//发送报文
+		responsePending = true;
+		try {
+			request.send(socket.getSession());
+		}catch(IOException e){
+			httpClientHandler.cancel(readFuture);
+			readFuture.completeExceptionally(new SendMessageException("HttpClient send error",e));
+		}
+
+		//发送完成后再处理响应, 避免与发送过程同时修改请求对象
+		readFuture.whenComplete((readObject, throwable) -> {
+			timeoutTask.cancel();
+
+			if(throwable != null) {
+				responseFuture.completeExceptionally(throwable);
+			} else if(readObject instanceof Exception) {
+				responseFuture.completeExceptionally(new ReadMessageException((Exception) readObject));
+			} else {
+				Response response = (Response) readObject;
+				//结束操作
+				finished(request, response);
+				responsePending = false;
+				responseFuture.complete(response);
+			}
+		});
+
+		return responseFuture;
+	}
+
+	/**
+	 * 异步发送请求
+	 * @return 响应对象的 CompletableFuture
+	 */
+	public CompletableFuture<Response> sendAsync() {
+		return sendAsync("/");
+	}
+
 	/**
 	 * 发送二进制数据
 	 * @param buffer 二进制数据
@@ -609,6 +728,23 @@ public class HttpClient implements Closeable{
 		socket.close();
 	}
 
+	/**
+	 * 判断是否已升级为 WebSocket 连接
+	 * @return true: WebSocket 连接, false: HTTP 连接
+	 */
+	public boolean isWebSocket(){
+		return isWebSocket;
+	}
+
+	/**
+	 * 是否有已发送但还没有收到响应的请求
+	 * 		请求超时或者读取出错后仍然为 true, 这样的连接上可能还会收到迟到的响应, 不能再复用
+	 * @return true: 有等待中的响应, false: 没有
+	 */
+	public boolean isResponsePending(){
+		return responsePending;
+	}
+
 	/**
 	 * 判断是否处于连接状态
 	 * @return 是否连接
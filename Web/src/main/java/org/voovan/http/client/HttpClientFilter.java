@@ -60,7 +60,13 @@ public class HttpClientFilter implements IoFilter {
 
 				ByteBufferChannel byteBufferChannel = session.getByteBufferChannel();
 				if("WebSocket".equals(WebServerHandler.getAttribute(session, WebServerHandler.SessionParam.TYPE))){
-					return WebSocketFrame.parse((ByteBuffer)object);
+					WebSocketFrame webSocketFrame = WebSocketFrame.parse((ByteBuffer)object);
+					if(webSocketFrame.getErrorCode()==0){
+						return webSocketFrame;
+					}else{
+						session.close();
+						return null;
+					}
 				}else {
 					Response response = HttpParser.parseResponse(byteBufferChannel, session.socketContext().getReadTimeout());
 					if(response.protocol().getStatus() == 101 &&
@@ -0,0 +1,79 @@
+package org.voovan.http.client;
+
+import org.voovan.network.IoSession;
+import org.voovan.network.exception.ReadMessageException;
+import org.voovan.network.handler.SynchronousHandler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * HttpClient 的 IoHandler 事件处理
+ *      存在异步请求时, 由读取事件直接完成异步请求的 CompletableFuture
+ *      没有异步请求时, 与 SynchronousHandler 一致, 供同步读取使用
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpClientHandler extends SynchronousHandler {
+
+    private AtomicReference<CompletableFuture<Object>> pendingFuture = new AtomicReference<CompletableFuture<Object>>();
+
+    /**
+     * 登记一个等待响应的异步请求
+     * @param future 异步请求的 CompletableFuture
+     * @return true: 登记成功, false: 已存在等待响应的异步请求
+     */
+    public boolean await(CompletableFuture<Object> future) {
+        return pendingFuture.compareAndSet(null, future);
+    }
+
+    /**
+     * 取消等待响应的异步请求
+     * @param future 异步请求的 CompletableFuture
+     */
+    public void cancel(CompletableFuture<Object> future) {
+        pendingFuture.compareAndSet(future, null);
+    }
+
+    /**
+     * 是否存在等待响应的异步请求
+     * @return true: 存在, false: 不存在
+     */
+    public boolean isPending() {
+        return pendingFuture.get() != null;
+    }
+
+    @Override
+    public Object onReceive(IoSession session, Object obj) {
+        CompletableFuture<Object> future = pendingFuture.getAndSet(null);
+        if(future != null) {
+            future.complete(obj);
+            return null;
+        } else {
+            return super.onReceive(session, obj);
+        }
+    }
+
+    @Override
+    public void onException(IoSession session, Exception e) {
+        CompletableFuture<Object> future = pendingFuture.getAndSet(null);
+        if(future != null) {
+            future.completeExceptionally(new ReadMessageException(e));
+        } else {
+            super.onException(session, e);
+        }
+    }
+
+    @Override
+    public void onDisconnect(IoSession session) {
+        CompletableFuture<Object> future = pendingFuture.getAndSet(null);
+        if(future != null) {
+            future.completeExceptionally(new ReadMessageException("Socket is disconnect"));
+        }
+        super.onDisconnect(session);
+    }
+}
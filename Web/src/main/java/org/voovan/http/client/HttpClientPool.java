@@ -0,0 +1,364 @@
+package org.voovan.http.client;
+
+import org.voovan.Global;
+import org.voovan.http.message.Response;
+import org.voovan.network.exception.SendMessageException;
+import org.voovan.tools.hashwheeltimer.HashWheelTask;
+import org.voovan.tools.log.Logger;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * HttpClient 连接池
+ *      对同一个主机的连接进行复用, 连接数量有上限
+ *      空闲超时或已断开的连接会被定时清理, 借出连接时也会检查连接状态
+ *      请求超时或出错的连接上可能还有迟到的响应, 归还时直接关闭, 不会交给下一个使用者
+ *      连接耗尽时异步请求进入等待队列, 在有连接归还时执行, 不阻塞调用线程
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpClientPool implements Closeable {
+
+	private String urlString;
+	private String charset;
+	private int timeout;
+	private int maxSize;
+	private int idleTimeout;
+
+	private ConcurrentLinkedDeque<PooledClient> idleClients;
+	private ConcurrentLinkedQueue<Consumer<HttpClient>> waiters;
+	private AtomicInteger size;
+	private HashWheelTask evictTask;
+	private volatile boolean closed = false;
+
+	/**
+	 * 构造函数
+	 * @param urlString 主机地址, 例如: http://127.0.0.1:28080
+	 * @param maxSize 最大连接数
+	 */
+	public HttpClientPool(String urlString, int maxSize) {
+		this(urlString, "UTF-8", 5, maxSize, 60);
+	}
+
+	/**
+	 * 构造函数
+	 * @param urlString 主机地址, 例如: http://127.0.0.1:28080
+	 * @param charset 字符集
+	 * @param timeout 超时时间, 单位: 秒
+	 * @param maxSize 最大连接数
+	 * @param idleTimeout 连接的空闲超时时间, 单位: 秒
+	 */
+	public HttpClientPool(String urlString, String charset, int timeout, int maxSize, int idleTimeout) {
+		this.urlString = urlString;
+		this.charset = charset;
+		this.timeout = timeout;
+		this.maxSize = maxSize;
+		this.idleTimeout = idleTimeout;
+		this.idleClients = new ConcurrentLinkedDeque<PooledClient>();
+		this.waiters = new ConcurrentLinkedQueue<Consumer<HttpClient>>();
+		this.size = new AtomicInteger(0);
+
+		//定时清理空闲超时或已断开的连接
+		evictTask = new HashWheelTask() {
+			@Override
+			public void run() {
+				evict();
+			}
+		};
+		Global.getHashWheelTimer().addTask(evictTask, Math.max(1, idleTimeout / 2));
+	}
+
+	/**
+	 * 获取主机地址
+	 * @return 主机地址
+	 */
+	public String getUrlString() {
+		return urlString;
+	}
+
+	/**
+	 * 获取最大连接数
+	 * @return 最大连接数
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * 获取当前的连接数
+	 * @return 当前的连接数
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * 获取空闲的连接数
+	 * @return 空闲的连接数
+	 */
+	public int idleSize() {
+		return idleClients.size();
+	}
+
+	/**
+	 * 获取等待连接的请求数
+	 * @return 等待连接的请求数
+	 */
+	public int waitingSize() {
+		return waiters.size();
+	}
+
+	/**
+	 * 借出一个连接
+	 *      连接耗尽时等待有连接归还, 直到超时
+	 * @return HttpClient 对象, 超时则返回 null
+	 */
+	public HttpClient getHttpClient() {
+		CompletableFuture<HttpClient> clientFuture = new CompletableFuture<HttpClient>();
+		acquire(httpClient -> {
+			if(!clientFuture.complete(httpClient) && httpClient != null) {
+				restore(httpClient);
+			}
+		});
+
+		try {
+			return clientFuture.get(timeout, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			//超时后归还迟到的连接
+			clientFuture.complete(null);
+			return clientFuture.getNow(null);
+		}
+	}
+
+	/**
+	 * 归还连接
+	 *      已断开, 处于 WebSocket 模式或者还有未收到的响应的连接直接关闭
+	 * @param httpClient HttpClient 对象
+	 */
+	public void restore(HttpClient httpClient) {
+		if(closed || !httpClient.isConnect() || httpClient.isWebSocket() || httpClient.isResponsePending()) {
+			destroy(httpClient);
+			return;
+		}
+
+		httpClient.reset();
+		idleClients.offerFirst(new PooledClient(httpClient));
+		dispatch();
+	}
+
+	/**
+	 * 使用连接池中的连接异步发送请求
+	 * @param location 请求 URL
+	 * @param builder 请求构造函数, 用于设置请求方法, 请求头, 参数等, 可以为 null
+	 * @return 响应对象的 CompletableFuture
+	 */
+	public CompletableFuture<Response> sendAsync(String location, Consumer<HttpClient> builder) {
+		CompletableFuture<Response> responseFuture = new CompletableFuture<Response>();
+
+		acquire(httpClient -> {
+			if(httpClient == null) {
+				responseFuture.completeExceptionally(new SendMessageException("HttpClientPool connect to " + urlString + " failed"));
+				return;
+			}
+
+			try {
+				if (builder != null) {
+					builder.accept(httpClient);
+				}
+			} catch (Exception e) {
+				restore(httpClient);
+				responseFuture.completeExceptionally(e);
+				return;
+			}
+
+			httpClient.sendAsync(location).whenComplete((response, throwable) -> {
+				if(throwable == null) {
+					restore(httpClient);
+					responseFuture.complete(response);
+				} else {
+					//出现异常的连接状态未知, 不再复用
+					destroy(httpClient);
+					responseFuture.completeExceptionally(throwable);
+				}
+			});
+		});
+
+		return responseFuture;
+	}
+
+	/**
+	 * 使用连接池中的连接异步发送 GET 请求
+	 * @param location 请求 URL
+	 * @return 响应对象的 CompletableFuture
+	 */
+	public CompletableFuture<Response> sendAsync(String location) {
+		return sendAsync(location, null);
+	}
+
+	/**
+	 * 获取连接并执行任务
+	 *      有空闲连接时直接执行, 未达到最大连接数时新建连接, 否则进入等待队列
+	 * @param task 使用连接的任务, 新建连接失败时传入 null
+	 */
+	private void acquire(Consumer<HttpClient> task) {
+		HttpClient httpClient = pollIdle();
+		if(httpClient != null) {
+			task.accept(httpClient);
+			return;
+		}
+
+		while(true) {
+			int currentSize = size.get();
+			if(currentSize >= maxSize) {
+				break;
+			}
+
+			if(size.compareAndSet(currentSize, currentSize + 1)) {
+				//新建连接会阻塞到连接完成, 在线程池中执行
+				Global.getThreadPool().execute(() -> {
+					HttpClient newClient = null;
+					try {
+						newClient = new HttpClient(urlString, charset, timeout);
+					} catch (Exception e) {
+						Logger.error("HttpClientPool create HttpClient error", e);
+					}
+
+					if(newClient == null || !newClient.isConnect()) {
+						if(newClient != null) {
+							newClient.close();
+						}
+						size.decrementAndGet();
+						task.accept(null);
+						return;
+					}
+
+					task.accept(newClient);
+				});
+				return;
+			}
+		}
+
+		waiters.offer(task);
+		//避免入队时恰好有连接归还而错过唤醒
+		dispatch();
+	}
+
+	/**
+	 * 将空闲连接分配给等待队列中的任务
+	 */
+	private void dispatch() {
+		while(!waiters.isEmpty()) {
+			HttpClient httpClient = pollIdle();
+			if(httpClient == null) {
+				break;
+			}
+
+			Consumer<HttpClient> task = waiters.poll();
+			if(task == null) {
+				idleClients.offerFirst(new PooledClient(httpClient));
+				break;
+			}
+
+			Global.getThreadPool().execute(() -> task.accept(httpClient));
+		}
+	}
+
+	/**
+	 * 获取一个可用的空闲连接
+	 * @return HttpClient 对象, 没有可用的空闲连接时返回 null
+	 */
+	private HttpClient pollIdle() {
+		PooledClient pooledClient;
+		while((pooledClient = idleClients.pollFirst()) != null) {
+			if(isUsable(pooledClient, System.currentTimeMillis())) {
+				return pooledClient.httpClient;
+			} else {
+				destroy(pooledClient.httpClient);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 检查空闲连接是否可以继续使用
+	 *      空闲超时的连接可能已经被服务端关闭, 不再使用
+	 * @param pooledClient 空闲连接
+	 * @param now 当前时间
+	 * @return true: 可以使用, false: 需要关闭
+	 */
+	private boolean isUsable(PooledClient pooledClient, long now) {
+		HttpClient httpClient = pooledClient.httpClient;
+		return now - pooledClient.lastUsedTime <= idleTimeout * 1000L && httpClient.isConnect() &&
+				!httpClient.isWebSocket() && !httpClient.isResponsePending();
+	}
+
+	/**
+	 * 关闭连接并减少连接数
+	 * @param httpClient HttpClient 对象
+	 */
+	private void destroy(HttpClient httpClient) {
+		try {
+			httpClient.close();
+		} catch (Exception e) {
+			Logger.error("HttpClientPool close HttpClient error", e);
+		}
+		size.decrementAndGet();
+
+		//连接数减少后, 等待中的任务可以新建连接
+		Consumer<HttpClient> task = waiters.poll();
+		if(task != null) {
+			acquire(task);
+		}
+	}
+
+	/**
+	 * 清理空闲超时或已断开的连接
+	 */
+	private void evict() {
+		long now = System.currentTimeMillis();
+		Iterator<PooledClient> iterator = idleClients.descendingIterator();
+		while(iterator.hasNext()) {
+			PooledClient pooledClient = iterator.next();
+			if(!isUsable(pooledClient, now)) {
+				//只有成功从空闲队列中移除的连接才能关闭, 避免与借出的连接冲突
+				if(idleClients.removeLastOccurrence(pooledClient)) {
+					destroy(pooledClient.httpClient);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 关闭连接池, 并关闭所有空闲连接
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		evictTask.cancel();
+		PooledClient pooledClient;
+		while((pooledClient = idleClients.pollFirst()) != null) {
+			destroy(pooledClient.httpClient);
+		}
+	}
+
+	private static class PooledClient {
+		private final HttpClient httpClient;
+		private final long lastUsedTime;
+
+		private PooledClient(HttpClient httpClient) {
+			this.httpClient = httpClient;
+			this.lastUsedTime = System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package org.voovan.http.client;
+
+import org.voovan.http.message.Response;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * HttpClient 连接池的入口
+ *      按主机(协议+主机+端口)管理连接池, 通过完整的 URL 发送异步请求
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpClients {
+
+	private static Map<String, HttpClientPool> HTTP_CLIENT_POOLS = new ConcurrentHashMap<String, HttpClientPool>();
+
+	private static volatile int maxSizePerHost = 16;
+
+	/**
+	 * 获取每个主机的最大连接数
+	 * @return 每个主机的最大连接数
+	 */
+	public static int getMaxSizePerHost() {
+		return maxSizePerHost;
+	}
+
+	/**
+	 * 设置每个主机的最大连接数, 只对之后创建的连接池生效
+	 * @param maxSizePerHost 每个主机的最大连接数
+	 */
+	public static void setMaxSizePerHost(int maxSizePerHost) {
+		HttpClients.maxSizePerHost = maxSizePerHost;
+	}
+
+	/**
+	 * 获取主机对应的连接池, 不存在则创建
+	 * @param urlString 请求的 URL 地址
+	 * @return 连接池
+	 * @throws MalformedURLException URL 格式异常
+	 */
+	public static HttpClientPool getPool(String urlString) throws MalformedURLException {
+		String hostUrl = getHostUrl(new URL(urlString));
+		return HTTP_CLIENT_POOLS.computeIfAbsent(hostUrl, key -> new HttpClientPool(key, maxSizePerHost));
+	}
+
+	/**
+	 * 异步发送请求
+	 * @param urlString 完整的请求 URL 地址, 例如: http://127.0.0.1:28080/test?a=1
+	 * @param builder 请求构造函数, 用于设置请求方法, 请求头, 参数等, 可以为 null
+	 * @return 响应对象的 CompletableFuture
+	 */
+	public static CompletableFuture<Response> sendAsync(String urlString, Consumer<HttpClient> builder) {
+		try {
+			URL url = new URL(urlString);
+			String location = url.getFile().isEmpty() ? "/" : url.getFile();
+			return getPool(urlString).sendAsync(location, builder);
+		} catch (MalformedURLException e) {
+			CompletableFuture<Response> responseFuture = new CompletableFuture<Response>();
+			responseFuture.completeExceptionally(e);
+			return responseFuture;
+		}
+	}
+
+	/**
+	 * 异步发送 GET 请求
+	 * @param urlString 完整的请求 URL 地址
+	 * @return 响应对象的 CompletableFuture
+	 */
+	public static CompletableFuture<Response> sendAsync(String urlString) {
+		return sendAsync(urlString, null);
+	}
+
+	/**
+	 * 关闭所有连接池
+	 */
+	public static void close() {
+		for(HttpClientPool httpClientPool : HTTP_CLIENT_POOLS.values()) {
+			httpClientPool.close();
+		}
+		HTTP_CLIENT_POOLS.clear();
+	}
+
+	private static String getHostUrl(URL url) {
+		String protocol = url.getProtocol().toLowerCase();
+		int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+		return protocol + "://" + url.getHost().toLowerCase() + ":" + port;
+	}
+}
@@ -0,0 +1,147 @@
+package org.voovan.http.http2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HPACK 头解码器 (RFC 7541)
+ * 		每个连接一个解码器, 头块必须按接收的顺序解码
+ * 		头使用 ISO-8859-1 转换为字符串, 保留报文中的原始字节
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HpackDecoder {
+	private HpackTable table;
+	private int maxTableSize;
+	private int maxHeaderListSize;
+
+	/**
+	 * 构造函数
+	 * @param maxTableSize 允许对端使用的最大动态表大小, 即本端 SETTINGS_HEADER_TABLE_SIZE 的值
+	 */
+	public HpackDecoder(int maxTableSize) {
+		this(maxTableSize, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * 构造函数
+	 * @param maxTableSize 允许对端使用的最大动态表大小, 即本端 SETTINGS_HEADER_TABLE_SIZE 的值
+	 * @param maxHeaderListSize 允许的最大头列表大小, 即本端 SETTINGS_MAX_HEADER_LIST_SIZE 的值
+	 */
+	public HpackDecoder(int maxTableSize, int maxHeaderListSize) {
+		this.table = new HpackTable(StandardCharsets.ISO_8859_1);
+		this.maxTableSize = maxTableSize;
+		this.maxHeaderListSize = maxHeaderListSize;
+		this.table.setMaxSize(maxTableSize);
+	}
+
+	/**
+	 * 解码头块
+	 * 		头列表超过限制时仍然解码整个头块以保持动态表同步, 但不再保存头
+	 * @param block 头块数据
+	 * @return 头的列表, 每个元素为 {名称, 值}, 头列表超过限制时返回 null
+	 * @throws Http2Exception 解码错误
+	 */
+	public List<String[]> decode(byte[] block) throws Http2Exception {
+		List<String[]> headers = new ArrayList<String[]>();
+		int[] position = new int[]{0};
+		//头列表的大小为每个头的名称和值的长度加 32 (RFC 7540 6.5.2)
+		long headerListSize = 0;
+
+		while (position[0] < block.length) {
+			int b = block[position[0]] & 0xFF;
+
+			String[] header = null;
+			if ((b & 0x80) != 0) {
+				//索引的头 (6.1)
+				int index = decodeInteger(block, position, 7);
+				header = table.get(index);
+			} else if ((b & 0x40) != 0) {
+				//增量索引的字面量头 (6.2.1)
+				header = decodeLiteral(block, position, 6);
+				table.add(header[0], header[1]);
+			} else if ((b & 0x20) != 0) {
+				//动态表大小更新 (6.3)
+				int size = decodeInteger(block, position, 5);
+				if (size > maxTableSize) {
+					throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Dynamic table size update exceeds the limit: " + size);
+				}
+				table.setMaxSize(size);
+			} else {
+				//不索引或者永不索引的字面量头 (6.2.2, 6.2.3)
+				header = decodeLiteral(block, position, 4);
+			}
+
+			if (header != null) {
+				headerListSize += header[0].length() + header[1].length() + 32;
+				if (headerListSize <= maxHeaderListSize) {
+					headers.add(header);
+				}
+			}
+		}
+
+		return headerListSize <= maxHeaderListSize ? headers : null;
+	}
+
+	private String[] decodeLiteral(byte[] block, int[] position, int prefixBits) throws Http2Exception {
+		int nameIndex = decodeInteger(block, position, prefixBits);
+		String name = nameIndex == 0 ? decodeString(block, position) : table.get(nameIndex)[0];
+		String value = decodeString(block, position);
+		return new String[]{name, value};
+	}
+
+	private static String decodeString(byte[] block, int[] position) throws Http2Exception {
+		if (position[0] >= block.length) {
+			throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Header block is truncated");
+		}
+
+		boolean huffman = (block[position[0]] & 0x80) != 0;
+		int length = decodeInteger(block, position, 7);
+		if (length > block.length - position[0]) {
+			throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Header block is truncated");
+		}
+
+		String value;
+		if (huffman) {
+			value = new String(Huffman.decode(block, position[0], length), StandardCharsets.ISO_8859_1);
+		} else {
+			value = new String(block, position[0], length, StandardCharsets.ISO_8859_1);
+		}
+		position[0] += length;
+		return value;
+	}
+
+	/**
+	 * 解码整数 (RFC 7541 5.1)
+	 * @param block 头块数据
+	 * @param position 当前位置, 解码后移动到整数之后
+	 * @param prefixBits 前缀的位数
+	 * @return 整数值
+	 * @throws Http2Exception 解码错误
+	 */
+	static int decodeInteger(byte[] block, int[] position, int prefixBits) throws Http2Exception {
+		int mask = (1 << prefixBits) - 1;
+		int value = block[position[0]++] & mask;
+		if (value < mask) {
+			return value;
+		}
+
+		int shift = 0;
+		int b;
+		do {
+			if (position[0] >= block.length || shift > 21) {
+				throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Invalid integer in header block");
+			}
+			b = block[position[0]++] & 0xFF;
+			value += (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return value;
+	}
+}
@@ -0,0 +1,129 @@
+package org.voovan.http.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * HPACK 头编码器 (RFC 7541)
+ * 		每个连接一个编码器, 头块必须按编码的顺序发送
+ * 		值变化频繁或者敏感的头不加入动态表
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HpackEncoder {
+
+	//不加入动态表的头
+	private static final Set<String> NOT_INDEXED_HEADERS = new HashSet<String>(Arrays.asList(
+			"content-length", "date", "etag", "last-modified", "set-cookie", "location", "content-range"));
+
+	//永不索引的敏感头, 中间节点也不能索引
+	private static final Set<String> NEVER_INDEXED_HEADERS = new HashSet<String>(Arrays.asList(
+			"authorization", "proxy-authorization"));
+
+	private HpackTable table;
+	private int pendingTableSize = -1;
+
+	/**
+	 * 构造函数
+	 */
+	public HpackEncoder() {
+		this.table = new HpackTable(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 设置动态表的最大大小, 在下一个头块的开始发送大小更新
+	 * @param maxTableSize 对端 SETTINGS_HEADER_TABLE_SIZE 的值
+	 */
+	public void setMaxTableSize(int maxTableSize) {
+		//不使用超过默认大小的动态表, 限制每个连接的内存占用
+		int size = Math.min(maxTableSize, HpackTable.DEFAULT_TABLE_SIZE);
+		if (size != table.getMaxSize()) {
+			table.setMaxSize(size);
+			pendingTableSize = size;
+		}
+	}
+
+	/**
+	 * 编码头块
+	 * @param headers 头的列表, 每个元素为 {名称, 值}, 名称必须是小写的
+	 * @return 头块数据
+	 */
+	public byte[] encode(List<String[]> headers) {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+
+		if (pendingTableSize >= 0) {
+			encodeInteger(outputStream, 0x20, 5, pendingTableSize);
+			pendingTableSize = -1;
+		}
+
+		for (String[] header : headers) {
+			String name = header[0];
+			String value = header[1] == null ? "" : header[1];
+			int index = table.find(name, value);
+
+			if (index > 0) {
+				encodeInteger(outputStream, 0x80, 7, index);
+			} else if (NEVER_INDEXED_HEADERS.contains(name)) {
+				encodeLiteral(outputStream, 0x10, 4, -index, name, value);
+			} else if (NOT_INDEXED_HEADERS.contains(name)) {
+				encodeLiteral(outputStream, 0x00, 4, -index, name, value);
+			} else {
+				encodeLiteral(outputStream, 0x40, 6, -index, name, value);
+				table.add(name, value);
+			}
+		}
+
+		return outputStream.toByteArray();
+	}
+
+	private static void encodeLiteral(ByteArrayOutputStream outputStream, int pattern, int prefixBits, int nameIndex, String name, String value) {
+		encodeInteger(outputStream, pattern, prefixBits, nameIndex);
+		if (nameIndex == 0) {
+			encodeString(outputStream, name);
+		}
+		encodeString(outputStream, value);
+	}
+
+	private static void encodeString(ByteArrayOutputStream outputStream, String value) {
+		byte[] data = value.getBytes(StandardCharsets.UTF_8);
+		int huffmanLength = Huffman.encodedLength(data);
+		if (huffmanLength < data.length) {
+			encodeInteger(outputStream, 0x80, 7, huffmanLength);
+			Huffman.encode(data, outputStream);
+		} else {
+			encodeInteger(outputStream, 0x00, 7, data.length);
+			outputStream.write(data, 0, data.length);
+		}
+	}
+
+	/**
+	 * 编码整数 (RFC 7541 5.1)
+	 * @param outputStream 输出流
+	 * @param pattern 第一个字节中前缀之外的标志位
+	 * @param prefixBits 前缀的位数
+	 * @param value 整数值
+	 */
+	static void encodeInteger(ByteArrayOutputStream outputStream, int pattern, int prefixBits, int value) {
+		int mask = (1 << prefixBits) - 1;
+		if (value < mask) {
+			outputStream.write(pattern | value);
+			return;
+		}
+
+		outputStream.write(pattern | mask);
+		value -= mask;
+		while (value >= 0x80) {
+			outputStream.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		outputStream.write(value);
+	}
+}
@@ -0,0 +1,245 @@
+package org.voovan.http.http2;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HPACK 索引表 (RFC 7541 2.3)
+ * 		静态表和动态表共用一个索引空间, 1~61 为静态表, 62 开始为动态表(最新加入的在前)
+ * 		编码器和解码器各自持有一个动态表, 不是线程安全的
+ * 		条目大小按头在报文中的字节数计算, 因此需要指定与编解码一致的字符集
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HpackTable {
+
+	/**
+	 * 默认的动态表大小
+	 */
+	public static final int DEFAULT_TABLE_SIZE = 4096;
+
+	/**
+	 * 每个条目的额外开销 (RFC 7541 4.1)
+	 */
+	private static final int ENTRY_OVERHEAD = 32;
+
+	/**
+	 * 静态表, 下标 0 对应索引 1
+	 */
+	private static final String[][] STATIC_TABLE = new String[][]{
+			{":authority", ""},
+			{":method", "GET"},
+			{":method", "POST"},
+			{":path", "/"},
+			{":path", "/index.html"},
+			{":scheme", "http"},
+			{":scheme", "https"},
+			{":status", "200"},
+			{":status", "204"},
+			{":status", "206"},
+			{":status", "304"},
+			{":status", "400"},
+			{":status", "404"},
+			{":status", "500"},
+			{"accept-charset", ""},
+			{"accept-encoding", "gzip, deflate"},
+			{"accept-language", ""},
+			{"accept-ranges", ""},
+			{"accept", ""},
+			{"access-control-allow-origin", ""},
+			{"age", ""},
+			{"allow", ""},
+			{"authorization", ""},
+			{"cache-control", ""},
+			{"content-disposition", ""},
+			{"content-encoding", ""},
+			{"content-language", ""},
+			{"content-length", ""},
+			{"content-location", ""},
+			{"content-range", ""},
+			{"content-type", ""},
+			{"cookie", ""},
+			{"date", ""},
+			{"etag", ""},
+			{"expect", ""},
+			{"expires", ""},
+			{"from", ""},
+			{"host", ""},
+			{"if-match", ""},
+			{"if-modified-since", ""},
+			{"if-none-match", ""},
+			{"if-range", ""},
+			{"if-unmodified-since", ""},
+			{"last-modified", ""},
+			{"link", ""},
+			{"location", ""},
+			{"max-forwards", ""},
+			{"proxy-authenticate", ""},
+			{"proxy-authorization", ""},
+			{"range", ""},
+			{"referer", ""},
+			{"refresh", ""},
+			{"retry-after", ""},
+			{"server", ""},
+			{"set-cookie", ""},
+			{"strict-transport-security", ""},
+			{"transfer-encoding", ""},
+			{"user-agent", ""},
+			{"vary", ""},
+			{"via", ""},
+			{"www-authenticate", ""}
+	};
+
+	public static final int STATIC_TABLE_LENGTH = STATIC_TABLE.length;
+
+	//静态表的名称索引和名称值索引, 用于编码时查找
+	private static final Map<String, Integer> STATIC_NAME_INDEX = new HashMap<String, Integer>();
+	private static final Map<String, Integer> STATIC_FIELD_INDEX = new HashMap<String, Integer>();
+
+	static {
+		for (int i = STATIC_TABLE.length - 1; i >= 0; i--) {
+			STATIC_NAME_INDEX.put(STATIC_TABLE[i][0], i + 1);
+			if (!STATIC_TABLE[i][1].isEmpty()) {
+				STATIC_FIELD_INDEX.put(STATIC_TABLE[i][0] + '\0' + STATIC_TABLE[i][1], i + 1);
+			}
+		}
+	}
+
+	//动态表, 最新的条目在列表末尾
+	private List<String[]> entries;
+	private int size;
+	private int maxSize;
+	private Charset charset;
+
+	/**
+	 * 构造函数
+	 * @param charset 头的字符集
+	 */
+	public HpackTable(Charset charset) {
+		this.charset = charset;
+		entries = new ArrayList<String[]>();
+		size = 0;
+		maxSize = DEFAULT_TABLE_SIZE;
+	}
+
+	/**
+	 * 获取动态表当前的大小
+	 * @return 动态表的大小
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * 获取动态表的最大大小
+	 * @return 动态表的最大大小
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * 设置动态表的最大大小, 超出的条目会被淘汰
+	 * @param maxSize 动态表的最大大小
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		evict(0);
+	}
+
+	/**
+	 * 获取动态表的条目数
+	 * @return 条目数
+	 */
+	public int length() {
+		return entries.size();
+	}
+
+	/**
+	 * 根据索引获取头
+	 * @param index 索引
+	 * @return 头的名称和值
+	 * @throws Http2Exception 索引无效
+	 */
+	public String[] get(int index) throws Http2Exception {
+		if (index > 0 && index <= STATIC_TABLE_LENGTH) {
+			return STATIC_TABLE[index - 1];
+		}
+
+		int dynamicIndex = index - STATIC_TABLE_LENGTH;
+		if (dynamicIndex > 0 && dynamicIndex <= entries.size()) {
+			return entries.get(entries.size() - dynamicIndex);
+		}
+
+		throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Invalid header index: " + index);
+	}
+
+	/**
+	 * 向动态表加入头, 大于最大大小的头会清空动态表且不加入
+	 * @param name 名称
+	 * @param value 值
+	 */
+	public void add(String name, String value) {
+		int entrySize = entrySize(name, value);
+		if (entrySize > maxSize) {
+			entries.clear();
+			size = 0;
+			return;
+		}
+
+		evict(entrySize);
+		entries.add(new String[]{name, value});
+		size += entrySize;
+	}
+
+	/**
+	 * 查找头的索引
+	 * @param name 名称
+	 * @param value 值
+	 * @return 名称和值都匹配时返回正数索引, 只有名称匹配时返回负数索引, 都不匹配返回 0
+	 */
+	public int find(String name, String value) {
+		Integer index = STATIC_FIELD_INDEX.get(name + '\0' + value);
+		if (index != null) {
+			return index;
+		}
+
+		int nameIndex = 0;
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			String[] entry = entries.get(i);
+			if (entry[0].equals(name)) {
+				int entryIndex = STATIC_TABLE_LENGTH + entries.size() - i;
+				if (entry[1].equals(value)) {
+					return entryIndex;
+				} else if (nameIndex == 0) {
+					nameIndex = entryIndex;
+				}
+			}
+		}
+
+		Integer staticNameIndex = STATIC_NAME_INDEX.get(name);
+		if (staticNameIndex != null) {
+			return -staticNameIndex;
+		}
+
+		return -nameIndex;
+	}
+
+	private void evict(int required) {
+		while (size + required > maxSize && !entries.isEmpty()) {
+			String[] entry = entries.remove(0);
+			size -= entrySize(entry[0], entry[1]);
+		}
+	}
+
+	private int entrySize(String name, String value) {
+		return name.getBytes(charset).length + value.getBytes(charset).length + ENTRY_OVERHEAD;
+	}
+}
@@ -0,0 +1,734 @@
+package org.voovan.http.http2;
+
+import org.voovan.Global;
+import org.voovan.network.IoSession;
+import org.voovan.tools.log.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP/2 服务端连接
+ * 		一个连接上的多个流并行分派到线程池处理, 处理完成后通过同一个连接发送响应
+ * 		DATA 帧按流的权重加权公平调度, 并遵守连接和流的发送窗口
+ * 		流依赖关系按 RFC 9113 的建议忽略, 只使用权重
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class Http2Connection {
+
+	/**
+	 * 允许的最大并发流数量
+	 */
+	public static final int MAX_CONCURRENT_STREAMS = 256;
+
+	/**
+	 * 默认的流量控制窗口
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 65535;
+
+	/**
+	 * 允许的最大头列表大小 (SETTINGS_MAX_HEADER_LIST_SIZE), 同时限制未解码的头块的大小
+	 */
+	public static final int MAX_HEADER_LIST_SIZE = 64 * 1024;
+
+	/**
+	 * 单个请求允许的最大报文大小, 超过时响应 413
+	 */
+	public static final int MAX_REQUEST_BODY_SIZE = 16 * 1024 * 1024;
+
+	/**
+	 * 本端的连接接收窗口, 连接建立时通过 WINDOW_UPDATE 扩大, 减少上传时的等待
+	 */
+	private static final int CONNECTION_WINDOW_SIZE = 1024 * 1024;
+
+	/**
+	 * 一个连接上接收完成之前的请求报文的总大小, 超过时拒绝继续接收报文的流
+	 */
+	private static final long MAX_BUFFERED_BODY_SIZE = 4L * MAX_REQUEST_BODY_SIZE;
+
+	/**
+	 * 流处理器
+	 */
+	public interface StreamHandler {
+		/**
+		 * 请求接收完成, 在线程池中调用
+		 * @param connection HTTP/2 连接
+		 * @param stream 请求所在的流
+		 */
+		public void onRequest(Http2Connection connection, Http2Stream stream);
+	}
+
+	private IoSession session;
+	private StreamHandler streamHandler;
+
+	private HpackDecoder hpackDecoder;
+	private HpackEncoder hpackEncoder;
+
+	private Map<Integer, Http2Stream> streams;
+	private volatile int lastStreamId;
+	private Http2Stream continuationStream;
+	private int connectionReceiveWindow = CONNECTION_WINDOW_SIZE;
+	private AtomicLong bufferedBodySize = new AtomicLong();
+	private volatile boolean goAway;
+
+	//对端的设置
+	private volatile int peerInitialWindowSize = DEFAULT_WINDOW_SIZE;
+	private volatile int peerMaxFrameSize = Http2Frame.DEFAULT_MAX_FRAME_SIZE;
+
+	//发送状态, 在 sendLock 中访问
+	private final Object sendLock = new Object();
+	private long connectionSendWindow = DEFAULT_WINDOW_SIZE;
+	private List<Http2Stream> pendingStreams = new ArrayList<Http2Stream>();
+	private long virtualClock;
+
+	/**
+	 * 构造函数
+	 * @param session Socket 会话
+	 * @param streamHandler 流处理器
+	 */
+	public Http2Connection(IoSession session, StreamHandler streamHandler) {
+		this.session = session;
+		this.streamHandler = streamHandler;
+		this.hpackDecoder = new HpackDecoder(HpackTable.DEFAULT_TABLE_SIZE, MAX_HEADER_LIST_SIZE);
+		this.hpackEncoder = new HpackEncoder();
+		this.streams = new ConcurrentHashMap<Integer, Http2Stream>();
+	}
+
+	public IoSession getSession() {
+		return session;
+	}
+
+	/**
+	 * 获取活动的流的数量
+	 * @return 活动的流的数量
+	 */
+	public int getStreamCount() {
+		return streams.size();
+	}
+
+	/**
+	 * 开始连接, 发送服务端的连接前言 (SETTINGS)
+	 */
+	public void start() {
+		write(Http2Frame.newSettings(
+				Http2Frame.SETTINGS_MAX_CONCURRENT_STREAMS, MAX_CONCURRENT_STREAMS,
+				Http2Frame.SETTINGS_ENABLE_PUSH, 0,
+				Http2Frame.SETTINGS_MAX_HEADER_LIST_SIZE, MAX_HEADER_LIST_SIZE),
+				Http2Frame.newWindowUpdate(0, CONNECTION_WINDOW_SIZE - DEFAULT_WINDOW_SIZE));
+	}
+
+	/**
+	 * 处理 HTTP/1.1 Upgrade 请求 (RFC 7540 3.2)
+	 * 		升级请求作为流 1 处理, 由调用方负责分派, 连接仍需调用 start 开始
+	 * @param http2Settings 请求头 HTTP2-Settings 的值
+	 * @return 流 1
+	 * @throws Http2Exception 设置参数错误
+	 */
+	public Http2Stream upgrade(String http2Settings) throws Http2Exception {
+		if (http2Settings != null && !http2Settings.isEmpty()) {
+			try {
+				applySettings(Base64.getUrlDecoder().decode(http2Settings.trim()));
+			} catch (IllegalArgumentException e) {
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid HTTP2-Settings header");
+			}
+		}
+
+		Http2Stream stream = new Http2Stream(1, peerInitialWindowSize);
+		stream.setEndStream(true);
+		streams.put(1, stream);
+		lastStreamId = Math.max(lastStreamId, 1);
+		return stream;
+	}
+
+	/**
+	 * 处理接收到的帧, 必须按接收的顺序调用
+	 * 		流错误重置流, 连接错误发送 GOAWAY 并关闭连接
+	 * @param frame 帧对象
+	 */
+	public void onFrame(Http2Frame frame) {
+		try {
+			processFrame(frame);
+		} catch (Http2Exception e) {
+			if (e.isConnectionError()) {
+				Logger.warn("HTTP/2 connection error: " + e.getMessage());
+				close(e.getErrorCode(), e.getMessage());
+			} else {
+				resetStream(e.getStreamId(), e.getErrorCode());
+			}
+		}
+	}
+
+	private void processFrame(Http2Frame frame) throws Http2Exception {
+		//头块的 CONTINUATION 帧必须连续出现
+		if (continuationStream != null && (frame.getType() != Http2Frame.CONTINUATION || frame.getStreamId() != continuationStream.getId())) {
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Expected CONTINUATION frame");
+		}
+
+		if (frame.getLength() > Http2Frame.DEFAULT_MAX_FRAME_SIZE) {
+			throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "Frame is too large: " + frame.getLength());
+		}
+
+		switch (frame.getType()) {
+			case Http2Frame.SETTINGS:
+				onSettings(frame);
+				break;
+			case Http2Frame.PING:
+				onPing(frame);
+				break;
+			case Http2Frame.WINDOW_UPDATE:
+				onWindowUpdate(frame);
+				break;
+			case Http2Frame.HEADERS:
+				onHeaders(frame);
+				break;
+			case Http2Frame.CONTINUATION:
+				onContinuation(frame);
+				break;
+			case Http2Frame.DATA:
+				onData(frame);
+				break;
+			case Http2Frame.PRIORITY:
+				onPriority(frame);
+				break;
+			case Http2Frame.RST_STREAM:
+				onRstStream(frame);
+				break;
+			case Http2Frame.GOAWAY:
+				goAway = true;
+				if (streams.isEmpty()) {
+					session.close();
+				}
+				break;
+			case Http2Frame.PUSH_PROMISE:
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Client must not send PUSH_PROMISE");
+			default:
+				//忽略未知类型的帧
+				break;
+		}
+	}
+
+	private void onSettings(Http2Frame frame) throws Http2Exception {
+		if (frame.getStreamId() != 0) {
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "SETTINGS frame with stream id");
+		}
+
+		if (frame.hasFlag(Http2Frame.FLAG_ACK)) {
+			return;
+		}
+
+		if (frame.getPayload().length % 6 != 0) {
+			throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "Invalid SETTINGS frame length");
+		}
+
+		applySettings(frame.getPayload());
+		write(new Http2Frame(Http2Frame.SETTINGS, Http2Frame.FLAG_ACK, 0, null));
+	}
+
+	private void applySettings(byte[] payload) throws Http2Exception {
+		ByteBuffer settings = ByteBuffer.wrap(payload);
+		while (settings.remaining() >= 6) {
+			int parameter = settings.getShort() & 0xFFFF;
+			int value = settings.getInt();
+
+			switch (parameter) {
+				case Http2Frame.SETTINGS_HEADER_TABLE_SIZE:
+					synchronized (sendLock) {
+						hpackEncoder.setMaxTableSize(value);
+					}
+					break;
+				case Http2Frame.SETTINGS_INITIAL_WINDOW_SIZE:
+					if (value < 0) {
+						throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, "Invalid initial window size");
+					}
+					//调整所有流的发送窗口 (RFC 7540 6.9.2)
+					synchronized (sendLock) {
+						int delta = value - peerInitialWindowSize;
+						peerInitialWindowSize = value;
+						for (Http2Stream stream : streams.values()) {
+							stream.sendWindow += delta;
+						}
+					}
+					flush();
+					break;
+				case Http2Frame.SETTINGS_MAX_FRAME_SIZE:
+					if (value < Http2Frame.DEFAULT_MAX_FRAME_SIZE || value > 0xFFFFFF) {
+						throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid max frame size");
+					}
+					peerMaxFrameSize = value;
+					break;
+				default:
+					//服务端不使用推送, 其他参数忽略
+					break;
+			}
+		}
+	}
+
+	private void onPing(Http2Frame frame) throws Http2Exception {
+		if (frame.getStreamId() != 0 || frame.getPayload().length != 8) {
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid PING frame");
+		}
+
+		if (!frame.hasFlag(Http2Frame.FLAG_ACK)) {
+			write(new Http2Frame(Http2Frame.PING, Http2Frame.FLAG_ACK, 0, frame.getPayload()));
+		}
+	}
+
+	private void onWindowUpdate(Http2Frame frame) throws Http2Exception {
+		if (frame.getPayload().length != 4) {
+			throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE frame length");
+		}
+
+		int increment = ByteBuffer.wrap(frame.getPayload()).getInt() & 0x7FFFFFFF;
+		if (increment == 0) {
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, frame.getStreamId(), "Window increment is 0");
+		}
+
+		synchronized (sendLock) {
+			if (frame.getStreamId() == 0) {
+				connectionSendWindow += increment;
+				if (connectionSendWindow > Integer.MAX_VALUE) {
+					throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, "Connection window overflow");
+				}
+			} else {
+				Http2Stream stream = streams.get(frame.getStreamId());
+				if (stream != null) {
+					stream.sendWindow += increment;
+					if (stream.sendWindow > Integer.MAX_VALUE) {
+						throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, stream.getId(), "Stream window overflow");
+					}
+				}
+			}
+		}
+
+		flush();
+	}
+
+	private void onHeaders(Http2Frame frame) throws Http2Exception {
+		int streamId = frame.getStreamId();
+		if (streamId == 0) {
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "HEADERS frame without stream id");
+		}
+
+		byte[] payload = frame.getPayload();
+		int offset = 0;
+		int length = payload.length;
+
+		if (frame.hasFlag(Http2Frame.FLAG_PADDED)) {
+			if (length < 1) {
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid padding");
+			}
+			int padLength = payload[0] & 0xFF;
+			offset++;
+			length -= 1 + padLength;
+		}
+
+		int weight = -1;
+		if (frame.hasFlag(Http2Frame.FLAG_PRIORITY)) {
+			if (length < 5) {
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid priority");
+			}
+			weight = (payload[offset + 4] & 0xFF) + 1;
+			offset += 5;
+			length -= 5;
+		}
+
+		if (length < 0) {
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid padding");
+		}
+
+		Http2Stream stream = streams.get(streamId);
+		boolean refused = false;
+		if (stream == null) {
+			//新的流, 流 ID 必须是递增的奇数
+			if (streamId <= lastStreamId || (streamId & 1) == 0) {
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid stream id: " + streamId);
+			}
+			lastStreamId = streamId;
+			stream = new Http2Stream(streamId, peerInitialWindowSize);
+			refused = goAway || streams.size() >= MAX_CONCURRENT_STREAMS;
+			if (!refused) {
+				streams.put(streamId, stream);
+			}
+		} else if (stream.isEndStream()) {
+			throw new Http2Exception(Http2Exception.STREAM_CLOSED, streamId, "Stream is half closed");
+		}
+
+		if (weight > 0) {
+			stream.setWeight(weight);
+		}
+
+		stream.setEndStream(frame.hasFlag(Http2Frame.FLAG_END_STREAM));
+		appendHeaderBlock(stream, payload, offset, length);
+
+		if (frame.hasFlag(Http2Frame.FLAG_END_HEADERS)) {
+			endHeaders(stream);
+		} else {
+			continuationStream = stream;
+		}
+
+		if (refused) {
+			resetStream(streamId, Http2Exception.REFUSED_STREAM);
+		}
+	}
+
+	private void onContinuation(Http2Frame frame) throws Http2Exception {
+		if (continuationStream == null) {
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Unexpected CONTINUATION frame");
+		}
+
+		Http2Stream stream = continuationStream;
+		appendHeaderBlock(stream, frame.getPayload(), 0, frame.getPayload().length);
+		if (frame.hasFlag(Http2Frame.FLAG_END_HEADERS)) {
+			continuationStream = null;
+			endHeaders(stream);
+		}
+	}
+
+	/**
+	 * 保存头块的片段
+	 * 		未解码的头块超过限制时无法继续保持 HPACK 状态同步, 作为连接错误处理, 防止 CONTINUATION 帧耗尽内存
+	 */
+	private void appendHeaderBlock(Http2Stream stream, byte[] data, int offset, int length) throws Http2Exception {
+		if (stream.getHeaderBlock().size() + length > MAX_HEADER_LIST_SIZE) {
+			throw new Http2Exception(Http2Exception.ENHANCE_YOUR_CALM, "Header block is too large");
+		}
+		stream.getHeaderBlock().write(data, offset, length);
+	}
+
+	private void endHeaders(Http2Stream stream) throws Http2Exception {
+		//头块必须解码以保持 HPACK 状态同步, 即使流已被拒绝
+		byte[] block = stream.getHeaderBlock().toByteArray();
+		stream.getHeaderBlock().reset();
+		List<String[]> headers = hpackDecoder.decode(block);
+
+		if (!streams.containsKey(stream.getId())) {
+			return;
+		}
+
+		if (headers == null) {
+			rejectStream(stream, 431);
+			return;
+		}
+
+		stream.addHeaders(headers);
+		if (stream.isEndStream()) {
+			dispatch(stream);
+		}
+	}
+
+	private void onData(Http2Frame frame) throws Http2Exception {
+		int streamId = frame.getStreamId();
+		if (streamId == 0) {
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "DATA frame without stream id");
+		}
+
+		byte[] payload = frame.getPayload();
+
+		//整个帧(包含填充)都计入流量控制, 包括已关闭的流上的帧
+		if (payload.length > connectionReceiveWindow) {
+			throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, "Connection receive window exceeded");
+		}
+		connectionReceiveWindow -= payload.length;
+		if (connectionReceiveWindow <= CONNECTION_WINDOW_SIZE / 2) {
+			write(Http2Frame.newWindowUpdate(0, CONNECTION_WINDOW_SIZE - connectionReceiveWindow));
+			connectionReceiveWindow = CONNECTION_WINDOW_SIZE;
+		}
+
+		Http2Stream stream = streams.get(streamId);
+		if (stream == null || stream.isEndStream()) {
+			if (streamId > lastStreamId) {
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "DATA frame on idle stream");
+			}
+			throw new Http2Exception(Http2Exception.STREAM_CLOSED, streamId, "DATA frame on closed stream");
+		}
+
+		if (payload.length > stream.receiveWindow) {
+			throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, streamId, "Stream receive window exceeded");
+		}
+		stream.receiveWindow -= payload.length;
+
+		int offset = 0;
+		int length = payload.length;
+		if (frame.hasFlag(Http2Frame.FLAG_PADDED)) {
+			int padLength = length > 0 ? payload[0] & 0xFF : 0;
+			offset = 1;
+			length -= 1 + padLength;
+			if (length < 0) {
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid padding");
+			}
+		}
+
+		if ((long) stream.getBodySize() + length > MAX_REQUEST_BODY_SIZE) {
+			rejectStream(stream, 413);
+			return;
+		}
+
+		//连接上等待的报文过多时拒绝这个流, 客户端可以稍后重试
+		if (bufferedBodySize.addAndGet(length) > MAX_BUFFERED_BODY_SIZE) {
+			bufferedBodySize.addAndGet(-length);
+			throw new Http2Exception(Http2Exception.REFUSED_STREAM, streamId, "Too many buffered request bodies");
+		}
+		stream.bufferedBytes += length;
+		stream.appendBody(payload, offset, length);
+
+		if (frame.hasFlag(Http2Frame.FLAG_END_STREAM)) {
+			stream.setEndStream(true);
+			dispatch(stream);
+		} else if (stream.receiveWindow <= DEFAULT_WINDOW_SIZE / 2) {
+			write(Http2Frame.newWindowUpdate(streamId, DEFAULT_WINDOW_SIZE - stream.receiveWindow));
+			stream.receiveWindow = DEFAULT_WINDOW_SIZE;
+		}
+	}
+
+	private void onPriority(Http2Frame frame) throws Http2Exception {
+		if (frame.getPayload().length != 5) {
+			throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, frame.getStreamId(), "Invalid PRIORITY frame length");
+		}
+
+		Http2Stream stream = streams.get(frame.getStreamId());
+		if (stream != null) {
+			synchronized (sendLock) {
+				stream.setWeight((frame.getPayload()[4] & 0xFF) + 1);
+			}
+		}
+	}
+
+	private void onRstStream(Http2Frame frame) {
+		Http2Stream stream = streams.get(frame.getStreamId());
+		if (stream != null) {
+			stream.setReset(true);
+			releaseBufferedBody(stream);
+			closeStream(stream);
+		}
+	}
+
+	private void dispatch(Http2Stream stream) {
+		if (!streams.containsKey(stream.getId())) {
+			return;
+		}
+
+		//报文交给请求处理, 不再计入等待的报文
+		releaseBufferedBody(stream);
+
+		//多个流并行处理
+		Global.getThreadPool().execute(() -> {
+			try {
+				streamHandler.onRequest(this, stream);
+			} catch (Exception e) {
+				Logger.error("Process HTTP/2 stream error", e);
+				resetStream(stream.getId(), Http2Exception.INTERNAL_ERROR);
+			}
+		});
+	}
+
+	private void releaseBufferedBody(Http2Stream stream) {
+		synchronized (stream) {
+			bufferedBodySize.addAndGet(-stream.bufferedBytes);
+			stream.bufferedBytes = 0;
+		}
+	}
+
+	/**
+	 * 在请求接收完成之前发送错误响应并结束流
+	 * 		请求未接收完成时, 响应后使用 NO_ERROR 重置流, 通知客户端停止发送请求报文 (RFC 7540 8.1)
+	 * @param stream 流
+	 * @param status HTTP 状态码
+	 */
+	private void rejectStream(Http2Stream stream, int status) {
+		boolean endStream = stream.isEndStream();
+		stream.setEndStream(true);
+
+		List<String[]> headers = new ArrayList<String[]>();
+		headers.add(new String[]{":status", Integer.toString(status)});
+		headers.add(new String[]{"content-length", "0"});
+		sendHeaders(stream, headers, true);
+
+		if (!endStream) {
+			write(Http2Frame.newRstStream(stream.getId(), Http2Exception.NO_ERROR));
+		}
+
+		releaseBufferedBody(stream);
+		stream.releaseBody();
+	}
+
+	/**
+	 * 发送响应头
+	 * @param stream 流
+	 * @param headers 头的列表, 每个元素为 {名称, 值}, 名称必须是小写的, 伪头在前
+	 * @param endStream 是否结束流, 没有报文时为 true
+	 */
+	public void sendHeaders(Http2Stream stream, List<String[]> headers, boolean endStream) {
+		if (stream.isReset()) {
+			return;
+		}
+
+		//头块的编码顺序必须与发送顺序一致, 且 HEADERS 和 CONTINUATION 之间不能插入其他帧
+		synchronized (sendLock) {
+			byte[] block = hpackEncoder.encode(headers);
+			int maxFrameSize = peerMaxFrameSize;
+			int offset = 0;
+			boolean first = true;
+			do {
+				int length = Math.min(maxFrameSize, block.length - offset);
+				byte[] fragment = new byte[length];
+				System.arraycopy(block, offset, fragment, 0, length);
+				offset += length;
+
+				int flags = offset == block.length ? Http2Frame.FLAG_END_HEADERS : 0;
+				if (first) {
+					flags |= endStream ? Http2Frame.FLAG_END_STREAM : 0;
+					writeFrame(new Http2Frame(Http2Frame.HEADERS, flags, stream.getId(), fragment));
+				} else {
+					writeFrame(new Http2Frame(Http2Frame.CONTINUATION, flags, stream.getId(), fragment));
+				}
+				first = false;
+			} while (offset < block.length);
+		}
+
+		if (endStream) {
+			closeStream(stream);
+		}
+	}
+
+	/**
+	 * 发送响应报文并结束流
+	 * 		报文进入发送队列后立即返回, 按流量控制窗口和权重调度发送
+	 * @param stream 流
+	 * @param data 报文
+	 */
+	public void sendData(Http2Stream stream, byte[] data) {
+		synchronized (sendLock) {
+			if (stream.isReset()) {
+				return;
+			}
+			stream.sendData = data;
+			stream.sendOffset = 0;
+			stream.virtualTime = Math.max(stream.virtualTime, virtualClock);
+			pendingStreams.add(stream);
+		}
+
+		flush();
+	}
+
+	/**
+	 * 按权重发送等待中的 DATA 帧
+	 * 		每次选择虚拟时间最小的可发送流, 发送后虚拟时间按 发送字节数/权重 增加
+	 */
+	private void flush() {
+		synchronized (sendLock) {
+			while (connectionSendWindow > 0 && !pendingStreams.isEmpty()) {
+				Http2Stream next = null;
+				for (int i = 0; i < pendingStreams.size(); i++) {
+					Http2Stream stream = pendingStreams.get(i);
+					if (stream.isReset()) {
+						pendingStreams.remove(i--);
+						stream.sendData = null;
+						continue;
+					}
+
+					boolean sendable = stream.sendWindow > 0 || stream.sendOffset == stream.sendData.length;
+					if (sendable && (next == null || stream.virtualTime < next.virtualTime)) {
+						next = stream;
+					}
+				}
+
+				if (next == null) {
+					return;
+				}
+
+				int remaining = next.sendData.length - next.sendOffset;
+				int length = (int) Math.min(Math.min(remaining, peerMaxFrameSize), Math.min(next.sendWindow, connectionSendWindow));
+				length = Math.max(length, 0);
+				boolean end = length == remaining;
+
+				byte[] payload = new byte[length];
+				System.arraycopy(next.sendData, next.sendOffset, payload, 0, length);
+				writeFrame(new Http2Frame(Http2Frame.DATA, end ? Http2Frame.FLAG_END_STREAM : 0, next.getId(), payload));
+
+				next.sendOffset += length;
+				next.sendWindow -= length;
+				connectionSendWindow -= length;
+				virtualClock = next.virtualTime;
+				next.virtualTime += (long) Math.max(length, 1) * 256 / next.getWeight();
+
+				if (end) {
+					pendingStreams.remove(next);
+					next.sendData = null;
+					closeStream(next);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 重置流
+	 * @param streamId 流 ID
+	 * @param errorCode 错误码
+	 */
+	public void resetStream(int streamId, int errorCode) {
+		write(Http2Frame.newRstStream(streamId, errorCode));
+		Http2Stream stream = streams.get(streamId);
+		if (stream != null) {
+			stream.setReset(true);
+			releaseBufferedBody(stream);
+			closeStream(stream);
+		}
+	}
+
+	private void closeStream(Http2Stream stream) {
+		streams.remove(stream.getId());
+		if (goAway && streams.isEmpty()) {
+			session.close();
+		}
+	}
+
+	/**
+	 * 发送 GOAWAY 并关闭连接
+	 * @param errorCode 错误码
+	 * @param message 调试信息
+	 */
+	public void close(int errorCode, String message) {
+		goAway = true;
+		write(Http2Frame.newGoAway(lastStreamId, errorCode, message));
+		session.close();
+	}
+
+	/**
+	 * 连接断开时释放等待发送的数据
+	 */
+	public void release() {
+		synchronized (sendLock) {
+			for (Http2Stream stream : pendingStreams) {
+				stream.sendData = null;
+			}
+			pendingStreams.clear();
+		}
+		for (Http2Stream stream : streams.values()) {
+			stream.setReset(true);
+		}
+		streams.clear();
+	}
+
+	private void write(Http2Frame... frames) {
+		synchronized (sendLock) {
+			for (Http2Frame frame : frames) {
+				writeFrame(frame);
+			}
+		}
+	}
+
+	private void writeFrame(Http2Frame frame) {
+		session.send(frame.toByteBuffer());
+	}
+}
@@ -0,0 +1,73 @@
+package org.voovan.http.http2;
+
+import java.io.IOException;
+
+/**
+ * HTTP/2 协议异常
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class Http2Exception extends IOException {
+
+	private static final long	serialVersionUID	= 1L;
+
+	//错误码 (RFC 7540 7)
+	public static final int NO_ERROR			= 0x0;
+	public static final int PROTOCOL_ERROR		= 0x1;
+	public static final int INTERNAL_ERROR		= 0x2;
+	public static final int FLOW_CONTROL_ERROR	= 0x3;
+	public static final int SETTINGS_TIMEOUT	= 0x4;
+	public static final int STREAM_CLOSED		= 0x5;
+	public static final int FRAME_SIZE_ERROR	= 0x6;
+	public static final int REFUSED_STREAM		= 0x7;
+	public static final int CANCEL				= 0x8;
+	public static final int COMPRESSION_ERROR	= 0x9;
+	public static final int CONNECT_ERROR		= 0xa;
+	public static final int ENHANCE_YOUR_CALM	= 0xb;
+	public static final int INADEQUATE_SECURITY	= 0xc;
+	public static final int HTTP_1_1_REQUIRED	= 0xd;
+
+	private int errorCode;
+	private int streamId;
+
+	/**
+	 * 构造连接错误
+	 * @param errorCode 错误码
+	 * @param message 错误信息
+	 */
+	public Http2Exception(int errorCode, String message){
+		this(errorCode, 0, message);
+	}
+
+	/**
+	 * 构造错误
+	 * @param errorCode 错误码
+	 * @param streamId 流 ID, 0 表示连接错误, 否则为流错误
+	 * @param message 错误信息
+	 */
+	public Http2Exception(int errorCode, int streamId, String message){
+		super(message);
+		this.errorCode = errorCode;
+		this.streamId = streamId;
+	}
+
+	public int getErrorCode() {
+		return errorCode;
+	}
+
+	public int getStreamId() {
+		return streamId;
+	}
+
+	/**
+	 * 是否是连接错误, 连接错误需要发送 GOAWAY 并关闭连接
+	 * @return true: 连接错误, false: 流错误
+	 */
+	public boolean isConnectionError() {
+		return streamId == 0;
+	}
+}
@@ -0,0 +1,234 @@
+package org.voovan.http.http2;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTTP/2 帧 (RFC 7540 4.1)
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class Http2Frame {
+
+	/**
+	 * 客户端连接前言
+	 */
+	public static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+	/**
+	 * 帧头的长度
+	 */
+	public static final int HEADER_LENGTH = 9;
+
+	/**
+	 * 默认的最大帧长度
+	 */
+	public static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+
+	//帧类型
+	public static final int DATA			= 0x0;
+	public static final int HEADERS			= 0x1;
+	public static final int PRIORITY		= 0x2;
+	public static final int RST_STREAM		= 0x3;
+	public static final int SETTINGS		= 0x4;
+	public static final int PUSH_PROMISE	= 0x5;
+	public static final int PING			= 0x6;
+	public static final int GOAWAY			= 0x7;
+	public static final int WINDOW_UPDATE	= 0x8;
+	public static final int CONTINUATION	= 0x9;
+
+	//帧标志
+	public static final int FLAG_END_STREAM		= 0x1;
+	public static final int FLAG_ACK			= 0x1;
+	public static final int FLAG_END_HEADERS	= 0x4;
+	public static final int FLAG_PADDED			= 0x8;
+	public static final int FLAG_PRIORITY		= 0x20;
+
+	//SETTINGS 参数
+	public static final int SETTINGS_HEADER_TABLE_SIZE		= 0x1;
+	public static final int SETTINGS_ENABLE_PUSH			= 0x2;
+	public static final int SETTINGS_MAX_CONCURRENT_STREAMS	= 0x3;
+	public static final int SETTINGS_INITIAL_WINDOW_SIZE	= 0x4;
+	public static final int SETTINGS_MAX_FRAME_SIZE			= 0x5;
+	public static final int SETTINGS_MAX_HEADER_LIST_SIZE	= 0x6;
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private int type;
+	private int flags;
+	private int streamId;
+	private byte[] payload;
+	//帧头中的负载长度, 超过最大帧长度的帧只解析帧头, 与 payload 的长度不一致
+	private int length;
+
+	/**
+	 * 构造函数
+	 * @param type 帧类型
+	 * @param flags 帧标志
+	 * @param streamId 流 ID
+	 * @param payload 帧数据
+	 */
+	public Http2Frame(int type, int flags, int streamId, byte[] payload) {
+		this.type = type;
+		this.flags = flags;
+		this.streamId = streamId;
+		this.payload = payload == null ? EMPTY : payload;
+		this.length = this.payload.length;
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	public int getFlags() {
+		return flags;
+	}
+
+	public int getStreamId() {
+		return streamId;
+	}
+
+	public byte[] getPayload() {
+		return payload;
+	}
+
+	/**
+	 * 获取帧头中的负载长度
+	 * @return 负载长度
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * 判断是否设置了标志
+	 * @param flag 标志
+	 * @return true: 设置了标志, false: 未设置
+	 */
+	public boolean hasFlag(int flag) {
+		return (flags & flag) != 0;
+	}
+
+	/**
+	 * 获取帧的长度, 包含帧头
+	 * @param byteBuffer 缓冲区, 从 position 开始读取, 不改变 position
+	 * @return 帧的长度, 数据不足一个帧头时返回 -1
+	 */
+	public static int frameLength(ByteBuffer byteBuffer) {
+		if (byteBuffer.remaining() < HEADER_LENGTH) {
+			return -1;
+		}
+
+		int position = byteBuffer.position();
+		return HEADER_LENGTH + ((byteBuffer.get(position) & 0xFF) << 16 | (byteBuffer.get(position + 1) & 0xFF) << 8 | (byteBuffer.get(position + 2) & 0xFF));
+	}
+
+	/**
+	 * 从缓冲区解析一个帧
+	 * @param byteBuffer 缓冲区, 必须包含完整的帧
+	 * @return 帧对象, 数据不完整时返回 null
+	 */
+	public static Http2Frame parse(ByteBuffer byteBuffer) {
+		int frameLength = frameLength(byteBuffer);
+		if (frameLength < 0) {
+			return null;
+		}
+
+		//超过最大帧长度时只解析帧头, 由连接返回 FRAME_SIZE_ERROR
+		if (frameLength - HEADER_LENGTH > DEFAULT_MAX_FRAME_SIZE) {
+			byteBuffer.position(byteBuffer.position() + 3);
+			Http2Frame frame = new Http2Frame(byteBuffer.get() & 0xFF, byteBuffer.get() & 0xFF, byteBuffer.getInt() & 0x7FFFFFFF, null);
+			frame.length = frameLength - HEADER_LENGTH;
+			byteBuffer.position(byteBuffer.limit());
+			return frame;
+		}
+
+		if (byteBuffer.remaining() < frameLength) {
+			return null;
+		}
+
+		byteBuffer.position(byteBuffer.position() + 3);
+		int type = byteBuffer.get() & 0xFF;
+		int flags = byteBuffer.get() & 0xFF;
+		int streamId = byteBuffer.getInt() & 0x7FFFFFFF;
+		byte[] payload = new byte[frameLength - HEADER_LENGTH];
+		byteBuffer.get(payload);
+		return new Http2Frame(type, flags, streamId, payload);
+	}
+
+	/**
+	 * 转换为缓冲区
+	 * @return 缓冲区
+	 */
+	public ByteBuffer toByteBuffer() {
+		ByteBuffer byteBuffer = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+		byteBuffer.put((byte) (payload.length >>> 16));
+		byteBuffer.put((byte) (payload.length >>> 8));
+		byteBuffer.put((byte) payload.length);
+		byteBuffer.put((byte) type);
+		byteBuffer.put((byte) flags);
+		byteBuffer.putInt(streamId & 0x7FFFFFFF);
+		byteBuffer.put(payload);
+		byteBuffer.flip();
+		return byteBuffer;
+	}
+
+	/**
+	 * 构造 SETTINGS 帧
+	 * @param settings 参数数组, 依次为 {参数, 值, 参数, 值...}
+	 * @return 帧对象
+	 */
+	public static Http2Frame newSettings(int... settings) {
+		ByteBuffer payload = ByteBuffer.allocate(settings.length / 2 * 6);
+		for (int i = 0; i + 1 < settings.length; i += 2) {
+			payload.putShort((short) settings[i]);
+			payload.putInt(settings[i + 1]);
+		}
+		return new Http2Frame(SETTINGS, 0, 0, payload.array());
+	}
+
+	/**
+	 * 构造 WINDOW_UPDATE 帧
+	 * @param streamId 流 ID, 0 表示连接
+	 * @param increment 窗口增量
+	 * @return 帧对象
+	 */
+	public static Http2Frame newWindowUpdate(int streamId, int increment) {
+		return new Http2Frame(WINDOW_UPDATE, 0, streamId, ByteBuffer.allocate(4).putInt(increment).array());
+	}
+
+	/**
+	 * 构造 RST_STREAM 帧
+	 * @param streamId 流 ID
+	 * @param errorCode 错误码
+	 * @return 帧对象
+	 */
+	public static Http2Frame newRstStream(int streamId, int errorCode) {
+		return new Http2Frame(RST_STREAM, 0, streamId, ByteBuffer.allocate(4).putInt(errorCode).array());
+	}
+
+	/**
+	 * 构造 GOAWAY 帧
+	 * @param lastStreamId 最后处理的流 ID
+	 * @param errorCode 错误码
+	 * @param message 调试信息
+	 * @return 帧对象
+	 */
+	public static Http2Frame newGoAway(int lastStreamId, int errorCode, String message) {
+		byte[] debugData = message == null ? EMPTY : message.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer payload = ByteBuffer.allocate(8 + debugData.length);
+		payload.putInt(lastStreamId & 0x7FFFFFFF);
+		payload.putInt(errorCode);
+		payload.put(debugData);
+		return new Http2Frame(GOAWAY, 0, 0, payload.array());
+	}
+
+	@Override
+	public String toString() {
+		return "Http2Frame{type=" + type + ", flags=" + flags + ", streamId=" + streamId + ", length=" + payload.length + "}";
+	}
+}
@@ -0,0 +1,215 @@
+package org.voovan.http.http2;
+
+import org.voovan.http.message.HttpParser;
+import org.voovan.http.message.Request;
+import org.voovan.tools.ByteBufferChannel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP/2 流
+ * 		保存一个请求的头和报文, 以及响应数据的发送状态
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class Http2Stream {
+
+	/**
+	 * 默认的权重 (RFC 7540 5.3.5)
+	 */
+	public static final int DEFAULT_WEIGHT = 16;
+
+	private int id;
+	private int weight;
+	private List<String[]> headers;
+	private ByteArrayOutputStream headerBlock;
+	private ByteArrayOutputStream body;
+	private boolean endStream;
+	private volatile boolean reset;
+
+	//接收的流量控制: 流剩余的接收窗口
+	int receiveWindow = Http2Connection.DEFAULT_WINDOW_SIZE;
+
+	//计入连接等待处理的报文大小的字节数, 流分派或者重置时扣除
+	int bufferedBytes;
+
+	//发送的流量控制和调度状态, 由 Http2Connection 在发送锁中访问
+	long sendWindow;
+	byte[] sendData;
+	int sendOffset;
+	long virtualTime;
+
+	/**
+	 * 构造函数
+	 * @param id 流 ID
+	 * @param sendWindow 初始的发送窗口
+	 */
+	public Http2Stream(int id, long sendWindow) {
+		this.id = id;
+		this.weight = DEFAULT_WEIGHT;
+		this.sendWindow = sendWindow;
+		this.headers = new ArrayList<String[]>();
+		this.headerBlock = new ByteArrayOutputStream();
+		this.body = new ByteArrayOutputStream(0);
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * 设置权重
+	 * @param weight 权重, 取值范围 1~256, 权重越大分配到的发送带宽越多
+	 */
+	public void setWeight(int weight) {
+		this.weight = Math.max(1, Math.min(256, weight));
+	}
+
+	/**
+	 * 获取请求头
+	 * @return 头的列表, 每个元素为 {名称, 值}, 包含伪头
+	 */
+	public List<String[]> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * 获取请求头
+	 * @param name 头的名称, 小写
+	 * @return 头的值, 不存在时返回 null
+	 */
+	public String getHeader(String name) {
+		for (String[] header : headers) {
+			if (header[0].equals(name)) {
+				return header[1];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 获取请求报文
+	 * @return 请求报文
+	 */
+	public byte[] getBody() {
+		return body.toByteArray();
+	}
+
+	/**
+	 * 请求是否接收完成
+	 * @return true: 接收完成, false: 未完成
+	 */
+	public boolean isEndStream() {
+		return endStream;
+	}
+
+	void setEndStream(boolean endStream) {
+		this.endStream = endStream;
+	}
+
+	/**
+	 * 流是否被重置
+	 * @return true: 已重置, false: 未重置
+	 */
+	public boolean isReset() {
+		return reset;
+	}
+
+	void setReset(boolean reset) {
+		this.reset = reset;
+	}
+
+	ByteArrayOutputStream getHeaderBlock() {
+		return headerBlock;
+	}
+
+	void addHeaders(List<String[]> headers) {
+		this.headers.addAll(headers);
+	}
+
+	void appendBody(byte[] data, int offset, int length) {
+		body.write(data, offset, length);
+	}
+
+	int getBodySize() {
+		return body.size();
+	}
+
+	/**
+	 * 释放已接收的请求报文, 流被拒绝时调用
+	 */
+	void releaseBody() {
+		body = new ByteArrayOutputStream(0);
+	}
+
+	/**
+	 * 转换为请求对象
+	 * 		按 HTTP/1.1 报文格式交给 HttpParser 解析, 与 HTTP/1.1 的请求解析(Cookie, 参数, 文件上传等)保持一致
+	 * @param timeout 解析的超时时间
+	 * @return 请求对象
+	 * @throws IOException 解析异常
+	 */
+	public Request toRequest(int timeout) throws IOException {
+		String method = getHeader(":method");
+		String path = getHeader(":path");
+		if (method == null || path == null) {
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, id, "Missing pseudo header :method or :path");
+		}
+
+		//合并同名的头, Cookie 使用分号分隔 (RFC 7540 8.1.2.5)
+		Map<String, String> mergedHeaders = new LinkedHashMap<String, String>();
+		for (String[] header : headers) {
+			String name = header[0];
+			if (name.startsWith(":")) {
+				continue;
+			}
+			String value = mergedHeaders.get(name);
+			mergedHeaders.put(name, value == null ? header[1] : value + ("cookie".equals(name) ? "; " : ", ") + header[1]);
+		}
+
+		String authority = getHeader(":authority");
+		if (authority != null && !mergedHeaders.containsKey("host")) {
+			mergedHeaders.put("host", authority);
+		}
+
+		byte[] bodyBytes = body.toByteArray();
+		if (bodyBytes.length > 0 && !mergedHeaders.containsKey("content-length")) {
+			mergedHeaders.put("content-length", String.valueOf(bodyBytes.length));
+		}
+
+		StringBuilder headText = new StringBuilder(256);
+		headText.append(method).append(' ').append(path).append(" HTTP/1.1\r\n");
+		for (Map.Entry<String, String> entry : mergedHeaders.entrySet()) {
+			headText.append(entry.getKey()).append(": ").append(entry.getValue()).append("\r\n");
+		}
+		headText.append("\r\n");
+
+		//头解码时使用 ISO-8859-1 保留了原始字节
+		byte[] headBytes = headText.toString().getBytes(StandardCharsets.ISO_8859_1);
+		ByteBufferChannel byteBufferChannel = new ByteBufferChannel(headBytes.length + bodyBytes.length);
+		try {
+			byteBufferChannel.writeEnd(ByteBuffer.wrap(headBytes));
+			if (bodyBytes.length > 0) {
+				byteBufferChannel.writeEnd(ByteBuffer.wrap(bodyBytes));
+			}
+			return HttpParser.parseRequest(byteBufferChannel, timeout);
+		} finally {
+			byteBufferChannel.release();
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package org.voovan.http.message;
+
+import org.voovan.http.message.packet.ResponseProtocol;
+import org.voovan.tools.TByteBuffer;
+import org.voovan.tools.TDateTime;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HTTP 响应头序列化的缓存
+ * 		常用状态码的状态行和常用的头名称预先转换为字节, Date 头的值每秒只格式化一次
+ * 		每个线程复用一个直接内存缓冲区用于发送响应, 发送是同步完成的, 返回后即可复用
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpHeadCache {
+
+	/**
+	 * 发送缓冲区的大小
+	 */
+	public static final int SEND_BUFFER_SIZE = 1024 * 50;
+
+	private static final int MAX_CACHED_ITEMS = 512;
+
+	private static final byte[] CRLF = new byte[]{'\r', '\n'};
+
+	private static final String[] REASONS = new String[600];
+	private static final byte[][] STATUS_LINES_11 = new byte[600][];
+	private static final byte[][] STATUS_LINES_10 = new byte[600][];
+
+	private static final ConcurrentHashMap<String, byte[]> HEADER_NAMES = new ConcurrentHashMap<String, byte[]>();
+	private static final ConcurrentHashMap<String, String> CONTENT_TYPES = new ConcurrentHashMap<String, String>();
+	private static volatile String contentTypeCharset;
+
+	private static volatile DateValue dateValue = new DateValue(0, null);
+	private static final ConcurrentHashMap<Integer, DateValue> OFFSET_DATE_VALUES = new ConcurrentHashMap<Integer, DateValue>();
+
+	private static final ThreadLocal<ByteBuffer> SEND_BUFFER = ThreadLocal.withInitial(() -> TByteBuffer.allocateDirect(SEND_BUFFER_SIZE));
+
+	static {
+		reason(100, "Continue");
+		reason(101, "Switching Protocols");
+		reason(200, "OK");
+		reason(201, "Created");
+		reason(202, "Accepted");
+		reason(204, "No Content");
+		reason(206, "Partial Content");
+		reason(301, "Moved Permanently");
+		reason(302, "Found");
+		reason(303, "See Other");
+		reason(304, "Not Modified");
+		reason(307, "Temporary Redirect");
+		reason(308, "Permanent Redirect");
+		reason(400, "Bad Request");
+		reason(401, "Unauthorized");
+		reason(403, "Forbidden");
+		reason(404, "Not Found");
+		reason(405, "Method Not Allowed");
+		reason(408, "Request Timeout");
+		reason(409, "Conflict");
+		reason(413, "Payload Too Large");
+		reason(415, "Unsupported Media Type");
+		reason(429, "Too Many Requests");
+		reason(500, "Internal Server Error");
+		reason(501, "Not Implemented");
+		reason(502, "Bad Gateway");
+		reason(503, "Service Unavailable");
+		reason(504, "Gateway Timeout");
+
+		for (String name : new String[]{"Date", "Server", "Content-Type", "Content-Length", "Content-Encoding",
+				"Transfer-Encoding", "Connection", "Set-Cookie", "Location", "Last-Modified", "Cache-Control",
+				"Expires", "ETag", "Retry-After", "Upgrade", "Sec-WebSocket-Accept"}) {
+			HEADER_NAMES.put(name, (name + ": ").getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+
+	private static void reason(int status, String reason) {
+		REASONS[status] = reason;
+		STATUS_LINES_11[status] = ("HTTP/1.1 " + status + " " + reason + "\r\n").getBytes(StandardCharsets.US_ASCII);
+		STATUS_LINES_10[status] = ("HTTP/1.0 " + status + " " + reason + "\r\n").getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * 获取当前时间的 Date 头的值, 每秒只格式化一次
+	 * @return GMT 格式的时间
+	 */
+	public static String getDate() {
+		long second = System.currentTimeMillis() / 1000;
+		DateValue current = dateValue;
+		if (current.second != second) {
+			current = new DateValue(second, TDateTime.formatToGMT(new Date(second * 1000)));
+			dateValue = current;
+		}
+		return current.value;
+	}
+
+	/**
+	 * 获取当前时间加上偏移后的 GMT 时间, 用于 Expires 等头, 每秒只格式化一次
+	 * @param offsetSeconds 偏移的秒数
+	 * @return GMT 格式的时间
+	 */
+	public static String getDate(int offsetSeconds) {
+		if (offsetSeconds == 0) {
+			return getDate();
+		}
+
+		long second = System.currentTimeMillis() / 1000;
+		DateValue current = OFFSET_DATE_VALUES.get(offsetSeconds);
+		if (current == null || current.second != second) {
+			current = new DateValue(second, TDateTime.formatToGMT(new Date((second + offsetSeconds) * 1000)));
+			if (OFFSET_DATE_VALUES.size() < MAX_CACHED_ITEMS) {
+				OFFSET_DATE_VALUES.put(offsetSeconds, current);
+			}
+		}
+		return current.value;
+	}
+
+	/**
+	 * 获取附加了字符集的 Content-Type
+	 * @param contentType Content-Type 的值
+	 * @param charset 字符集
+	 * @return 附加了字符集的 Content-Type
+	 */
+	public static String getContentType(String contentType, String charset) {
+		if (!charset.equals(contentTypeCharset)) {
+			CONTENT_TYPES.clear();
+			contentTypeCharset = charset;
+		}
+
+		String value = CONTENT_TYPES.get(contentType);
+		if (value == null) {
+			value = contentType + ";charset=" + charset;
+			if (CONTENT_TYPES.size() < MAX_CACHED_ITEMS) {
+				CONTENT_TYPES.put(contentType, value);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * 获取当前线程的发送缓冲区
+	 * @return 已清空的发送缓冲区
+	 */
+	public static ByteBuffer getSendBuffer() {
+		ByteBuffer byteBuffer = SEND_BUFFER.get();
+		byteBuffer.clear();
+		return byteBuffer;
+	}
+
+	/**
+	 * 写入状态行
+	 * @param byteBuffer 目标缓冲区
+	 * @param protocol 响应协议对象
+	 */
+	public static void putStatusLine(ByteBuffer byteBuffer, ResponseProtocol protocol) {
+		int status = protocol.getStatus();
+		if (status > 0 && status < REASONS.length && "HTTP".equals(protocol.getProtocol())) {
+			String reason = REASONS[status];
+			if (reason != null && reason.equals(protocol.getStatusCode())) {
+				if (protocol.getVersion() == 1.1F) {
+					byteBuffer.put(STATUS_LINES_11[status]);
+					return;
+				} else if (protocol.getVersion() == 1.0F) {
+					byteBuffer.put(STATUS_LINES_10[status]);
+					return;
+				}
+			}
+		}
+
+		putString(byteBuffer, protocol.toString());
+	}
+
+	/**
+	 * 写入一个头
+	 * @param byteBuffer 目标缓冲区
+	 * @param name 头的名称
+	 * @param value 头的值
+	 */
+	public static void putHeader(ByteBuffer byteBuffer, String name, String value) {
+		byte[] nameBytes = HEADER_NAMES.get(name);
+		if (nameBytes == null) {
+			nameBytes = (name + ": ").getBytes(StandardCharsets.UTF_8);
+			if (HEADER_NAMES.size() < MAX_CACHED_ITEMS) {
+				HEADER_NAMES.put(name, nameBytes);
+			}
+		}
+
+		byteBuffer.put(nameBytes);
+		putString(byteBuffer, value);
+		byteBuffer.put(CRLF);
+	}
+
+	/**
+	 * 写入换行
+	 * @param byteBuffer 目标缓冲区
+	 */
+	public static void putCRLF(ByteBuffer byteBuffer) {
+		byteBuffer.put(CRLF);
+	}
+
+	/**
+	 * 以 UTF-8 编码写入字符串, ASCII 字符直接写入
+	 * @param byteBuffer 目标缓冲区
+	 * @param value 字符串
+	 */
+	public static void putString(ByteBuffer byteBuffer, String value) {
+		if (value == null) {
+			value = "null";
+		}
+
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				byteBuffer.put((byte) c);
+			} else {
+				byteBuffer.put(value.substring(i).getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+		}
+	}
+
+	private static class DateValue {
+		private final long second;
+		private final String value;
+
+		private DateValue(long second, String value) {
+			this.second = second;
+			this.value = value;
+		}
+	}
+}
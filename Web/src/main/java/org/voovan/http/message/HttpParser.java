@@ -502,8 +502,20 @@ public class HttpParser {
 	 * @return   返回请求报文
 	 * @throws IOException IO 异常
 	 */
-	@SuppressWarnings("unchecked")
 	public static Request parseRequest(ByteBufferChannel byteBufferChannel, int timeOut) throws IOException{
+		return parseRequest(null, byteBufferChannel, timeOut);
+	}
+
+	/**
+	 * 解析报文并填充到指定的 HttpRequest 对象
+	 * @param request 用于填充的请求对象, 必须是已清理的对象, 为 null 时构造新的请求对象
+	 * @param byteBufferChannel  输入字节流
+	 * @param timeOut 读取超时时间参数
+	 * @return   返回请求报文
+	 * @throws IOException IO 异常
+	 */
+	@SuppressWarnings("unchecked")
+	public static Request parseRequest(Request request, ByteBufferChannel byteBufferChannel, int timeOut) throws IOException{
 		Map<String, Object> parsedPacket = parser(byteBufferChannel, timeOut);
 
 		//如果解析的Map为空,则直接返回空
@@ -511,7 +523,9 @@ public class HttpParser {
 			return null;
 		}
 
-		Request request = new Request();
+		if(request == null) {
+			request = new Request();
+		}
 		//填充报文到请求对象
 		Set<Entry<String, Object>> parsedItems= parsedPacket.entrySet();
 		for(Entry<String, Object> parsedPacketEntry: parsedItems){
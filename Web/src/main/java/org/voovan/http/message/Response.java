@@ -5,13 +5,13 @@ import org.voovan.http.server.context.WebContext;
 import org.voovan.network.IoSession;
 import org.voovan.tools.TByteBuffer;
 import org.voovan.tools.TString;
-import org.voovan.tools.log.Logger;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * HTTP 响应对象
@@ -29,6 +29,9 @@ public class Response {
 	private Body body;
 	private boolean				isCompress;
 
+	private static final byte[] CRLF = "\r\n".getBytes();
+	private static final byte[] CHUNKED_END = "0\r\n\r\n".getBytes();
+
 	/**
 	 * 构造函数
 	 *
@@ -109,6 +112,7 @@ public class Response {
 
 	/**
 	 * 根据内容构造一写必要的 Header 属性
+	 * 		可以重复调用, 已经包含字符集的 Content-Type 不再追加
 	 */
 	private void initHeader() {
 		// 根据压缩属性确定 Header 的一些属性内容
@@ -116,32 +120,45 @@ public class Response {
 			header.put("Transfer-Encoding", "chunked");
 			header.put("Content-Encoding", "gzip");
 		} else {
-			header.put("Content-Length", Integer.toString(body.getBodyBytes().length));
+			header.put("Content-Length", Long.toString(body.size()));
 		}
 
-		if (TString.isNullOrEmpty(header.get("Content-Type"))) {
-			header.put("Content-Type", "text/html");
+		String contentType = header.get("Content-Type");
+		if (TString.isNullOrEmpty(contentType)) {
+			contentType = "text/html";
 		}
 
-		header.put("Content-Type", TString.assembly(header.get("Content-Type"), ";charset=", WebContext.getWebServerConfig().getCharacterSet()));
+		if (contentType.indexOf("charset=") < 0) {
+			header.put("Content-Type", HttpHeadCache.getContentType(contentType, WebContext.getWebServerConfig().getCharacterSet()));
+		}
 	}
 
 	/**
-	 * 根据 Cookie 对象,生成 HTTP 响应中的 Cookie 字符串 用于报文拼装
+	 * 将响应报头写入缓冲区
 	 *
-	 * @return Cookie 字符串
+	 * @param byteBuffer 目标缓冲区
+	 * @throws BufferOverflowException 缓冲区空间不足
 	 */
-	private String genCookie() {
-		StringBuilder cookieString = new StringBuilder();
-		for (Cookie cookie : cookies) {
-			cookieString.append("Set-Cookie: ");
-			cookieString.append(cookie.toString());
-			cookieString.append("\r\n");
+	private void writeHead(ByteBuffer byteBuffer) {
+		// 处理协议行
+		HttpHeadCache.putStatusLine(byteBuffer, protocol);
+
+		// 处理 Header
+		for (Map.Entry<String, String> entry : header.getHeaders().entrySet()) {
+			String key = entry.getKey();
+			if (!key.isEmpty() && Character.isUpperCase(key.charAt(0))) {
+				HttpHeadCache.putHeader(byteBuffer, key, entry.getValue());
+			}
 		}
-		return cookieString.toString();
-	}
 
+		// 处理 Cookie
+		for (Cookie cookie : cookies) {
+			HttpHeadCache.putHeader(byteBuffer, "Set-Cookie", cookie.toString());
+		}
 
+		//头结束插入空行
+		HttpHeadCache.putCRLF(byteBuffer);
+	}
 
 	/**
 	 * 根据对象的内容,构造 Http 响应报头
@@ -149,33 +166,32 @@ public class Response {
 	 * @return ByteBuffer 响应报文的报头
 	 */
 	private ByteBuffer readHead() {
-
-		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
 		initHeader();
+		return buildHead();
+	}
 
-		try {
-			// 处理协议行
-			outputStream.write(protocol.toString().getBytes("UTF-8"));
-
-			// 处理 Header
-			outputStream.write(header.toString().getBytes("UTF-8"));
-
-			// 处理 Cookie
-			outputStream.write(genCookie().getBytes("UTF-8"));
-
-			//头结束插入空行
-			outputStream.write("\r\n".getBytes("UTF-8"));
-
-		} catch (IOException e) {
-			Logger.error("OutputString io error",e);
+	/**
+	 * 使用已经构造的 Header 属性生成报头, 不再调用 initHeader
+	 *
+	 * @return ByteBuffer 响应报文的报头
+	 */
+	private ByteBuffer buildHead() {
+		int capacity = 1024;
+		while (true) {
+			ByteBuffer byteBuffer = ByteBuffer.allocate(capacity);
+			try {
+				writeHead(byteBuffer);
+				byteBuffer.flip();
+				return byteBuffer;
+			} catch (BufferOverflowException e) {
+				capacity = capacity * 4;
+			}
 		}
-		return ByteBuffer.wrap(outputStream.toByteArray());
 	}
 
 	private ByteBuffer readEnd(){
 		if (isCompress) {
-			return ByteBuffer.wrap("0\r\n\r\n".getBytes());
+			return ByteBuffer.wrap(CHUNKED_END);
 		}else{
 			return ByteBuffer.allocate(0);
 		}
@@ -183,13 +199,39 @@ public class Response {
 
 	/**
 	 * 发送数据
+	 * 		报头直接写入线程复用的发送缓冲区, 报文主体能放入剩余空间时与报头一起发送
 	 * @param session socket 会话对象
 	 * @throws IOException IO异常
 	 */
 	public void send(IoSession session) throws IOException {
+		initHeader();
+
+		//准备缓冲区
+		ByteBuffer byteBuffer = HttpHeadCache.getSendBuffer();
+		try {
+			writeHead(byteBuffer);
+		} catch (BufferOverflowException e) {
+			//报头超出缓冲区的大小, 单独构造报头
+			byteBuffer.clear();
+			session.send(buildHead());
+		}
+
+		long bodySize = body.size();
+
+		//报文主体较小且不压缩时与报头合并发送
+		if (!isCompress && bodySize > 0 && bodySize <= byteBuffer.remaining()) {
+			body.read(byteBuffer);
+			session.send(byteBuffer);
+			release();
+			return;
+		}
 
 		//发送报文头
-		session.send(readHead());
+		if (byteBuffer.position() > 0) {
+			byteBuffer.flip();
+			session.send(byteBuffer);
+		}
+		byteBuffer.clear();
 
 		//是否需要压缩
 		if(isCompress){
@@ -199,8 +241,6 @@ public class Response {
 		//发送报文主体
 		if(body.size() != 0) {
 
-			//准备缓冲区
-			ByteBuffer byteBuffer = TByteBuffer.allocateDirect(1024 * 50);
 			int readSize = 0;
 			while (true) {
 
@@ -221,7 +261,7 @@ public class Response {
 
 				//判断是否需要发送 chunked 结束符号
 				if (isCompress() && readSize!=0) {
-					session.send(ByteBuffer.wrap("\r\n".getBytes()));
+					session.send(ByteBuffer.wrap(CRLF));
 				}
 			}
 
@@ -229,7 +269,6 @@ public class Response {
 
 			//发送报文结束符
 			session.send(readEnd());
-			TByteBuffer.release(byteBuffer);
 			release();
 		}
 	}
@@ -105,8 +105,9 @@ public class Body {
 
 		this.bodyFile = bodyFile;
 
+		//保留缓冲区, 转换回字节形式时复用
 		if(byteBufferChannel != null){
-			byteBufferChannel = null;
+			byteBufferChannel.clear();
 		}
 
 		position = 0;
@@ -247,7 +248,7 @@ public class Body {
 			if(type == BodyType.BYTES) {
 				ByteBuffer bodyTmp = ByteBuffer.wrap(body);
 				bodyTmp.position(offset);
-				bodyTmp.limit(length);
+				bodyTmp.limit(offset + length);
 				byteBufferChannel.writeEnd(bodyTmp);
 			}else{
 				TFile.writeFile(bodyFile,true, body, offset, length);
@@ -298,9 +299,22 @@ public class Body {
 				bodyFile.delete();
 			}
 			bodyFile = null;
+
+			//缓冲区可用时恢复为字节形式, 以便对象复用
+			if(byteBufferChannel != null && !byteBufferChannel.isReleased()){
+				type = BodyType.BYTES;
+			}
 		}
 	}
 
+	/**
+	 * 获取缓冲区的容量
+	 * @return 缓冲区的容量, -1: 缓冲区不存在或已释放
+	 */
+	public int capacity(){
+		return byteBufferChannel == null ? -1 : byteBufferChannel.capacity();
+	}
+
 	public void saveAsFile(File destFile) throws IOException {
 		if(type == BodyType.BYTES){
 			TFile.writeFile(destFile, getBodyBytes());
@@ -0,0 +1,345 @@
+package org.voovan.http.server;
+
+import org.voovan.Global;
+import org.voovan.http.server.context.AdmissionConfig;
+import org.voovan.tools.hashwheeltimer.HashWheelTask;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 请求准入控制
+ * 		在请求进入过滤器和路由之前检查, 超出限制的请求直接返回, 不占用后续的处理资源
+ * 		1. 每个 IP 的令牌桶限速, 超出返回 429
+ * 		2. 每个路由的并发数限制, 超出返回 503
+ * 		3. 全局的并发数限制, 启用自适应时根据请求耗时的变化调整: 短期耗时明显高于长期耗时时减小, 出现服务端错误时按比例减小, 超出返回 503
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class AdmissionController {
+
+	/**
+	 * 自适应调整的时间窗口, 单位: 纳秒
+	 */
+	private static final long WINDOW = 100 * 1000000L;
+
+	/**
+	 * 每次调整需要的最少样本数
+	 */
+	private static final int MIN_SAMPLES = 10;
+
+	/**
+	 * 短期耗时超过长期耗时的容忍倍数
+	 */
+	private static final double TOLERANCE = 1.5;
+
+	/**
+	 * 令牌桶空闲多久后清理, 单位: 纳秒
+	 */
+	private static final long BUCKET_IDLE_TIME = 60 * 1000000000L;
+
+	private AdmissionConfig config;
+
+	private final AtomicInteger inflight = new AtomicInteger(0);
+	private volatile double limit;
+	private final int minLimit;
+	private final int maxLimit;
+
+	private final LongAdder rttSum = new LongAdder();
+	private final LongAdder rttCount = new LongAdder();
+	private final LongAdder errorCount = new LongAdder();
+	private final LongAccumulator maxInflight = new LongAccumulator(Math::max, 0);
+	private final ReentrantLock updateLock = new ReentrantLock();
+	private volatile long nextUpdateTime = System.nanoTime() + WINDOW;
+	private double longRtt = 0;
+
+	private final ConcurrentHashMap<String, AtomicInteger> routeInflights;
+	private final ConcurrentHashMap<String, TokenBucket> tokenBuckets;
+
+	private final LongAdder ipRejected = new LongAdder();
+	private final LongAdder routeRejected = new LongAdder();
+	private final LongAdder limitRejected = new LongAdder();
+
+	/**
+	 * 构造函数
+	 * @param config 准入控制配置
+	 */
+	public AdmissionController(AdmissionConfig config) {
+		this.config = config;
+		this.maxLimit = config.getMaxConcurrent();
+		this.minLimit = Math.min(Math.max(config.getMinConcurrent(), 1), maxLimit);
+		this.limit = maxLimit;
+		this.routeInflights = new ConcurrentHashMap<String, AtomicInteger>();
+		this.tokenBuckets = new ConcurrentHashMap<String, TokenBucket>();
+
+		if (config.getIpRate() > 0) {
+			//清理空闲的令牌桶
+			Global.getHashWheelTimer().addTask(new HashWheelTask() {
+				@Override
+				public void run() {
+					long currentTime = System.nanoTime();
+					Iterator<TokenBucket> iterator = tokenBuckets.values().iterator();
+					while (iterator.hasNext()) {
+						if (currentTime - iterator.next().lastTime > BUCKET_IDLE_TIME) {
+							iterator.remove();
+						}
+					}
+				}
+			}, 60, true);
+		}
+	}
+
+	/**
+	 * 获取当前的全局并发数限制
+	 * @return 全局并发数限制
+	 */
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	 * 获取正在处理的请求数
+	 * @return 正在处理的请求数
+	 */
+	public int getInflight() {
+		return inflight.get();
+	}
+
+	public long getIpRejected() {
+		return ipRejected.sum();
+	}
+
+	public long getRouteRejected() {
+		return routeRejected.sum();
+	}
+
+	public long getLimitRejected() {
+		return limitRejected.sum();
+	}
+
+	/**
+	 * 设置路由的并发数限制
+	 * @param routePath 路由路径
+	 * @param maxConcurrent 最大并发数, 小于等于 0 则使用默认的路由并发数限制
+	 */
+	public void setRouteLimit(String routePath, int maxConcurrent) {
+		if (maxConcurrent > 0) {
+			config.getRouteLimits().put(routePath, maxConcurrent);
+		} else {
+			config.getRouteLimits().remove(routePath);
+		}
+	}
+
+	/**
+	 * 是否需要按路由限制并发数
+	 * @return true: 需要按路由限制
+	 */
+	public boolean hasRouteLimit() {
+		return config.getRouteMaxConcurrent() > 0 || !config.getRouteLimits().isEmpty();
+	}
+
+	/**
+	 * 请求准入
+	 * 		拒绝时填充 429/503 响应
+	 * @param request HTTP 请求对象
+	 * @param response HTTP 响应对象
+	 * @param routePath 匹配到的路由路径, 为 null 时不做路由的并发数限制
+	 * @return 准入许可, 处理完成后必须调用 release, 拒绝时返回 null
+	 */
+	public Permit acquire(HttpRequest request, HttpResponse response, String routePath) {
+		//IP 限速
+		if (config.getIpRate() > 0) {
+			String remoteAddress = request.getRemoteAddres();
+			if (remoteAddress != null) {
+				TokenBucket tokenBucket = tokenBuckets.get(remoteAddress);
+				if (tokenBucket == null) {
+					tokenBucket = tokenBuckets.computeIfAbsent(remoteAddress, key -> new TokenBucket(config.getIpBurst()));
+				}
+
+				if (!tokenBucket.tryAcquire(config.getIpRate(), config.getIpBurst())) {
+					ipRejected.increment();
+					reject(response, 429, "Too Many Requests");
+					return null;
+				}
+			}
+		}
+
+		//路由的并发数限制
+		AtomicInteger routeInflight = null;
+		if (routePath != null) {
+			Integer routeLimit = config.getRouteLimits().get(routePath);
+			routeLimit = routeLimit == null ? config.getRouteMaxConcurrent() : routeLimit;
+			if (routeLimit > 0) {
+				routeInflight = routeInflights.computeIfAbsent(routePath, key -> new AtomicInteger(0));
+				if (routeInflight.incrementAndGet() > routeLimit) {
+					routeInflight.decrementAndGet();
+					routeRejected.increment();
+					reject(response, 503, "Service Unavailable");
+					return null;
+				}
+			}
+		}
+
+		//全局的并发数限制
+		int current = inflight.incrementAndGet();
+		if (current > (int) limit) {
+			inflight.decrementAndGet();
+			if (routeInflight != null) {
+				routeInflight.decrementAndGet();
+			}
+			limitRejected.increment();
+			reject(response, 503, "Service Unavailable");
+			return null;
+		}
+		maxInflight.accumulate(current);
+
+		return new Permit(routeInflight);
+	}
+
+	private void reject(HttpResponse response, int status, String statusCode) {
+		response.protocol().setStatus(status);
+		response.protocol().setStatusCode(statusCode);
+		response.header().put("Retry-After", Integer.toString(config.getRetryAfter()));
+		response.header().put("Connection", "close");
+		response.write(statusCode);
+	}
+
+	/**
+	 * 记录请求的处理结果, 按时间窗口调整全局的并发数限制
+	 * @param rtt 处理耗时, 单位: 纳秒
+	 * @param error 是否是服务端错误
+	 */
+	private void record(long rtt, boolean error) {
+		if (!config.isAdaptive()) {
+			return;
+		}
+
+		rttSum.add(rtt);
+		rttCount.increment();
+		if (error) {
+			errorCount.increment();
+		}
+
+		long currentTime = System.nanoTime();
+		if (currentTime >= nextUpdateTime && updateLock.tryLock()) {
+			try {
+				if (currentTime >= nextUpdateTime && rttCount.sum() >= MIN_SAMPLES) {
+					updateLimit();
+					nextUpdateTime = currentTime + WINDOW;
+				}
+			} finally {
+				updateLock.unlock();
+			}
+		}
+	}
+
+	private void updateLimit() {
+		long count = rttCount.sumThenReset();
+		double shortRtt = (double) rttSum.sumThenReset() / count;
+		long errors = errorCount.sumThenReset();
+		long windowMaxInflight = maxInflight.getThenReset();
+
+		if (longRtt == 0) {
+			longRtt = shortRtt;
+		} else {
+			longRtt = longRtt * 0.95 + shortRtt * 0.05;
+			//负载下降后长期耗时快速回落, 避免长期耗时偏高导致限制过松
+			if (longRtt > shortRtt * 2) {
+				longRtt = longRtt * 0.9 + shortRtt * 0.1;
+			}
+		}
+
+		double currentLimit = limit;
+		double newLimit;
+		if (errors > 0) {
+			//出现服务端错误, 按比例减小
+			newLimit = currentLimit * 0.7;
+		} else {
+			//耗时上升时按比例减小, 否则按 sqrt(limit) 增加
+			double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+			newLimit = currentLimit * gradient + Math.sqrt(currentLimit);
+
+			//并发数没有达到限制的一半时不增加限制
+			if (windowMaxInflight < currentLimit / 2) {
+				newLimit = Math.min(newLimit, currentLimit);
+			}
+		}
+
+		newLimit = currentLimit * 0.8 + newLimit * 0.2;
+		limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+	}
+
+	/**
+	 * 准入许可
+	 */
+	public class Permit {
+		private final long startTime;
+		private final AtomicInteger routeInflight;
+
+		private Permit(AtomicInteger routeInflight) {
+			this.startTime = System.nanoTime();
+			this.routeInflight = routeInflight;
+		}
+
+		/**
+		 * 请求处理完成
+		 * @param error 是否是服务端错误
+		 */
+		public void release(boolean error) {
+			inflight.decrementAndGet();
+			if (routeInflight != null) {
+				routeInflight.decrementAndGet();
+			}
+			record(System.nanoTime() - startTime, error);
+		}
+	}
+
+	/**
+	 * 令牌桶
+	 */
+	private static class TokenBucket {
+		private double tokens;
+		private volatile long lastTime;
+
+		private TokenBucket(int burst) {
+			this.tokens = burst;
+			this.lastTime = System.nanoTime();
+		}
+
+		private synchronized boolean tryAcquire(int rate, int burst) {
+			long currentTime = System.nanoTime();
+			tokens = Math.min(burst, tokens + (currentTime - lastTime) * rate / 1e9);
+			lastTime = currentTime;
+
+			if (tokens >= 1) {
+				tokens--;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * 获取统计信息
+	 * @return 统计信息 { Limit, Inflight, IpRejected, RouteRejected, LimitRejected }
+	 */
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+		statistics.put("Limit", getLimit());
+		statistics.put("Inflight", getInflight());
+		statistics.put("IpRejected", getIpRejected());
+		statistics.put("RouteRejected", getRouteRejected());
+		statistics.put("LimitRejected", getLimitRejected());
+		return statistics;
+	}
+}
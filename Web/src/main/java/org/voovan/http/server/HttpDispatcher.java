@@ -7,9 +7,9 @@ import org.voovan.http.server.exception.ResourceNotFound;
 import org.voovan.http.server.exception.RouterNotFound;
 import org.voovan.http.server.router.MimeFileRouter;
 import org.voovan.tools.*;
+import org.voovan.tools.cache.SegmentedLruMap;
 import org.voovan.tools.log.Logger;
 
-import java.io.File;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URLDecoder;
@@ -39,18 +39,48 @@ import java.util.regex.Matcher;
  */
 public class HttpDispatcher {
 
+	/**
+	 * 请求属性: 匹配到的已注册路由, 用于按路由模板统计请求
+	 */
+	public static final String ROUTE_PATH_ATTR = "VOOVAN_ROUTE_PATH";
+
 	private static Map<String, String> REGEXED_ROUTER_CACHE = new ConcurrentHashMap<String, String>();
-	private static Map<String, List<Object>> ROUTER_INFO_CACHE = new ConcurrentHashMap<String, List<Object>>();
 
 	/**
 	 * [MainKey] = HTTP method ,[Value] = { [Value Key] = Route path, [Value value] = RouteBuiz对象 }
 	 */
 	private Map<String, Map<String, HttpRouter>> methodRouters;
+
+	/**
+	 * [Key] = HTTP method ,[Value] = 编译后的路由基数树
+	 */
+	private Map<String, RouteTree<HttpRouter>> methodRouteTrees;
+
+	/**
+	 * [Key] = HTTP method ,[Value] = { [Value Key] = 请求路径, [Value value] = 路由信息 }
+	 * 有界缓存, 长尾路径会被淘汰, 避免缓存无限增长
+	 */
+	private Map<String, SegmentedLruMap<String, List<Object>>> methodRouterInfoCaches;
+
+	/**
+	 * [Key] = 已注册路由, [Value] = 路由信息, 同一路由模板的不同请求路径共享同一个路由信息对象
+	 */
+	private Map<RouteTree.Route<HttpRouter>, List<Object>> templateRouterInfos;
 	private WebServerConfig webConfig;
 	private SessionManager sessionManager;
 	private MimeFileRouter mimeFileRouter;
 	private String[] indexFiles;
 
+	/**
+	 * 请求准入控制, 未配置时为 null
+	 */
+	private AdmissionController admissionController;
+
+	/**
+	 * 编译后的过滤器管道, 过滤器链修改后重新编译
+	 */
+	private volatile FilterPipeline filterPipeline;
+
 	/**
 	 * 构造函数
 	 *
@@ -61,9 +91,11 @@ public class HttpDispatcher {
 
 		//清理缓存的路由正则
 		REGEXED_ROUTER_CACHE.clear();
-		ROUTER_INFO_CACHE.clear();
 
 		methodRouters = new LinkedHashMap<String, Map<String, HttpRouter>>();
+		methodRouteTrees = new ConcurrentHashMap<String, RouteTree<HttpRouter>>();
+		methodRouterInfoCaches = new ConcurrentHashMap<String, SegmentedLruMap<String, List<Object>>>();
+		templateRouterInfos = new ConcurrentHashMap<RouteTree.Route<HttpRouter>, List<Object>>();
 		this.webConfig = webConfig;
 		this.sessionManager = sessionManager;
 
@@ -81,7 +113,20 @@ public class HttpDispatcher {
 		this.addRouteMethod("OPTIONS");
 
 		// Mime静态文件默认请求处理
-		mimeFileRouter = new MimeFileRouter(webConfig.getContextPath());
+		mimeFileRouter = new MimeFileRouter(webConfig.getContextPath(), webConfig.getStaticFileCacheSize() * 1024);
+
+		//请求准入控制
+		if(webConfig.isAdmission()) {
+			admissionController = new AdmissionController(webConfig.getAdmission());
+		}
+	}
+
+	/**
+	 * 获取请求准入控制对象
+	 * @return 请求准入控制对象, 未配置时返回 null
+	 */
+	public AdmissionController getAdmissionController() {
+		return admissionController;
 	}
 
 	/**
@@ -92,6 +137,34 @@ public class HttpDispatcher {
 		return methodRouters;
 	}
 
+	/**
+	 * 获取路由解析缓存
+	 * @return 路由解析缓存 { [Key] = HTTP method ,[Value] = 路由解析缓存 }
+	 */
+	public Map<String, SegmentedLruMap<String, List<Object>>> getRouterInfoCaches(){
+		return methodRouterInfoCaches;
+	}
+
+	/**
+	 * 获取路由解析缓存的统计信息
+	 * @return 统计信息 { [Key] = HTTP method ,[Value] = { Size, MaxSize, Hit, Miss, Eviction, HitRate } }
+	 */
+	public Map<String, Map<String, Object>> getRouterInfoCacheStatistics(){
+		Map<String, Map<String, Object>> statistics = new LinkedHashMap<String, Map<String, Object>>();
+		for(Map.Entry<String, SegmentedLruMap<String, List<Object>>> entry : methodRouterInfoCaches.entrySet()){
+			SegmentedLruMap<String, List<Object>> routerInfoCache = entry.getValue();
+			Map<String, Object> statistic = new LinkedHashMap<String, Object>();
+			statistic.put("Size", routerInfoCache.size());
+			statistic.put("MaxSize", routerInfoCache.getMaxSize());
+			statistic.put("Hit", routerInfoCache.getHitCount());
+			statistic.put("Miss", routerInfoCache.getMissCount());
+			statistic.put("Eviction", routerInfoCache.getEvictionCount());
+			statistic.put("HitRate", routerInfoCache.getHitRate());
+			statistics.put(entry.getKey(), statistic);
+		}
+		return statistics;
+	}
+
 	/**
 	 * 增加新的路由方法,例如:HTTP 方法 GET、POST 等等
 	 *
@@ -114,6 +187,9 @@ public class HttpDispatcher {
 				}
 			});
 			methodRouters.put(method, routers);
+			methodRouteTrees.put(method, new RouteTree<HttpRouter>(webConfig.isMatchRouteIgnoreCase()));
+			int routeCacheSize = webConfig.getRouteCacheSize() > 0 ? webConfig.getRouteCacheSize() : 10000;
+			methodRouterInfoCaches.put(method, new SegmentedLruMap<String, List<Object>>(routeCacheSize));
 		}
 	}
 
@@ -147,7 +223,12 @@ public class HttpDispatcher {
 	 */
 	public void addRouteHandler(String method, String routeRegexPath, HttpRouter router) {
 		if (methodRouters.keySet().contains(method)) {
-			methodRouters.get(method).put(fixRoutePath(routeRegexPath), router);
+			String routePath = fixRoutePath(routeRegexPath);
+			methodRouters.get(method).put(routePath, router);
+			methodRouteTrees.get(method).addRoute(routePath, router);
+
+			//新增路由可能改变已缓存路径的匹配结果
+			methodRouterInfoCaches.get(method).clear();
 		}
 	}
 
@@ -158,79 +239,120 @@ public class HttpDispatcher {
 	 * @param response   HTTP 响应
 	 */
 	public void process(HttpRequest request, HttpResponse response){
-		Chain<HttpFilterConfig> filterConfigs = webConfig.getFilterConfigs().clone();
+		//请求准入, 管理和监控请求不受限制
+		AdmissionController.Permit permit = null;
+		if(admissionController != null) {
+			String method = request.protocol().getMethod();
+			if(!method.equals("ADMIN") && !method.equals("MONITOR")) {
+				permit = admissionController.acquire(request, response, findRoutePath(request));
+				if (permit == null) {
+					WebContext.writeAccessLog(webConfig, request, response);
+					return;
+				}
+			}
+		}
 
-		Object filterResult = null;
+		try {
+			FilterPipeline filterPipeline = getFilterPipeline();
 
-		request.setSessionManager(sessionManager);
+			Object filterResult = null;
 
-		//正向过滤器处理,请求有可能被 Redirect 所以过滤器执行放在开始
-		filterResult = disposeFilter(filterConfigs,request,response);
+			request.setSessionManager(sessionManager);
 
-		//如果 response 在过滤器中修改过,则不执行路由处理
-		if(response.body().size()==0) {
-			//调用处理路由函数
-			disposeRoute(request, response);
-		}
+			//正向过滤器处理,请求有可能被 Redirect 所以过滤器执行放在开始
+			filterResult = disposeFilter(filterPipeline, request, response);
 
-		//反向过滤器处理
-		filterResult = disposeInvertedFilter(filterConfigs,request,response);
+			//如果 response 在过滤器中修改过,则不执行路由处理
+			if (response.body().size() == 0) {
+				//调用处理路由函数
+				disposeRoute(request, response);
+			}
+
+			//反向过滤器处理
+			filterResult = disposeInvertedFilter(filterPipeline, request, response);
 
-		//向 HttpResponse 中放置 Session 的 Cookie
-		if(request.sessionExists()){
-			HttpSession session = request.getSession();
-			session.attach(request, response);
+			//向 HttpResponse 中放置 Session 的 Cookie
+			if (request.sessionExists()) {
+				HttpSession session = request.getSession();
+				session.attach(request, response);
+			}
+		} finally {
+			if(permit != null) {
+				permit.release(response.protocol().getStatus() >= 500);
+			}
 		}
 
 		//输出访问日志
 		WebContext.writeAccessLog(webConfig, request, response);
 	}
 
+	/**
+	 * 获取用于路由并发数限制的路由路径
+	 * @param request 请求对象
+	 * @return 已注册路由的路径, 静态文件或者不需要按路由限制时返回 null
+	 */
+	private String findRoutePath(HttpRequest request) {
+		if(!admissionController.hasRouteLimit()) {
+			return null;
+		}
+
+		List<Object> routerInfo = findRouter(request);
+		if(routerInfo == null || routerInfo.get(1) == mimeFileRouter) {
+			return null;
+		}
+
+		return (String) routerInfo.get(0);
+	}
+
 	/**
 	 * 判断当前的请求是否是静态文件
 	 * @param request request 请求对象
 	 * @return true: 存在静态文件, false: 不存在静态文件
 	 */
 	public boolean isStaticFile(HttpRequest request) {
-		File staticFile = mimeFileRouter.getStaticFile(request);
-		if(staticFile.exists() && staticFile.isFile()){
-			return true;
-		} else {
-			return false;
-		}
+		return mimeFileRouter.isStaticFile(request);
 	}
 
 	/**
 	 * 获取路由处理对象和注册路由
+	 * 		带路径参数的路由在匹配时同时抽取路径参数, 与路由信息一起按请求路径缓存
 	 * @param request 请求对象
-	 * @return 路由信息对象 { 路由标签, [ 匹配到的已注册路由, HttpRouter对象 ] }
+	 * @return 路由信息对象 { 路由标签, [ 匹配到的已注册路由, HttpRouter对象, 路径参数(只读, 可选) ] }
 	 */
 	public List<Object> findRouter(HttpRequest request){
 		String requestPath   = request.protocol().getPath();
 		String requestMethod 	= request.protocol().getMethod();
-		String routerMark    = requestPath+requestMethod;
 
-		List<Object> routerInfo = ROUTER_INFO_CACHE.get(routerMark);
+		SegmentedLruMap<String, List<Object>> routerInfoCache = methodRouterInfoCaches.get(requestMethod);
+		List<Object> routerInfo = routerInfoCache == null ? null : routerInfoCache.get(requestPath);
 
 		if(routerInfo==null) {
 			//判断是否是静态文件
 			if(isStaticFile(request)){
 				routerInfo = TObject.asList(request.protocol().getPath(), mimeFileRouter);
-				ROUTER_INFO_CACHE.put(routerMark, routerInfo);
-				return routerInfo;
 			} else {
-				Map<String, HttpRouter> routers = methodRouters.get(requestMethod);
-				for (Map.Entry<String, HttpRouter> routeEntry : routers.entrySet()) {
-					String routePath = routeEntry.getKey();
-					//寻找匹配的路由对象
-					if (matchPath(requestPath, routePath, webConfig.isMatchRouteIgnoreCase())) {
+				RouteTree<HttpRouter> routeTree = methodRouteTrees.get(requestMethod);
+				//寻找匹配的路由对象
+				Map<String, String> pathVariables = new HashMap<String, String>();
+				RouteTree.Route<HttpRouter> route = routeTree == null ? null : routeTree.match(requestPath, pathVariables);
+				if (route != null) {
+					if(route.getRoutePath().indexOf(':') >= 0) {
+						//[ 匹配到的已注册路由, HttpRouter对象, 路径参数 ]
+						routerInfo = TObject.asList(route.getRoutePath(), route.getValue(), Collections.unmodifiableMap(pathVariables));
+					} else {
 						//[ 匹配到的已注册路由, HttpRouter对象 ]
-						routerInfo = TObject.asList(routePath, routeEntry.getValue());
-						ROUTER_INFO_CACHE.put(routerMark, routerInfo);
-						return routerInfo;
+						routerInfo = templateRouterInfos.get(route);
+						if (routerInfo == null) {
+							routerInfo = TObject.asList(route.getRoutePath(), route.getValue());
+							templateRouterInfos.put(route, routerInfo);
+						}
 					}
 				}
 			}
+
+			if(routerInfo != null && routerInfoCache != null){
+				routerInfoCache.put(requestPath, routerInfo);
+			}
 		}
 
 		return routerInfo;
@@ -242,9 +364,7 @@ public class HttpDispatcher {
 	 * @param response    Http响应对象
 	 */
 	public void disposeRoute(HttpRequest request, HttpResponse response){
-		String requestPath = request.protocol().getPath();
-
-		//[ 匹配到的已注册路由, HttpRouter对象 ]
+		//[ 匹配到的已注册路由, HttpRouter对象, 路径参数(可选) ]
 		List<Object> routerInfo = findRouter(request);
 
 		if (routerInfo!=null) {
@@ -252,10 +372,13 @@ public class HttpDispatcher {
 				String routePath = (String)routerInfo.get(0);
 				HttpRouter router = (HttpRouter)routerInfo.get(1);
 
-				//获取路径变量
-				Map<String, String> pathVariables = fetchPathVariables(requestPath, routePath);
-				if(pathVariables!=null) {
-					request.getParameters().putAll(pathVariables);
+				if(router != mimeFileRouter) {
+					request.setAttributes(ROUTE_PATH_ATTR, routePath);
+
+					//匹配路由时抽取的路径变量, 直接填充到请求参数中
+					if(routerInfo.size() > 2) {
+						request.getParameters().putAll((Map<String, String>) routerInfo.get(2));
+					}
 				}
 
 				//处理路由请求
@@ -280,19 +403,15 @@ public class HttpDispatcher {
 	 * @return 成功匹配到定义首页索引文件的名返回 true,否则返回 false
 	 */
 	public boolean tryIndex(HttpRequest request,HttpResponse response){
-		for (String indexFile : indexFiles) {
-			String requestPath 	= request.protocol().getPath();
-			String filePath = webConfig.getContextPath() + requestPath.replace("/",File.separator) + (requestPath.endsWith("/") ? "" : File.separator) + indexFile;
-			if(TFile.fileExists(filePath)){
-				try {
-					String newRequestPath = requestPath + (requestPath.endsWith("/") ? "" : "/") + indexFile;
-					request.protocol().setPath(newRequestPath);
-					mimeFileRouter.process(request,response);
-				} catch (Exception e) {
-					exceptionMessage(request, response, e);
-				}
-				return true;
+		String newRequestPath = mimeFileRouter.findIndex(request.protocol().getPath(), indexFiles);
+		if(newRequestPath != null){
+			try {
+				request.protocol().setPath(newRequestPath);
+				mimeFileRouter.process(request,response);
+			} catch (Exception e) {
+				exceptionMessage(request, response, e);
 			}
+			return true;
 		}
 		return false;
 	}
@@ -384,6 +503,21 @@ public class HttpDispatcher {
 		}
 	}
 
+	/**
+	 * 获取编译后的过滤器管道
+	 * 		过滤器链修改后重新编译, 否则复用上次编译的结果
+	 * @return 过滤器管道
+	 */
+	private FilterPipeline getFilterPipeline() {
+		Object[] filterConfigs = webConfig.getFilterConfigs().snapshot();
+		FilterPipeline pipeline = filterPipeline;
+		if(pipeline == null || pipeline.source != filterConfigs) {
+			pipeline = new FilterPipeline(filterConfigs);
+			filterPipeline = pipeline;
+		}
+		return pipeline;
+	}
+
 	/**
 	 * //正向处理过滤器
 	 * @param filterConfigs   HTTP过滤器配置对象
@@ -392,13 +526,17 @@ public class HttpDispatcher {
 	 * @return 过滤器最后的结果
 	 */
 	public Object disposeFilter(Chain<HttpFilterConfig> filterConfigs, HttpRequest request, HttpResponse response) {
-		filterConfigs.rewind();
+		return disposeFilter(new FilterPipeline(filterConfigs.snapshot()), request, response);
+	}
+
+	private Object disposeFilter(FilterPipeline filterPipeline, HttpRequest request, HttpResponse response) {
+		HttpFilterConfig[] filterConfigs = filterPipeline.filterConfigs;
+		HttpFilter[] httpFilters = filterPipeline.httpFilters;
 		Object filterResult = null;
-		while(filterConfigs.hasNext()){
-			HttpFilterConfig filterConfig = filterConfigs.next();
-			HttpFilter httpFilter = filterConfig.getHttpFilterInstance();
-			if(httpFilter!=null) {
-				filterResult = httpFilter.onRequest(filterConfig, request, response, filterResult);
+		for(int i = 0; i < httpFilters.length; i++){
+			HttpFilterConfig filterConfig = filterConfigs[i];
+			if(filterConfig.isMatch(request)) {
+				filterResult = httpFilters[i].onRequest(filterConfig, request, response, filterResult);
 				if(filterResult==null){
 					break;
 				}
@@ -416,13 +554,17 @@ public class HttpDispatcher {
 	 * @return 过滤器最后的结果
 	 */
 	public Object disposeInvertedFilter(Chain<HttpFilterConfig> filterConfigs, HttpRequest request, HttpResponse response) {
-		filterConfigs.rewind();
+		return disposeInvertedFilter(new FilterPipeline(filterConfigs.snapshot()), request, response);
+	}
+
+	private Object disposeInvertedFilter(FilterPipeline filterPipeline, HttpRequest request, HttpResponse response) {
+		HttpFilterConfig[] filterConfigs = filterPipeline.filterConfigs;
+		HttpFilter[] httpFilters = filterPipeline.httpFilters;
 		Object filterResult = null;
-		while(filterConfigs.hasPrevious()){
-			HttpFilterConfig filterConfig = filterConfigs.previous();
-			HttpFilter httpFilter = filterConfig.getHttpFilterInstance();
-			if(httpFilter!=null) {
-				filterResult = httpFilter.onResponse(filterConfig, request, response, filterResult);
+		for(int i = httpFilters.length - 1; i >= 0; i--){
+			HttpFilterConfig filterConfig = filterConfigs[i];
+			if(filterConfig.isMatch(request)) {
+				filterResult = httpFilters[i].onResponse(filterConfig, request, response, filterResult);
 				if(filterResult==null){
 					break;
 				}
@@ -432,6 +574,33 @@ public class HttpDispatcher {
 		return filterResult;
 	}
 
+	/**
+	 * 编译后的过滤器管道
+	 * 		保存过滤器配置和已经实例化的过滤器, 实例化失败的过滤器不会出现在管道中
+	 */
+	private static class FilterPipeline {
+		private final Object[] source;
+		private final HttpFilterConfig[] filterConfigs;
+		private final HttpFilter[] httpFilters;
+
+		private FilterPipeline(Object[] source) {
+			List<HttpFilterConfig> configList = new ArrayList<HttpFilterConfig>();
+			List<HttpFilter> filterList = new ArrayList<HttpFilter>();
+			for(Object item : source) {
+				HttpFilterConfig filterConfig = (HttpFilterConfig) item;
+				HttpFilter httpFilter = filterConfig.getHttpFilterInstance();
+				if(httpFilter != null) {
+					configList.add(filterConfig);
+					filterList.add(httpFilter);
+				}
+			}
+
+			this.source = source;
+			this.filterConfigs = configList.toArray(new HttpFilterConfig[0]);
+			this.httpFilters = filterList.toArray(new HttpFilter[0]);
+		}
+	}
+
 	/**
 	 * 异常消息处理
 	 *
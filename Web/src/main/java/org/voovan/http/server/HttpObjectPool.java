@@ -0,0 +1,110 @@
+package org.voovan.http.server;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * HTTP 请求/响应对象池
+ *      已清理的请求/响应对象连同 Body 的缓冲区一起复用
+ *      每个线程持有少量对象, 超出的对象归还到所有线程共享的有界对象池, 本线程没有对象时从共享对象池借出,
+ *      对象在接收数据的线程借出, 在发送完成的线程归还, 两者不是同一个线程时通过共享对象池流转
+ *      对象的归属: 从对象池借出后归当前请求所有, 在 onSent 中响应发送完成后归还, 归还后不能再使用,
+ *      因此不能在请求处理结束后继续持有请求/响应对象, 例如保存到会话的属性或者异步任务中, 需要时复制其中的数据
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpObjectPool {
+
+	/**
+	 * 每个线程缓存的对象数量
+	 */
+	private static final int POOL_SIZE = 8;
+
+	/**
+	 * 共享对象池缓存的对象数量
+	 */
+	private static final int SHARED_POOL_SIZE = 256;
+
+	/**
+	 * 可以复用的 Body 缓冲区的最大容量, 超过则释放, 避免大报文的缓冲区常驻内存
+	 */
+	private static final int MAX_BODY_CAPACITY = 1024 * 256;
+
+	private static final ThreadLocal<ArrayDeque<HttpRequest>> REQUEST_POOL = ThreadLocal.withInitial(() -> new ArrayDeque<HttpRequest>(POOL_SIZE));
+	private static final ThreadLocal<ArrayDeque<HttpResponse>> RESPONSE_POOL = ThreadLocal.withInitial(() -> new ArrayDeque<HttpResponse>(POOL_SIZE));
+	private static final ArrayBlockingQueue<HttpRequest> SHARED_REQUEST_POOL = new ArrayBlockingQueue<HttpRequest>(SHARED_POOL_SIZE);
+	private static final ArrayBlockingQueue<HttpResponse> SHARED_RESPONSE_POOL = new ArrayBlockingQueue<HttpResponse>(SHARED_POOL_SIZE);
+
+	/**
+	 * 借出一个请求对象
+	 * @return 已清理的请求对象
+	 */
+	public static HttpRequest borrowRequest(){
+		HttpRequest request = REQUEST_POOL.get().pollLast();
+		if(request == null) {
+			request = SHARED_REQUEST_POOL.poll();
+		}
+		return request == null ? new HttpRequest() : request;
+	}
+
+	/**
+	 * 借出一个响应对象
+	 * @return 已清理的响应对象
+	 */
+	public static HttpResponse borrowResponse(){
+		HttpResponse response = RESPONSE_POOL.get().pollLast();
+		if(response == null) {
+			response = SHARED_RESPONSE_POOL.poll();
+		}
+		return response == null ? new HttpResponse() : response;
+	}
+
+	/**
+	 * 归还请求对象
+	 * @param request 请求对象
+	 */
+	public static void restore(HttpRequest request){
+		if(request.body().capacity() > 0 && request.body().capacity() <= MAX_BODY_CAPACITY){
+			request.recycle();
+
+			ArrayDeque<HttpRequest> pool = REQUEST_POOL.get();
+			if(pool.size() < POOL_SIZE) {
+				pool.addLast(request);
+				return;
+			}
+
+			if(SHARED_REQUEST_POOL.offer(request)) {
+				return;
+			}
+		}
+
+		request.release();
+	}
+
+	/**
+	 * 归还响应对象
+	 *      只有通过 borrowResponse 借出的对象可以归还
+	 * @param response 响应对象
+	 */
+	public static void restore(HttpResponse response){
+		if(response.body().capacity() > 0 && response.body().capacity() <= MAX_BODY_CAPACITY){
+			response.recycle();
+
+			ArrayDeque<HttpResponse> pool = RESPONSE_POOL.get();
+			if(pool.size() < POOL_SIZE) {
+				pool.addLast(response);
+				return;
+			}
+
+			if(SHARED_RESPONSE_POOL.offer(response)) {
+				return;
+			}
+		}
+
+		response.body().release();
+	}
+}
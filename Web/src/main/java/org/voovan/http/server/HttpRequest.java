@@ -6,10 +6,12 @@ import org.voovan.http.message.packet.Part;
 import org.voovan.http.server.context.WebContext;
 import org.voovan.network.IoSession;
 import org.voovan.tools.TString;
+import org.voovan.tools.json.JSONDecode;
 import org.voovan.tools.reflect.TReflect;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.text.ParseException;
 import java.util.*;
 
@@ -47,6 +49,46 @@ public class HttpRequest extends Request {
 		this.socketSession = socketSession;
 	}
 
+	/**
+	 * 构造函数
+	 * 		用于对象复用, 请求报文由 HttpParser 直接填充
+	 */
+	protected HttpRequest(){
+		super();
+		parameters = new LinkedHashMap<String, String>();
+		attributes = new HashMap<String, Object>();
+	}
+
+	/**
+	 * 初始化复用的请求对象, 在请求报文填充后调用
+	 * @param characterSet  字符集
+	 * @param socketSession socket 会话对象
+	 */
+	protected void init(String characterSet, IoSession socketSession){
+		this.characterSet = characterSet;
+		this.socketSession = socketSession;
+		parseQueryString();
+	}
+
+	/**
+	 * 清理请求对象, 以便复用
+	 * 		Body 的缓冲区保留, Part 的缓冲区释放
+	 */
+	protected void recycle(){
+		for(Part part : parts()){
+			part.body().release();
+		}
+
+		clear();
+		parameters.clear();
+		attributes.clear();
+		session = null;
+		remoteAddres = null;
+		remotePort = 0;
+		socketSession = null;
+		sessionManager = null;
+	}
+
 	protected void setSessionManager(SessionManager sessionManager) {
 		this.sessionManager = sessionManager;
 	}
@@ -350,6 +392,26 @@ public class HttpRequest extends Request {
 		}
 	}
 
+	/**
+	 * 将 HTTP 请求的报文, 使用 JSON 转换成一个 Java 对象
+	 * 		直接从报文的字节数组中解析并绑定到目标类型, 不需要先转换成字符串
+	 * @param type  自定义数据类型
+	 * @param <T> 范型
+	 * @return 自定义数据类型的对象,转换时字段忽略大小写
+	 */
+	public <T>T getBodyAsObject(Type type){
+		byte[] bodyBytes = body().getBodyBytes();
+		if(bodyBytes == null || bodyBytes.length == 0){
+			return null;
+		}
+
+		try {
+			return JSONDecode.fromJSON(bodyBytes, type, true);
+		} catch (ReflectiveOperationException | ParseException e) {
+			throw new RuntimeException("Conver body to "+type.getTypeName()+" error.",e);
+		}
+	}
+
 	/**
 	 * 获取请求参数名称集合
 	 *
@@ -1,10 +1,11 @@
 package org.voovan.http.server;
 
+import org.voovan.http.message.HttpHeadCache;
 import org.voovan.http.message.Response;
 import org.voovan.network.IoSession;
-import org.voovan.tools.TDateTime;
+import org.voovan.tools.json.JSON;
 
-import java.util.Date;
+import java.io.OutputStream;
 
 /**
  * WebServer 响应对象
@@ -18,6 +19,9 @@ import java.util.Date;
 public class HttpResponse extends Response {
 	private String	characterSet;
 	private IoSession socketSession;
+	private boolean recyclable;
+	//复用的响应对象对应的请求对象, 响应发送完成后一起归还
+	private HttpRequest request;
 
 	/**
 	 * 构造 HTTP 响应对象
@@ -29,10 +33,65 @@ public class HttpResponse extends Response {
 		super(response);
 		this.characterSet=characterSet;
 		//设置当前响应的时间
-		this.header().put("Date",TDateTime.formatToGMT(new Date()));
+		this.header().put("Date",HttpHeadCache.getDate());
 		this.socketSession = socketSession;
 	}
 
+	/**
+	 * 构造函数
+	 * 		用于对象复用, Body 的缓冲区由 HttpObjectPool 管理, 发送后不释放
+	 */
+	protected HttpResponse() {
+		super();
+		this.recyclable = true;
+	}
+
+	/**
+	 * 初始化复用的响应对象
+	 * @param characterSet 字符集
+	 * @param socketSession   Socket会话对象
+	 */
+	protected void init(String characterSet, IoSession socketSession) {
+		this.characterSet=characterSet;
+		//设置当前响应的时间
+		this.header().put("Date",HttpHeadCache.getDate());
+		this.socketSession = socketSession;
+	}
+
+	/**
+	 * 清理响应对象, 以便复用
+	 */
+	protected void recycle() {
+		super.clear();
+		setCompress(false);
+		socketSession = null;
+		request = null;
+	}
+
+	/**
+	 * 获取复用的响应对象对应的请求对象
+	 * @return 请求对象
+	 */
+	protected HttpRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * 设置复用的响应对象对应的请求对象
+	 * @param request 请求对象
+	 */
+	protected void setRequest(HttpRequest request) {
+		this.request = request;
+	}
+
+	@Override
+	public void release() {
+		//复用的响应对象的缓冲区在对象池中释放
+		if(!recyclable) {
+			super.release();
+		}
+	}
+
 	/**
 	 * 获取 socket 会话对象
 	 * @return socket 会话对象
@@ -98,6 +157,31 @@ public class HttpResponse extends Response {
 		}
 	}
 	
+	/**
+	 * 将对象转换成 JSON 写入报文
+	 * 		UTF-8 编码时直接写入报文, 不生成中间的字符串, 内容和 JSON.toJSON 一致
+	 *
+	 * @param object 对象
+	 */
+	public void writeJSON(Object object) {
+		if(!"UTF-8".equalsIgnoreCase(characterSet)){
+			write(JSON.toJSON(object));
+			return;
+		}
+
+		JSON.toJSON(object, new OutputStream() {
+			@Override
+			public void write(int b) {
+				body().write(new byte[]{(byte) b});
+			}
+
+			@Override
+			public void write(byte[] bytes, int offset, int length) {
+				body().write(bytes, offset, length);
+			}
+		});
+	}
+
 	/**
 	 * 清理报文
 	 */
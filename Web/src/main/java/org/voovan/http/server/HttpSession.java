@@ -1,14 +1,21 @@
 package org.voovan.http.server;
 
-import org.voovan.Global;
 import org.voovan.http.message.packet.Cookie;
 import org.voovan.http.server.context.WebContext;
 import org.voovan.http.server.context.WebServerConfig;
 import org.voovan.network.IoSession;
 import org.voovan.tools.TString;
-import org.voovan.tools.hashwheeltimer.HashWheelTask;
+import org.voovan.tools.json.JSON;
+import org.voovan.tools.reflect.TReflect;
 import org.voovan.tools.reflect.annotation.NotSerialization;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -22,6 +29,9 @@ import java.util.concurrent.ConcurrentHashMap;
  * Licence: Apache v2 License
  */
 public class HttpSession {
+	//序列化数据的标识, 用于区分 JSON 格式
+	private static final byte SERIALIZE_MARK = (byte) 0xE5;
+
 	private Map<String,Object> attributes;
 	private String id ;
 	private int maxInactiveInterval;
@@ -32,10 +42,13 @@ public class HttpSession {
 	private IoSession socketSession;
 
 	private boolean needSave;
-	private boolean isAutoCleanRun;
 
+	//与远程容器同步的时间, 用于判断近端缓存是否有效
+	@NotSerialization
+	private volatile long syncTime;
+	//上次保存的时间, 用于刷新远程容器中的超时时间
 	@NotSerialization
-	private CleanTask cleanTask= null;
+	private volatile long saveTime;
 
 
 	/**
@@ -59,41 +72,40 @@ public class HttpSession {
 		this.socketSession = socketSession;
 
 		needSave = false;
-		isAutoCleanRun = false;
+		syncTime = lastTimeillis;
 	}
 
-	private void autoClean(){
-		if(!isAutoCleanRun) {
-			//如果 session 可以自清除则不进行清理
-			if (!sessionManager.autoExpire()) {
-				cleanTask = new CleanTask(sessionManager, id);
-
-				Global.getHashWheelTimer().addTask(cleanTask, maxInactiveInterval / 1000);
-			}
-			isAutoCleanRun = true;
-		}
+	/**
+	 * 用于从远程容器中读取的会话实例化
+	 * @param id Session ID
+	 * @param maxInactiveInterval 最大活动时间, 单位: 毫秒
+	 * @param lastTimeillis 最后访问时间
+	 */
+	private HttpSession(String id, int maxInactiveInterval, long lastTimeillis){
+		this.id = id;
+		this.attributes = new ConcurrentHashMap<String, Object>();
+		this.maxInactiveInterval = maxInactiveInterval;
+		this.lastTimeillis = lastTimeillis;
+		this.needSave = false;
+		this.syncTime = System.currentTimeMillis();
+		this.saveTime = this.syncTime;
 	}
 
-	private class CleanTask extends HashWheelTask {
-
-		@NotSerialization
-		private String sessionId;
-		private SessionManager sessionManager;
+	/**
+	 * 未反序列化的属性
+	 * 		保存属性序列化后的数据(UTF-8 编码的 JSON), 在第一次访问时反序列化
+	 */
+	private static class LazyAttribute {
+		private final byte[] data;
 
-		public CleanTask(SessionManager sessionManager, String sessionId) {
-			this.sessionId = sessionId;
-			this.sessionManager = sessionManager;
+		private LazyAttribute(byte[] data) {
+			this.data = data;
 		}
 
-		@Override
-		public void run() {
-			HttpSession session = sessionManager.getSession(sessionId);
-			if (session!=null && session.isExpire()) {
-				sessionManager.removeSession(session);
-				this.cancel();
-			}
+		private Object decode() {
+			return JSON.parse(new String(data, StandardCharsets.UTF_8));
 		}
-	};
+	}
 
 	/**
 	 * 用于从会话池中取出的会话实例化
@@ -137,7 +149,16 @@ public class HttpSession {
 	 * @return 属性值
 	 */
 	public Object getAttribute(String name) {
-		return attributes.get(name);
+		Object value = attributes.get(name);
+		if(value instanceof LazyAttribute) {
+			Object attribute = ((LazyAttribute) value).decode();
+			//并发访问时保留先反序列化的对象
+			if(attribute != null && !attributes.replace(name, value, attribute)) {
+				attribute = attributes.get(name);
+			}
+			return attribute;
+		}
+		return value;
 	}
 
 	/**
@@ -173,6 +194,9 @@ public class HttpSession {
 	 *  @return Session 的属性Map
 	 */
 	public Map<String,Object> attribute() {
+		for(String name : attributes.keySet()) {
+			getAttribute(name);
+		}
 		return attributes;
 	}
 
@@ -220,6 +244,18 @@ public class HttpSession {
 		needSave = true;
 	}
 
+	public long getLastTimeillis() {
+		return lastTimeillis;
+	}
+
+	long getSyncTime() {
+		return syncTime;
+	}
+
+	void setSyncTime(long syncTime) {
+		this.syncTime = syncTime;
+	}
+
 	/**
 	 * 当前 Session 是否失效
 	 *
@@ -234,23 +270,150 @@ public class HttpSession {
 	 * 保存 Session
 	 */
 	public void save(){
-		if(sessionManager!=null && needSave) {
-			sessionManager.saveSession(this);
-			autoClean();
+		if(sessionManager!=null && (needSave || isExpireNeedRefresh())) {
 			needSave = false;
+			saveTime = System.currentTimeMillis();
+			sessionManager.saveSession(this);
 		}
 	}
 
+	/**
+	 * 远程容器中的 Session 由容器负责超时清理, 超过一半的最大活动时间未保存则需要重新保存以刷新超时时间
+	 * @return true: 需要重新保存, false: 不需要
+	 */
+	private boolean isExpireNeedRefresh(){
+		return !sessionManager.isLocalContainer() && System.currentTimeMillis() - saveTime > maxInactiveInterval / 2;
+	}
+
 	/**
 	 * 释放 Session
 	 */
 	public void release(){
-		if(sessionManager!=null && needSave) {
-			cleanTask.cancel();
+		if(sessionManager!=null) {
 			sessionManager.removeSession(this);
 		}
 	}
 
+	/**
+	 * 序列化 Session, 用于保存到远程容器
+	 * 		格式: 标识(1字节) + id + 最大活动时间 + 上次活动时间 + 基本类型属性的 JSON + [属性名 + 长度 + 属性的 JSON]...
+	 * 		基本类型的属性保存在同一个 JSON 中, 其他属性分别保存为 UTF-8 编码的 JSON, 读取时延迟反序列化
+	 * 		未访问过的属性直接使用读取时的数据, 不重复序列化
+	 * @return 序列化后的字节数组
+	 */
+	public byte[] serialize(){
+		Map<String, Object> basicAttributes = new LinkedHashMap<String, Object>();
+		Map<String, byte[]> serializedAttributes = new LinkedHashMap<String, byte[]>();
+
+		for(Map.Entry<String, Object> entry : attributes.entrySet()) {
+			Object value = entry.getValue();
+			if(value instanceof LazyAttribute) {
+				serializedAttributes.put(entry.getKey(), ((LazyAttribute) value).data);
+			} else if(value == null || TReflect.isBasicType(value.getClass())) {
+				basicAttributes.put(entry.getKey(), value);
+			} else {
+				serializedAttributes.put(entry.getKey(), JSON.toJSON(value).getBytes(StandardCharsets.UTF_8));
+			}
+		}
+
+		try {
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream);
+			outputStream.writeByte(SERIALIZE_MARK);
+			outputStream.writeUTF(id);
+			outputStream.writeInt(maxInactiveInterval);
+			outputStream.writeLong(lastTimeillis);
+			writeBytes(outputStream, JSON.toJSON(basicAttributes).getBytes(StandardCharsets.UTF_8));
+			outputStream.writeInt(serializedAttributes.size());
+			for(Map.Entry<String, byte[]> entry : serializedAttributes.entrySet()) {
+				outputStream.writeUTF(entry.getKey());
+				writeBytes(outputStream, entry.getValue());
+			}
+			outputStream.flush();
+			return byteArrayOutputStream.toByteArray();
+		} catch (IOException e) {
+			//写入内存不会出现 IO 异常
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void writeBytes(DataOutputStream outputStream, byte[] bytes) throws IOException {
+		outputStream.writeInt(bytes.length);
+		outputStream.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream inputStream) throws IOException {
+		byte[] bytes = new byte[inputStream.readInt()];
+		inputStream.readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * 反序列化 Session
+	 * @param data 序列化后的字节数组
+	 * @return HttpSession 对象, 格式错误时返回 null
+	 */
+	public static HttpSession deserialize(byte[] data){
+		if(data == null || data.length == 0 || data[0] != SERIALIZE_MARK) {
+			return null;
+		}
+
+		try {
+			DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(data, 1, data.length - 1));
+			HttpSession httpSession = new HttpSession(inputStream.readUTF(), inputStream.readInt(), inputStream.readLong());
+
+			putBasicAttributes(httpSession, JSON.parse(new String(readBytes(inputStream), StandardCharsets.UTF_8)));
+
+			int count = inputStream.readInt();
+			for(int i = 0; i < count; i++) {
+				httpSession.attributes.put(inputStream.readUTF(), new LazyAttribute(readBytes(inputStream)));
+			}
+
+			return httpSession;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 反序列化 Session
+	 * 		用于直接使用 JSON.toJSON 序列化的 Session
+	 * @param json 序列化后的 JSON 字符串
+	 * @param config WEB服务配置对象
+	 * @return HttpSession 对象, 格式错误时返回 null
+	 */
+	public static HttpSession deserialize(String json, WebServerConfig config){
+		Object parsedObject = JSON.parse(json);
+		if(!(parsedObject instanceof Map)) {
+			return null;
+		}
+
+		Map<String, Object> sessionMap = (Map<String, Object>) parsedObject;
+		Object id = sessionMap.get("id");
+		if(id == null) {
+			return null;
+		}
+
+		Object maxInactiveInterval = sessionMap.get("maxInactiveInterval");
+		Object lastTimeillis = sessionMap.get("lastTimeillis");
+		HttpSession httpSession = new HttpSession(id.toString(),
+				maxInactiveInterval instanceof Number ? ((Number) maxInactiveInterval).intValue() : config.getSessionTimeout()*60*1000,
+				lastTimeillis instanceof Number ? ((Number) lastTimeillis).longValue() : System.currentTimeMillis());
+
+		putBasicAttributes(httpSession, sessionMap.get("attributes"));
+		return httpSession;
+	}
+
+	private static void putBasicAttributes(HttpSession httpSession, Object basicAttributes) {
+		if(basicAttributes instanceof Map) {
+			for(Map.Entry<String, Object> entry : ((Map<String, Object>) basicAttributes).entrySet()) {
+				if(entry.getValue() != null) {
+					httpSession.attributes.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+	}
+
 	/**
 	 * 绑定当前 Session 到一个 http 请求响应对
 	 * @param request   请求对象
@@ -0,0 +1,452 @@
+package org.voovan.http.server;
+
+import org.voovan.tools.log.Logger;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 路由基数树
+ *      将注册的路由编译成基数树, 查找的复杂度只和请求路径的长度相关, 和路由的数量无关
+ *      支持的路由形式:
+ *          静态片段: /user/list
+ *          参数片段: /user/:id, /user-:id, 参数匹配到下一个 "/" 之前的所有字符, 至少匹配一个字符
+ *          通配符:   /static/*, /a/星号/c, 通配符匹配任意字符(包括 "/")
+ *      匹配优先级: 静态片段 > 参数片段 > 通配符, 匹配失败时回溯
+ *      包含其他正则表达式字符的路由无法编译, 仍然按注册路由的长度倒序使用正则进行匹配
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class RouteTree<T> {
+
+	private static final String REGEX_CHARS = "[](){}+?^$|\\";
+
+	private static final ThreadLocal<int[]> CAPTURES = new ThreadLocal<int[]>(){
+		@Override
+		protected int[] initialValue() {
+			return new int[16];
+		}
+	};
+
+	private final boolean ignoreCase;
+	private final Node<T> root;
+	private volatile int maxParamCount;
+
+	/**
+	 * 无法编译的路由, 按路由长度倒序
+	 */
+	private volatile TreeMap<String, Route<T>> regexRoutes;
+
+	/**
+	 * 构造函数
+	 * @param ignoreCase 匹配路由是否忽略大小写
+	 */
+	public RouteTree(boolean ignoreCase) {
+		this.ignoreCase = ignoreCase;
+		this.root = new Node<T>(Node.STATIC, "");
+		this.maxParamCount = 0;
+		this.regexRoutes = newRegexRouteMap();
+	}
+
+	private static <T> TreeMap<String, Route<T>> newRegexRouteMap(){
+		return new TreeMap<String, Route<T>>(new Comparator<String>() {
+			@Override
+			public int compare(String o1, String o2) {
+				if(o1.length() > o2.length()){
+					return -1;
+				} else if(o1.length() < o2.length()){
+					return 1;
+				} else {
+					return o1.compareTo(o2);
+				}
+			}
+		});
+	}
+
+	/**
+	 * 匹配路由是否忽略大小写
+	 * @return true: 忽略大小写, false: 区分大小写
+	 */
+	public boolean isIgnoreCase() {
+		return ignoreCase;
+	}
+
+	/**
+	 * 增加一个路由
+	 *      相同的路由重复增加时, 后增加的路由会覆盖之前的路由
+	 * @param routePath 路由路径, 需要是经过 HttpDispatcher.fixRoutePath 修正过的路径
+	 * @param value 路由对应的处理对象
+	 */
+	public synchronized void addRoute(String routePath, T value) {
+		Route<T> route = new Route<T>(routePath, value);
+
+		if(!isCompilable(routePath)){
+			TreeMap<String, Route<T>> newRegexRoutes = newRegexRouteMap();
+			newRegexRoutes.putAll(regexRoutes);
+			newRegexRoutes.put(routePath, route);
+			regexRoutes = newRegexRoutes;
+			return;
+		}
+
+		Node<T> node = root;
+		int paramCount = 0;
+		int index = 0;
+
+		while(index < routePath.length()){
+			char c = routePath.charAt(index);
+			if(c == ':'){
+				int end = paramNameEnd(routePath, index + 1);
+				route.addParamName(routePath.substring(index + 1, end));
+				paramCount++;
+				node = node.getOrCreateParamChild();
+				index = end;
+			} else if(c == '*'){
+				node = node.getOrCreateWildcardChild();
+				index++;
+			} else {
+				int end = index;
+				while(end < routePath.length() && routePath.charAt(end) != ':' && routePath.charAt(end) != '*'){
+					end++;
+				}
+				String segment = routePath.substring(index, end);
+				node = node.insertStatic(ignoreCase ? segment.toLowerCase() : segment);
+				index = end;
+			}
+		}
+
+		node.route = route;
+
+		if(paramCount > maxParamCount){
+			maxParamCount = paramCount;
+		}
+	}
+
+	/**
+	 * 查找匹配的路由
+	 * @param path 请求路径
+	 * @param parameters 用于保存路径参数的 Map, 为 null 则不抽取路径参数
+	 * @return 匹配到的路由, 没有匹配到则返回 null
+	 */
+	public Route<T> match(String path, Map<String, String> parameters) {
+		int[] captures = CAPTURES.get();
+		if(captures.length < maxParamCount * 2) {
+			captures = new int[maxParamCount * 2];
+			CAPTURES.set(captures);
+		}
+
+		Node<T> node = matchChildren(root, path, 0, captures, 0);
+		if(node != null) {
+			Route<T> route = node.route;
+			if(parameters != null) {
+				for (int i = 0; i < route.paramNames.length; i++) {
+					String value = path.substring(captures[i * 2], captures[i * 2 + 1]);
+					parameters.put(route.paramNames[i], decode(value));
+				}
+			}
+			return route;
+		}
+
+		//使用正则匹配无法编译的路由
+		for(Route<T> route : regexRoutes.values()) {
+			if(HttpDispatcher.matchPath(path, route.routePath, ignoreCase)){
+				if(parameters!=null) {
+					Map<String, String> pathVariables = HttpDispatcher.fetchPathVariables(path, route.routePath);
+					if (pathVariables != null) {
+						parameters.putAll(pathVariables);
+					}
+				}
+				return route;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * 判断是否已经匹配到路径结尾, 路径结尾的 "/" 是可选的
+	 */
+	private static boolean isPathEnd(String path, int index){
+		return index == path.length() || (index == path.length() - 1 && path.charAt(index) == '/');
+	}
+
+	private Node<T> matchChildren(Node<T> node, String path, int index, int[] captures, int captureCount){
+		if(node.route != null && isPathEnd(path, index)){
+			return node;
+		}
+
+		//静态片段
+		if(index < path.length()) {
+			char c = lower(path.charAt(index));
+			Node<T>[] staticChildren = node.staticChildren;
+			for (Node<T> child : staticChildren) {
+				if (child.prefix.charAt(0) == c) {
+					if (regionMatches(path, index, child.prefix)) {
+						Node<T> result = matchChildren(child, path, index + child.prefix.length(), captures, captureCount);
+						if (result != null) {
+							return result;
+						}
+					}
+					break;
+				}
+			}
+		}
+
+		//参数片段, 不匹配空的片段
+		Node<T> paramChild = node.paramChild;
+		if(paramChild != null){
+			int end = index;
+			while(end < path.length()){
+				char c = path.charAt(end);
+				if(c == '/' || c == ':' || c == '?'){
+					break;
+				}
+				end++;
+			}
+
+			if(end > index) {
+				captures[captureCount * 2] = index;
+				captures[captureCount * 2 + 1] = end;
+				Node<T> result = matchChildren(paramChild, path, end, captures, captureCount + 1);
+				if (result != null) {
+					return result;
+				}
+			}
+		}
+
+		//通配符, 最短匹配
+		Node<T> wildcardChild = node.wildcardChild;
+		if(wildcardChild != null){
+			for(int end = index; end <= path.length(); end++){
+				Node<T> result = matchChildren(wildcardChild, path, end, captures, captureCount);
+				if(result != null){
+					return result;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private char lower(char c){
+		return ignoreCase ? Character.toLowerCase(c) : c;
+	}
+
+	private boolean regionMatches(String path, int index, String prefix){
+		if(path.length() - index < prefix.length()){
+			return false;
+		}
+
+		for(int i=0; i<prefix.length(); i++){
+			if(lower(path.charAt(index + i)) != prefix.charAt(i)){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static String decode(String value){
+		if(value.indexOf('%') < 0 && value.indexOf('+') < 0){
+			return value;
+		}
+
+		try {
+			return URLDecoder.decode(value, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			Logger.error("RoutePath URLDecoder.decode failed by charset: UTF-8", e);
+			return value;
+		}
+	}
+
+	/**
+	 * 获取路径参数名的结束位置
+	 */
+	private static int paramNameEnd(String routePath, int index){
+		while(index < routePath.length()){
+			char c = routePath.charAt(index);
+			if(c == '/' || c == ':' || c == '?' || c == '*'){
+				break;
+			}
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * 判断路由是否能够编译到基数树中
+	 * @param routePath 路由路径
+	 * @return true: 可以编译, false: 只能使用正则匹配
+	 */
+	public static boolean isCompilable(String routePath){
+		int index = 0;
+		while(index < routePath.length()){
+			char c = routePath.charAt(index);
+			if(c == ':'){
+				int end = paramNameEnd(routePath, index + 1);
+				//参数后面紧跟参数的形式无法确定边界
+				if(end < routePath.length() && routePath.charAt(end) == ':'){
+					return false;
+				}
+				index = end;
+				continue;
+			}
+			if(REGEX_CHARS.indexOf(c) >= 0){
+				return false;
+			}
+			index++;
+		}
+		return true;
+	}
+
+	/**
+	 * 路由信息
+	 * @param <T> 路由处理对象的类型
+	 */
+	public static class Route<T> {
+		private static final String[] EMPTY_NAMES = new String[0];
+
+		private String routePath;
+		private T value;
+		private String[] paramNames;
+
+		public Route(String routePath, T value) {
+			this.routePath = routePath;
+			this.value = value;
+			this.paramNames = EMPTY_NAMES;
+		}
+
+		private void addParamName(String paramName){
+			String[] newParamNames = new String[paramNames.length + 1];
+			System.arraycopy(paramNames, 0, newParamNames, 0, paramNames.length);
+			newParamNames[paramNames.length] = paramName;
+			paramNames = newParamNames;
+		}
+
+		public String getRoutePath() {
+			return routePath;
+		}
+
+		public T getValue() {
+			return value;
+		}
+
+		public String[] getParamNames() {
+			return paramNames;
+		}
+	}
+
+	/**
+	 * 基数树节点
+	 *      子节点数组采用写时复制, 查找时无需加锁
+	 * @param <T> 路由处理对象的类型
+	 */
+	private static class Node<T> {
+		private static final int STATIC = 0;
+		private static final int PARAM = 1;
+		private static final int WILDCARD = 2;
+
+		private final int type;
+		private final String prefix;
+		private volatile Node<T>[] staticChildren;
+		private volatile Node<T> paramChild;
+		private volatile Node<T> wildcardChild;
+		private volatile Route<T> route;
+
+		private Node(int type, String prefix) {
+			this.type = type;
+			this.prefix = prefix;
+			this.staticChildren = new Node[0];
+		}
+
+		/**
+		 * 复制节点, 并使用新的前缀
+		 */
+		private Node<T> copy(String newPrefix) {
+			Node<T> node = new Node<T>(type, newPrefix);
+			node.staticChildren = staticChildren;
+			node.paramChild = paramChild;
+			node.wildcardChild = wildcardChild;
+			node.route = route;
+			return node;
+		}
+
+		private Node<T> getOrCreateParamChild() {
+			if(paramChild == null){
+				paramChild = new Node<T>(PARAM, "");
+			}
+			return paramChild;
+		}
+
+		private Node<T> getOrCreateWildcardChild() {
+			if(wildcardChild == null){
+				wildcardChild = new Node<T>(WILDCARD, "");
+			}
+			return wildcardChild;
+		}
+
+		private void replaceStaticChild(int index, Node<T> child) {
+			Node<T>[] newChildren = staticChildren.clone();
+			newChildren[index] = child;
+			staticChildren = newChildren;
+		}
+
+		/**
+		 * 插入静态片段, 必要时拆分已有的节点
+		 * @param segment 静态片段
+		 * @return 静态片段结束位置的节点
+		 */
+		private Node<T> insertStatic(String segment) {
+			Node<T> node = this;
+
+			while(segment.length() > 0) {
+				Node<T>[] children = node.staticChildren;
+				int childIndex = -1;
+				for (int i = 0; i < children.length; i++) {
+					if (children[i].prefix.charAt(0) == segment.charAt(0)) {
+						childIndex = i;
+						break;
+					}
+				}
+
+				//没有公共前缀的子节点, 直接增加
+				if (childIndex == -1) {
+					Node<T> child = new Node<T>(STATIC, segment);
+					Node<T>[] newChildren = new Node[children.length + 1];
+					System.arraycopy(children, 0, newChildren, 0, children.length);
+					newChildren[children.length] = child;
+					node.staticChildren = newChildren;
+					return child;
+				}
+
+				Node<T> child = children[childIndex];
+				int commonLength = 0;
+				int maxLength = Math.min(child.prefix.length(), segment.length());
+				while (commonLength < maxLength && child.prefix.charAt(commonLength) == segment.charAt(commonLength)) {
+					commonLength++;
+				}
+
+				//拆分子节点, 构造新的节点后再替换, 保证并发查找时看到的树是完整的
+				if (commonLength < child.prefix.length()) {
+					Node<T> splitNode = new Node<T>(STATIC, child.prefix.substring(0, commonLength));
+					Node<T>[] splitChildren = new Node[1];
+					splitChildren[0] = child.copy(child.prefix.substring(commonLength));
+					splitNode.staticChildren = splitChildren;
+					node.replaceStaticChild(childIndex, splitNode);
+					child = splitNode;
+				}
+
+				node = child;
+				segment = segment.substring(commonLength);
+			}
+
+			return node;
+		}
+	}
+}
@@ -1,20 +1,34 @@
 package org.voovan.http.server;
 
+import org.voovan.Global;
 import org.voovan.http.message.packet.Cookie;
 import org.voovan.http.server.context.WebServerConfig;
-import org.voovan.tools.json.JSON;
+import org.voovan.tools.cache.CacheMap;
+import org.voovan.tools.cache.SegmentedLruMap;
+import org.voovan.tools.hashwheeltimer.HashWheelTask;
+import org.voovan.tools.hashwheeltimer.TimeoutWheel;
 import org.voovan.tools.log.Logger;
 import org.voovan.tools.reflect.TReflect;
 
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * WebServer session 管理器
  * 在 nosql 中指定默认的超时 Session 清理节点(key=SESSION_MANAGER_SERVER)的服务名
  * 可以保证集群中只有一个节点进行超时 Session 的清理工作
  *
+ * 本地容器(ConcurrentHashMap 及其子类)直接保存 HttpSession 对象
+ * 远程容器(例如: RedisMap)保存序列化后的 Session:
+ * 		本地的近端缓存保存最近使用的 Session, 在 NEAR_CACHE_TTL 内不再访问远程容器
+ * 		Session 的修改先记录在本地, 由定时任务批量写入远程容器(write-behind)
+ * 		属性在第一次访问时才反序列化, 未访问过的属性写回时直接使用原有的序列化数据
+ * 容器不支持超时清理时, 由一个超时时间轮统一清理超时的 Session
+ *
  * 用到的 Map 接口的实现类的方法: keySet, containsKey, put, get, remove
  *
  * @author helyho
@@ -24,12 +38,28 @@ import java.util.concurrent.ConcurrentHashMap;
  * Licence: Apache v2 License
  */
 public class SessionManager{
+	/**
+	 * 近端缓存的容量
+	 */
+	public static final int NEAR_CACHE_SIZE = 10000;
+
+	/**
+	 * 近端缓存的有效时间, 超过这个时间重新从远程容器读取, 单位: 毫秒
+	 */
+	public static final long NEAR_CACHE_TTL = 1000;
+
 	private  Map<String, Object> httpSessions;
 
 	private WebServerConfig webConfig;
 
 	private Method expirePutMethod = null;
 
+	private boolean localContainer;
+	private SegmentedLruMap<String, HttpSession> nearCache;
+	private Map<String, HttpSession> dirtySessions;
+	private AtomicBoolean flushing;
+	private TimeoutWheel<String> expireWheel;
+
 	/**
 	 * 构造函数
 	 * @param webConfig Web 服务配置对象
@@ -42,7 +72,32 @@ public class SessionManager{
 			Logger.warn("Create session container from config file failed,now use defaul session container.");
 		}
 
-		autoExpire();
+		localContainer = httpSessions instanceof ConcurrentHashMap;
+
+		if(!localContainer) {
+			nearCache = new SegmentedLruMap<String, HttpSession>(NEAR_CACHE_SIZE);
+			dirtySessions = new ConcurrentHashMap<String, HttpSession>();
+			flushing = new AtomicBoolean(false);
+
+			//批量写入修改过的 Session, 在线程池中执行避免远程访问阻塞时间轮
+			Global.getHashWheelTimer().addTask(new HashWheelTask() {
+				@Override
+				public void run() {
+					flush();
+				}
+			}, 1, true);
+		}
+
+		if(!autoExpire()) {
+			//只在 Session 的截止时间到达时检查一次, 访问 Session 时不需要刷新时间轮
+			expireWheel = new TimeoutWheel<String>(512, 1000, this::checkExpire);
+			Global.getHashWheelTimer().addTask(new HashWheelTask() {
+				@Override
+				public void run() {
+					expireWheel.tick();
+				}
+			}, 1);
+		}
 	}
 
 	/**
@@ -50,6 +105,9 @@ public class SessionManager{
 	 * @return true:支持自清除, false: 不支持自清除
 	 */
 	public boolean autoExpire(){
+		if(httpSessions instanceof CacheMap){
+			return true;
+		}
 
 		if(expirePutMethod == null) {
 			try {
@@ -84,19 +142,99 @@ public class SessionManager{
 
 	/**
 	 * 保存 Session
+	 * 		远程容器只记录需要写入的 Session, 由定时任务批量写入
 	 *
 	 * @param session HTTP-Session对象
 	 */
 	public void saveSession(HttpSession session) {
-		if(!autoExpire()) {
-			httpSessions.put(session.getId(), session);
-		}else{
+		if(localContainer) {
+			if(httpSessions.get(session.getId()) != session) {
+				put(session.getId(), session, session.getMaxInactiveInterval() / 1000);
+			}
+		} else {
+			nearCache.put(session.getId(), session);
+			dirtySessions.put(session.getId(), session);
+		}
+
+		if(expireWheel != null) {
+			expireWheel.touch(session.getId(), session.getMaxInactiveInterval());
+		}
+	}
+
+	/**
+	 * 将修改过的 Session 批量写入远程容器
+	 */
+	public void flush() {
+		if(localContainer || dirtySessions.isEmpty() || !flushing.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			//按超时时间分组批量写入
+			Map<Integer, Map<String, Object>> batches = new HashMap<Integer, Map<String, Object>>();
+			Iterator<HttpSession> iterator = dirtySessions.values().iterator();
+			while (iterator.hasNext()) {
+				HttpSession session = iterator.next();
+				//写入期间近端缓存仍然有效, 避免读到远程容器中的旧数据
+				session.setSyncTime(System.currentTimeMillis());
+				iterator.remove();
+
+				int expire = session.getMaxInactiveInterval() / 1000;
+				batches.computeIfAbsent(expire, key -> new HashMap<String, Object>()).put(session.getId(), session.serialize());
+			}
+
+			for (Map.Entry<Integer, Map<String, Object>> batch : batches.entrySet()) {
+				putAll(batch.getValue(), batch.getKey());
+			}
+		} catch (Exception e) {
+			Logger.error("Flush sessions to session container error", e);
+		} finally {
+			flushing.set(false);
+		}
+	}
+
+	private void put(String id, Object value, int expire) {
+		if(autoExpire()) {
 			try {
-				TReflect.invokeMethod(httpSessions, expirePutMethod, session.getId(), JSON.toJSON(session), session.getMaxInactiveInterval() / 1000);
-			} catch (ReflectiveOperationException e) {
-				httpSessions.put(session.getId(), JSON.toJSON(session));
+				if (httpSessions instanceof CacheMap) {
+					((CacheMap<String, Object>) httpSessions).put(id, value, expire);
+				} else {
+					TReflect.invokeMethod(httpSessions, expirePutMethod, id, value, expire);
+				}
+				return;
+			} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+				//容器不支持超时设置, 直接保存
+			}
+		}
+
+		httpSessions.put(id, value);
+	}
+
+	private void putAll(Map<String, Object> sessions, int expire) {
+		if(httpSessions instanceof CacheMap) {
+			try {
+				((CacheMap<String, Object>) httpSessions).putAll(sessions, expire);
+				return;
+			} catch (UnsupportedOperationException e) {
+				//容器不支持超时设置, 逐个保存
 			}
 		}
+
+		for(Map.Entry<String, Object> entry : sessions.entrySet()) {
+			put(entry.getKey(), entry.getValue(), expire);
+		}
+	}
+
+	/**
+	 * 超时时间轮到期的处理, 未超时的 Session 按剩余时间重新放入时间轮
+	 * @param id session Id
+	 */
+	private void checkExpire(String id) {
+		HttpSession session = getSession(id);
+		if(session != null) {
+			long remaining = session.getMaxInactiveInterval() - (System.currentTimeMillis() - session.getLastTimeillis());
+			expireWheel.touch(id, Math.max(remaining, 1000));
+		}
 	}
 
 	/**
@@ -106,29 +244,47 @@ public class SessionManager{
 	 * @return HTTP-Session对象
 	 */
 	public HttpSession getSession(String id) {
-		if (id!=null && httpSessions.containsKey(id)) {
-
-			Object sessionObject  = httpSessions.get(id);
+		if(id == null) {
+			return null;
+		}
 
-			HttpSession httpSession = null;
+		HttpSession httpSession = null;
 
-			if(sessionObject instanceof HttpSession){
-				httpSession = (HttpSession)sessionObject;
+		if(!localContainer) {
+			httpSession = nearCache.get(id);
+			//近端缓存过期后, 没有待写入修改的 Session 重新从远程容器读取
+			if(httpSession != null && System.currentTimeMillis() - httpSession.getSyncTime() > NEAR_CACHE_TTL
+					&& !dirtySessions.containsKey(id)) {
+				httpSession = null;
 			}
+		}
 
-			if(sessionObject instanceof String) {
-				httpSession = JSON.toObject((String)sessionObject, HttpSession.class);
-			}
+		if(httpSession == null) {
+			Object sessionObject = httpSessions.get(id);
+
+			if (sessionObject instanceof HttpSession) {
+				httpSession = (HttpSession) sessionObject;
+			} else {
+				if (sessionObject instanceof byte[]) {
+					httpSession = HttpSession.deserialize((byte[]) sessionObject);
+				} else if (sessionObject instanceof String) {
+					httpSession = HttpSession.deserialize((String) sessionObject, webConfig);
+				}
 
-			if(httpSession!=null) {
-				if (httpSession.isExpire()) {
-					removeSession(httpSession);
-					return null;
+				if(httpSession != null) {
+					httpSession.init(this, null);
+					nearCache.put(id, httpSession);
 				}
 			}
-			return httpSession;
 		}
-		return null;
+
+		if(httpSession!=null) {
+			if (httpSession.isExpire()) {
+				removeSession(httpSession);
+				return null;
+			}
+		}
+		return httpSession;
 	}
 
 	/**
@@ -138,7 +294,7 @@ public class SessionManager{
 	 * @return HTTP-Session对象
 	 */
 	public HttpSession getSession(Cookie cookie) {
-		if (cookie!=null && httpSessions.containsKey(cookie.getValue())) {
+		if (cookie!=null) {
 			return getSession(cookie.getValue());
 		}
 		return null;
@@ -162,9 +318,16 @@ public class SessionManager{
 	 * @param id 会话 id
 	 */
 	public void removeSession(String id){
-		if(httpSessions.containsKey(id)) {
-			httpSessions.remove(id);
+		if(!localContainer) {
+			nearCache.remove(id);
+			dirtySessions.remove(id);
+		}
+
+		if(expireWheel != null) {
+			expireWheel.remove(id);
 		}
+
+		httpSessions.remove(id);
 	}
 
 	/**
@@ -195,6 +358,14 @@ public class SessionManager{
 		return session;
 	}
 
+	/**
+	 * 判断是否是本地容器
+	 * @return true: 本地容器, 直接保存 Session 对象, false: 远程容器, 保存序列化后的 Session
+	 */
+	public boolean isLocalContainer() {
+		return localContainer;
+	}
+
 	/**
 	 * 构造一个 SessionManager
 	 * @param config WEB 配置对象
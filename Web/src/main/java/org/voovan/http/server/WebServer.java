@@ -38,6 +38,7 @@ public class WebServer {
 	private HttpDispatcher	httpDispatcher;
 	private WebSocketDispatcher webSocketDispatcher;
 	private SessionManager sessionManager;
+	private WebServerHandler webServerHandler;
 	private WebServerConfig config;
 
 	/**
@@ -63,6 +64,14 @@ public class WebServer {
 		return this.sessionManager;
 	}
 
+	/**
+	 * 返回 Socket 事件处理对象
+	 * @return Socket 事件处理对象
+	 */
+	public WebServerHandler getWebServerHandler(){
+		return this.webServerHandler;
+	}
+
 	/**
 	 * 初始化热部署
 	 */
@@ -115,10 +124,14 @@ public class WebServer {
 			SSLManager sslManager = new SSLManager("TLS", false);
 			sslManager.loadCertificate(System.getProperty("user.dir") + config.getHttps().getCertificateFile(),
 					config.getHttps().getCertificatePassword(), config.getHttps().getKeyPassword());
+			if(config.isHttp2()) {
+				sslManager.setApplicationProtocols("h2", "http/1.1");
+			}
 			aioServerSocket.setSSLManager(sslManager);
 		}
 
-		aioServerSocket.handler(new WebServerHandler(config, httpDispatcher, webSocketDispatcher));
+		webServerHandler = new WebServerHandler(config, httpDispatcher, webSocketDispatcher);
+		aioServerSocket.handler(webServerHandler);
 		aioServerSocket.filterChain().add(new WebServerFilter());
 		aioServerSocket.messageSplitter(new HttpMessageSplitter());
 	}
@@ -468,7 +481,8 @@ public class WebServer {
 		this.webSocketDispatcher = new WebSocketDispatcher(config, sessionManager);
 
 		//更新 WebServer 的 http 和 websocket 的分发
-		aioServerSocket.handler(new WebServerHandler(config, httpDispatcher,webSocketDispatcher));
+		webServerHandler = new WebServerHandler(config, httpDispatcher,webSocketDispatcher);
+		aioServerSocket.handler(webServerHandler);
 
 		//输出欢迎信息
 		WebContext.welcome();
@@ -635,6 +649,31 @@ public class WebServer {
 			}
 		});
 
+		otherMethod("ADMIN", "/routecache", new HttpRouter() {
+			@Override
+			public void process(HttpRequest request, HttpResponse response) throws Exception {
+
+				if(hasAdminRight(request)) {
+					response.write(JSON.toJSON(httpDispatcher.getRouterInfoCacheStatistics()));
+				}else{
+					request.getSession().close();
+				}
+			}
+		});
+
+		otherMethod("ADMIN", "/admission", new HttpRouter() {
+			@Override
+			public void process(HttpRequest request, HttpResponse response) throws Exception {
+
+				if(hasAdminRight(request)) {
+					AdmissionController admissionController = httpDispatcher.getAdmissionController();
+					response.write(admissionController == null ? "null" : JSON.toJSON(admissionController.getStatistics()));
+				}else{
+					request.getSession().close();
+				}
+			}
+		});
+
 		otherMethod("ADMIN", "/pid", new HttpRouter() {
 			@Override
 			public void process(HttpRequest request, HttpResponse response) throws Exception {
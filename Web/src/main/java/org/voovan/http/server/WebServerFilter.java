@@ -1,11 +1,14 @@
 package org.voovan.http.server;
 
+import org.voovan.http.http2.Http2Frame;
 import org.voovan.http.message.HttpParser;
 import org.voovan.http.message.Request;
 import org.voovan.http.message.Response;
+import org.voovan.http.server.context.WebContext;
 import org.voovan.http.websocket.WebSocketFrame;
 import org.voovan.network.IoFilter;
 import org.voovan.network.IoSession;
+import org.voovan.network.messagesplitter.HttpMessageSplitter;
 import org.voovan.tools.ByteBufferChannel;
 import org.voovan.tools.log.Logger;
 
@@ -45,6 +48,8 @@ public class WebServerFilter implements IoFilter {
 		} else if(object instanceof WebSocketFrame){
 			WebSocketFrame webSocketFrame = (WebSocketFrame)object;
 			return webSocketFrame.toByteBuffer();
+		} else if(object instanceof Http2Frame){
+			return ((Http2Frame)object).toByteBuffer();
 		}
 		return null;
 	}
@@ -60,11 +65,55 @@ public class WebServerFilter implements IoFilter {
 			session.enabledMessageSpliter(false);
 		}
 
+		Object type = WebServerHandler.getAttribute(session, WebServerHandler.SessionParam.TYPE);
+		boolean http2Preface = WebServerHandler.getAttribute(session, WebServerHandler.SessionParam.HTTP2_PREFACE) != null;
+
+		//HTTP/2 连接前言, 后续的数据按 HTTP/2 帧处理
+		//h2c 升级时前言在 101 响应之后到达, 这时会话类型已经是 HTTP2, 因此必须在帧之前判断
+		if(!http2Preface && byteBuffer.limit() == Http2Frame.PREFACE.length && HttpMessageSplitter.isHttp2Preface(byteBuffer)){
+			if(WebContext.getWebServerConfig().isHttp2()) {
+				WebServerHandler.setAttribute(session, WebServerHandler.SessionParam.HTTP2_PREFACE, true);
+				//h2c 升级由 101 响应发送完成后切换类型
+				if(!"H2cUpgrade".equals(type)) {
+					WebServerHandler.setAttribute(session, WebServerHandler.SessionParam.TYPE, "HTTP2");
+				}
+			} else {
+				session.close();
+			}
+			return null;
+		}
+
+		//HTTP/2 连接, 分割器已经按帧的长度分割
+		if(http2Preface){
+			if(byteBuffer.limit() >= Http2Frame.HEADER_LENGTH) {
+				return Http2Frame.parse(byteBuffer);
+			}
+			return null;
+		} else if("HTTP2".equals(type)) {
+			//协议升级后必须先发送连接前言 (RFC 7540 3.5)
+			session.close();
+			return null;
+		}
+
 		ByteBufferChannel byteBufferChannel = session.getByteBufferChannel();
 		if (isHttpRequest(byteBufferChannel)) {
 			try {
 				if (object instanceof ByteBuffer) {
-					Request request = HttpParser.parseRequest(byteBufferChannel, session.socketContext().getReadTimeout());
+					Request request = null;
+					if(WebContext.getWebServerConfig().isHttpObjectRecycle()) {
+						//复用对象池中的请求对象
+						HttpRequest httpRequest = HttpObjectPool.borrowRequest();
+						try {
+							request = HttpParser.parseRequest(httpRequest, byteBufferChannel, session.socketContext().getReadTimeout());
+						} finally {
+							if(request == null) {
+								HttpObjectPool.restore(httpRequest);
+							}
+						}
+					} else {
+						request = HttpParser.parseRequest(byteBufferChannel, session.socketContext().getReadTimeout());
+					}
+
 					if(request!=null){
 						return request;
 					}else{
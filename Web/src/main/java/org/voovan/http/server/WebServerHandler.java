@@ -1,6 +1,11 @@
 package org.voovan.http.server;
 
 import org.voovan.Global;
+import org.voovan.http.http2.Http2Connection;
+import org.voovan.http.http2.Http2Exception;
+import org.voovan.http.http2.Http2Frame;
+import org.voovan.http.http2.Http2Stream;
+import org.voovan.http.message.packet.Cookie;
 import org.voovan.http.message.Request;
 import org.voovan.http.message.Response;
 import org.voovan.http.server.context.WebContext;
@@ -11,14 +16,19 @@ import org.voovan.http.websocket.WebSocketTools;
 import org.voovan.network.IoHandler;
 import org.voovan.network.IoSession;
 import org.voovan.network.exception.SendMessageException;
+import org.voovan.network.messagesplitter.HttpMessageSplitter;
 import org.voovan.tools.ByteBufferChannel;
 import org.voovan.tools.exception.MemoryReleasedException;
 import org.voovan.tools.hashwheeltimer.HashWheelTask;
+import org.voovan.tools.hashwheeltimer.TimeoutWheel;
 import org.voovan.tools.log.Logger;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * WebServer Socket 事件处理类
@@ -33,7 +43,8 @@ public class WebServerHandler implements IoHandler {
 	private HttpDispatcher		httpDispatcher;
 	private WebSocketDispatcher	webSocketDispatcher;
 	private WebServerConfig webConfig;
-	private List<IoSession> keepAliveSessionList;
+	private TimeoutWheel<IoSession> keepAliveWheel;
+	private AtomicInteger webSocketCount;
 
 
 	public class SessionParam{
@@ -42,13 +53,16 @@ public class WebServerHandler implements IoHandler {
 		public static final int HTTP_RESPONSE = 0x3333;
 		public static final int KEEP_ALIVE = 0x4444;
 		public static final int KEEP_ALIVE_TIMEOUT = 0x5555;
+		public static final int HTTP2_CONNECTION = 0x6666;
+		public static final int HTTP2_PREFACE = HttpMessageSplitter.HTTP2_PREFACE_RECEIVED;
 	}
 
 	public WebServerHandler(WebServerConfig webConfig, HttpDispatcher httpDispatcher, WebSocketDispatcher webSocketDispatcher) {
 		this.httpDispatcher = httpDispatcher;
 		this.webSocketDispatcher = webSocketDispatcher;
 		this.webConfig = webConfig;
-		keepAliveSessionList = new ArrayList<IoSession>();
+		keepAliveWheel = new TimeoutWheel<IoSession>(512, 1000, session -> session.close());
+		webSocketCount = new AtomicInteger(0);
 
 		initKeepAliveTimer();
 
@@ -85,27 +99,8 @@ public class WebServerHandler implements IoHandler {
 
 			@Override
 			public void run() {
-
-				long currentTimeValue = System.currentTimeMillis();
-				//遍历所有的 session
-				for(int i=0; i<keepAliveSessionList.size(); i++){
-
-					IoSession session = keepAliveSessionList.get(i);
-
-					if(session==null){
-						continue;
-					}
-
-					long timeoutValue = getAttribute(session, SessionParam.KEEP_ALIVE_TIMEOUT);
-
-					if(timeoutValue < currentTimeValue){
-						//如果超时则结束当前连接
-						session.close();
-
-						keepAliveSessionList.remove(session);
-						i--;
-					}
-				}
+				//只处理到期槽中的 session, 超时则结束当前连接
+				keepAliveWheel.tick();
 			}
 		} ,1);
 	}
@@ -119,6 +114,7 @@ public class WebServerHandler implements IoHandler {
 	public void onDisconnect(IoSession session) {
 
 		if ("WebSocket".equals(getAttribute(session, SessionParam.TYPE))) {
+			webSocketCount.decrementAndGet();
 
 			// 触发一个 WebSocket Close 事件
 			webSocketDispatcher.fireCloseEvent(session);
@@ -130,8 +126,30 @@ public class WebServerHandler implements IoHandler {
 			}
 		}
 
+		//HTTP/2 释放等待发送的数据
+		Http2Connection http2Connection = getAttribute(session, SessionParam.HTTP2_CONNECTION);
+		if (http2Connection != null) {
+			http2Connection.release();
+		}
+
 		//清理 IoSession
-		keepAliveSessionList.remove(session);
+		keepAliveWheel.remove(session);
+	}
+
+	/**
+	 * 获取等待超时的 keep-alive 连接数
+	 * @return keep-alive 连接数
+	 */
+	public int getKeepAliveCount(){
+		return keepAliveWheel.size();
+	}
+
+	/**
+	 * 获取 WebSocket 连接数
+	 * @return WebSocket 连接数
+	 */
+	public int getWebSocketCount(){
+		return webSocketCount.get();
 	}
 
 	/**
@@ -165,22 +183,36 @@ public class WebServerHandler implements IoHandler {
 			//检查服务是否暂停
 			checkPause(session, request);
 
-			if(!session.isConnected()){
-				return null;
-			}
+			// 构造 Http 请求/响应 对象
+			HttpRequest httpRequest;
+			HttpResponse httpResponse;
+			if(request instanceof HttpRequest) {
+				//由 WebServerFilter 从对象池中借出的请求对象
+				httpRequest = (HttpRequest)request;
+
+				if(!session.isConnected()){
+					HttpObjectPool.restore(httpRequest);
+					return null;
+				}
 
-			// 构造响应对象
-			Response response = new Response();
+				httpRequest.init(defaultCharacterSet, session);
+				httpResponse = HttpObjectPool.borrowResponse();
+				httpResponse.init(defaultCharacterSet, session);
+				httpResponse.setRequest(httpRequest);
+			} else {
+				if(!session.isConnected()){
+					return null;
+				}
+
+				httpRequest = new HttpRequest(request, defaultCharacterSet, session);
+				httpResponse = new HttpResponse(new Response(), defaultCharacterSet, session);
+			}
 
 			if(webConfig.isGzip() && request.header().contain("Accept-Encoding") &&
 					request.header().get("Accept-Encoding").contains("gzip")) {
-				response.setCompress(true);
+				httpResponse.setCompress(true);
 			}
 
-			// 构造 Http 请求/响应 对象
-			HttpRequest httpRequest = new HttpRequest(request, defaultCharacterSet, session);
-			HttpResponse httpResponse = new HttpResponse(response, defaultCharacterSet, session);
-
 			setAttribute(session, SessionParam.HTTP_REQUEST, httpRequest);
 			setAttribute(session, SessionParam.HTTP_RESPONSE, httpResponse);
 
@@ -188,8 +220,12 @@ public class WebServerHandler implements IoHandler {
 			httpRequest.setRemoteAddres(session.remoteAddress());
 			httpRequest.setRemotePort(session.remotePort());
 
+			// HTTP/2 h2c 协议升级处理
+			if (webConfig.isHttp2() && isH2cUpgrade(request)) {
+				return disposeH2cUpgrade(session, httpRequest, httpResponse);
+			}
 			// WebSocket协议升级处理
-			if (WebSocketTools.isWebSocketUpgrade(request)) {
+			else if (WebSocketTools.isWebSocketUpgrade(request)) {
 				return disposeUpgrade(session, httpRequest, httpResponse);
 			}
 			// Http 1.1处理
@@ -201,6 +237,14 @@ public class WebServerHandler implements IoHandler {
 		else if (obj instanceof WebSocketFrame) {
 			return disposeWebSocket(session, (WebSocketFrame)obj);
 		}
+		//处理 HTTP/2 帧
+		else if (obj instanceof Http2Frame) {
+			getHttp2Connection(session).onFrame((Http2Frame)obj);
+			if(webConfig.getKeepAliveTimeout() > 0) {
+				refreshTimeout(session);
+			}
+			return null;
+		}
 
 		// 如果协议判断失败关闭连接
 		session.close();
@@ -222,8 +266,8 @@ public class WebServerHandler implements IoHandler {
 		// 处理响应请求
 		httpDispatcher.process(httpRequest, httpResponse);
 
-		//如果是长连接则填充响应报文
-		if (httpRequest.header().contain("Connection")
+		//如果是长连接则填充响应报文, 响应要求关闭连接时(例如准入控制拒绝请求)不保持连接
+		if (!isConnectionClose(httpResponse) && httpRequest.header().contain("Connection")
 				&& httpRequest.header().get("Connection").toLowerCase().contains("keep-alive")) {
 			setAttribute(session, SessionParam.KEEP_ALIVE, true);
 			httpResponse.header().put("Connection", httpRequest.header().get("Connection"));
@@ -234,6 +278,15 @@ public class WebServerHandler implements IoHandler {
 		return httpResponse;
 	}
 
+	/**
+	 * 判断响应是否要求关闭连接
+	 * @param httpResponse HTTP 响应对象
+	 * @return true: 关闭连接, false: 不关闭连接
+	 */
+	private static boolean isConnectionClose(HttpResponse httpResponse) {
+		return "close".equalsIgnoreCase(httpResponse.header().get("Connection"));
+	}
+
 	/**
 	 * Http协议升级处理
 	 *
@@ -272,6 +325,175 @@ public class WebServerHandler implements IoHandler {
 		return httpResponse;
 	}
 
+	/**
+	 * 判断是否是 h2c 协议升级请求
+	 * @param request HTTP 请求对象
+	 * @return true: 是 h2c 协议升级请求
+	 */
+	private static boolean isH2cUpgrade(Request request) {
+		return request.header() != null && "h2c".equalsIgnoreCase(request.header().get("Upgrade"))
+				&& getHeaderIgnoreCase(request, "HTTP2-Settings") != null;
+	}
+
+	private static String getHeaderIgnoreCase(Request request, String name) {
+		for (Map.Entry<String, String> entry : request.header().getHeaders().entrySet()) {
+			if (entry.getKey().equalsIgnoreCase(name)) {
+				return entry.getValue();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * h2c 协议升级处理
+	 * 		响应 101 之后连接切换为 HTTP/2, 升级请求在流 1 上处理
+	 *
+	 * @param session    HTTP-Session 对象
+	 * @param httpRequest  HTTP 请求对象
+	 * @param httpResponse HTTP 响应对象
+	 * @return HTTP 响应对象
+	 */
+	public HttpResponse disposeH2cUpgrade(IoSession session, HttpRequest httpRequest, HttpResponse httpResponse) {
+		setAttribute(session, SessionParam.TYPE, "H2cUpgrade");
+
+		httpResponse.protocol().setStatus(101);
+		httpResponse.protocol().setStatusCode("Switching Protocols");
+		httpResponse.header().put("Connection", "Upgrade");
+		httpResponse.header().put("Upgrade", "h2c");
+
+		return httpResponse;
+	}
+
+	/**
+	 * 获取会话的 HTTP/2 连接, 不存在则创建并发送服务端的设置
+	 * @param session Socket 会话对象
+	 * @return HTTP/2 连接
+	 */
+	private Http2Connection getHttp2Connection(IoSession session) {
+		Http2Connection http2Connection = getAttribute(session, SessionParam.HTTP2_CONNECTION);
+		if (http2Connection == null) {
+			synchronized (session) {
+				http2Connection = getAttribute(session, SessionParam.HTTP2_CONNECTION);
+				if (http2Connection == null) {
+					http2Connection = new Http2Connection(session, this::disposeHttp2Stream);
+					http2Connection.start();
+					setAttribute(session, SessionParam.HTTP2_CONNECTION, http2Connection);
+				}
+			}
+		}
+		return http2Connection;
+	}
+
+	/**
+	 * HTTP/2 流处理, 在线程池中调用, 同一个连接上的多个流并行处理
+	 * @param http2Connection HTTP/2 连接
+	 * @param stream 请求所在的流
+	 */
+	public void disposeHttp2Stream(Http2Connection http2Connection, Http2Stream stream) {
+		IoSession session = http2Connection.getSession();
+		Request request;
+		try {
+			request = stream.toRequest(session.socketContext().getReadTimeout());
+		} catch (Exception e) {
+			Logger.warn("Parse HTTP/2 request error: " + e.getMessage());
+			http2Connection.resetStream(stream.getId(), Http2Exception.PROTOCOL_ERROR);
+			return;
+		}
+
+		if (request == null) {
+			http2Connection.resetStream(stream.getId(), Http2Exception.PROTOCOL_ERROR);
+			return;
+		}
+
+		HttpRequest httpRequest = new HttpRequest(request, webConfig.getCharacterSet(), session);
+		disposeHttp2Request(http2Connection, stream, httpRequest);
+	}
+
+	/**
+	 * HTTP/2 请求响应处理
+	 * 		HTTP 分发器处理完成后, 将响应转换为 HEADERS 和 DATA 帧发送
+	 * @param http2Connection HTTP/2 连接
+	 * @param stream 请求所在的流
+	 * @param httpRequest HTTP 请求对象
+	 */
+	private void disposeHttp2Request(Http2Connection http2Connection, Http2Stream stream, HttpRequest httpRequest) {
+		IoSession session = http2Connection.getSession();
+		HttpResponse httpResponse = new HttpResponse(new Response(), webConfig.getCharacterSet(), session);
+
+		try {
+			checkPause(session, httpRequest);
+
+			//与 HTTP/1 一致, 会话中记录最近一个请求/响应对象, 多个流并行处理时为最后开始处理的流
+			setAttribute(session, SessionParam.HTTP_REQUEST, httpRequest);
+			setAttribute(session, SessionParam.HTTP_RESPONSE, httpResponse);
+
+			httpRequest.setRemoteAddres(session.remoteAddress());
+			httpRequest.setRemotePort(session.remotePort());
+
+			if (webConfig.isGzip() && httpRequest.header().contain("Accept-Encoding") &&
+					httpRequest.header().get("Accept-Encoding").contains("gzip")) {
+				httpResponse.setCompress(true);
+			}
+
+			httpDispatcher.process(httpRequest, httpResponse);
+
+			byte[] body = null;
+			if (httpResponse.body().size() != 0) {
+				if (httpResponse.isCompress() && httpResponse.body().compress()) {
+					httpResponse.header().put("Content-Encoding", "gzip");
+				}
+				body = httpResponse.body().getBodyBytes();
+			}
+
+			List<String[]> headers = new ArrayList<String[]>();
+			headers.add(new String[]{":status", Integer.toString(httpResponse.protocol().getStatus())});
+			for (Map.Entry<String, String> entry : httpResponse.header().getHeaders().entrySet()) {
+				String name = entry.getKey().toLowerCase(Locale.ENGLISH);
+				//HTTP/2 中禁止使用连接相关的头 (RFC 7540 8.1.2.2)
+				if (name.equals("connection") || name.equals("keep-alive") || name.equals("proxy-connection") ||
+						name.equals("transfer-encoding") || name.equals("upgrade") || name.equals("content-length")) {
+					continue;
+				}
+				if (entry.getValue() != null) {
+					headers.add(new String[]{name, entry.getValue()});
+				}
+			}
+
+			String contentType = httpResponse.header().get("Content-Type");
+			if (contentType == null || contentType.isEmpty()) {
+				headers.add(new String[]{"content-type", "text/html;charset=" + webConfig.getCharacterSet()});
+			} else if (!contentType.contains("charset=")) {
+				replaceHeader(headers, "content-type", contentType + ";charset=" + webConfig.getCharacterSet());
+			}
+
+			headers.add(new String[]{"content-length", Integer.toString(body == null ? 0 : body.length)});
+			for (Cookie cookie : httpResponse.cookies()) {
+				headers.add(new String[]{"set-cookie", cookie.toString()});
+			}
+			headers.add(new String[]{"server", WebContext.getVERSION()});
+
+			boolean hasBody = body != null && body.length > 0 && !"HEAD".equals(httpRequest.protocol().getMethod());
+			http2Connection.sendHeaders(stream, headers, !hasBody);
+			if (hasBody) {
+				http2Connection.sendData(stream, body);
+			}
+		} catch (Exception e) {
+			Logger.error("Process HTTP/2 request error", e);
+			http2Connection.resetStream(stream.getId(), Http2Exception.INTERNAL_ERROR);
+		} finally {
+			httpResponse.release();
+			httpRequest.release();
+		}
+	}
+
+	private static void replaceHeader(List<String[]> headers, String name, String value) {
+		for (String[] header : headers) {
+			if (header[0].equals(name)) {
+				header[1] = value;
+			}
+		}
+	}
+
 	/**
 	 * WebSocket 帧处理
 	 *
@@ -281,14 +503,6 @@ public class WebServerHandler implements IoHandler {
 	 */
 	public WebSocketFrame disposeWebSocket(IoSession session, WebSocketFrame webSocketFrame) {
 
-		ByteBufferChannel byteBufferChannel = null;
-		if(!session.containAttribute("WebSocketByteBufferChannel")){
-			byteBufferChannel = new ByteBufferChannel(session.socketContext().getBufferSize());
-			session.setAttribute("WebSocketByteBufferChannel",byteBufferChannel);
-		}else{
-			byteBufferChannel = (ByteBufferChannel)session.getAttribute("WebSocketByteBufferChannel");
-		}
-
 		HttpRequest reqWebSocket = getAttribute(session, SessionParam.HTTP_REQUEST);
 
 		// WS_CLOSE 如果收到关闭帧则关闭连接
@@ -304,40 +518,92 @@ public class WebServerHandler implements IoHandler {
 			refreshTimeout(session);
 			webSocketDispatcher.firePoneEvent(session, reqWebSocket, webSocketFrame.getFrameData());
 			return null;
-		}else if(webSocketFrame.getOpcode() == WebSocketFrame.Opcode.CONTINUOUS){
-			byteBufferChannel.writeEnd(webSocketFrame.getFrameData());
 		}
-		// WS_RECIVE 文本和二进制消息出发 Recived 事件
-		else if (webSocketFrame.getOpcode() == WebSocketFrame.Opcode.TEXT || webSocketFrame.getOpcode() == WebSocketFrame.Opcode.BINARY) {
+		// WS_RECIVE 文本,二进制和后续分片消息
+		else if (webSocketFrame.getOpcode() == WebSocketFrame.Opcode.TEXT ||
+				webSocketFrame.getOpcode() == WebSocketFrame.Opcode.BINARY ||
+				webSocketFrame.getOpcode() == WebSocketFrame.Opcode.CONTINUOUS) {
+
+			//判断解包是否有错, 解析时出现异常,返回关闭消息
+			if(webSocketFrame.getErrorCode()!=0){
+				return newCloseFrame(webSocketFrame.getErrorCode());
+			}
 
-			byteBufferChannel.writeEnd(webSocketFrame.getFrameData());
-			WebSocketFrame respWebSocketFrame = null;
+			ByteBuffer frameData = webSocketFrame.getFrameData();
 
-			//判断解包是否有错
-			if(webSocketFrame.getErrorCode()==0){
+			//超出最大尺寸的消息, 丢弃剩余的分片直到最后一个分片
+			if(session.containAttribute("WebSocketDiscard")){
+				if(webSocketFrame.getOpcode() == WebSocketFrame.Opcode.CONTINUOUS) {
+					if(webSocketFrame.isFin()) {
+						session.removeAttribute("WebSocketDiscard");
+					}
+					return null;
+				}
+				session.removeAttribute("WebSocketDiscard");
+			}
+
+			//流式处理, 每个分片直接触发 onFragment 事件, 不进行组装
+			if(webSocketDispatcher.isStreaming(session)){
+				return webSocketDispatcher.fireFragmentEvent(session, reqWebSocket, frameData, webSocketFrame.isFin());
+			}
+
+			ByteBufferChannel byteBufferChannel = (ByteBufferChannel)session.getAttribute("WebSocketByteBufferChannel");
+			int bufferedSize = byteBufferChannel == null ? 0 : byteBufferChannel.size();
+
+			//检查消息的最大尺寸
+			int maxMessageSize = webConfig.getWebSocketMaxMessageSize();
+			if(maxMessageSize > 0 && bufferedSize + frameData.remaining() > maxMessageSize){
+				if(byteBufferChannel != null) {
+					byteBufferChannel.clear();
+				}
+				if(!webSocketFrame.isFin()) {
+					session.setAttribute("WebSocketDiscard", true);
+				}
+				return newCloseFrame(1009);
+			}
+
+			//单帧消息, 直接使用帧数据触发 Recived 事件, 不经过缓冲区拷贝
+			if(webSocketFrame.isFin() && bufferedSize == 0){
+				return webSocketDispatcher.fireReceivedEvent(session, reqWebSocket, frameData);
+			}
+
+			//分片消息, 使用缓冲区进行组装
+			if(byteBufferChannel == null){
+				byteBufferChannel = new ByteBufferChannel(session.socketContext().getBufferSize());
+				session.setAttribute("WebSocketByteBufferChannel",byteBufferChannel);
+			}
 
+			byteBufferChannel.writeEnd(frameData);
+
+			//最后一个分片, 触发 Recived 事件
+			if(webSocketFrame.isFin()) {
 				try {
-					respWebSocketFrame = webSocketDispatcher.fireReceivedEvent(session, reqWebSocket, byteBufferChannel.getByteBuffer());
+					return webSocketDispatcher.fireReceivedEvent(session, reqWebSocket, byteBufferChannel.getByteBuffer());
 				} finally {
 					byteBufferChannel.compact();
 					byteBufferChannel.clear();
 				}
-
-			}else{
-				//解析时出现异常,返回关闭消息
-				respWebSocketFrame = WebSocketFrame.newInstance(true, WebSocketFrame.Opcode.CLOSING, false, ByteBuffer.wrap(WebSocketTools.intToByteArray(webSocketFrame.getErrorCode(), 2)));
 			}
-			return respWebSocketFrame;
 		}
 
 		return null;
 	}
 
+	/**
+	 * 构造 WebSocket 关闭帧
+	 * @param closeCode 关闭状态码
+	 * @return WebSocket 帧对象
+	 */
+	private WebSocketFrame newCloseFrame(int closeCode){
+		ByteBuffer closeData = ByteBuffer.allocate(2);
+		closeData.putShort((short)closeCode);
+		closeData.flip();
+		return WebSocketFrame.newInstance(true, WebSocketFrame.Opcode.CLOSING, false, closeData);
+	}
+
 	private void refreshTimeout(IoSession session){
 		int keepAliveTimeout = webConfig.getKeepAliveTimeout();
-		long timeoutValue = System.currentTimeMillis()+keepAliveTimeout*1000;
-		setAttribute(session, SessionParam.KEEP_ALIVE_TIMEOUT, timeoutValue);
-
+		keepAliveWheel.touch(session, keepAliveTimeout*1000L);
 	}
 
 	@Override
@@ -357,10 +623,33 @@ public class WebServerHandler implements IoHandler {
 			}
 		}
 
+		//h2c 协议升级, 101 响应发送完成后切换为 HTTP/2, 升级请求在流 1 上处理
+		if("H2cUpgrade".equals(getAttribute(session, SessionParam.TYPE))){
+			setAttribute(session, SessionParam.TYPE, "HTTP2");
+			if(webConfig.getKeepAliveTimeout() > 0) {
+				refreshTimeout(session);
+			}
+
+			Http2Connection http2Connection = getHttp2Connection(session);
+			try {
+				Http2Stream stream = http2Connection.upgrade(getHeaderIgnoreCase(request, "HTTP2-Settings"));
+				Global.getThreadPool().execute(() -> disposeHttp2Request(http2Connection, stream, request));
+			} catch (Http2Exception e) {
+				http2Connection.close(e.getErrorCode(), e.getMessage());
+				request.release();
+			}
+
+			if(obj instanceof HttpResponse) {
+				((HttpResponse)obj).release();
+			}
+			return;
+		}
+
 		//针对 WebSocket 的处理协议升级
 		if("Upgrade".equals(getAttribute(session, SessionParam.TYPE))){
 			setAttribute(session, SessionParam.TYPE, "WebSocket");
 			setAttribute(session, SessionParam.KEEP_ALIVE, true);
+			webSocketCount.incrementAndGet();
 
 			//触发 onOpen 事件
 			WebSocketFrame webSocketFrame = webSocketDispatcher.fireOpenEvent(session, request);
@@ -393,21 +682,17 @@ public class WebServerHandler implements IoHandler {
 			}, session.socketContext().getReadTimeout()/3/1000);
 		}
 
-		//处理连接保持
-		if (getAttribute(session, SessionParam.KEEP_ALIVE) !=null &&
+		//处理连接保持, 管道化的请求按发送的响应判断是否关闭连接
+		boolean connectionClose = obj instanceof HttpResponse && isConnectionClose((HttpResponse)obj);
+		if (!connectionClose && getAttribute(session, SessionParam.KEEP_ALIVE) !=null &&
 				(boolean)getAttribute(session, SessionParam.KEEP_ALIVE) &&
 				webConfig.getKeepAliveTimeout() > 0) {
 
-			if (!keepAliveSessionList.contains(session)) {
-				keepAliveSessionList.add(session);
-			}
-			//更新会话超时时间
+			//加入连接保持或更新会话超时时间
 			refreshTimeout(session);
 
 		} else {
-			if (keepAliveSessionList.contains(session)) {
-				keepAliveSessionList.remove(session);
-			}
+			keepAliveWheel.remove(session);
 			session.close();
 		}
 
@@ -415,7 +700,23 @@ public class WebServerHandler implements IoHandler {
 			session.close();
 		}
 
-		request.release();
+		//响应发送完成后回收请求/响应对象
+		//管道化的请求会覆盖会话中的请求对象, 因此按响应对象记录的请求对象归还
+		if(webConfig.isHttpObjectRecycle() && obj instanceof HttpResponse && "HTTP".equals(getAttribute(session, SessionParam.TYPE))) {
+			HttpResponse sentResponse = (HttpResponse)obj;
+			HttpRequest sentRequest = sentResponse.getRequest();
+
+			//会话不再持有已归还的对象
+			session.getAttributes().remove(SessionParam.HTTP_REQUEST, sentRequest);
+			session.getAttributes().remove(SessionParam.HTTP_RESPONSE, sentResponse);
+
+			if(sentRequest != null) {
+				HttpObjectPool.restore(sentRequest);
+			}
+			HttpObjectPool.restore(sentResponse);
+		} else {
+			request.release();
+		}
 	}
 
 	@Override
@@ -44,6 +44,11 @@ public class WebSocketDispatcher {
 	 */
 	private Map<String, WebSocketRouter> routers;
 
+	/**
+	 * 编译后的路由基数树
+	 */
+	private RouteTree<WebSocketRouter> routeTree;
+
 	public enum WebSocketEvent {
 		OPEN, RECIVED, SENT, CLOSE, PING, PONG
 	}
@@ -58,6 +63,7 @@ public class WebSocketDispatcher {
 		this.sessionManager = sessionManager;
 
 		webSocketSessions = new ConcurrentHashMap<IoSession, WebSocketSession>();
+		routeTree = new RouteTree<WebSocketRouter>(webConfig.isMatchRouteIgnoreCase());
 
 		routers =  new TreeMap<String, WebSocketRouter>(new Comparator<String>() {
 			@Override
@@ -92,6 +98,7 @@ public class WebSocketDispatcher {
 	public void addRouteHandler(String routeRegexPath, WebSocketRouter handler) {
 		routeRegexPath = HttpDispatcher.fixRoutePath(routeRegexPath);
 		routers.put(routeRegexPath, handler);
+		routeTree.addRoute(routeRegexPath, handler);
 	}
 
 	/**
@@ -101,11 +108,10 @@ public class WebSocketDispatcher {
 	 */
 	public List<Object> findRouter(HttpRequest request){
 		String requestPath = request.protocol().getPath();
-		for (Map.Entry<String,WebSocketRouter> routeEntry : routers.entrySet()) {
-			String routePath = routeEntry.getKey();
-			if(HttpDispatcher.matchPath(requestPath, routePath, webConfig.isMatchRouteIgnoreCase())){
-				//[ 匹配到的已注册路由, HttpRouter对象 ]
-				return TObject.asList(routePath, routeEntry.getValue());}
+		RouteTree.Route<WebSocketRouter> route = routeTree.match(requestPath, null);
+		if(route != null){
+			//[ 匹配到的已注册路由, WebSocketRouter对象 ]
+			return TObject.asList(route.getRoutePath(), route.getValue());
 		}
 
 		return null;
@@ -145,7 +151,7 @@ public class WebSocketDispatcher {
 					//解包
 					result = webSocketRouter.filterDecoder(webSocketSession, result);
 					//触发 onRecive 事件
-					result = webSocketRouter.onRecived(webSocketSession, result);
+					result = ownBuffer(webSocketRouter.onRecived(webSocketSession, result));
 					//封包
 					responseMessage = (ByteBuffer) webSocketRouter.filterEncoder(webSocketSession, result);
 				}
@@ -165,7 +171,7 @@ public class WebSocketDispatcher {
 					//清理 webSocketSessions 中的 WebSocketSession
 					webSocketSessions.remove(session);
 				} else if (event == WebSocketEvent.PING) {
-					return WebSocketFrame.newInstance(true, WebSocketFrame.Opcode.PONG, false, byteBuffer);
+					return WebSocketFrame.newInstance(true, WebSocketFrame.Opcode.PONG, false, (ByteBuffer) ownBuffer(byteBuffer));
 				} else if (event == WebSocketEvent.PONG) {
 					final IoSession poneSession = session;
 					if(poneSession.isConnected()) {
@@ -194,6 +200,25 @@ public class WebSocketDispatcher {
 		return null;
 	}
 
+	/**
+	 * 复制需要发送的缓冲区
+	 * 		收到的数据直接引用接收缓冲区, 在 onReceive 返回后释放, 而发送是异步进行的,
+	 * 		所以需要发送的 ByteBuffer 都复制到独立的缓冲区中, 其他类型的对象不做处理
+	 * @param result 需要发送的对象
+	 * @return 复制后的对象
+	 */
+	private static Object ownBuffer(Object result) {
+		if(!(result instanceof ByteBuffer)) {
+			return result;
+		}
+
+		ByteBuffer byteBuffer = (ByteBuffer) result;
+		ByteBuffer ownedBuffer = ByteBuffer.allocate(byteBuffer.remaining());
+		ownedBuffer.put(byteBuffer.duplicate());
+		ownedBuffer.flip();
+		return ownedBuffer;
+	}
+
 	/**
 	 * 处理 WebSocketSession
 	 * @param request Http 请求对象
@@ -241,6 +266,57 @@ public class WebSocketDispatcher {
 		return process(WebSocketEvent.RECIVED, session, request, byteBuffer);
 	}
 
+	/**
+	 * 判断 WebSocket 会话对应的路由是否采用流式处理
+	 * @param session socket 会话对象
+	 * @return true: 流式处理, false: 完整消息处理
+	 */
+	public boolean isStreaming(IoSession session){
+		WebSocketSession webSocketSession = webSocketSessions.get(session);
+		return webSocketSession != null && webSocketSession.getWebSocketRouter().isStreaming();
+	}
+
+	/**
+	 * 触发 WebSocket Fragment 事件
+	 * 		流式处理时每个数据帧都会触发一次
+	 * @param session socket 会话对象
+	 * @param request http 请求对象
+	 * @param byteBuffer 分片的报文数据
+	 * @param isLast 是否是消息的最后一个分片
+	 * @return WebSocketFrame WebSocket 帧
+	 */
+	public WebSocketFrame fireFragmentEvent(IoSession session, HttpRequest request, ByteBuffer byteBuffer, boolean isLast){
+		WebSocketSession webSocketSession = webSocketSessions.get(session);
+
+		if(webSocketSession == null) {
+			//[ 匹配到的已注册路由, WebSocketRouter对象 ]
+			List<Object> routerInfo = findRouter(request);
+			if (routerInfo == null) {
+				Logger.error(new RouterNotFound("Not avaliable router!"));
+				return null;
+			}
+			webSocketSession = disposeSession(request, (WebSocketRouter) routerInfo.get(1));
+		}
+
+		WebSocketRouter webSocketRouter = webSocketSession.getWebSocketRouter();
+
+		try {
+			//触发 onFragment 事件
+			Object result = ownBuffer(webSocketRouter.onFragment(webSocketSession, byteBuffer, isLast));
+			//封包
+			ByteBuffer responseMessage = (ByteBuffer) webSocketRouter.filterEncoder(webSocketSession, result);
+
+			//将返回消息包装称WebSocketFrame
+			if (responseMessage != null) {
+				return WebSocketFrame.newInstance(true, WebSocketFrame.Opcode.TEXT, false, responseMessage);
+			}
+		} catch (WebSocketFilterException e) {
+			Logger.error(e);
+		}
+
+		return null;
+	}
+
 	/**
 	 * 触发 WebSocket Sent 事件
 	 * @param session socket 会话对象
@@ -0,0 +1,97 @@
+package org.voovan.http.server.context;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 请求准入控制配置类
+ *
+ * @author helyho
+ * <p>
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class AdmissionConfig {
+    private int maxConcurrent = 0;
+    private int minConcurrent = 8;
+    private boolean adaptive = true;
+    private int routeMaxConcurrent = 0;
+    //运行时会通过 AdmissionController.setRouteLimit 修改, 配置文件加载时也按字段类型构造为 ConcurrentHashMap
+    private ConcurrentHashMap<String, Integer> routeLimits = new ConcurrentHashMap<String, Integer>();
+    private int ipRate = 0;
+    private int ipBurst = 0;
+    private int retryAfter = 1;
+
+    /**
+     * 全局的最大并发请求数, 启用自适应时为并发数的上限
+     * @return 最大并发请求数, 小于等于 0 时为 CPU 核心数 * 200
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors() * 200;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getMinConcurrent() {
+        return minConcurrent;
+    }
+
+    public void setMinConcurrent(int minConcurrent) {
+        this.minConcurrent = minConcurrent;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public int getRouteMaxConcurrent() {
+        return routeMaxConcurrent;
+    }
+
+    public void setRouteMaxConcurrent(int routeMaxConcurrent) {
+        this.routeMaxConcurrent = routeMaxConcurrent;
+    }
+
+    public Map<String, Integer> getRouteLimits() {
+        return routeLimits;
+    }
+
+    public void setRouteLimits(Map<String, Integer> routeLimits) {
+        this.routeLimits = routeLimits == null ? new ConcurrentHashMap<String, Integer>() : new ConcurrentHashMap<String, Integer>(routeLimits);
+    }
+
+    public int getIpRate() {
+        return ipRate;
+    }
+
+    public void setIpRate(int ipRate) {
+        this.ipRate = ipRate;
+    }
+
+    /**
+     * 每个 IP 的令牌桶容量
+     * @return 令牌桶容量, 小于等于 0 时与每秒的请求数相同
+     */
+    public int getIpBurst() {
+        return ipBurst > 0 ? ipBurst : ipRate;
+    }
+
+    public void setIpBurst(int ipBurst) {
+        this.ipBurst = ipBurst;
+    }
+
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(int retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+}
@@ -1,14 +1,20 @@
 package org.voovan.http.server.context;
 
 import org.voovan.http.server.HttpFilter;
+import org.voovan.http.server.HttpRequest;
 import org.voovan.tools.log.Logger;
 import org.voovan.tools.reflect.TReflect;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 过滤器配置信息对象
+ *      可以通过 Methods 和 Paths 参数限定过滤器处理的请求, 多个值使用逗号分隔或使用数组, 不配置则处理所有请求
+ *      例如: "Methods": "GET,POST", "Paths": ["/api", "/admin"], Paths 按路径段的前缀匹配
  *
  * @author helyho
  *
@@ -21,6 +27,8 @@ public class HttpFilterConfig {
     private String className;
     private Map<String, Object> paramters = new HashMap<String, Object>();
     private HttpFilter httpFilter;
+    private String[] methods;
+    private String[] paths;
 
     /**
      * 构造函数
@@ -37,6 +45,9 @@ public class HttpFilterConfig {
                 paramters.put(entry.getKey(), entry.getValue());
             }
         }
+
+        this.methods = split(paramters.get("Methods"), true);
+        this.paths = split(paramters.get("Paths"), false);
     }
 
     /**
@@ -110,6 +121,137 @@ public class HttpFilterConfig {
         return paramters.get(name);
     }
 
+    /**
+     * 获取过滤器处理的 HTTP 方法
+     * @return HTTP 方法数组, null 表示处理所有方法
+     */
+    public String[] getMethods() {
+        return methods;
+    }
+
+    /**
+     * 设置过滤器处理的 HTTP 方法
+     * @param methods HTTP 方法, 多个使用逗号分隔, null 或空字符串表示处理所有方法
+     */
+    public void setMethods(String methods) {
+        this.methods = split(methods, true);
+    }
+
+    /**
+     * 设置过滤器处理的 HTTP 方法
+     * @param methods HTTP 方法, null 或空集合表示处理所有方法
+     */
+    public void setMethods(List<String> methods) {
+        this.methods = split(methods, true);
+    }
+
+    /**
+     * 获取过滤器处理的路径前缀
+     * @return 路径前缀数组, null 表示处理所有路径
+     */
+    public String[] getPaths() {
+        return paths;
+    }
+
+    /**
+     * 设置过滤器处理的路径前缀
+     * @param paths 路径前缀, 多个使用逗号分隔, null 或空字符串表示处理所有路径
+     */
+    public void setPaths(String paths) {
+        this.paths = split(paths, false);
+    }
+
+    /**
+     * 设置过滤器处理的路径前缀
+     * @param paths 路径前缀, null 或空集合表示处理所有路径
+     */
+    public void setPaths(List<String> paths) {
+        this.paths = split(paths, false);
+    }
+
+    /**
+     * 拆分配置的值
+     * @param value 逗号分隔的字符串或集合
+     * @param upperCase 是否转换为大写
+     * @return 拆分后的数组, 没有有效值时返回 null
+     */
+    private static String[] split(Object value, boolean upperCase) {
+        if (value == null) {
+            return null;
+        }
+
+        String[] items;
+        if (value instanceof Collection) {
+            items = new String[((Collection) value).size()];
+            int i = 0;
+            for (Object item : (Collection) value) {
+                items[i++] = item == null ? "" : item.toString();
+            }
+        } else {
+            items = value.toString().split(",");
+        }
+
+        int count = 0;
+        for (String item : items) {
+            item = upperCase ? item.trim().toUpperCase() : item.trim();
+            if (!item.isEmpty()) {
+                items[count++] = item;
+            }
+        }
+
+        if (count == 0) {
+            return null;
+        }
+        return count == items.length ? items : Arrays.copyOf(items, count);
+    }
+
+    /**
+     * 判断过滤器是否处理这个请求
+     * @param request 请求对象
+     * @return true: 处理, false: 跳过
+     */
+    public boolean isMatch(HttpRequest request) {
+        if (methods != null) {
+            String method = request.protocol().getMethod();
+            boolean matched = false;
+            for (String item : methods) {
+                if (item.equals(method)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+
+        if (paths != null) {
+            String path = request.protocol().getPath();
+            for (String item : paths) {
+                if (isPathMatch(path, item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * 按路径段匹配路径前缀, 例如 /api 匹配 /api 和 /api/user, 不匹配 /apikeys
+     * @param path 请求路径
+     * @param prefix 路径前缀
+     * @return true: 匹配, false: 不匹配
+     */
+    private static boolean isPathMatch(String path, String prefix) {
+        if (!path.startsWith(prefix)) {
+            return false;
+        }
+
+        return path.length() == prefix.length() || prefix.endsWith("/") || path.charAt(prefix.length()) == '/';
+    }
+
     /**
      * 获取HttpBuizFilter过滤器实例
      *
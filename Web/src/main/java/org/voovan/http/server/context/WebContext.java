@@ -271,7 +271,12 @@ public class WebContext {
 		Logger.simple(TString.rightPad("  SessionContainer:",35,' ')+config.getSessionContainer());
 		Logger.simple(TString.rightPad("  SessionTimeout:",35,' ')+config.getSessionTimeout());
 		Logger.simple(TString.rightPad("  KeepAliveTimeout:",35,' ')+config.getKeepAliveTimeout());
+		Logger.simple(TString.rightPad("  WebSocketMaxMessageSize:",35,' ')+config.getWebSocketMaxMessageSize());
+		Logger.simple(TString.rightPad("  HttpObjectRecycle:",35,' ')+config.isHttpObjectRecycle());
+		Logger.simple(TString.rightPad("  Http2:",35,' ')+config.isHttp2());
+		Logger.simple(TString.rightPad("  StaticFileCacheSize:",35,' ')+config.getStaticFileCacheSize());
 		Logger.simple(TString.rightPad("  MatchRouteIgnoreCase:",35,' ')+config.isMatchRouteIgnoreCase());
+		Logger.simple(TString.rightPad("  RouteCacheSize:",35,' ')+config.getRouteCacheSize());
 		Logger.simple(TString.rightPad("  Gzip:",35,' ')+ config.isGzip());
 		Logger.simple(TString.rightPad("  AccessLog:",35,' ')+ config.isAccessLog());
 
@@ -285,6 +290,12 @@ public class WebContext {
 			Logger.simple(TString.rightPad("  KeyPassword:",35,' ')+config.getHttps().getKeyPassword());
 		}
 
+		if(config.isAdmission()) {
+			Logger.simple(TString.rightPad("  AdmissionMaxConcurrent:",35,' ')+config.getAdmission().getMaxConcurrent());
+			Logger.simple(TString.rightPad("  AdmissionAdaptive:",35,' ')+config.getAdmission().isAdaptive());
+			Logger.simple(TString.rightPad("  AdmissionIpRate:",35,' ')+config.getAdmission().getIpRate());
+		}
+
 		Logger.simple(TString.rightPad("  AuthToken:",35,' ')+ AUTH_TOKEN);
 
 		Logger.simple("=============================================================================================");
@@ -29,13 +29,19 @@ public class WebServerConfig {
     private int sendTimeout             = 30;
     private String contextPath      = "WEBAPP";
     private boolean MatchRouteIgnoreCase = false;
+    private int routeCacheSize      = 10000;
     private String characterSet     = "UTF-8";
     private String sessionContainer = "java.util.concurrent.ConcurrentHashMap";
     private int sessionTimeout      = 30;
     private int keepAliveTimeout    = 60;
+    private int webSocketMaxMessageSize = 0;
+    private boolean httpObjectRecycle = false;
     private boolean accessLog       = false;
     private boolean gzip            = true;
+    private boolean http2           = false;
+    private int staticFileCacheSize = 256;
     private HttpsConfig https;
+    private AdmissionConfig admission;
     private String indexFiles = "index.htm,index.html,default.htm,default.htm";
     private int hotSwapInterval = 0;
     private String lifeCycleClass = null;
@@ -137,6 +143,46 @@ public class WebServerConfig {
         return keepAliveTimeout;
     }
 
+    public int getRouteCacheSize() {
+        return routeCacheSize;
+    }
+
+    public void setRouteCacheSize(int routeCacheSize) {
+        this.routeCacheSize = routeCacheSize;
+    }
+
+    public int getWebSocketMaxMessageSize() {
+        return webSocketMaxMessageSize;
+    }
+
+    public void setWebSocketMaxMessageSize(int webSocketMaxMessageSize) {
+        this.webSocketMaxMessageSize = webSocketMaxMessageSize;
+    }
+
+    public boolean isHttpObjectRecycle() {
+        return httpObjectRecycle;
+    }
+
+    public void setHttpObjectRecycle(boolean httpObjectRecycle) {
+        this.httpObjectRecycle = httpObjectRecycle;
+    }
+
+    public int getStaticFileCacheSize() {
+        return staticFileCacheSize;
+    }
+
+    public void setStaticFileCacheSize(int staticFileCacheSize) {
+        this.staticFileCacheSize = staticFileCacheSize;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
     public boolean isGzip() {
         return gzip;
     }
@@ -165,6 +211,18 @@ public class WebServerConfig {
         this.https = https;
     }
 
+    public AdmissionConfig getAdmission() {
+        return admission;
+    }
+
+    public boolean isAdmission(){
+        return admission!=null?true:false;
+    }
+
+    public void setAdmission(AdmissionConfig admission) {
+        this.admission = admission;
+    }
+
     public String[] getIndexFiles() {
         return indexFiles.split(",");
     }
@@ -13,10 +13,12 @@ import org.voovan.tools.reflect.TReflect;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * 通过注解实现的路由
@@ -34,6 +36,18 @@ public class AnnotationRouter implements HttpRouter {
     private Method method;
     private Router classRouter;
 
+    //启动时预先准备好的调用器, 参数绑定器和校验注解
+    private RouterInvoker invoker;
+    private ParamBinder[] paramBinders;
+    private Check[] checks;
+
+    /**
+     * 参数绑定器, 从请求中获取一个方法参数的值
+     */
+    private interface ParamBinder {
+        public Object bind(HttpRequest request, HttpResponse response) throws Exception;
+    }
+
     /**
      * 构造函数
      * @param clazz   Class对象
@@ -44,17 +58,149 @@ public class AnnotationRouter implements HttpRouter {
         this.clazz = clazz;
         this.method = method;
         this.classRouter = classRouter;
+        this.invoker = RouterInvoker.newInstance(clazz, method);
+        this.paramBinders = buildParamBinders(method);
+        this.checks = method.getAnnotationsByType(Check.class);
 
         //如果是单例,则进行预实例化
         if(classRouter.singleton() && !singletonObjs.containsKey(clazz)){
             try {
-                singletonObjs.put(clazz, clazz.newInstance());
+                singletonObjs.put(clazz, invoker.newInstance());
             } catch (Exception e) {
                 Logger.error("New a singleton object error", e);
             }
         }
     }
 
+    /**
+     * 为方法的每个参数构造参数绑定器
+     * @param method 方法对象
+     * @return 参数绑定器数组
+     */
+    private static ParamBinder[] buildParamBinders(Method method) {
+        Class[] parameterTypes = method.getParameterTypes();
+        Type[] genericParameterTypes = method.getGenericParameterTypes();
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+
+        ParamBinder[] binders = new ParamBinder[parameterTypes.length];
+        for(int i=0; i < parameterTypes.length; i++){
+            Class parameterType = parameterTypes[i];
+
+            //请求对象
+            if(parameterType == HttpRequest.class){
+                binders[i] = (request, response) -> request;
+                continue;
+            }
+
+            //响应对象
+            if(parameterType == HttpResponse.class){
+                binders[i] = (request, response) -> response;
+                continue;
+            }
+
+            //会话对象
+            if(parameterType == HttpSession.class){
+                binders[i] = (request, response) -> request.getSession();
+                continue;
+            }
+
+            Function<String, Object> converter = buildConverter(parameterType);
+            ParamBinder annotationBinder = null;
+
+            for(Annotation annotation : parameterAnnotations[i]) {
+
+                //请求的参数
+                if (annotation instanceof Param) {
+                    String paramName = ((Param) annotation).value();
+                    annotationBinder = (request, response) -> converter.apply(request.getParameter(paramName));
+                    continue;
+                }
+
+                //请求的头
+                if (annotation instanceof Head) {
+                    String headName = ((Head) annotation).value();
+                    annotationBinder = (request, response) -> converter.apply(request.header().get(headName));
+                    continue;
+                }
+
+                //请求的 Cookie
+                if (annotation instanceof Cookie) {
+                    String cookieName = ((Cookie) annotation).value();
+                    annotationBinder = (request, response) -> {
+                        org.voovan.http.message.packet.Cookie cookie = request.getCookie(cookieName);
+                        return converter.apply(cookie != null ? cookie.getValue() : null);
+                    };
+                    continue;
+                }
+
+                //请求的报文
+                if (annotation instanceof Body) {
+                    if(TReflect.isBasicType(parameterType)) {
+                        annotationBinder = (request, response) -> converter.apply(request.body().getBodyString());
+                    } else {
+                        //复杂类型直接从报文字节绑定, 不经过字符串和中间的 Map
+                        Type genericType = genericParameterTypes[i];
+                        annotationBinder = (request, response) -> request.getBodyAsObject(genericType);
+                    }
+                    continue;
+                }
+
+                //会话的属性
+                if (annotation instanceof Session) {
+                    String sessionName = ((Session) annotation).value();
+                    annotationBinder = (request, response) -> {
+                        Object value = request.getSession().getAttribute(sessionName);
+                        return value != null && value.getClass() == parameterType ? value : null;
+                    };
+                    continue;
+                }
+            }
+
+            //没有注解的参数,或者注解的参数值为 null, 按顺序处理
+            String sequenceName = "param" + String.valueOf(i + 1);
+            ParamBinder sequenceBinder = (request, response) -> converter.apply(request.getParameter(sequenceName));
+
+            if(annotationBinder == null) {
+                binders[i] = sequenceBinder;
+            } else {
+                ParamBinder binder = annotationBinder;
+                binders[i] = (request, response) -> {
+                    Object value = binder.bind(request, response);
+                    return value != null ? value : sequenceBinder.bind(request, response);
+                };
+            }
+        }
+
+        return binders;
+    }
+
+    /**
+     * 构造字符串到参数类型的转换器
+     *      常用的类型直接转换, 其他类型使用 TString.toObject 转换
+     * @param type 参数类型
+     * @return 转换器
+     */
+    private static Function<String, Object> buildConverter(Class type) {
+        if(type == String.class) {
+            return value -> value != null && value.length() > 1 && value.startsWith("\"") && value.endsWith("\"") ?
+                    value.substring(1, value.length() - 1) : value;
+        } else if(type == int.class) {
+            return value -> Integer.valueOf(value == null ? "0" : value);
+        } else if(type == Integer.class) {
+            return value -> value == null ? null : Integer.valueOf(value);
+        } else if(type == long.class) {
+            return value -> Long.valueOf(value == null ? "0" : value);
+        } else if(type == Long.class) {
+            return value -> value == null ? null : Long.valueOf(value);
+        } else if(type == boolean.class) {
+            return value -> Boolean.valueOf(value == null ? "false" : value);
+        } else if(type == Boolean.class) {
+            return value -> value == null ? null : Boolean.valueOf(value);
+        } else {
+            return value -> TString.toObject(value, type);
+        }
+    }
+
     /**
      * 扫描包含Router注解的类
      *
@@ -184,92 +330,17 @@ public class AnnotationRouter implements HttpRouter {
         if(this.classRouter.singleton()){
             annotationObj = singletonObjs.get(clazz);
         } else {
-            annotationObj = clazz.newInstance();
+            annotationObj = invoker.newInstance();
         }
 
-        Class[] parameterTypes = method.getParameterTypes();
-        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
-
         //准备参数
-        Object[] params = new Object[parameterTypes.length];
-        for(int i=0; i < parameterAnnotations.length; i++){
-
-            //请求对象
-            if(parameterTypes[i] == HttpRequest.class){
-                params[i] = request;
-                continue;
-            }
-
-            //响应对象
-            if(parameterTypes[i] == HttpResponse.class){
-                params[i] = response;
-                continue;
-            }
-
-            //会话对象
-            if(parameterTypes[i] == HttpSession.class){
-                params[i] = request.getSession();
-                continue;
-            }
-
-            for(Annotation annotation : parameterAnnotations[i]) {
-
-                //请求的参数
-                if (annotation instanceof Param) {
-                    String paramName = ((Param) annotation).value();
-                    params[i] = TString.toObject(request.getParameter(paramName), parameterTypes[i]);
-                    continue;
-                }
-
-                //请求的头
-                if (annotation instanceof Head) {
-                    String headName = ((Head) annotation).value();
-                    params[i] = TString.toObject(request.header().get(headName), parameterTypes[i]);
-                    continue;
-                }
-
-                //请求的 Cookie
-                if (annotation instanceof Cookie) {
-                    String cookieValue = null;
-                    String cookieName = ((Cookie) annotation).value();
-                    org.voovan.http.message.packet.Cookie cookie = request.getCookie(cookieName);
-                    if(cookie != null){
-                        cookieValue = cookie.getValue();
-                    }
-
-                    params[i] = TString.toObject(cookieValue, parameterTypes[i]);
-                    continue;
-                }
-
-                //请求的 Cookie
-                if (annotation instanceof Body) {
-                    params[i] = TString.toObject(request.body().getBodyString(), parameterTypes[i]);
-                    continue;
-                }
-
-                //请求的头
-                if (annotation instanceof Session) {
-                    String sessionName = ((Session) annotation).value();
-                    HttpSession httpSession = request.getSession();
-
-                    if(httpSession.getAttribute(sessionName).getClass() == parameterTypes[i]){
-                        params[i] = httpSession.getAttribute(sessionName);
-                    }
-                    continue;
-                }
-            }
-
-            //没有注解的参数,按顺序处理
-            if(params[i]==null) {
-                String value = request.getParameter("param" + String.valueOf(i + 1));
-                params[i] = TString.toObject(value, parameterTypes[i]);
-                continue;
-            }
-
+        Object[] params = new Object[paramBinders.length];
+        for(int i=0; i < paramBinders.length; i++){
+            params[i] = paramBinders[i].bind(request, response);
         }
 
         //调用方法
-        return TReflect.invokeMethod(annotationObj, method, params);
+        return invoker.invoke(annotationObj, params);
     }
 
     @Override
@@ -287,7 +358,7 @@ public class AnnotationRouter implements HttpRouter {
                     } else if (responseObj instanceof byte[]) {
                         response.write((byte[]) responseObj);
                     } else {
-                        response.write(JSON.toJSON(responseObj));
+                        response.writeJSON(responseObj);
                     }
                 }
             }
@@ -304,7 +375,7 @@ public class AnnotationRouter implements HttpRouter {
      * @throws Exception 异常信息
      */
     public String check(Method method, HttpRequest httpRequest) throws Exception{
-        Check[] methodCheckAnnotations =  method.getAnnotationsByType(Check.class);
+        Check[] methodCheckAnnotations = method == this.method ? checks : method.getAnnotationsByType(Check.class);
         for(Check check : methodCheckAnnotations) {
 
             //检查名称是否为空
@@ -0,0 +1,197 @@
+package org.voovan.http.server.module.annontationRouter.router;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import org.voovan.tools.log.Logger;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 注解路由方法的调用器
+ *      启动时为每个路由方法生成一个直接调用该方法的类, 请求时不再通过反射调用
+ *      无法生成时(例如: 类或方法不是 public 的)使用反射调用
+ *
+ * @author: helyho
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public interface RouterInvoker {
+
+    /**
+     * 构造路由类的实例
+     * @return 路由类的实例
+     * @throws Exception 构造过程中的异常
+     */
+    public Object newInstance() throws Exception;
+
+    /**
+     * 调用路由方法
+     * @param target 路由类的实例
+     * @param params 方法的参数
+     * @return 方法的返回值, 方法没有返回值时返回 null
+     * @throws Exception 调用过程中的异常
+     */
+    public Object invoke(Object target, Object[] params) throws Exception;
+
+    /**
+     * 构造路由方法的调用器
+     * @param clazz  Class对象
+     * @param method 方法对象
+     * @return 调用器
+     */
+    public static RouterInvoker newInstance(Class clazz, Method method) {
+        if(Modifier.isPublic(clazz.getModifiers()) && !Modifier.isAbstract(clazz.getModifiers()) &&
+                !Modifier.isStatic(method.getModifiers())) {
+            try {
+                return Generator.generate(clazz, method);
+            } catch (Exception e) {
+                Logger.warn("Generate invoker for " + clazz.getName() + "." + method.getName() + " failed, use reflection invoker.", e);
+            }
+        }
+
+        return new ReflectInvoker(clazz, method);
+    }
+
+    /**
+     * 使用反射调用路由方法
+     *      用于非 public 的类或方法, 构造时设置为可访问
+     *      与生成的调用器一致, 路由方法抛出的异常直接抛出, 不包装为 InvocationTargetException
+     */
+    public static class ReflectInvoker implements RouterInvoker {
+        private Class clazz;
+        private Method method;
+        private Constructor constructor;
+
+        public ReflectInvoker(Class clazz, Method method) {
+            this.clazz = clazz;
+            this.method = method;
+            method.setAccessible(true);
+
+            try {
+                constructor = clazz.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                constructor = null;
+            }
+        }
+
+        @Override
+        public Object newInstance() throws Exception {
+            if(constructor == null) {
+                return clazz.newInstance();
+            }
+
+            try {
+                return constructor.newInstance();
+            } catch (InvocationTargetException e) {
+                throw unwrap(e);
+            }
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] params) throws Exception {
+            try {
+                return method.invoke(target, params);
+            } catch (InvocationTargetException e) {
+                throw unwrap(e);
+            }
+        }
+
+        private static Exception unwrap(InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * 调用器生成器
+     */
+    static class Generator {
+        private static final AtomicInteger SEQUENCE = new AtomicInteger(0);
+
+        private static RouterInvoker generate(Class clazz, Method method) throws Exception {
+            ClassPool classPool = new ClassPool(true);
+            classPool.insertClassPath(new ClassClassPath(clazz));
+            classPool.insertClassPath(new ClassClassPath(RouterInvoker.class));
+
+            //生成在路由类所在的包中, 并使用路由类的 ClassLoader 加载
+            String invokerClassName = clazz.getName() + "$$RouterInvoker$" + method.getName() + "$" + SEQUENCE.incrementAndGet();
+            CtClass ctClass = classPool.makeClass(invokerClassName);
+            ctClass.addInterface(classPool.get(RouterInvoker.class.getName()));
+            ctClass.addConstructor(CtNewConstructor.defaultConstructor(ctClass));
+
+            String className = typeName(clazz);
+
+            //没有 public 的无参构造函数时使用反射构造
+            String newInstanceCode;
+            try {
+                clazz.getConstructor();
+                newInstanceCode = "return new " + className + "();";
+            } catch (NoSuchMethodException e) {
+                newInstanceCode = "return " + className + ".class.newInstance();";
+            }
+            ctClass.addMethod(CtNewMethod.make("public Object newInstance() throws Exception { " + newInstanceCode + " }", ctClass));
+
+            StringBuilder invokeCode = new StringBuilder("public Object invoke(Object target, Object[] params) throws Exception { ");
+            StringBuilder callCode = new StringBuilder("((").append(className).append(")$1).").append(method.getName()).append("(");
+            Class[] parameterTypes = method.getParameterTypes();
+            for(int i = 0; i < parameterTypes.length; i++) {
+                if(i > 0) {
+                    callCode.append(", ");
+                }
+                callCode.append(castCode(parameterTypes[i], "$2[" + i + "]"));
+            }
+            callCode.append(")");
+
+            if(method.getReturnType() == void.class) {
+                invokeCode.append(callCode).append("; return null; }");
+            } else {
+                invokeCode.append("return ($w)").append(callCode).append("; }");
+            }
+            ctClass.addMethod(CtNewMethod.make(invokeCode.toString(), ctClass));
+
+            Class invokerClass = ctClass.toClass(clazz.getClassLoader(), clazz.getProtectionDomain());
+            ctClass.detach();
+            return (RouterInvoker) invokerClass.newInstance();
+        }
+
+        /**
+         * 生成将 Object 转换为参数类型的代码, 基本类型拆箱
+         * @param type 参数类型
+         * @param value 参数值的代码
+         * @return 转换的代码
+         */
+        private static String castCode(Class type, String value) {
+            if(type.isPrimitive()) {
+                if(type == char.class) {
+                    return "((java.lang.Character)" + value + ").charValue()";
+                } else if(type == boolean.class) {
+                    return "((java.lang.Boolean)" + value + ").booleanValue()";
+                } else {
+                    return "((java.lang.Number)" + value + ")." + type.getName() + "Value()";
+                }
+            } else {
+                return "(" + typeName(type) + ")" + value;
+            }
+        }
+
+        private static String typeName(Class type) {
+            if(type.isArray()) {
+                return typeName(type.getComponentType()) + "[]";
+            } else {
+                return type.getName();
+            }
+        }
+    }
+}
@@ -1,54 +1,90 @@
 package org.voovan.http.server.module.monitor;
 
+import org.voovan.http.server.HttpDispatcher;
 import org.voovan.http.server.HttpFilter;
 import org.voovan.http.server.HttpRequest;
 import org.voovan.http.server.HttpResponse;
 import org.voovan.http.server.context.HttpFilterConfig;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * 监控用过滤器
  */
 public class HttpMonitorFilter implements HttpFilter {
 	private final static ThreadLocal<Long> REQUEST_START_TIME = new ThreadLocal<Long>();
+	private final static Set<String> KNOWN_METHODS = new HashSet<String>(Arrays.asList("GET", "POST", "HEAD", "PUT", "DELETE", "TRACE", "CONNECT", "OPTIONS", "PATCH"));
 
 	@Override
 	public Object onRequest(HttpFilterConfig filterConfig, HttpRequest request, HttpResponse response, Object prevFilterResult ) {
-		REQUEST_START_TIME.set(System.currentTimeMillis());
+		REQUEST_START_TIME.set(System.nanoTime());
 		return "";
 	}
 
 	@Override
 	public Object onResponse(HttpFilterConfig filterConfig, HttpRequest request, HttpResponse response, Object prevFilterResult ) {
+		String routePath = getRoutePath(request, response);
+
 		//处理请求分析数据
-		requestAnalysis(request);
+		requestAnalysis(request, routePath);
 
 		//处理IP数据分析
-		ipAddressAnalysis(request);
+		ipAddressAnalysis(request, routePath);
 
 		return "";
 	}
 
+	/**
+	 * 获取请求对应的路由模板
+	 * @param request 请求对象
+	 * @param response 响应对象
+	 * @return 路由模板
+	 */
+	public static String getRoutePath(HttpRequest request, HttpResponse response){
+		String routePath = (String) request.getAttributes(HttpDispatcher.ROUTE_PATH_ATTR);
+		if(routePath == null) {
+			routePath = response.protocol().getStatus() == 404 ? MonitorGlobal.UNMATCHED_ROUTE : MonitorGlobal.STATIC_ROUTE;
+		}
+		return routePath;
+	}
+
+	/**
+	 * 获取统计时使用的请求方法
+	 * 		非标准的请求方法统一使用 OTHER, 未匹配到路由的请求统一使用 *, 避免统计的数据无限增长
+	 * @param request 请求对象
+	 * @param routePath 路由模板
+	 * @return 请求方法
+	 */
+	public static String getMethod(HttpRequest request, String routePath){
+		if(MonitorGlobal.UNMATCHED_ROUTE.equals(routePath)) {
+			return MonitorGlobal.ANY_METHOD;
+		}
+
+		String method = request.protocol().getMethod();
+		return KNOWN_METHODS.contains(method) ? method : MonitorGlobal.OTHER_METHOD;
+	}
+
 	/**
 	 * 请求数据的分析
 	 * @param request 请求对象
+	 * @param routePath 路由模板
 	 */
-	public void requestAnalysis(HttpRequest request){
+	public void requestAnalysis(HttpRequest request, String routePath){
 		Long startTime = REQUEST_START_TIME.get();
 
 		if(startTime!=null) {
-			String requestPath = request.protocol().getPath();
-			long dealTime = (System.currentTimeMillis() - startTime);
-
-			RequestAnalysis requestAnalysis = null;
-			if (MonitorGlobal.REQUEST_ANALYSIS.containsKey(requestPath)) {
-				requestAnalysis = MonitorGlobal.REQUEST_ANALYSIS.get(requestPath);
-			} else {
-				requestAnalysis = new RequestAnalysis(requestPath);
-				MonitorGlobal.REQUEST_ANALYSIS.put(requestPath, requestAnalysis);
+			String method = getMethod(request, routePath);
+			long dealTime = System.nanoTime() - startTime;
+
+			String key = method + " " + routePath;
+			RequestAnalysis requestAnalysis = MonitorGlobal.REQUEST_ANALYSIS.get(key);
+			if (requestAnalysis == null) {
+				requestAnalysis = MonitorGlobal.REQUEST_ANALYSIS.computeIfAbsent(key, k -> new RequestAnalysis(method, routePath));
 			}
 
-			requestAnalysis.addRequestTime(Long.valueOf(dealTime).intValue());
+			requestAnalysis.record(dealTime);
 		}
 		REQUEST_START_TIME.set(null);
 	}
@@ -57,19 +93,10 @@ public class HttpMonitorFilter implements HttpFilter {
 	/**
 	 * ip 数据的分析
 	 * @param request Http请求对象
+	 * @param routePath 路由模板
 	 */
-	public void ipAddressAnalysis(HttpRequest request){
-		String requestPath = request.protocol().getPath();
+	public void ipAddressAnalysis(HttpRequest request, String routePath){
 		String ipAddress = request.getRemoteAddres();
-
-		IPAnalysis ipAnalysis = null;
-		if(MonitorGlobal.IP_ANALYSIS.containsKey(ipAddress)){
-			ipAnalysis = MonitorGlobal.IP_ANALYSIS.get(ipAddress);
-		}else{
-			ipAnalysis = new IPAnalysis(ipAddress);
-			MonitorGlobal.IP_ANALYSIS.put(ipAddress, ipAnalysis);
-		}
-
-		ipAnalysis.addRequest(requestPath);
+		MonitorGlobal.IP_ANALYSIS.increment(ipAddress).getValue().addRequest(routePath);
 	}
 }
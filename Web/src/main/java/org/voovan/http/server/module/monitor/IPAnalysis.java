@@ -1,15 +1,15 @@
 package org.voovan.http.server.module.monitor;
 
-import org.voovan.tools.TDateTime;
-import org.voovan.tools.json.annotation.NotJSON;
+import org.voovan.tools.metric.RollingCounter;
 
-import java.util.Calendar;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Some description
+ * IP 分析信息对象
+ *      按路由模板统计请求数, 路由模板的数量是有限的
  *
  * @author: helyho
  * Project: Framework
@@ -18,56 +18,47 @@ import java.util.concurrent.atomic.AtomicLong;
 public class IPAnalysis {
 
     private String address;
-    private AtomicLong totalCount;
-    private int lastMinuteCount;
-    @NotJSON
-    private int minute;
-    private Map<String, Integer> data;
+    private RollingCounter counter;
+    private Map<String, LongAdder> data;
 
 
     public IPAnalysis(String address){
         this.address = address;
-        this.totalCount = new AtomicLong(0);
-        this.lastMinuteCount = 0;
-        this.minute = TDateTime.getDateAtom(null, Calendar.MINUTE);
-        this.data = new ConcurrentHashMap<String, Integer>();
+        this.counter = new RollingCounter(10000, RequestAnalysis.ONE_MINUTE);
+        this.data = new ConcurrentHashMap<String, LongAdder>();
     }
 
     public String getAddress() {
         return address;
     }
 
-
     public long getTotalCount() {
-        return totalCount.get();
-    }
-
-    public int getLastMinuteCount() {
-        return lastMinuteCount;
+        return counter.getTotal();
     }
 
-    public Map<String, Integer> getData() {
-        return data;
+    public long getLastMinuteCount() {
+        return counter.get(RequestAnalysis.ONE_MINUTE);
     }
 
-    public void addRequest(String requestPath){
-        if(data.containsKey(requestPath)){
-            synchronized (data) {
-                data.put(requestPath, data.get(requestPath) + 1);
-            }
-        }else{
-            data.put(requestPath, 1);
+    public Map<String, Long> getData() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for(Map.Entry<String, LongAdder> entry : data.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
         }
+        return result;
+    }
 
-        int currentMinute = TDateTime.getDateAtom(null, Calendar.MINUTE);
-        if(currentMinute == minute){
-            lastMinuteCount ++;
-        }else{
-            minute = currentMinute;
-            lastMinuteCount = 1;
+    /**
+     * 增加请求
+     * @param routePath 请求的路由模板
+     */
+    public void addRequest(String routePath){
+        LongAdder routeCount = data.get(routePath);
+        if(routeCount == null) {
+            routeCount = data.computeIfAbsent(routePath, key -> new LongAdder());
         }
+        routeCount.increment();
 
-        totalCount.addAndGet(1);
-
+        counter.increment();
     }
 }
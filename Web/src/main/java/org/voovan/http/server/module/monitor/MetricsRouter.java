@@ -0,0 +1,185 @@
+package org.voovan.http.server.module.monitor;
+
+import org.voovan.Global;
+import org.voovan.http.server.HttpRequest;
+import org.voovan.http.server.HttpResponse;
+import org.voovan.http.server.HttpRouter;
+import org.voovan.http.server.WebServer;
+import org.voovan.http.server.WebServerHandler;
+import org.voovan.network.SocketStatistics;
+import org.voovan.tools.ByteBufferPool;
+import org.voovan.tools.log.LoggerThread;
+import org.voovan.tools.metric.LatencyHistogram;
+import org.voovan.tools.threadpool.ThreadPool;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Prometheus 文本格式的指标输出
+ *      只读取计数器和直方图, 不调用 jstat/jmap 等外部命令, 可以高频率抓取
+ *
+ * @author helyho
+ *
+ * Java Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class MetricsRouter implements HttpRouter {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = new double[]{0.5, 0.95, 0.99, 0.999};
+    //与 RequestAnalysis.BUCKET_BOUNDS 对应, 单位: 秒
+    private static final String[] BUCKET_LABELS = new String[]{"0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10", "+Inf"};
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+
+    private WebServer webServer;
+
+    public MetricsRouter(WebServer webServer){
+        this.webServer = webServer;
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpResponse response) throws Exception {
+        if(!MonitorGlobal.ALLOW_IP_ADDRESS.contains(request.getRemoteAddres())) {
+            request.getSession().close();
+            return;
+        }
+
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        writeMetrics(builder);
+
+        response.header().put("Content-Type", CONTENT_TYPE);
+        response.write(builder.toString());
+    }
+
+    /**
+     * 输出所有的指标
+     * @param builder 输出的目标
+     */
+    public void writeMetrics(StringBuilder builder) {
+        //线程池
+        ThreadPoolExecutor threadPool = Global.getThreadPool();
+        gauge(builder, "voovan_threadpool_active_threads", "Active threads of the framework thread pool", threadPool.getActiveCount());
+        gauge(builder, "voovan_threadpool_threads", "Current threads of the framework thread pool", threadPool.getPoolSize());
+        gauge(builder, "voovan_threadpool_queue_size", "Queued tasks of the framework thread pool", threadPool.getQueue().size());
+        counter(builder, "voovan_threadpool_completed_tasks_total", "Completed tasks of the framework thread pool", threadPool.getCompletedTaskCount());
+        counter(builder, "voovan_threadpool_rejected_tasks_total", "Rejected tasks of the thread pools", ThreadPool.getRejectedCount());
+
+        //内存池
+        header(builder, "voovan_bytebuffer_pool_in_use_bytes", "Bytes borrowed from the ByteBufferPool per size class", "gauge");
+        ByteBufferPool.forEachInUseBytes((sizeClass, bytes) -> {
+            builder.append("voovan_bytebuffer_pool_in_use_bytes{size_class=\"");
+            if(sizeClass == -1) {
+                builder.append("large");
+            } else {
+                builder.append(sizeClass).append('k');
+            }
+            builder.append("\"} ").append(bytes).append('\n');
+        });
+
+        //连接和会话
+        if(webServer.getSessionManager() != null) {
+            gauge(builder, "voovan_http_sessions", "Http sessions", webServer.getSessionManager().getSessionContainer().size());
+        }
+
+        WebServerHandler webServerHandler = webServer.getWebServerHandler();
+        if(webServerHandler != null) {
+            gauge(builder, "voovan_http_keepalive_connections", "Keep-alive connections waiting for the next request", webServerHandler.getKeepAliveCount());
+            gauge(builder, "voovan_websocket_connections", "WebSocket connections", webServerHandler.getWebSocketCount());
+        }
+
+        counter(builder, "voovan_socket_read_bytes_total", "Bytes read from sockets", SocketStatistics.getReadBytes());
+        counter(builder, "voovan_socket_sent_bytes_total", "Bytes sent to sockets", SocketStatistics.getSentBytes());
+
+        //请求耗时
+        writeRequestMetrics(builder, MonitorGlobal.REQUEST_ANALYSIS.values());
+
+        //时间轮和日志
+        gauge(builder, "voovan_hashwheel_tick_lag_seconds", "Delay of the latest hash wheel tick", Global.getHashWheelTimer().getTickLag() / 1000d);
+        gauge(builder, "voovan_hashwheel_max_tick_lag_seconds", "Max delay of the hash wheel ticks", Global.getHashWheelTimer().getMaxTickLag() / 1000d);
+        gauge(builder, "voovan_logger_queue_size", "Log messages waiting to be written", LoggerThread.getTotalQueueSize());
+    }
+
+    /**
+     * 输出请求耗时的指标
+     *      累计的耗时按直方图输出, 最近 1 分钟的百分位数单独输出
+     * @param builder 输出的目标
+     * @param requestAnalyses 请求分析信息
+     */
+    public static void writeRequestMetrics(StringBuilder builder, Collection<RequestAnalysis> requestAnalyses) {
+        header(builder, "voovan_http_request_duration_seconds", "Request duration by route template", "histogram");
+        for(RequestAnalysis requestAnalysis : requestAnalyses) {
+            long[] bucketCounts = requestAnalysis.getBucketCounts();
+            for(int i = 0; i < bucketCounts.length; i++) {
+                builder.append("voovan_http_request_duration_seconds_bucket");
+                labels(builder, requestAnalysis);
+                builder.setLength(builder.length() - 1);
+                builder.append(",le=\"").append(BUCKET_LABELS[i]).append("\"} ");
+                builder.append(bucketCounts[i]).append('\n');
+            }
+
+            builder.append("voovan_http_request_duration_seconds_sum");
+            labels(builder, requestAnalysis);
+            builder.append(' ').append(requestAnalysis.getHistogram().getTotalTime() / 1e9).append('\n');
+
+            //与 +Inf 桶的计数保持一致
+            builder.append("voovan_http_request_duration_seconds_count");
+            labels(builder, requestAnalysis);
+            builder.append(' ').append(bucketCounts[bucketCounts.length - 1]).append('\n');
+        }
+
+        header(builder, "voovan_http_request_recent_duration_seconds", "Request duration quantiles over the last minute by route template", "gauge");
+        for(RequestAnalysis requestAnalysis : requestAnalyses) {
+            LatencyHistogram.Snapshot snapshot = requestAnalysis.getHistogram().snapshot(RequestAnalysis.ONE_MINUTE);
+            for(double quantile : QUANTILES) {
+                builder.append("voovan_http_request_recent_duration_seconds");
+                labels(builder, requestAnalysis);
+                builder.setLength(builder.length() - 1);
+                builder.append(",quantile=\"").append(quantile).append("\"} ");
+                builder.append(snapshot.getPercentile(quantile) / 1e9).append('\n');
+            }
+        }
+    }
+
+    private static void header(StringBuilder builder, String name, String help, String type) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder builder, String name, String help, long value) {
+        header(builder, name, help, "gauge");
+        builder.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder builder, String name, String help, double value) {
+        header(builder, name, help, "gauge");
+        builder.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder builder, String name, String help, long value) {
+        header(builder, name, help, "counter");
+        builder.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void labels(StringBuilder builder, RequestAnalysis requestAnalysis) {
+        builder.append("{method=\"");
+        escape(builder, requestAnalysis.getMethod());
+        builder.append("\",route=\"");
+        escape(builder, requestAnalysis.getPath());
+        builder.append("\"}");
+    }
+
+    private static void escape(StringBuilder builder, String value) {
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '\\' || c == '"') {
+                builder.append('\\').append(c);
+            } else if(c == '\n') {
+                builder.append("\\n");
+            } else {
+                builder.append(c);
+            }
+        }
+    }
+}
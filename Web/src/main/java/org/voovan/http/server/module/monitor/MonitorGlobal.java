@@ -1,5 +1,7 @@
 package org.voovan.http.server.module.monitor;
 
+import org.voovan.tools.metric.TopKCounter;
+
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -12,9 +14,25 @@ import java.util.concurrent.ConcurrentHashMap;
  * Create: 2017/9/28 12:07
  */
 public class MonitorGlobal {
+    /**
+     * 未匹配到路由的请求, 以及静态文件请求统计时使用的路由模板, 避免按原始路径统计导致数据无限增长
+     */
+    public static final String UNMATCHED_ROUTE = "<unmatched>";
+    public static final String STATIC_ROUTE = "<static>";
+
+    /**
+     * 非标准的请求方法统计时使用的方法名, 未匹配到路由的请求不区分请求方法
+     */
+    public static final String OTHER_METHOD = "OTHER";
+    public static final String ANY_METHOD = "*";
+
+    public static final int DEFAULT_IP_ANALYSIS_SIZE = 100;
+
     public static List<String> ALLOW_IP_ADDRESS = null;
 
+    //[Key] = 请求方法 + 空格 + 路由模板, 请求方法见 HttpMonitorFilter.getMethod
     public static Map<String,RequestAnalysis> REQUEST_ANALYSIS= new ConcurrentHashMap<String,RequestAnalysis>();
-    public static Map<String,IPAnalysis> IP_ANALYSIS = new ConcurrentHashMap<String,IPAnalysis>();
+    //只跟踪请求量最大的 IP
+    public static TopKCounter<String, IPAnalysis> IP_ANALYSIS = new TopKCounter<String, IPAnalysis>(DEFAULT_IP_ANALYSIS_SIZE, IPAnalysis::new);
 
 }
@@ -2,6 +2,7 @@ package org.voovan.http.server.module.monitor;
 
 import org.voovan.http.server.HttpModule;
 import org.voovan.http.server.context.HttpFilterConfig;
+import org.voovan.tools.metric.TopKCounter;
 
 import java.util.List;
 import java.util.Vector;
@@ -23,11 +24,20 @@ public class MonitorModule extends HttpModule {
         allowIPAddress.addAll((List<String>)getParamters("AllowIPAddress"));
         MonitorGlobal.ALLOW_IP_ADDRESS = allowIPAddress;
 
+        //跟踪的 IP 数量
+        Object ipAnalysisSize = getParamters("IPAnalysisSize");
+        if(ipAnalysisSize != null) {
+            MonitorGlobal.IP_ANALYSIS = new TopKCounter<String, IPAnalysis>(((Number)ipAnalysisSize).intValue(), IPAnalysis::new);
+        }
+
         //注册路由
         this.otherMethod("MONITOR", "/:Type/:Param1",new MonitorRouter());
         this.otherMethod("MONITOR", "/:Type",new MonitorRouter());
         this.otherMethod("MONITOR", "/:Type/:Param1/:Param2",new MonitorRouter());
 
+        //Prometheus 文本格式的指标, 只校验访问的 IP 地址
+        this.get("/metrics", new MetricsRouter(getWebServer()));
+
         //注册过滤器,用于抓取分析数据
         filterChain().addFirst(HttpFilterConfig.newInstance("MonitorFilter",HttpMonitorFilter.class,null));
     }
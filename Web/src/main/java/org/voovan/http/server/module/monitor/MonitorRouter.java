@@ -6,9 +6,11 @@ import org.voovan.http.server.HttpRouter;
 import org.voovan.http.server.context.WebContext;
 import org.voovan.tools.*;
 import org.voovan.tools.json.JSON;
+import org.voovan.tools.metric.TopKCounter;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,18 +49,34 @@ public class MonitorRouter implements HttpRouter {
 
     /**
      * 返回请求分析信息
-     * @return 请求分析信息集合
+     * @return 请求分析信息集合, 按路由模板统计, 时间单位: 毫秒
      */
-    public static List<RequestAnalysis> requestInfo() {
-        return (List<RequestAnalysis>) TObject.mapValueToList(MonitorGlobal.REQUEST_ANALYSIS);
+    public static List<Map<String, Object>> requestInfo() {
+        List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+        for(RequestAnalysis requestAnalysis : MonitorGlobal.REQUEST_ANALYSIS.values()) {
+            result.add(requestAnalysis.getStatistics());
+        }
+        return result;
     }
 
     /**
      * 返回请求IP分析信息
+     * @param headCount 返回请求量最大的 IP 数量
      * @return 请求分析信息集合
      */
-    public static List<IPAnalysis> ipAddressInfo() {
-        return (List<IPAnalysis>) TObject.mapValueToList(MonitorGlobal.IP_ANALYSIS);
+    public static List<Map<String, Object>> ipAddressInfo(int headCount) {
+        List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+        for(TopKCounter.Entry<String, IPAnalysis> entry : MonitorGlobal.IP_ANALYSIS.top(headCount)) {
+            IPAnalysis ipAnalysis = entry.getValue();
+            Map<String, Object> ipInfo = new LinkedHashMap<String, Object>();
+            ipInfo.put("address", ipAnalysis.getAddress());
+            ipInfo.put("count", entry.getCount());
+            ipInfo.put("error", entry.getError());
+            ipInfo.put("lastMinuteCount", ipAnalysis.getLastMinuteCount());
+            ipInfo.put("data", ipAnalysis.getData());
+            result.add(ipInfo);
+        }
+        return result;
     }
 
     @Override
@@ -98,7 +116,9 @@ public class MonitorRouter implements HttpRouter {
             } else if ("RequestAnalysis".equals(type)) {
                 responseStr = JSON.toJSON(requestInfo());
             } else if ("IPAddressAnalysis".equals(type)) {
-                responseStr = JSON.toJSON(ipAddressInfo());
+                String headCountStr = request.getParameter("Param1");
+                int headCount = headCountStr==null ? 10 : Integer.valueOf(headCountStr);
+                responseStr = JSON.toJSON(ipAddressInfo(headCount));
             } else if ("Log".equals(type)) {
                 String logType = request.getParameter("Param1");
                 logType = logType == null? "SYSOUT" : logType;
@@ -118,7 +138,7 @@ public class MonitorRouter implements HttpRouter {
                     summary.put("GC", TPerformance.getJVMGCInfo());
                     summary.put("RunningThreads", TPerformance.getThreadDetail("RUNNABLE", false));
                     summary.put("RequestAnalysis", requestInfo());
-                    summary.put("IPAddressAnalysis", ipAddressInfo());
+                    summary.put("IPAddressAnalysis", ipAddressInfo(10));
                 }
                 responseStr = JSON.toJSON(summary);
             }  else {
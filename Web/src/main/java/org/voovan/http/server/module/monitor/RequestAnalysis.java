@@ -1,9 +1,14 @@
 package org.voovan.http.server.module.monitor;
 
-import java.util.concurrent.atomic.AtomicLong;
+import org.voovan.tools.metric.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 请求分析信息对象
+ *      按路由模板统计, 耗时以纳秒精度记录在延迟直方图中
  *
  * @author helyho
  *
@@ -12,70 +17,106 @@ import java.util.concurrent.atomic.AtomicLong;
  * Licence: Apache v2 License
  */
 public class RequestAnalysis {
-    private String path;    //请求路径
-    private AtomicLong count;     //请求数量
-    private int avgTime;   //平均请求时间
-    private int maxTime;   //最大请求时间
-    private int minTime;   //最小请求时间
+    public static final long ONE_MINUTE = 60 * 1000L;
+    public static final long FIVE_MINUTES = 5 * 60 * 1000L;
 
-    public RequestAnalysis(String path){
-        this.path = path;
-        count = new AtomicLong(0);
-        avgTime = 0;
-        maxTime = 0;
-        minTime = 0;
-    }
+    /**
+     * 累计请求数的分桶上界, 单位: 纳秒, 用于输出 Prometheus 直方图
+     */
+    public static final long[] BUCKET_BOUNDS = new long[]{5000000L, 10000000L, 25000000L, 50000000L, 100000000L,
+            250000000L, 500000000L, 1000000000L, 2500000000L, 5000000000L, 10000000000L};
 
-    public String getPath() {
-        return path;
-    }
+    private String method;  //请求方法
+    private String path;    //路由模板
+    private LatencyHistogram histogram;
+    private LongAdder[] bucketCounts; //最后一个桶没有上界
 
-    public void setPath(String path) {
+    public RequestAnalysis(String method, String path){
+        this.method = method;
         this.path = path;
+        this.histogram = new LatencyHistogram(15000, FIVE_MINUTES);
+        this.bucketCounts = new LongAdder[BUCKET_BOUNDS.length + 1];
+        for(int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = new LongAdder();
+        }
     }
 
-    public long getCount() {
-        return count.get();
+    public String getMethod() {
+        return method;
     }
 
-    public int getAvgTime() {
-        return avgTime;
+    public String getPath() {
+        return path;
     }
 
-    public int getMaxTime() {
-        return maxTime;
+    public LatencyHistogram getHistogram() {
+        return histogram;
     }
 
-    public int getMinTime() {
-        return minTime;
+    public long getCount() {
+        return histogram.getTotalCount();
     }
 
-
     /**
      * 增加请求时间
-     * @param time 增加的时间参数
+     * @param nanos 请求的处理时间, 单位: 纳秒
      */
-    public void addRequestTime(int time){
-        count.addAndGet(1);
+    public void record(long nanos){
+        histogram.record(nanos);
 
-        if (avgTime == 0 ){
-            avgTime = time;
+        int index = 0;
+        while(index < BUCKET_BOUNDS.length && nanos > BUCKET_BOUNDS[index]) {
+            index++;
         }
+        bucketCounts[index].increment();
+    }
 
-        avgTime = (avgTime+time)/2;
-
-        if(maxTime==0){
-            maxTime = time;
-        }
-        if(minTime==0){
-            minTime = time;
+    /**
+     * 获取耗时不超过各个分桶上界的累计请求数
+     * @return 与 BUCKET_BOUNDS 对应的累计请求数, 最后一个元素为全部的请求数
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[bucketCounts.length];
+        long count = 0;
+        for(int i = 0; i < bucketCounts.length; i++) {
+            count += bucketCounts[i].sum();
+            counts[i] = count;
         }
+        return counts;
+    }
 
-        if(maxTime<time){
-            maxTime = time;
-        }
-        if(minTime>time){
-            minTime = time;
-        }
+    /**
+     * 获取统计信息, 时间单位: 毫秒
+     * @return 统计信息
+     */
+    public Map<String, Object> getStatistics(){
+        Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+        long count = histogram.getTotalCount();
+        statistics.put("method", method);
+        statistics.put("path", path);
+        statistics.put("count", count);
+        statistics.put("avgTime", toMillis(count == 0 ? 0 : (double) histogram.getTotalTime() / count));
+        statistics.put("maxTime", toMillis(histogram.getMaxTime()));
+        statistics.put("minTime", toMillis(histogram.getMinTime()));
+        statistics.put("1m", windowStatistics(histogram.snapshot(ONE_MINUTE)));
+        statistics.put("5m", windowStatistics(histogram.snapshot(FIVE_MINUTES)));
+        return statistics;
+    }
+
+    private static Map<String, Object> windowStatistics(LatencyHistogram.Snapshot snapshot){
+        Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+        statistics.put("count", snapshot.getCount());
+        statistics.put("rate", Math.round(snapshot.getRate() * 100) / 100d);
+        statistics.put("avgTime", toMillis(snapshot.getMean()));
+        statistics.put("maxTime", toMillis(snapshot.getMax()));
+        statistics.put("p50", toMillis(snapshot.getPercentile(0.5)));
+        statistics.put("p95", toMillis(snapshot.getPercentile(0.95)));
+        statistics.put("p99", toMillis(snapshot.getPercentile(0.99)));
+        statistics.put("p999", toMillis(snapshot.getPercentile(0.999)));
+        return statistics;
+    }
+
+    private static double toMillis(double nanos){
+        return Math.round(nanos / 1000d) / 1000d;
     }
 }
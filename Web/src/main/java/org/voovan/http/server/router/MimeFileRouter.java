@@ -1,5 +1,6 @@
 package org.voovan.http.server.router;
 
+import org.voovan.http.message.HttpHeadCache;
 import org.voovan.http.server.HttpRequest;
 import org.voovan.http.server.HttpResponse;
 import org.voovan.http.server.HttpRouter;
@@ -8,16 +9,25 @@ import org.voovan.http.server.exception.ResourceNotFound;
 import org.voovan.tools.TDateTime;
 import org.voovan.tools.TFile;
 import org.voovan.tools.TString;
+import org.voovan.tools.TZip;
+import org.voovan.tools.log.Logger;
 import org.voovan.tools.security.THash;
 
 import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * MIME 文件路由处理类
+ * 		小于 maxCacheFileSize 的文件缓存在内存中, 预先计算 ETag, 响应头和 gzip 压缩后的内容
+ * 		缓存的文件每秒最多检查一次修改时间和大小, 变化后重新加载
+ * 		缓存以文件的规范路径为键, 总大小超过上限时淘汰最久未使用的文件
  *
  * @author helyho
  *
@@ -27,14 +37,59 @@ import java.util.Date;
  */
 public class MimeFileRouter implements HttpRouter {
 
+	/**
+	 * 缓存的文件检查修改的时间间隔, 单位: 毫秒
+	 */
+	public static final long CHECK_INTERVAL = 1000;
+
+	/**
+	 * 缓存的文件的总大小的默认上限, 超过后淘汰最久未使用的文件
+	 */
+	public static final long MAX_CACHE_SIZE = 64 * 1024 * 1024;
+
+	private static final int MAX_INDEX_CACHE_SIZE = 4096;
+	private static final int MAX_AGE = 86400;
+	private static final String NO_INDEX = "";
+
 	private String	rootPath;
+	private int maxCacheFileSize;
+	private long maxCacheSize;
+	//按访问顺序排列, 读写都需要锁定 fileCache
+	private LinkedHashMap<String, CachedFile> fileCache;
+	private long cachedSize;
+	private ConcurrentHashMap<String, CachedIndex> indexCache;
 
 	/**
 	 * 构造函数
+	 * 		不缓存文件
 	 * @param rootPath 根路径
 	 */
 	public MimeFileRouter(String rootPath) {
+		this(rootPath, 0);
+	}
+
+	/**
+	 * 构造函数
+	 * @param rootPath 根路径
+	 * @param maxCacheFileSize 缓存的文件的最大尺寸, 单位: 字节, 小于等于 0 则不缓存文件
+	 */
+	public MimeFileRouter(String rootPath, int maxCacheFileSize) {
+		this(rootPath, maxCacheFileSize, MAX_CACHE_SIZE);
+	}
+
+	/**
+	 * 构造函数
+	 * @param rootPath 根路径
+	 * @param maxCacheFileSize 缓存的文件的最大尺寸, 单位: 字节, 小于等于 0 则不缓存文件
+	 * @param maxCacheSize 缓存的文件的总大小上限, 单位: 字节
+	 */
+	public MimeFileRouter(String rootPath, int maxCacheFileSize, long maxCacheSize) {
 		this.rootPath = rootPath;
+		this.maxCacheFileSize = maxCacheFileSize;
+		this.maxCacheSize = maxCacheSize;
+		this.fileCache = new LinkedHashMap<String, CachedFile>(16, 0.75f, true);
+		this.cachedSize = 0;
+		this.indexCache = new ConcurrentHashMap<String, CachedIndex>();
 	}
 
 	/**
@@ -43,8 +98,10 @@ public class MimeFileRouter implements HttpRouter {
 	 * @return 返回文件对象, 文件不一定存在
 	 */
 	public File getStaticFile(HttpRequest request){
-		String urlPath = request.protocol().getPath();
+		return getStaticFile(request.protocol().getPath());
+	}
 
+	private File getStaticFile(String urlPath){
 		// 转换请求Path 里的文件路劲分割符为系统默认分割符
 		urlPath = TString.fastReplaceAll(urlPath, "//", File.separator);
 		// 拼装文件实际存储路径
@@ -52,10 +109,59 @@ public class MimeFileRouter implements HttpRouter {
 		return new File(filePath);
 	}
 
+	/**
+	 * 判断请求是否对应一个静态文件
+	 * @param request request 请求对象
+	 * @return true: 是静态文件, false: 不是静态文件
+	 */
+	public boolean isStaticFile(HttpRequest request) {
+		return getStaticFile(request).isFile();
+	}
+
+	/**
+	 * 查找目录中的首页索引文件
+	 * 		查找结果(包括未找到)按检查间隔缓存, 避免每次请求都探测磁盘
+	 * @param requestPath 请求路径
+	 * @param indexFiles 首页索引文件的名称
+	 * @return 首页索引文件的请求路径, 未找到则返回 null
+	 */
+	public String findIndex(String requestPath, String[] indexFiles) {
+		long currentTime = System.currentTimeMillis();
+		CachedIndex cachedIndex = indexCache.get(requestPath);
+		if(cachedIndex != null && currentTime - cachedIndex.checkTime < CHECK_INTERVAL) {
+			return cachedIndex.path == NO_INDEX ? null : cachedIndex.path;
+		}
+
+		String indexPath = NO_INDEX;
+		for (String indexFile : indexFiles) {
+			String filePath = rootPath + requestPath.replace("/",File.separator) + (requestPath.endsWith("/") ? "" : File.separator) + indexFile;
+			if(TFile.fileExists(filePath)){
+				indexPath = requestPath + (requestPath.endsWith("/") ? "" : "/") + indexFile;
+				break;
+			}
+		}
+
+		if(cachedIndex != null || indexCache.size() < MAX_INDEX_CACHE_SIZE) {
+			indexCache.put(requestPath, new CachedIndex(indexPath, currentTime));
+		}
+
+		return indexPath == NO_INDEX ? null : indexPath;
+	}
+
 	@Override
 	public void process(HttpRequest request, HttpResponse response) throws Exception {
 		String urlPath = request.protocol().getPath();
-		File responseFile = getStaticFile(request);
+
+		//优先使用缓存的文件, 范围请求直接读取文件
+		if(request.header().get("Range") == null) {
+			CachedFile cachedFile = getCachedFile(urlPath);
+			if (cachedFile != null) {
+				fillCachedFile(cachedFile, request, response);
+				return;
+			}
+		}
+
+		File responseFile = getStaticFile(urlPath);
 
 		if (responseFile.exists()) {
 			// 获取扩展名
@@ -167,6 +273,205 @@ public class MimeFileRouter implements HttpRouter {
 		}
 	}
 
+	/**
+	 * 获取缓存的文件, 未缓存则加载
+	 * @param urlPath 请求路径
+	 * @return 缓存的文件, 文件不存在或者不能缓存时返回 null
+	 */
+	private CachedFile getCachedFile(String urlPath) {
+		if(maxCacheFileSize <= 0) {
+			return null;
+		}
+
+		//不同的请求路径可能指向同一个文件, 使用文件的规范路径作为缓存的键
+		File file = getStaticFile(urlPath);
+		String cacheKey;
+		try {
+			cacheKey = file.getCanonicalPath();
+		} catch (IOException e) {
+			return null;
+		}
+
+		long currentTime = System.currentTimeMillis();
+		CachedFile cachedFile;
+		synchronized (fileCache) {
+			cachedFile = fileCache.get(cacheKey);
+		}
+
+		if(cachedFile != null) {
+			if(currentTime - cachedFile.checkTime < CHECK_INTERVAL) {
+				return cachedFile;
+			}
+
+			//文件没有变化则继续使用
+			if(file.lastModified() == cachedFile.lastModified && file.length() == cachedFile.content.length) {
+				cachedFile.checkTime = currentTime;
+				return cachedFile;
+			}
+
+			removeCachedFile(cacheKey, cachedFile);
+		}
+
+		long fileSize = file.length();
+		if(!file.isFile() || fileSize > maxCacheFileSize) {
+			return null;
+		}
+
+		try {
+			cachedFile = loadFile(urlPath, file);
+		} catch (IOException e) {
+			Logger.error("Load static file " + file.getPath() + " error", e);
+			return null;
+		}
+
+		return putCachedFile(cacheKey, cachedFile);
+	}
+
+	/**
+	 * 写入缓存的文件, 总大小超过上限时淘汰最久未使用的文件
+	 * @param cacheKey 缓存的键
+	 * @param cachedFile 缓存的文件
+	 * @return 缓存中已存在的文件, 不存在则返回写入的文件
+	 */
+	private CachedFile putCachedFile(String cacheKey, CachedFile cachedFile) {
+		synchronized (fileCache) {
+			CachedFile existsFile = fileCache.get(cacheKey);
+			if(existsFile != null) {
+				return existsFile;
+			}
+
+			if(cachedFile.size() > maxCacheSize) {
+				return cachedFile;
+			}
+
+			fileCache.put(cacheKey, cachedFile);
+			cachedSize += cachedFile.size();
+
+			Iterator<Map.Entry<String, CachedFile>> iterator = fileCache.entrySet().iterator();
+			while(cachedSize > maxCacheSize && iterator.hasNext()) {
+				cachedSize -= iterator.next().getValue().size();
+				iterator.remove();
+			}
+
+			return cachedFile;
+		}
+	}
+
+	private void removeCachedFile(String cacheKey, CachedFile cachedFile) {
+		synchronized (fileCache) {
+			if(fileCache.get(cacheKey) == cachedFile) {
+				fileCache.remove(cacheKey);
+				cachedSize -= cachedFile.size();
+			}
+		}
+	}
+
+	private CachedFile loadFile(String urlPath, File file) throws IOException {
+		long lastModified = file.lastModified();
+		byte[] content = TFile.loadFile(file);
+		if(content == null) {
+			throw new IOException("Read file failed");
+		}
+
+		String fileExtension = urlPath.substring(urlPath.lastIndexOf(".") + 1, urlPath.length());
+		String contentType = MimeTools.getMimeByFileExtension(fileExtension);
+
+		//与 isNotModify 的 ETag 计算方式一致
+		Date fileModifyDate = new Date(lastModified);
+		String eTag = TString.assembly("\"", THash.encryptMD5(Integer.toString(file.hashCode()+fileModifyDate.hashCode())).toUpperCase(), "\"");
+
+		//文本类的文件预先压缩, 压缩效果不明显的文件不压缩
+		byte[] gzipContent = null;
+		if(isCompressible(contentType) && content.length > 0) {
+			gzipContent = TZip.encodeGZip(content);
+			if(gzipContent.length > content.length * 0.9) {
+				gzipContent = null;
+			}
+		}
+
+		return new CachedFile(file, lastModified, content, gzipContent, contentType, eTag, TDateTime.formatToGMT(fileModifyDate));
+	}
+
+	private static boolean isCompressible(String contentType) {
+		return contentType != null && (contentType.startsWith("text/") || contentType.contains("javascript") ||
+				contentType.contains("json") || contentType.contains("xml") || contentType.contains("svg"));
+	}
+
+	/**
+	 * 填充缓存的文件到 response
+	 * @param cachedFile 缓存的文件
+	 * @param request   HTTP 请求对象
+	 * @param response  HTTP 响应对象
+	 */
+	private void fillCachedFile(CachedFile cachedFile, HttpRequest request, HttpResponse response) {
+		response.header().put("Content-Type", cachedFile.contentType);
+		response.header().put("ETag", cachedFile.eTag);
+		response.header().put("Last-Modified", cachedFile.lastModifiedGMT);
+		response.header().put("Cache-Control", "max-age=" + MAX_AGE);
+		response.header().put("Expires", HttpHeadCache.getDate(MAX_AGE));
+
+		String requestModifyDate = request.header().get("If-Modified-Since");
+		if(cachedFile.eTag.equals(request.header().get("If-None-Match")) ||
+				cachedFile.lastModifiedGMT.equals(requestModifyDate) ||
+				(requestModifyDate != null && isSameTime(requestModifyDate, cachedFile.lastModified))) {
+			setNotModifyResponse(response);
+			return;
+		}
+
+		//使用预先压缩的内容, 不在发送时压缩
+		if(cachedFile.gzipContent != null) {
+			response.header().put("Vary", "Accept-Encoding");
+			if(response.isCompress()) {
+				response.header().put("Content-Encoding", "gzip");
+				response.body().write(cachedFile.gzipContent);
+				response.setCompress(false);
+				return;
+			}
+		}
+
+		response.setCompress(false);
+		response.body().write(cachedFile.content);
+	}
+
+	private static boolean isSameTime(String gmtTime, long time) {
+		try {
+			return TDateTime.parseToGMT(gmtTime).equals(new Date(time));
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 清空缓存的文件
+	 */
+	public void clearCache() {
+		synchronized (fileCache) {
+			fileCache.clear();
+			cachedSize = 0;
+		}
+		indexCache.clear();
+	}
+
+	/**
+	 * 获取缓存的文件数量
+	 * @return 缓存的文件数量
+	 */
+	public int getCachedFileCount() {
+		synchronized (fileCache) {
+			return fileCache.size();
+		}
+	}
+
+	/**
+	 * 获取缓存的文件的总大小
+	 * @return 缓存的文件的总大小, 单位: 字节
+	 */
+	public long getCachedFileSize() {
+		synchronized (fileCache) {
+			return cachedSize;
+		}
+	}
+
 	/**
 	 * 将响应报文设置称304
 	 * @param response HTTP 响应对象
@@ -176,4 +481,45 @@ public class MimeFileRouter implements HttpRouter {
 		response.protocol().setStatusCode("Not Modified");
 	}
 
+	/**
+	 * 缓存的文件
+	 */
+	private static class CachedFile {
+		private final File file;
+		private final long lastModified;
+		private final byte[] content;
+		private final byte[] gzipContent;
+		private final String contentType;
+		private final String eTag;
+		private final String lastModifiedGMT;
+		private volatile long checkTime;
+
+		private CachedFile(File file, long lastModified, byte[] content, byte[] gzipContent, String contentType, String eTag, String lastModifiedGMT) {
+			this.file = file;
+			this.lastModified = lastModified;
+			this.content = content;
+			this.gzipContent = gzipContent;
+			this.contentType = contentType;
+			this.eTag = eTag;
+			this.lastModifiedGMT = lastModifiedGMT;
+			this.checkTime = System.currentTimeMillis();
+		}
+
+		private long size() {
+			return content.length + (gzipContent == null ? 0 : gzipContent.length);
+		}
+	}
+
+	/**
+	 * 缓存的首页索引文件的查找结果
+	 */
+	private static class CachedIndex {
+		private final String path;
+		private final long checkTime;
+
+		private CachedIndex(String path, long checkTime) {
+			this.path = path;
+			this.checkTime = checkTime;
+		}
+	}
 }
@@ -3,9 +3,9 @@ package org.voovan.http.websocket;
 import org.voovan.tools.TByteBuffer;
 import org.voovan.tools.log.Logger;
 
-import java.math.BigInteger;
 import java.nio.ByteBuffer;
-import java.util.Random;
+import java.nio.ByteOrder;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * WebSocket帧解析类
@@ -119,7 +119,7 @@ public class WebSocketFrame {
 		int expectPackagesize = 2;
 		if (maxpacketsize < expectPackagesize) {
 			Logger.error("Expect package size error!");
-			errorCode = 1002;
+			return incomplete(byteBuffer, true, Opcode.CLOSING, false);
 		}
 		byte finByte = byteBuffer.get();
 		boolean fin = finByte >> 8 != 0;
@@ -137,24 +137,27 @@ public class WebSocketFrame {
 			Logger.error("Opcode data error!");
 			errorCode = 1002;
 		}
+		// 扩展长度和掩码不完整
+		if (byteBuffer.remaining() < (payloadlength == 126 ? 2 : (payloadlength == 127 ? 8 : 0)) + (mask ? 4 : 0)) {
+			Logger.error("Parse package size error!");
+			return incomplete(byteBuffer, fin, opcode, mask);
+		}
+
 		//“负载数据”的长度,以字节为单位:如果 0-125,这是负载长度。
 		//如果 126, 之后的两字节解释为一个 16 位的无符号整数是负载长度。
 		//如果 127,之后的 8￼字节解释为一个 64 位的无符号整数(最高有效位必须是 0)是负载长度。
 		if (payloadlength == 126) {
 			expectPackagesize += 2;
-			byte[] sizebytes = new byte[3];
-			sizebytes[1] = byteBuffer.get();
-			sizebytes[2] = byteBuffer.get();
-			payloadlength = new BigInteger(sizebytes).intValue();
+			payloadlength = byteBuffer.getShort() & 0xFFFF;
 		} else if(payloadlength==127) {
 			expectPackagesize += 8;
-			byte[] bytes = new byte[8];
-			for (int i = 0; i < 8; i++) {
-				bytes[i] = byteBuffer.get();
-			}
-			long length = new BigInteger(bytes).longValue();
-			if (length <= Integer.MAX_VALUE) {
+			long length = byteBuffer.getLong();
+			if (length <= Integer.MAX_VALUE && length >= 0) {
 				payloadlength = (int) length;
+			} else {
+				Logger.error("Payload length is too large!");
+				payloadlength = 0;
+				errorCode = 1009;
 			}
 		}
 
@@ -162,27 +165,89 @@ public class WebSocketFrame {
 		expectPackagesize += (mask ? 4 : 0);
 		expectPackagesize += payloadlength;
 
-		// 如果实际接受的数据小于数据包的大小则报错
+		// 如果实际接受的数据小于数据包的大小则报错, 不使用截断的负载
 		if (maxpacketsize < expectPackagesize) {
 			Logger.error("Parse package size error!");
+			return incomplete(byteBuffer, fin, opcode, mask);
 		}
 
-		// 读取实际接受数据
-		ByteBuffer payload = ByteBuffer.allocateDirect(payloadlength);
+		int maskKey = 0;
 		if (mask) {
-			byte[] maskskey = new byte[4];
-			byteBuffer.get(maskskey);
-			for (int i = 0; i < payloadlength; i++) {
-				payload.put((byte) ((byte) byteBuffer.get() ^ (byte) maskskey[i % 4]));
-			}
-		} else {
-			payload.put(byteBuffer);
+			maskKey = byteBuffer.getInt();
+		}
+
+		int payloadStart = byteBuffer.position();
+
+		// 在原缓冲区上直接进行反掩码处理, 不产生额外的拷贝
+		if (mask) {
+			unmask(byteBuffer, payloadStart, payloadlength, maskKey);
 		}
-		payload.flip();
+
+		// 切片作为负载数据, 和接收缓冲区共享内存
+		ByteBuffer payload = byteBuffer.slice();
+		payload.limit(payloadlength);
+		byteBuffer.position(payloadStart + payloadlength);
+
+		// 控制帧会被异步的回送(PONG/CLOSING), 不能引用接收缓冲区, 这里进行复制,
+		// 控制帧的负载不会大于 125 字节
+		if(opcode == Opcode.PING || opcode == Opcode.PONG || opcode == Opcode.CLOSING){
+			ByteBuffer controlPayload = ByteBuffer.allocate(payloadlength);
+			controlPayload.put(payload);
+			controlPayload.flip();
+			payload = controlPayload;
+		}
+
 		WebSocketFrame webSocketFrame = WebSocketFrame.newInstance(fin, opcode, mask, payload, errorCode);
 		return webSocketFrame;
 	}
 
+	/**
+	 * 构造数据不完整的帧
+	 * 		报文由消息分割器按帧的长度切分, 数据不足说明帧的长度错误, 丢弃剩余的数据并返回 1002 错误码
+	 *
+	 * @param byteBuffer 字节缓冲对象
+	 * @param fin    fin 码
+	 * @param opcode 操作码
+	 * @param mask   掩码
+	 * @return WebSocket 帧对象
+	 */
+	private static WebSocketFrame incomplete(ByteBuffer byteBuffer, boolean fin, Opcode opcode, boolean mask) {
+		byteBuffer.position(byteBuffer.limit());
+		return WebSocketFrame.newInstance(fin, opcode, mask, null, 1002);
+	}
+
+	/**
+	 * 对缓冲区中的数据进行掩码/反掩码处理
+	 * 		直接在缓冲区上按 8 字节一次进行异或, 剩余不足 8 字节的部分按字节处理
+	 * 		由于异或运算的特性, 掩码和反掩码是同一个操作
+	 *
+	 * @param byteBuffer 缓冲区对象
+	 * @param offset     数据的起始位置
+	 * @param length     数据的长度
+	 * @param maskKey    4 字节的掩码, 按缓冲区的字节序读取
+	 */
+	public static void unmask(ByteBuffer byteBuffer, int offset, int length, int maskKey) {
+		if(maskKey == 0 || length <= 0){
+			return;
+		}
+
+		long maskLong = ((long)maskKey << 32) | (maskKey & 0xFFFFFFFFL);
+
+		int index = offset;
+		int wordEnd = offset + (length & ~7);
+		for (; index < wordEnd; index += 8) {
+			byteBuffer.putLong(index, byteBuffer.getLong(index) ^ maskLong);
+		}
+
+		int end = offset + length;
+		for (int i = 0; index < end; index++, i++) {
+			//剩余的字节从掩码的第一个字节开始重新对齐
+			byte maskByte = byteBuffer.order() == ByteOrder.BIG_ENDIAN ?
+					(byte) (maskKey >>> (24 - 8 * (i & 3))) : (byte) (maskKey >>> (8 * (i & 3)));
+			byteBuffer.put(index, (byte) (byteBuffer.get(index) ^ maskByte));
+		}
+	}
+
 	/**
 	 * 类型枚举
 	 *
@@ -296,15 +361,12 @@ public class WebSocketFrame {
 		}
 
 		if (mask) {
-			ByteBuffer maskkey = TByteBuffer.allocateDirect(4);
-			Random reuseableRandom = new Random();
-			maskkey.putInt(reuseableRandom.nextInt());
-			maskkey.flip();
-			buf.put(maskkey);
-			for (int i = 0; data.hasRemaining(); i++) {
-				buf.put((byte) (data.get() ^ maskkey.get(i % 4)));
-			}
-			TByteBuffer.release(maskkey);
+			int maskKey = ThreadLocalRandom.current().nextInt();
+			buf.putInt(maskKey);
+			int dataStart = buf.position();
+			int dataLength = data.remaining();
+			buf.put(data);
+			unmask(buf, dataStart, dataLength, maskKey);
 		} else{
 			buf.put(data);
 		}
@@ -16,9 +16,31 @@ import java.nio.ByteBuffer;
 public abstract class WebSocketRouter implements Cloneable{
 
 	protected Chain<WebSocketFilter> webSocketFilterChain;
+	protected boolean streaming;
 
 	public WebSocketRouter(){
 		webSocketFilterChain = new Chain<WebSocketFilter>();
+		streaming = false;
+	}
+
+	/**
+	 * 是否使用流式的方式处理消息
+	 * 		true: 每个数据帧都会直接触发 onFragment 事件, 不再组装成完整的消息触发 onRecived 事件
+	 * 		false: 组装成完整的消息后触发 onRecived 事件
+	 * @return true: 流式处理, false: 完整消息处理
+	 */
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	/**
+	 * 设置是否使用流式的方式处理消息
+	 * @param streaming true: 流式处理, false: 完整消息处理
+	 * @return WebSocketRouter 对象
+	 */
+	public WebSocketRouter setStreaming(boolean streaming) {
+		this.streaming = streaming;
+		return this;
 	}
 
 	public WebSocketRouter addFilterChain(WebSocketFilter webSocketFilter) {
@@ -45,10 +67,9 @@ public abstract class WebSocketRouter implements Cloneable{
 	 * @throws WebSocketFilterException WebSocket过滤器异常
 	 */
 	public Object filterDecoder(WebSocketSession session, Object result) throws WebSocketFilterException {
-		Chain<WebSocketFilter> tmpWebFilterChain = webSocketFilterChain.clone();
-		tmpWebFilterChain.rewind();
-		while (tmpWebFilterChain.hasNext()) {
-			WebSocketFilter fitler = tmpWebFilterChain.next();
+		Object[] filters = webSocketFilterChain.snapshot();
+		for (int i = 0; i < filters.length; i++) {
+			WebSocketFilter fitler = (WebSocketFilter) filters[i];
 			result = fitler.decode(session, result);
 			if(result==null){
 				break;
@@ -65,10 +86,9 @@ public abstract class WebSocketRouter implements Cloneable{
 	 * @throws WebSocketFilterException WebSocket过滤器异常
 	 */
 	public Object filterEncoder(WebSocketSession session,Object result) throws WebSocketFilterException {
-		Chain<WebSocketFilter> tmpWebFilterChain = webSocketFilterChain.clone();
-		tmpWebFilterChain.rewind();
-		while (tmpWebFilterChain.hasPrevious()) {
-			WebSocketFilter fitler = tmpWebFilterChain.previous();
+		Object[] filters = webSocketFilterChain.snapshot();
+		for (int i = filters.length - 1; i >= 0; i--) {
+			WebSocketFilter fitler = (WebSocketFilter) filters[i];
 			result = fitler.encode(session, result);
 			if(result==null){
 				break;
@@ -92,12 +112,26 @@ public abstract class WebSocketRouter implements Cloneable{
 
 	/**
 	 * websocket 收到消息
+	 * 		单帧消息的 ByteBuffer 直接引用接收缓冲区, 只在本次调用中有效, 如果需要保留或异步使用请自行复制
 	 * @param session WebSocket 会话
 	 * @param obj 收到的缓冲数据
 	 * @return 收到的缓冲数据
 	 */
 	public abstract Object onRecived(WebSocketSession session, Object obj);
 
+	/**
+	 * websocket 收到消息分片, 仅在流式处理(isStreaming() == true)时触发
+	 * 		分片数据不经过过滤器解码, 返回值会经过过滤器编码后发送
+	 * 		fragment 只在本次调用中有效, 如果需要保留请自行复制
+	 * @param session WebSocket 会话
+	 * @param fragment 收到的分片数据
+	 * @param isLast 是否是消息的最后一个分片
+	 * @return 需要回复的数据, null 则不回复
+	 */
+	public Object onFragment(WebSocketSession session, ByteBuffer fragment, boolean isLast){
+		return null;
+	}
+
 	/**
 	 * websocket 消息发送完成
 	 * @param session WebSocket 会话
@@ -0,0 +1,175 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.message.Request;
+import org.voovan.http.message.Response;
+import org.voovan.http.server.AdmissionController;
+import org.voovan.http.server.HttpRequest;
+import org.voovan.http.server.HttpResponse;
+import org.voovan.http.server.context.AdmissionConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * AdmissionController 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class AdmissionControllerUnit extends TestCase {
+
+	public AdmissionControllerUnit(String name) {
+		super(name);
+	}
+
+	private static HttpRequest newRequest(String ip) {
+		HttpRequest request = new HttpRequest(new Request(), "UTF-8", null) {};
+		request.header().put("X-Real-IP", ip);
+		return request;
+	}
+
+	private static HttpResponse newResponse() {
+		return new HttpResponse(new Response(), "UTF-8", null) {};
+	}
+
+	public void testRouteLimits() {
+		//配置中的路由限制被复制为并发安全的 Map
+		Map<String, Integer> routeLimits = new HashMap<String, Integer>();
+		routeLimits.put("/a", 1);
+		AdmissionConfig config = new AdmissionConfig();
+		config.setRouteLimits(routeLimits);
+		assertTrue(config.getRouteLimits() instanceof ConcurrentHashMap);
+		routeLimits.put("/b", 1);
+		assertFalse(config.getRouteLimits().containsKey("/b"));
+
+		config.setRouteLimits(null);
+		assertTrue(config.getRouteLimits().isEmpty());
+
+		AdmissionController controller = new AdmissionController(config);
+		assertFalse(controller.hasRouteLimit());
+		controller.setRouteLimit("/a", 2);
+		assertTrue(controller.hasRouteLimit());
+		assertEquals(2, config.getRouteLimits().get("/a").intValue());
+		controller.setRouteLimit("/a", 0);
+		assertFalse(controller.hasRouteLimit());
+	}
+
+	public void testRouteConcurrent() {
+		AdmissionConfig config = new AdmissionConfig();
+		config.setAdaptive(false);
+		AdmissionController controller = new AdmissionController(config);
+		controller.setRouteLimit("/a", 1);
+
+		AdmissionController.Permit permit = controller.acquire(newRequest("127.0.0.1"), newResponse(), "/a");
+		assertNotNull(permit);
+
+		//超出路由的并发数限制返回 503
+		HttpResponse response = newResponse();
+		assertNull(controller.acquire(newRequest("127.0.0.1"), response, "/a"));
+		assertEquals(503, response.protocol().getStatus());
+		assertEquals(1, controller.getRouteRejected());
+
+		//其他路由不受影响
+		AdmissionController.Permit other = controller.acquire(newRequest("127.0.0.1"), newResponse(), "/b");
+		assertNotNull(other);
+		other.release(false);
+
+		permit.release(false);
+		assertEquals(0, controller.getInflight());
+		permit = controller.acquire(newRequest("127.0.0.1"), newResponse(), "/a");
+		assertNotNull(permit);
+		permit.release(false);
+	}
+
+	public void testGlobalConcurrent() {
+		AdmissionConfig config = new AdmissionConfig();
+		config.setAdaptive(false);
+		config.setMaxConcurrent(2);
+		AdmissionController controller = new AdmissionController(config);
+
+		AdmissionController.Permit permit1 = controller.acquire(newRequest("127.0.0.1"), newResponse(), null);
+		AdmissionController.Permit permit2 = controller.acquire(newRequest("127.0.0.1"), newResponse(), null);
+		assertNotNull(permit1);
+		assertNotNull(permit2);
+
+		HttpResponse response = newResponse();
+		assertNull(controller.acquire(newRequest("127.0.0.1"), response, null));
+		assertEquals(503, response.protocol().getStatus());
+		assertEquals(1, controller.getLimitRejected());
+
+		permit1.release(false);
+		permit2.release(false);
+		assertEquals(0, controller.getInflight());
+	}
+
+	public void testIpRate() {
+		AdmissionConfig config = new AdmissionConfig();
+		config.setAdaptive(false);
+		config.setIpRate(1);
+		config.setIpBurst(2);
+		AdmissionController controller = new AdmissionController(config);
+
+		controller.acquire(newRequest("10.0.0.1"), newResponse(), null).release(false);
+		controller.acquire(newRequest("10.0.0.1"), newResponse(), null).release(false);
+
+		//令牌耗尽返回 429
+		HttpResponse response = newResponse();
+		assertNull(controller.acquire(newRequest("10.0.0.1"), response, null));
+		assertEquals(429, response.protocol().getStatus());
+		assertEquals("1", response.header().get("Retry-After"));
+		assertEquals(1, controller.getIpRejected());
+
+		//其他 IP 使用独立的令牌桶
+		assertNotNull(controller.acquire(newRequest("10.0.0.2"), newResponse(), null));
+	}
+
+	public void testConcurrentSetRouteLimit() throws Exception {
+		AdmissionConfig config = new AdmissionConfig();
+		config.setAdaptive(false);
+		AdmissionController controller = new AdmissionController(config);
+
+		//准入检查的同时修改路由限制
+		AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		CountDownLatch latch = new CountDownLatch(4);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			final int index = t;
+			threads.add(new Thread(() -> {
+				try {
+					for (int i = 0; i < 10000; i++) {
+						String routePath = "/route_" + (i % 64);
+						if (index % 2 == 0) {
+							controller.setRouteLimit(routePath, i % 3);
+						} else {
+							AdmissionController.Permit permit = controller.acquire(newRequest("127.0.0.1"), newResponse(), routePath);
+							if (permit != null) {
+								permit.release(false);
+							}
+						}
+					}
+				} catch (Throwable e) {
+					error.set(e);
+				} finally {
+					latch.countDown();
+				}
+			}));
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		latch.await();
+
+		assertNull(error.get());
+		assertEquals(0, controller.getInflight());
+	}
+}
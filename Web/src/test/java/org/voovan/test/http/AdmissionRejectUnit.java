@@ -0,0 +1,108 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.server.WebServer;
+import org.voovan.http.server.context.AdmissionConfig;
+import org.voovan.http.server.context.WebContext;
+import org.voovan.http.server.context.WebServerConfig;
+import org.voovan.tools.TEnv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 准入控制拒绝请求时关闭连接的单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class AdmissionRejectUnit extends TestCase {
+
+	private static final int PORT = 28195;
+	private static WebServer webServer;
+
+	public AdmissionRejectUnit(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		synchronized (AdmissionRejectUnit.class) {
+			if (webServer == null) {
+				AdmissionConfig admissionConfig = new AdmissionConfig();
+				admissionConfig.setAdaptive(false);
+				admissionConfig.setIpRate(1);
+				admissionConfig.setIpBurst(1);
+
+				WebServerConfig config = WebContext.getWebServerConfig();
+				config.setPort(PORT);
+				config.setAdmission(admissionConfig);
+				webServer = WebServer.newInstance(config)
+						.get("/test", (request, response) -> response.write("ok"))
+						.syncServe();
+				waitServerReady();
+			}
+		}
+	}
+
+	/**
+	 * 服务启动后的首个连接可能需要较长时间才被处理, 轮询直到服务可用
+	 * 		每次使用不同的 IP, 不受令牌桶的限制
+	 */
+	private static void waitServerReady() throws IOException {
+		long deadline = System.currentTimeMillis() + 120 * 1000;
+		int index = 0;
+		while (System.currentTimeMillis() < deadline) {
+			try (Socket socket = new Socket("127.0.0.1", PORT)) {
+				socket.setSoTimeout(5000);
+				socket.getOutputStream().write(("GET /test HTTP/1.1\r\nHost: 127.0.0.1\r\nX-Real-IP: 10.1.0." + (index++ % 250) + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+				byte[] buffer = new byte[1024];
+				int length = socket.getInputStream().read(buffer);
+				if (length > 0 && new String(buffer, 0, length, StandardCharsets.ISO_8859_1).startsWith("HTTP/1.1 200")) {
+					return;
+				}
+			} catch (IOException e) {
+				TEnv.sleep(500);
+			}
+		}
+		throw new IOException("WebServer is not ready on port " + PORT);
+	}
+
+	private static String readResponse(InputStream inputStream) throws IOException {
+		StringBuilder response = new StringBuilder();
+		byte[] buffer = new byte[1024];
+		while (!response.toString().endsWith("ok") && !response.toString().endsWith("Too Many Requests")) {
+			int length = inputStream.read(buffer);
+			if (length < 0) {
+				break;
+			}
+			response.append(new String(buffer, 0, length, StandardCharsets.ISO_8859_1));
+		}
+		return response.toString();
+	}
+
+	public void testRejectClose() throws Exception {
+		try (Socket socket = new Socket("127.0.0.1", PORT)) {
+			socket.setSoTimeout(10000);
+			String request = "GET /test HTTP/1.1\r\nHost: 127.0.0.1\r\nX-Real-IP: 10.2.0.1\r\nConnection: keep-alive\r\n\r\n";
+
+			//令牌可用, 保持连接
+			socket.getOutputStream().write(request.getBytes(StandardCharsets.ISO_8859_1));
+			String response = readResponse(socket.getInputStream());
+			assertTrue(response, response.startsWith("HTTP/1.1 200"));
+			assertTrue(response, response.contains("Connection: keep-alive"));
+
+			//令牌耗尽, 返回 429 后关闭连接
+			socket.getOutputStream().write(request.getBytes(StandardCharsets.ISO_8859_1));
+			response = readResponse(socket.getInputStream());
+			assertTrue(response, response.startsWith("HTTP/1.1 429"));
+			assertTrue(response, response.contains("Connection: close"));
+			assertEquals(-1, socket.getInputStream().read());
+		}
+	}
+}
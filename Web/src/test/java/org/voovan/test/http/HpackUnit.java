@@ -0,0 +1,161 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.http2.HpackDecoder;
+import org.voovan.http.http2.HpackEncoder;
+import org.voovan.http.http2.Http2Exception;
+import org.voovan.http.http2.Huffman;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HPACK 单元测试, 测试数据来自 RFC 7541 附录 C
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HpackUnit extends TestCase {
+
+	private static final String DATE_21 = "Mon, 21 Oct 2013 20:13:21 GMT";
+	private static final String DATE_22 = "Mon, 21 Oct 2013 20:13:22 GMT";
+	private static final String LOCATION = "https://www.example.com";
+	private static final String COOKIE = "foo=ASDJKHQKBZXOQWEOPIUAXQWEOIU; max-age=3600; version=1";
+
+	public HpackUnit(String name) {
+		super(name);
+	}
+
+	private static byte[] hex(String hex) {
+		hex = hex.replace(" ", "");
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+		}
+		return bytes;
+	}
+
+	private static void assertHeaders(List<String[]> headers, String... expected) {
+		assertEquals(expected.length / 2, headers.size());
+		for (int i = 0; i < headers.size(); i++) {
+			assertEquals(expected[i * 2], headers.get(i)[0]);
+			assertEquals(expected[i * 2 + 1], headers.get(i)[1]);
+		}
+	}
+
+	public void testLiteral() throws Exception {
+		//C.2.1 ~ C.2.4
+		assertHeaders(new HpackDecoder(4096).decode(hex("400a 6375 7374 6f6d 2d6b 6579 0d63 7573 746f 6d2d 6865 6164 6572")),
+				"custom-key", "custom-header");
+		assertHeaders(new HpackDecoder(4096).decode(hex("040c 2f73 616d 706c 652f 7061 7468")),
+				":path", "/sample/path");
+		assertHeaders(new HpackDecoder(4096).decode(hex("1008 7061 7373 776f 7264 0673 6563 7265 74")),
+				"password", "secret");
+		assertHeaders(new HpackDecoder(4096).decode(hex("82")),
+				":method", "GET");
+	}
+
+	public void testRequest() throws Exception {
+		//C.3 不使用 Huffman 编码, 同一个解码器依次解码以验证动态表
+		HpackDecoder decoder = new HpackDecoder(4096);
+		assertHeaders(decoder.decode(hex("8286 8441 0f77 7777 2e65 7861 6d70 6c65 2e63 6f6d")),
+				":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com");
+		assertHeaders(decoder.decode(hex("8286 84be 5808 6e6f 2d63 6163 6865")),
+				":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com", "cache-control", "no-cache");
+		assertHeaders(decoder.decode(hex("8287 85bf 400a 6375 7374 6f6d 2d6b 6579 0c63 7573 746f 6d2d 7661 6c75 65")),
+				":method", "GET", ":scheme", "https", ":path", "/index.html", ":authority", "www.example.com", "custom-key", "custom-value");
+
+		//C.4 使用 Huffman 编码
+		decoder = new HpackDecoder(4096);
+		assertHeaders(decoder.decode(hex("8286 8441 8cf1 e3c2 e5f2 3a6b a0ab 90f4 ff")),
+				":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com");
+		assertHeaders(decoder.decode(hex("8286 84be 5886 a8eb 1064 9cbf")),
+				":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com", "cache-control", "no-cache");
+		assertHeaders(decoder.decode(hex("8287 85bf 4088 25a8 49e9 5ba9 7d7f 8925 a849 e95b b8e8 b4bf")),
+				":method", "GET", ":scheme", "https", ":path", "/index.html", ":authority", "www.example.com", "custom-key", "custom-value");
+	}
+
+	public void testResponse() throws Exception {
+		//C.5 动态表大小为 256, 验证条目的淘汰
+		HpackDecoder decoder = new HpackDecoder(256);
+		assertHeaders(decoder.decode(hex("4803 3330 3258 0770 7269 7661 7465 611d 4d6f 6e2c 2032 3120 4f63 7420 3230 3133 2032 303a 3133 3a32 3120 474d 546e 1768 7474 7073 3a2f 2f77 7777 2e65 7861 6d70 6c65 2e63 6f6d")),
+				":status", "302", "cache-control", "private", "date", DATE_21, "location", LOCATION);
+		assertHeaders(decoder.decode(hex("4803 3330 37c1 c0bf")),
+				":status", "307", "cache-control", "private", "date", DATE_21, "location", LOCATION);
+		assertHeaders(decoder.decode(hex("88c1 611d 4d6f 6e2c 2032 3120 4f63 7420 3230 3133 2032 303a 3133 3a32 3220 474d 54c0 5a04 677a 6970 7738 666f 6f3d 4153 444a 4b48 514b 425a 584f 5157 454f 5049 5541 5851 5745 4f49 553b 206d 6178 2d61 6765 3d33 3630 303b 2076 6572 7369 6f6e 3d31")),
+				":status", "200", "cache-control", "private", "date", DATE_22, "location", LOCATION, "content-encoding", "gzip", "set-cookie", COOKIE);
+
+		//C.6 使用 Huffman 编码
+		decoder = new HpackDecoder(256);
+		assertHeaders(decoder.decode(hex("4882 6402 5885 aec3 771a 4b61 96d0 7abe 9410 54d4 44a8 2005 9504 0b81 66e0 82a6 2d1b ff6e 919d 29ad 1718 63c7 8f0b 97c8 e9ae 82ae 43d3")),
+				":status", "302", "cache-control", "private", "date", DATE_21, "location", LOCATION);
+		assertHeaders(decoder.decode(hex("4883 640e ffc1 c0bf")),
+				":status", "307", "cache-control", "private", "date", DATE_21, "location", LOCATION);
+		assertHeaders(decoder.decode(hex("88c1 6196 d07a be94 1054 d444 a820 0595 040b 8166 e084 a62d 1bff c05a 839b d9ab 77ad 94e7 821d d7f2 e6c7 b335 dfdf cd5b 3960 d5af 2708 7f36 72c1 ab27 0fb5 291f 9587 3160 65c0 03ed 4ee5 b106 3d50 07")),
+				":status", "200", "cache-control", "private", "date", DATE_22, "location", LOCATION, "content-encoding", "gzip", "set-cookie", COOKIE);
+	}
+
+	public void testHuffman() throws Exception {
+		//C.4.1
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		byte[] data = "www.example.com".getBytes(StandardCharsets.ISO_8859_1);
+		Huffman.encode(data, outputStream);
+		assertEquals(12, Huffman.encodedLength(data));
+		assertEquals(new String(hex("f1e3 c2e5 f23a 6ba0 ab90 f4ff"), StandardCharsets.ISO_8859_1), new String(outputStream.toByteArray(), StandardCharsets.ISO_8859_1));
+		assertEquals("www.example.com", new String(Huffman.decode(outputStream.toByteArray(), 0, outputStream.size()), StandardCharsets.ISO_8859_1));
+
+		//'a' 的编码为 00011, 使用 3 位 1 填充
+		assertEquals("a", new String(Huffman.decode(hex("1f"), 0, 1), StandardCharsets.ISO_8859_1));
+		assertHuffmanError(hex("18"));
+		//填充超过 7 位
+		assertHuffmanError(hex("1fff"));
+		//EOS
+		assertHuffmanError(hex("ffff fffc"));
+	}
+
+	private static void assertHuffmanError(byte[] data) {
+		try {
+			Huffman.decode(data, 0, data.length);
+			fail();
+		} catch (Http2Exception e) {
+			assertEquals(Http2Exception.COMPRESSION_ERROR, e.getErrorCode());
+		}
+	}
+
+	public void testEncoder() throws Exception {
+		StringBuilder longValue = new StringBuilder();
+		for (int i = 0; i < 1337; i++) {
+			longValue.append((char) ('a' + i % 26));
+		}
+
+		List<String[]> headers = new ArrayList<String[]>();
+		headers.add(new String[]{":status", "200"});
+		headers.add(new String[]{"content-type", "text/html;charset=UTF-8"});
+		headers.add(new String[]{"content-length", "8"});
+		headers.add(new String[]{"authorization", "secret"});
+		headers.add(new String[]{"x-long", longValue.toString()});
+
+		HpackEncoder encoder = new HpackEncoder();
+		HpackDecoder decoder = new HpackDecoder(4096);
+		byte[] first = encoder.encode(headers);
+		assertHeaders(decoder.decode(first), ":status", "200", "content-type", "text/html;charset=UTF-8",
+				"content-length", "8", "authorization", "secret", "x-long", longValue.toString());
+
+		//第二次编码使用动态表中的条目
+		byte[] second = encoder.encode(headers);
+		assertTrue(second.length < first.length);
+		assertEquals(5, decoder.decode(second).size());
+
+		//超过头列表大小的限制时返回 null, 动态表仍然保持同步
+		HpackDecoder limitedDecoder = new HpackDecoder(4096, 1024);
+		encoder = new HpackEncoder();
+		assertNull(limitedDecoder.decode(encoder.encode(headers)));
+		headers.remove(4);
+		assertEquals(4, limitedDecoder.decode(encoder.encode(headers)).size());
+	}
+}
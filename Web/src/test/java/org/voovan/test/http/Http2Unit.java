@@ -0,0 +1,323 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.http2.HpackDecoder;
+import org.voovan.http.http2.HpackEncoder;
+import org.voovan.http.http2.Http2Connection;
+import org.voovan.http.http2.Http2Exception;
+import org.voovan.http.http2.Http2Frame;
+import org.voovan.http.server.WebServer;
+import org.voovan.http.server.context.WebContext;
+import org.voovan.http.server.context.WebServerConfig;
+import org.voovan.network.messagesplitter.HttpMessageSplitter;
+import org.voovan.tools.TEnv;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HTTP/2 单元测试
+ * 		通过 Socket 直接发送 HTTP/2 帧, 验证 prior knowledge 和 h2c 升级两种连接方式
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class Http2Unit extends TestCase {
+
+	private static final int PORT = 28190;
+	private static WebServer webServer;
+
+	public Http2Unit(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		synchronized (Http2Unit.class) {
+			if (webServer == null) {
+				WebServerConfig config = WebContext.getWebServerConfig();
+				config.setPort(PORT);
+				config.setHttp2(true);
+				webServer = WebServer.newInstance(config)
+						.get("/test", (request, response) -> response.write("hello h2"))
+						.post("/echo", (request, response) -> response.write(request.body().getBodyString()))
+						.syncServe();
+				waitServerReady();
+			}
+		}
+	}
+
+	/**
+	 * 服务启动后的首个连接可能需要较长时间才被处理, 使用 HTTP/1.1 请求轮询直到服务可用
+	 */
+	private static void waitServerReady() throws IOException {
+		long deadline = System.currentTimeMillis() + 120 * 1000;
+		while (System.currentTimeMillis() < deadline) {
+			try (Socket socket = new Socket("127.0.0.1", PORT)) {
+				socket.setSoTimeout(5000);
+				socket.getOutputStream().write(("GET /test HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+				byte[] buffer = new byte[1024];
+				int length = socket.getInputStream().read(buffer);
+				if (length > 0 && new String(buffer, 0, length, StandardCharsets.ISO_8859_1).startsWith("HTTP/1.1 200")) {
+					return;
+				}
+			} catch (IOException e) {
+				TEnv.sleep(500);
+			}
+		}
+		throw new IOException("WebServer is not ready on port " + PORT);
+	}
+
+	public void testFrame() {
+		Http2Frame frame = Http2Frame.newSettings(Http2Frame.SETTINGS_ENABLE_PUSH, 0, Http2Frame.SETTINGS_MAX_FRAME_SIZE, 32768);
+		ByteBuffer byteBuffer = frame.toByteBuffer();
+		assertEquals(Http2Frame.HEADER_LENGTH + 12, byteBuffer.remaining());
+		assertEquals(Http2Frame.HEADER_LENGTH + 12, Http2Frame.frameLength(byteBuffer));
+
+		//数据不完整
+		ByteBuffer partial = ByteBuffer.wrap(byteBuffer.array(), 0, byteBuffer.remaining() - 1);
+		assertNull(Http2Frame.parse(partial));
+		assertEquals(-1, Http2Frame.frameLength(ByteBuffer.wrap(byteBuffer.array(), 0, 8)));
+
+		Http2Frame parsed = Http2Frame.parse(byteBuffer);
+		assertEquals(Http2Frame.SETTINGS, parsed.getType());
+		assertEquals(0, parsed.getStreamId());
+		ByteBuffer settings = ByteBuffer.wrap(parsed.getPayload());
+		assertEquals(Http2Frame.SETTINGS_ENABLE_PUSH, settings.getShort());
+		assertEquals(0, settings.getInt());
+		assertEquals(Http2Frame.SETTINGS_MAX_FRAME_SIZE, settings.getShort());
+		assertEquals(32768, settings.getInt());
+		assertFalse(byteBuffer.hasRemaining());
+
+		//流 ID 的保留位被忽略
+		parsed = Http2Frame.parse(new Http2Frame(Http2Frame.DATA, Http2Frame.FLAG_END_STREAM | Http2Frame.FLAG_PADDED, 0x7FFFFFFF, new byte[]{1, 2}).toByteBuffer());
+		assertEquals(0x7FFFFFFF, parsed.getStreamId());
+		assertTrue(parsed.hasFlag(Http2Frame.FLAG_END_STREAM));
+		assertTrue(parsed.hasFlag(Http2Frame.FLAG_PADDED));
+		assertFalse(parsed.hasFlag(Http2Frame.FLAG_END_HEADERS));
+
+		parsed = Http2Frame.parse(Http2Frame.newGoAway(5, Http2Exception.ENHANCE_YOUR_CALM, "calm").toByteBuffer());
+		ByteBuffer goAway = ByteBuffer.wrap(parsed.getPayload());
+		assertEquals(5, goAway.getInt());
+		assertEquals(Http2Exception.ENHANCE_YOUR_CALM, goAway.getInt());
+		assertEquals("calm", new String(parsed.getPayload(), 8, 4, StandardCharsets.UTF_8));
+
+		parsed = Http2Frame.parse(Http2Frame.newWindowUpdate(3, 1024).toByteBuffer());
+		assertEquals(Http2Frame.WINDOW_UPDATE, parsed.getType());
+		assertEquals(1024, ByteBuffer.wrap(parsed.getPayload()).getInt());
+	}
+
+	public void testPriorKnowledge() throws Exception {
+		try (Http2TestClient client = new Http2TestClient()) {
+			client.preface();
+			client.request(1, "GET", "/test", null);
+			client.request(3, "POST", "/echo", "request body");
+
+			assertEquals("200 hello h2", client.response(1));
+			assertEquals("200 request body", client.response(3));
+		}
+	}
+
+	public void testH2cUpgrade() throws Exception {
+		try (Http2TestClient client = new Http2TestClient()) {
+			client.output.write(("GET /test HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: Upgrade, HTTP2-Settings\r\n" +
+					"Upgrade: h2c\r\nHTTP2-Settings: AAIAAAAA\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+			client.output.flush();
+
+			//读取 101 响应, 之后发送连接前言
+			StringBuilder head = new StringBuilder();
+			while (head.indexOf("\r\n\r\n") < 0) {
+				head.append((char) client.input.read());
+			}
+			assertTrue(head.toString().startsWith("HTTP/1.1 101"));
+			client.preface();
+
+			//升级请求的响应在流 1 上发送
+			assertEquals("200 hello h2", client.response(1));
+
+			client.request(3, "GET", "/test", null);
+			assertEquals("200 hello h2", client.response(3));
+		}
+	}
+
+	public void testHeaderListSize() throws Exception {
+		try (Http2TestClient client = new Http2TestClient()) {
+			client.preface();
+
+			//4000 字节的头加入动态表后重复引用 20 次, 压缩后的头块很小, 解码后超过限制
+			ByteArrayOutputStream block = new ByteArrayOutputStream();
+			byte[] pseudoHeaders = client.encoder.encode(pseudoHeaders("GET", "/test"));
+			block.write(pseudoHeaders, 0, pseudoHeaders.length);
+			block.write(new byte[]{0x40, 5, 'x', '-', 'b', 'i', 'g', 0x7f, (byte) 0xa1, 0x1e});
+			for (int i = 0; i < 4000; i++) {
+				block.write('v');
+			}
+			for (int i = 0; i < 20; i++) {
+				block.write(0x80 | 62);
+			}
+
+			client.write(new Http2Frame(Http2Frame.HEADERS, Http2Frame.FLAG_END_HEADERS | Http2Frame.FLAG_END_STREAM, 1, block.toByteArray()));
+			assertEquals("431 ", client.response(1));
+		}
+	}
+
+	public void testContinuationFlood() throws Exception {
+		try (Http2TestClient client = new Http2TestClient()) {
+			client.preface();
+			client.write(new Http2Frame(Http2Frame.HEADERS, 0, 1, client.encoder.encode(pseudoHeaders("GET", "/test"))));
+			try {
+				for (int i = 0; i * Http2Frame.DEFAULT_MAX_FRAME_SIZE <= Http2Connection.MAX_HEADER_LIST_SIZE; i++) {
+					client.write(new Http2Frame(Http2Frame.CONTINUATION, 0, 1, new byte[Http2Frame.DEFAULT_MAX_FRAME_SIZE]));
+				}
+			} catch (IOException e) {
+				//服务端可能已经关闭连接
+			}
+
+			Http2Frame frame;
+			do {
+				frame = client.read();
+			} while (frame.getType() != Http2Frame.GOAWAY);
+			assertEquals(Http2Exception.ENHANCE_YOUR_CALM, ByteBuffer.wrap(frame.getPayload()).getInt(4));
+			assertEquals(-1, client.input.read());
+		}
+	}
+
+	public void testOversizeFrame() throws Exception {
+		//负载超过最大帧长度时只分割帧头, 不等待负载
+		byte[] header = new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, Http2Frame.DATA, 0, 0, 0, 0, 1};
+		assertEquals(Http2Frame.HEADER_LENGTH, HttpMessageSplitter.isHttp2Frame(ByteBuffer.wrap(header)));
+		Http2Frame parsed = Http2Frame.parse(ByteBuffer.wrap(header));
+		assertEquals(0xFFFFFF, parsed.getLength());
+		assertEquals(0, parsed.getPayload().length);
+
+		try (Http2TestClient client = new Http2TestClient()) {
+			client.preface();
+			client.output.write(header);
+			client.output.flush();
+
+			Http2Frame frame;
+			do {
+				frame = client.read();
+			} while (frame.getType() != Http2Frame.GOAWAY);
+			assertEquals(Http2Exception.FRAME_SIZE_ERROR, ByteBuffer.wrap(frame.getPayload()).getInt(4));
+			assertEquals(-1, client.input.read());
+		}
+	}
+
+	private static List<String[]> pseudoHeaders(String method, String path) {
+		List<String[]> headers = new ArrayList<String[]>();
+		headers.add(new String[]{":method", method});
+		headers.add(new String[]{":scheme", "http"});
+		headers.add(new String[]{":path", path});
+		headers.add(new String[]{":authority", "127.0.0.1:" + PORT});
+		return headers;
+	}
+
+	/**
+	 * 直接读写帧的 HTTP/2 客户端
+	 */
+	private static class Http2TestClient implements AutoCloseable {
+		private Socket socket;
+		private DataInputStream input;
+		private OutputStream output;
+		private HpackEncoder encoder = new HpackEncoder();
+		private HpackDecoder decoder = new HpackDecoder(4096);
+		private Map<Integer, String> statuses = new HashMap<Integer, String>();
+		private Map<Integer, ByteArrayOutputStream> bodies = new HashMap<Integer, ByteArrayOutputStream>();
+		private Set<Integer> endedStreams = new HashSet<Integer>();
+
+		private Http2TestClient() throws IOException {
+			socket = new Socket("127.0.0.1", PORT);
+			socket.setSoTimeout(10000);
+			input = new DataInputStream(socket.getInputStream());
+			output = socket.getOutputStream();
+		}
+
+		private void preface() throws IOException {
+			output.write(Http2Frame.PREFACE);
+			write(Http2Frame.newSettings());
+		}
+
+		private void write(Http2Frame frame) throws IOException {
+			ByteBuffer byteBuffer = frame.toByteBuffer();
+			output.write(byteBuffer.array(), 0, byteBuffer.limit());
+			output.flush();
+		}
+
+		private Http2Frame read() throws IOException {
+			byte[] frameBytes = new byte[Http2Frame.HEADER_LENGTH];
+			input.readFully(frameBytes);
+			int length = Http2Frame.frameLength(ByteBuffer.wrap(frameBytes));
+			byte[] fullFrame = new byte[length];
+			System.arraycopy(frameBytes, 0, fullFrame, 0, frameBytes.length);
+			input.readFully(fullFrame, frameBytes.length, length - frameBytes.length);
+			return Http2Frame.parse(ByteBuffer.wrap(fullFrame));
+		}
+
+		private void request(int streamId, String method, String path, String body) throws IOException {
+			List<String[]> headers = pseudoHeaders(method, path);
+			if (body != null) {
+				headers.add(new String[]{"content-type", "text/plain"});
+			}
+
+			int flags = Http2Frame.FLAG_END_HEADERS | (body == null ? Http2Frame.FLAG_END_STREAM : 0);
+			write(new Http2Frame(Http2Frame.HEADERS, flags, streamId, encoder.encode(headers)));
+			if (body != null) {
+				write(new Http2Frame(Http2Frame.DATA, Http2Frame.FLAG_END_STREAM, streamId, body.getBytes(StandardCharsets.UTF_8)));
+			}
+		}
+
+		/**
+		 * 读取流的响应, 同时保存其他流的响应
+		 * @return "状态码 报文"
+		 */
+		private String response(int streamId) throws IOException {
+			while (!endedStreams.contains(streamId)) {
+				Http2Frame frame = read();
+				int id = frame.getStreamId();
+				if (frame.getType() == Http2Frame.GOAWAY) {
+					fail("Unexpected GOAWAY: " + ByteBuffer.wrap(frame.getPayload()).getInt(4));
+				} else if (frame.getType() == Http2Frame.RST_STREAM) {
+					fail("Unexpected RST_STREAM: " + ByteBuffer.wrap(frame.getPayload()).getInt());
+				} else if (frame.getType() == Http2Frame.HEADERS) {
+					//头块按接收的顺序解码, 保持动态表同步
+					for (String[] header : decoder.decode(frame.getPayload())) {
+						if (header[0].equals(":status")) {
+							statuses.put(id, header[1]);
+						}
+					}
+				} else if (frame.getType() == Http2Frame.DATA) {
+					bodies.computeIfAbsent(id, key -> new ByteArrayOutputStream()).write(frame.getPayload(), 0, frame.getPayload().length);
+				} else {
+					continue;
+				}
+
+				if (frame.hasFlag(Http2Frame.FLAG_END_STREAM)) {
+					endedStreams.add(id);
+				}
+			}
+
+			ByteArrayOutputStream body = bodies.get(streamId);
+			return statuses.get(streamId) + " " + (body == null ? "" : new String(body.toByteArray(), StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public void close() throws IOException {
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.client.HttpClient;
+import org.voovan.http.client.HttpClientPool;
+import org.voovan.http.message.Response;
+import org.voovan.http.server.WebServer;
+import org.voovan.http.server.context.WebContext;
+import org.voovan.http.server.context.WebServerConfig;
+import org.voovan.network.exception.ReadMessageException;
+import org.voovan.tools.TEnv;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HttpClientPool 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpClientPoolUnit extends TestCase {
+
+	private static final int PORT = 28192;
+	private static final String URL = "http://127.0.0.1:" + PORT;
+	private static WebServer webServer;
+
+	public HttpClientPoolUnit(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		synchronized (HttpClientPoolUnit.class) {
+			if (webServer == null) {
+				WebServerConfig config = WebContext.getWebServerConfig();
+				config.setPort(PORT);
+				webServer = WebServer.newInstance(config)
+						.get("/test", (request, response) -> response.write("ok"))
+						.get("/slow", (request, response) -> {
+							TEnv.sleep(3000);
+							response.write("slow");
+						})
+						.syncServe();
+				waitServerReady();
+			}
+		}
+	}
+
+	/**
+	 * 服务启动后的首个连接可能需要较长时间才被处理, 轮询直到服务可用
+	 */
+	private static void waitServerReady() throws IOException {
+		long deadline = System.currentTimeMillis() + 120 * 1000;
+		while (System.currentTimeMillis() < deadline) {
+			try (Socket socket = new Socket("127.0.0.1", PORT)) {
+				socket.setSoTimeout(5000);
+				socket.getOutputStream().write(("GET /test HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+				byte[] buffer = new byte[1024];
+				int length = socket.getInputStream().read(buffer);
+				if (length > 0 && new String(buffer, 0, length, StandardCharsets.ISO_8859_1).startsWith("HTTP/1.1 200")) {
+					return;
+				}
+			} catch (IOException e) {
+				TEnv.sleep(500);
+			}
+		}
+		throw new IOException("WebServer is not ready on port " + PORT);
+	}
+
+	public void testBorrowAndRestore() throws Exception {
+		HttpClientPool pool = new HttpClientPool(URL, "UTF-8", 5, 2, 60);
+		HttpClient httpClient = pool.getHttpClient();
+		assertNotNull(httpClient);
+		assertEquals(1, pool.size());
+		assertEquals(0, pool.idleSize());
+
+		assertEquals("ok", httpClient.send("/test").body().getBodyString());
+		assertFalse(httpClient.isResponsePending());
+		pool.restore(httpClient);
+		assertEquals(1, pool.idleSize());
+
+		//归还的连接被再次借出
+		HttpClient reused = pool.getHttpClient();
+		assertSame(httpClient, reused);
+		pool.restore(reused);
+
+		Response response = pool.sendAsync("/test").get(5, TimeUnit.SECONDS);
+		assertEquals("ok", response.body().getBodyString());
+		assertEquals(1, pool.size());
+		pool.close();
+	}
+
+	public void testWaiter() throws Exception {
+		HttpClientPool pool = new HttpClientPool(URL, "UTF-8", 5, 1, 60);
+
+		//连接耗尽时请求进入等待队列, 连接归还后执行
+		CompletableFuture<Response> first = pool.sendAsync("/test");
+		CompletableFuture<Response> second = pool.sendAsync("/test");
+		assertEquals("ok", first.get(10, TimeUnit.SECONDS).body().getBodyString());
+		assertEquals("ok", second.get(10, TimeUnit.SECONDS).body().getBodyString());
+		assertEquals(1, pool.size());
+		assertEquals(0, pool.waitingSize());
+		pool.close();
+	}
+
+	public void testTimeout() throws Exception {
+		HttpClientPool pool = new HttpClientPool(URL, "UTF-8", 1, 1, 60);
+
+		//同步请求超时后归还的连接被关闭
+		HttpClient httpClient = pool.getHttpClient();
+		try {
+			httpClient.send("/slow");
+			fail();
+		} catch (ReadMessageException e) {
+			assertTrue(httpClient.isResponsePending());
+		}
+		pool.restore(httpClient);
+		assertEquals(0, pool.size());
+		assertEquals(0, pool.idleSize());
+
+		//异步请求超时的连接同样被关闭
+		try {
+			pool.sendAsync("/slow").get(10, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ReadMessageException);
+		}
+		assertEquals(0, pool.size());
+
+		//迟到的响应不会被下一个请求读到
+		TEnv.sleep(3000);
+		assertEquals("ok", pool.sendAsync("/test").get(5, TimeUnit.SECONDS).body().getBodyString());
+		pool.close();
+	}
+
+	public void testEvict() throws Exception {
+		HttpClientPool pool = new HttpClientPool(URL, "UTF-8", 5, 2, 1);
+		pool.restore(pool.getHttpClient());
+		assertEquals(1, pool.idleSize());
+
+		//空闲超时的连接被定时清理
+		TEnv.sleep(3500);
+		assertEquals(0, pool.idleSize());
+		assertEquals(0, pool.size());
+		pool.close();
+	}
+}
@@ -0,0 +1,74 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.message.Request;
+import org.voovan.http.server.HttpRequest;
+import org.voovan.http.server.context.HttpFilterConfig;
+import org.voovan.tools.json.JSON;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * HttpFilterConfig 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpFilterConfigUnit extends TestCase {
+
+	public HttpFilterConfigUnit(String name) {
+		super(name);
+	}
+
+	private static HttpRequest newRequest(String method, String path) {
+		HttpRequest request = new HttpRequest(new Request(), "UTF-8", null) {};
+		request.protocol().setMethod(method);
+		request.protocol().setPath(path);
+		return request;
+	}
+
+	private static HttpFilterConfig newConfig(String json) {
+		return new HttpFilterConfig((Map<String, Object>) JSON.parse(json));
+	}
+
+	public void testString() {
+		HttpFilterConfig config = newConfig("{\"Name\":\"test\",\"Methods\":\"get, post\",\"Paths\":\"/api,/admin\"}");
+		assertTrue(Arrays.equals(new String[]{"GET", "POST"}, config.getMethods()));
+		assertTrue(Arrays.equals(new String[]{"/api", "/admin"}, config.getPaths()));
+		assertTrue(config.isMatch(newRequest("POST", "/api/user")));
+		assertFalse(config.isMatch(newRequest("PUT", "/api/user")));
+		assertFalse(config.isMatch(newRequest("GET", "/index")));
+	}
+
+	public void testPathSegment() {
+		HttpFilterConfig config = newConfig("{\"Name\":\"test\",\"Paths\":\"/api,/static/\"}");
+		assertTrue(config.isMatch(newRequest("GET", "/api")));
+		assertTrue(config.isMatch(newRequest("GET", "/api/")));
+		assertTrue(config.isMatch(newRequest("GET", "/api/keys")));
+		assertFalse(config.isMatch(newRequest("GET", "/apikeys")));
+		assertTrue(config.isMatch(newRequest("GET", "/static/index.html")));
+		assertFalse(config.isMatch(newRequest("GET", "/static")));
+	}
+
+	public void testList() {
+		HttpFilterConfig config = newConfig("{\"Name\":\"test\",\"Methods\":[\"get\",\"post\"],\"Paths\":[\"/api\",\"\"]}");
+		assertTrue(Arrays.equals(new String[]{"GET", "POST"}, config.getMethods()));
+		assertTrue(Arrays.equals(new String[]{"/api"}, config.getPaths()));
+		assertTrue(config.isMatch(newRequest("GET", "/api/user")));
+		assertFalse(config.isMatch(newRequest("GET", "/admin")));
+
+		config.setMethods(Arrays.asList("put"));
+		assertTrue(Arrays.equals(new String[]{"PUT"}, config.getMethods()));
+	}
+
+	public void testEmpty() {
+		HttpFilterConfig config = newConfig("{\"Name\":\"test\",\"Methods\":[],\"Paths\":\"\"}");
+		assertNull(config.getMethods());
+		assertNull(config.getPaths());
+		assertTrue(config.isMatch(newRequest("DELETE", "/any")));
+	}
+}
@@ -0,0 +1,76 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.message.Request;
+import org.voovan.http.message.Response;
+import org.voovan.http.server.HttpDispatcher;
+import org.voovan.http.server.HttpRequest;
+import org.voovan.http.server.HttpResponse;
+import org.voovan.http.server.module.monitor.HttpMonitorFilter;
+import org.voovan.http.server.module.monitor.MonitorGlobal;
+import org.voovan.http.server.module.monitor.RequestAnalysis;
+
+/**
+ * HttpMonitorFilter 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpMonitorFilterUnit extends TestCase {
+
+	private HttpMonitorFilter filter = new HttpMonitorFilter();
+
+	public HttpMonitorFilterUnit(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		MonitorGlobal.REQUEST_ANALYSIS.clear();
+	}
+
+	private void request(String method, String routePath, int status) {
+		HttpRequest request = new HttpRequest(new Request(), "UTF-8", null) {};
+		request.protocol().setMethod(method);
+		request.protocol().setPath("/user/" + System.nanoTime());
+		if (routePath != null) {
+			request.setAttributes(HttpDispatcher.ROUTE_PATH_ATTR, routePath);
+		}
+		HttpResponse response = new HttpResponse(new Response(), "UTF-8", null) {};
+		response.protocol().setStatus(status);
+
+		filter.onRequest(null, request, response, null);
+		filter.requestAnalysis(request, HttpMonitorFilter.getRoutePath(request, response));
+	}
+
+	public void testRouteKey() {
+		request("GET", "/user/:id", 200);
+		request("GET", "/user/:id", 200);
+		RequestAnalysis requestAnalysis = MonitorGlobal.REQUEST_ANALYSIS.get("GET /user/:id");
+		assertEquals("GET", requestAnalysis.getMethod());
+		assertEquals("/user/:id", requestAnalysis.getPath());
+
+		//非标准的请求方法统一统计
+		request("BREW", "/user/:id", 200);
+		request("FOO", "/user/:id", 200);
+		assertEquals(MonitorGlobal.OTHER_METHOD, MonitorGlobal.REQUEST_ANALYSIS.get("OTHER /user/:id").getMethod());
+		assertEquals(2, MonitorGlobal.REQUEST_ANALYSIS.size());
+	}
+
+	public void testUnmatched() {
+		//未匹配到路由的请求不区分请求方法
+		request("GET", null, 404);
+		request("POST", null, 404);
+		request("BREW", null, 404);
+		assertEquals(1, MonitorGlobal.REQUEST_ANALYSIS.size());
+		RequestAnalysis requestAnalysis = MonitorGlobal.REQUEST_ANALYSIS.get(MonitorGlobal.ANY_METHOD + " " + MonitorGlobal.UNMATCHED_ROUTE);
+		assertEquals(MonitorGlobal.UNMATCHED_ROUTE, requestAnalysis.getPath());
+
+		//静态文件请求
+		request("GET", null, 200);
+		assertNotNull(MonitorGlobal.REQUEST_ANALYSIS.get("GET " + MonitorGlobal.STATIC_ROUTE));
+	}
+}
@@ -0,0 +1,99 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.message.HttpParser;
+import org.voovan.http.server.HttpObjectPool;
+import org.voovan.http.server.HttpRequest;
+import org.voovan.http.server.HttpResponse;
+import org.voovan.tools.ByteBufferChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * HttpObjectPool 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpObjectPoolUnit extends TestCase {
+
+	public HttpObjectPoolUnit(String name) {
+		super(name);
+	}
+
+	private ByteBufferChannel newRequestChannel(String requestStr){
+		ByteBufferChannel byteBufferChannel = new ByteBufferChannel(1024);
+		byteBufferChannel.writeEnd(ByteBuffer.wrap(requestStr.getBytes()));
+		return byteBufferChannel;
+	}
+
+	public void testRequestRecycle() throws IOException {
+		HttpRequest request = HttpObjectPool.borrowRequest();
+		HttpParser.parseRequest(request, newRequestChannel("POST /test?a=1 HTTP/1.1\r\nHost: localhost\r\nContent-Length: 4\r\n\r\nbody"), 1000);
+		assertEquals("/test", request.protocol().getPath());
+		assertEquals("body", request.body().getBodyString());
+		HttpObjectPool.restore(request);
+
+		HttpRequest recycledRequest = HttpObjectPool.borrowRequest();
+		assertSame(request, recycledRequest);
+		assertEquals(0, recycledRequest.header().size());
+		assertEquals(0, recycledRequest.body().size());
+		assertEquals("/", recycledRequest.protocol().getPath());
+
+		HttpParser.parseRequest(recycledRequest, newRequestChannel("GET /next HTTP/1.1\r\nHost: localhost\r\n\r\n"), 1000);
+		assertEquals("/next", recycledRequest.protocol().getPath());
+		assertEquals("localhost", recycledRequest.header().get("Host"));
+		HttpObjectPool.restore(recycledRequest);
+	}
+
+	public void testResponseRecycle() {
+		HttpResponse response = HttpObjectPool.borrowResponse();
+		response.protocol().setStatus(404);
+		response.header().put("X-Test", "1");
+		response.body().write("hello".getBytes());
+		response.release();
+		assertEquals(5, response.body().size());
+		HttpObjectPool.restore(response);
+
+		HttpResponse recycledResponse = HttpObjectPool.borrowResponse();
+		assertSame(response, recycledResponse);
+		assertEquals(200, recycledResponse.protocol().getStatus());
+		assertEquals(0, recycledResponse.header().size());
+		assertEquals(0, recycledResponse.body().size());
+		HttpObjectPool.restore(recycledResponse);
+	}
+
+	private static void runInThread(Runnable runnable) throws InterruptedException {
+		Thread thread = new Thread(runnable);
+		thread.start();
+		thread.join();
+	}
+
+	public void testCrossThread() throws InterruptedException {
+		//在接收线程借出
+		HttpResponse[] responses = new HttpResponse[9];
+		runInThread(() -> {
+			for (int i = 0; i < responses.length; i++) {
+				responses[i] = HttpObjectPool.borrowResponse();
+				responses[i].body().write("hello".getBytes());
+			}
+		});
+
+		//在发送线程归还, 超出线程缓存的对象进入共享对象池
+		runInThread(() -> {
+			for (HttpResponse response : responses) {
+				HttpObjectPool.restore(response);
+			}
+		});
+
+		//其他线程可以从共享对象池借出
+		HttpResponse[] borrowed = new HttpResponse[1];
+		runInThread(() -> borrowed[0] = HttpObjectPool.borrowResponse());
+		assertSame(responses[8], borrowed[0]);
+		assertEquals(0, borrowed[0].body().size());
+	}
+}
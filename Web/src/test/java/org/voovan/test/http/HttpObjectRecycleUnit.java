@@ -0,0 +1,114 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.server.WebServer;
+import org.voovan.http.server.context.WebContext;
+import org.voovan.http.server.context.WebServerConfig;
+import org.voovan.tools.TEnv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTTP 请求/响应对象复用单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpObjectRecycleUnit extends TestCase {
+
+	private static final int PORT = 28193;
+	private static WebServer webServer;
+
+	public HttpObjectRecycleUnit(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		synchronized (HttpObjectRecycleUnit.class) {
+			if (webServer == null) {
+				WebServerConfig config = WebContext.getWebServerConfig();
+				config.setPort(PORT);
+				config.setHttpObjectRecycle(true);
+				webServer = WebServer.newInstance(config)
+						.get("/test", (request, response) -> response.write("ok"))
+						.get("/echo", (request, response) -> response.write("echo-" + request.getParameter("id")))
+						.syncServe();
+				waitServerReady();
+			}
+		}
+	}
+
+	/**
+	 * 服务启动后的首个连接可能需要较长时间才被处理, 轮询直到服务可用
+	 */
+	private static void waitServerReady() throws IOException {
+		long deadline = System.currentTimeMillis() + 120 * 1000;
+		while (System.currentTimeMillis() < deadline) {
+			try (Socket socket = new Socket("127.0.0.1", PORT)) {
+				socket.setSoTimeout(5000);
+				socket.getOutputStream().write(("GET /test HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+				byte[] buffer = new byte[1024];
+				int length = socket.getInputStream().read(buffer);
+				if (length > 0 && new String(buffer, 0, length, StandardCharsets.ISO_8859_1).startsWith("HTTP/1.1 200")) {
+					return;
+				}
+			} catch (IOException e) {
+				TEnv.sleep(500);
+			}
+		}
+		throw new IOException("WebServer is not ready on port " + PORT);
+	}
+
+	public void testPipeline() throws Exception {
+		int count = 16;
+		for (int round = 0; round < 3; round++) {
+			try (Socket socket = new Socket("127.0.0.1", PORT)) {
+				socket.setSoTimeout(10000);
+
+				//一次写入多个请求, 复用的请求对象不会串用
+				StringBuilder requests = new StringBuilder();
+				for (int i = 0; i < count; i++) {
+					requests.append("GET /echo?id=").append(round).append('-').append(i).append(" HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: keep-alive\r\n\r\n");
+				}
+				socket.getOutputStream().write(requests.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+				String responses = readResponses(socket.getInputStream(), count);
+				int index = 0;
+				for (int i = 0; i < count; i++) {
+					index = responses.indexOf("echo-" + round + "-" + i, index);
+					assertTrue(responses, index > 0);
+				}
+			}
+		}
+	}
+
+	private static String readResponses(InputStream inputStream, int count) throws IOException {
+		StringBuilder responses = new StringBuilder();
+		byte[] buffer = new byte[4096];
+		while (countOf(responses, "HTTP/1.1 200") < count || !responses.toString().trim().endsWith("-" + (count - 1))) {
+			int length = inputStream.read(buffer);
+			if (length < 0) {
+				break;
+			}
+			responses.append(new String(buffer, 0, length, StandardCharsets.ISO_8859_1));
+		}
+		return responses.toString();
+	}
+
+	private static int countOf(StringBuilder text, String item) {
+		int count = 0;
+		int index = text.indexOf(item);
+		while (index >= 0) {
+			count++;
+			index = text.indexOf(item, index + item.length());
+		}
+		return count;
+	}
+}
@@ -0,0 +1,64 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.server.HttpSession;
+import org.voovan.http.server.context.WebServerConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HttpSession 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class HttpSessionUnit extends TestCase {
+
+	public HttpSessionUnit(String name) {
+		super(name);
+	}
+
+	public void testSerialize() {
+		WebServerConfig config = new WebServerConfig();
+		HttpSession httpSession = new HttpSession(config, null, null);
+		Map<String, Object> user = new HashMap<String, Object>();
+		user.put("name", "helyho");
+		user.put("age", 18);
+		httpSession.setAttribute("count", 12);
+		httpSession.setAttribute("title", "voovan");
+		httpSession.setAttribute("user", user);
+
+		byte[] data = httpSession.serialize();
+		HttpSession restored = HttpSession.deserialize(data);
+		assertEquals(httpSession.getId(), restored.getId());
+		assertEquals(httpSession.getMaxInactiveInterval(), restored.getMaxInactiveInterval());
+		assertEquals(httpSession.getLastTimeillis(), restored.getLastTimeillis());
+		assertEquals("voovan", restored.getAttribute("title"));
+		assertEquals(12, ((Number) restored.getAttribute("count")).intValue());
+
+		//未访问的属性使用读取时的数据重新序列化
+		HttpSession again = HttpSession.deserialize(restored.serialize());
+		assertEquals(data.length, restored.serialize().length);
+		Map<String, Object> restoredUser = (Map<String, Object>) again.getAttribute("user");
+		assertEquals("helyho", restoredUser.get("name"));
+		assertEquals(18, ((Number) restoredUser.get("age")).intValue());
+
+		//格式错误
+		assertNull(HttpSession.deserialize(new byte[0]));
+		assertNull(HttpSession.deserialize("{\"id\":\"abc\"}".getBytes()));
+		assertNull(HttpSession.deserialize(new byte[]{data[0], 0, 10}));
+	}
+
+	public void testDeserializeJson() {
+		WebServerConfig config = new WebServerConfig();
+		HttpSession httpSession = HttpSession.deserialize("{\"id\":\"abc\",\"maxInactiveInterval\":60000,\"lastTimeillis\":1,\"attributes\":{\"title\":\"voovan\"}}", config);
+		assertEquals("abc", httpSession.getId());
+		assertEquals(60000, httpSession.getMaxInactiveInterval());
+		assertEquals("voovan", httpSession.getAttribute("title"));
+		assertNull(HttpSession.deserialize("[]", config));
+	}
+}
@@ -0,0 +1,123 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.server.WebServer;
+import org.voovan.http.server.context.WebServerConfig;
+import org.voovan.http.server.module.monitor.MetricsRouter;
+import org.voovan.http.server.module.monitor.RequestAnalysis;
+import org.voovan.tools.metric.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MetricsRouter Prometheus 文本格式单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class MetricsRouterUnit extends TestCase {
+
+	public MetricsRouterUnit(String name) {
+		super(name);
+	}
+
+	private static String quantiles(String labels, RequestAnalysis requestAnalysis) {
+		LatencyHistogram.Snapshot snapshot = requestAnalysis.getHistogram().snapshot(RequestAnalysis.ONE_MINUTE);
+		StringBuilder builder = new StringBuilder();
+		for (double quantile : new double[]{0.5, 0.95, 0.99, 0.999}) {
+			builder.append("voovan_http_request_recent_duration_seconds{").append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+					.append(snapshot.getPercentile(quantile) / 1e9).append('\n');
+		}
+		return builder.toString();
+	}
+
+	public void testRequestMetrics() {
+		//标签中的反斜杠, 双引号和换行需要转义
+		RequestAnalysis escaped = new RequestAnalysis("GET", "/a\"b\\c\nd");
+		escaped.record(3000000L);
+		escaped.record(20000000L);
+		escaped.record(3000000000L);
+		RequestAnalysis empty = new RequestAnalysis("POST", "/user/:id");
+
+		StringBuilder builder = new StringBuilder();
+		MetricsRouter.writeRequestMetrics(builder, Arrays.asList(escaped, empty));
+
+		String escapedLabels = "method=\"GET\",route=\"/a\\\"b\\\\c\\nd\"";
+		String emptyLabels = "method=\"POST\",route=\"/user/:id\"";
+		String expected = "# HELP voovan_http_request_duration_seconds Request duration by route template\n" +
+				"# TYPE voovan_http_request_duration_seconds histogram\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"0.005\"} 1\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"0.01\"} 1\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"0.025\"} 2\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"0.05\"} 2\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"0.1\"} 2\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"0.25\"} 2\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"0.5\"} 2\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"1\"} 2\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"2.5\"} 2\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"5\"} 3\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"10\"} 3\n" +
+				"voovan_http_request_duration_seconds_bucket{" + escapedLabels + ",le=\"+Inf\"} 3\n" +
+				"voovan_http_request_duration_seconds_sum{" + escapedLabels + "} 3.023\n" +
+				"voovan_http_request_duration_seconds_count{" + escapedLabels + "} 3\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"0.005\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"0.01\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"0.025\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"0.05\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"0.1\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"0.25\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"0.5\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"1\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"2.5\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"5\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"10\"} 0\n" +
+				"voovan_http_request_duration_seconds_bucket{" + emptyLabels + ",le=\"+Inf\"} 0\n" +
+				"voovan_http_request_duration_seconds_sum{" + emptyLabels + "} 0.0\n" +
+				"voovan_http_request_duration_seconds_count{" + emptyLabels + "} 0\n" +
+				"# HELP voovan_http_request_recent_duration_seconds Request duration quantiles over the last minute by route template\n" +
+				"# TYPE voovan_http_request_recent_duration_seconds gauge\n" +
+				quantiles(escapedLabels, escaped) +
+				"voovan_http_request_recent_duration_seconds{" + emptyLabels + ",quantile=\"0.5\"} 0.0\n" +
+				"voovan_http_request_recent_duration_seconds{" + emptyLabels + ",quantile=\"0.95\"} 0.0\n" +
+				"voovan_http_request_recent_duration_seconds{" + emptyLabels + ",quantile=\"0.99\"} 0.0\n" +
+				"voovan_http_request_recent_duration_seconds{" + emptyLabels + ",quantile=\"0.999\"} 0.0\n";
+		assertEquals(expected, builder.toString());
+	}
+
+	public void testFormat() {
+		WebServer webServer = WebServer.newInstance(new WebServerConfig());
+		StringBuilder builder = new StringBuilder();
+		new MetricsRouter(webServer).writeMetrics(builder);
+
+		//每个指标先输出 HELP 和 TYPE, 再输出数据
+		Pattern helpPattern = Pattern.compile("# HELP ([a-z_]+) .+");
+		Pattern typePattern = Pattern.compile("# TYPE ([a-z_]+) (gauge|counter|histogram|summary)");
+		Pattern samplePattern = Pattern.compile("([a-z_]+)(\\{.*\\})? [-+0-9.E]+");
+		Set<String> families = new HashSet<String>();
+		String helpName = null;
+		String family = null;
+		for (String line : builder.toString().split("\n")) {
+			Matcher matcher;
+			if ((matcher = helpPattern.matcher(line)).matches()) {
+				helpName = matcher.group(1);
+			} else if ((matcher = typePattern.matcher(line)).matches()) {
+				assertEquals(line, helpName, matcher.group(1));
+				family = matcher.group(1);
+				assertTrue(line, families.add(family));
+			} else {
+				matcher = samplePattern.matcher(line);
+				assertTrue(line, matcher.matches());
+				assertTrue(line, matcher.group(1).startsWith(family));
+			}
+		}
+		assertTrue(families.contains("voovan_threadpool_active_threads"));
+		assertTrue(families.contains("voovan_http_request_duration_seconds"));
+	}
+}
@@ -0,0 +1,45 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.message.Response;
+
+/**
+ * Response 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class ResponseUnit extends TestCase {
+
+	public ResponseUnit(String name) {
+		super(name);
+	}
+
+	private static int count(String value, String target) {
+		int count = 0;
+		for (int index = value.indexOf(target); index >= 0; index = value.indexOf(target, index + 1)) {
+			count++;
+		}
+		return count;
+	}
+
+	public void testContentType() {
+		Response response = new Response();
+		response.header().put("Content-Type", "application/json");
+		response.body().write("{}");
+
+		//多次构造报头时不重复追加字符集
+		response.toString();
+		String head = response.toString();
+		assertEquals(1, count(head, "charset="));
+		assertTrue(head.contains("Content-Type: application/json;charset="));
+
+		response = new Response();
+		response.header().put("Content-Type", "text/plain;charset=GBK");
+		assertEquals(1, count(response.toString(), "charset="));
+		assertTrue(response.toString().contains("Content-Type: text/plain;charset=GBK"));
+	}
+}
@@ -0,0 +1,138 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.message.Request;
+import org.voovan.http.message.Response;
+import org.voovan.http.server.HttpDispatcher;
+import org.voovan.http.server.HttpRequest;
+import org.voovan.http.server.HttpResponse;
+import org.voovan.http.server.RouteTree;
+import org.voovan.http.server.context.WebServerConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RouteTree 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class RouteTreeUnit extends TestCase {
+
+	private RouteTree<String> routeTree;
+
+	public RouteTreeUnit(String name) {
+		super(name);
+	}
+
+	@Override
+	public void setUp(){
+		routeTree = new RouteTree<String>(false);
+		addRoute("/");
+		addRoute("/user");
+		addRoute("/user/list");
+		addRoute("/user/:id");
+		addRoute("/user/:id/posts/:postId");
+		addRoute("/user/admin");
+		addRoute("/order-:orderId");
+		addRoute("/static/*");
+		addRoute("/a/*/c");
+		addRoute("/regex/[0-9]+");
+	}
+
+	private void addRoute(String route){
+		String routePath = HttpDispatcher.fixRoutePath(route);
+		routeTree.addRoute(routePath, routePath);
+	}
+
+	private String match(String path, Map<String, String> parameters){
+		RouteTree.Route<String> route = routeTree.match(path, parameters);
+		return route == null ? null : route.getValue();
+	}
+
+	public void testStatic(){
+		assertEquals("/", match("/", null));
+		assertEquals("/user", match("/user", null));
+		assertEquals("/user", match("/user/", null));
+		assertEquals("/user/list", match("/user/list", null));
+		assertEquals("/user/admin", match("/user/admin", null));
+		assertNull(match("/users", null));
+		assertNull(match("/USER", null));
+	}
+
+	public void testParam(){
+		Map<String, String> parameters = new HashMap<String, String>();
+		assertEquals("/user/:id", match("/user/123", parameters));
+		assertEquals("123", parameters.get("id"));
+
+		parameters.clear();
+		assertEquals("/user/:id/posts/:postId", match("/user/12/posts/a%20b", parameters));
+		assertEquals("12", parameters.get("id"));
+		assertEquals("a b", parameters.get("postId"));
+
+		parameters.clear();
+		assertEquals("/order-:orderId", match("/order-88", parameters));
+		assertEquals("88", parameters.get("orderId"));
+	}
+
+	public void testEmptyParam(){
+		//参数片段不匹配空的片段
+		RouteTree<String> paramTree = new RouteTree<String>(false);
+		paramTree.addRoute("/user/:id", "user");
+		assertNull(paramTree.match("/user/", null));
+		assertNull(paramTree.match("/user", null));
+		assertNull(match("/user//posts/1", null));
+		assertNull(match("/order-", null));
+		assertEquals("user", paramTree.match("/user/1/", null).getValue());
+	}
+
+	public void testDispatcherPathVariables(){
+		HttpDispatcher httpDispatcher = new HttpDispatcher(new WebServerConfig(), null);
+		httpDispatcher.addRouteHandler("GET", "/user/:id", (request, response) -> response.write("user-" + request.getParameter("id")));
+
+		//第二次请求使用缓存的路由信息和路径参数
+		for(int i=0; i<2; i++) {
+			for(String id : new String[]{"12", "34"}) {
+				HttpRequest request = new HttpRequest(new Request(), "UTF-8", null) {};
+				request.protocol().setMethod("GET");
+				request.protocol().setPath("/user/" + id);
+				HttpResponse response = new HttpResponse(new Response(), "UTF-8", null) {};
+				httpDispatcher.disposeRoute(request, response);
+				assertEquals("user-" + id, response.body().getBodyString());
+			}
+		}
+	}
+
+	public void testWildcard(){
+		assertEquals("/static/*", match("/static/js/app.js", null));
+		assertEquals("/a/*/c", match("/a/b/d/c", null));
+		assertNull(match("/a/b/d", null));
+	}
+
+	public void testRegexFallback(){
+		assertEquals("/regex/[0-9]+", match("/regex/123", null));
+		assertNull(match("/regex/abc", null));
+	}
+
+	public void testIgnoreCase(){
+		RouteTree<String> ignoreCaseTree = new RouteTree<String>(true);
+		ignoreCaseTree.addRoute("/User/:Name", "user");
+		Map<String, String> parameters = new HashMap<String, String>();
+		assertEquals("user", ignoreCaseTree.match("/USER/HelyHo", parameters).getValue());
+		assertEquals("HelyHo", parameters.get("Name"));
+	}
+
+	public void testManyRoutes(){
+		RouteTree<Integer> largeTree = new RouteTree<Integer>(false);
+		for(int i=0; i<10000; i++){
+			largeTree.addRoute("/api/v1/resource" + i + "/:id", i);
+		}
+		Map<String, String> parameters = new HashMap<String, String>();
+		assertEquals(Integer.valueOf(9527), largeTree.match("/api/v1/resource9527/abc", parameters).getValue());
+		assertEquals("abc", parameters.get("id"));
+	}
+}
@@ -0,0 +1,84 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.websocket.WebSocketFrame;
+import org.voovan.tools.TByteBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * WebSocketFrame 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class WebSocketFrameUnit extends TestCase {
+
+	public WebSocketFrameUnit(String name) {
+		super(name);
+	}
+
+	private String genMessage(int length){
+		StringBuilder stringBuilder = new StringBuilder();
+		for(int i=0; i<length; i++){
+			stringBuilder.append((char)('a' + i%26));
+		}
+		return stringBuilder.toString();
+	}
+
+	public void testMaskedParse(){
+		for(int length : new int[]{0, 3, 8, 125, 126, 1000, 65535, 65536}) {
+			String message = genMessage(length);
+			WebSocketFrame frame = WebSocketFrame.newInstance(true, WebSocketFrame.Opcode.TEXT, true, ByteBuffer.wrap(message.getBytes()));
+			ByteBuffer byteBuffer = frame.toByteBuffer();
+
+			WebSocketFrame parsedFrame = WebSocketFrame.parse(byteBuffer);
+			assertEquals(0, parsedFrame.getErrorCode());
+			assertTrue(parsedFrame.isFin());
+			assertTrue(parsedFrame.isTransfereMask());
+			assertEquals(WebSocketFrame.Opcode.TEXT, parsedFrame.getOpcode());
+			assertEquals(message, TByteBuffer.toString(parsedFrame.getFrameData()));
+			assertFalse(byteBuffer.hasRemaining());
+		}
+	}
+
+	public void testUnmaskedParse(){
+		String message = genMessage(300);
+		WebSocketFrame frame = WebSocketFrame.newInstance(false, WebSocketFrame.Opcode.BINARY, false, ByteBuffer.wrap(message.getBytes()));
+		WebSocketFrame parsedFrame = WebSocketFrame.parse(frame.toByteBuffer());
+		assertFalse(parsedFrame.isFin());
+		assertEquals(WebSocketFrame.Opcode.BINARY, parsedFrame.getOpcode());
+		assertEquals(message, TByteBuffer.toString(parsedFrame.getFrameData()));
+	}
+
+	public void testControlFrameCopy(){
+		ByteBuffer byteBuffer = WebSocketFrame.newInstance(true, WebSocketFrame.Opcode.PING, true, ByteBuffer.wrap("ping".getBytes())).toByteBuffer();
+		WebSocketFrame parsedFrame = WebSocketFrame.parse(byteBuffer);
+
+		//控制帧的负载不能引用接收缓冲区
+		byteBuffer.clear();
+		while(byteBuffer.hasRemaining()){
+			byteBuffer.put((byte)0);
+		}
+		assertEquals("ping", TByteBuffer.toString(parsedFrame.getFrameData()));
+	}
+
+	public void testIncompleteParse(){
+		ByteBuffer byteBuffer = WebSocketFrame.newInstance(true, WebSocketFrame.Opcode.TEXT, true, ByteBuffer.wrap(genMessage(300).getBytes())).toByteBuffer();
+
+		//负载不完整时不截断, 返回 1002 错误码
+		for(int length : new int[]{1, 3, 6, 100, byteBuffer.limit() - 1}) {
+			ByteBuffer partBuffer = byteBuffer.duplicate();
+			partBuffer.limit(length);
+			WebSocketFrame parsedFrame = WebSocketFrame.parse(partBuffer);
+			assertEquals(1002, parsedFrame.getErrorCode());
+			assertNull(parsedFrame.getFrameData());
+			assertFalse(partBuffer.hasRemaining());
+		}
+
+		assertEquals(0, WebSocketFrame.parse(byteBuffer).getErrorCode());
+	}
+}
@@ -0,0 +1,171 @@
+package org.voovan.test.http;
+
+import junit.framework.TestCase;
+import org.voovan.http.server.WebServer;
+import org.voovan.http.server.context.WebContext;
+import org.voovan.http.server.context.WebServerConfig;
+import org.voovan.http.websocket.WebSocketFrame;
+import org.voovan.http.websocket.WebSocketRouter;
+import org.voovan.http.websocket.WebSocketSession;
+import org.voovan.tools.TEnv;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WebSocket 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class WebSocketUnit extends TestCase {
+
+	private static final int PORT = 28194;
+	private static WebServer webServer;
+
+	public WebSocketUnit(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		synchronized (WebSocketUnit.class) {
+			if (webServer == null) {
+				WebServerConfig config = WebContext.getWebServerConfig();
+				config.setPort(PORT);
+				webServer = WebServer.newInstance(config)
+						.get("/test", (request, response) -> response.write("ok"))
+						.socket("/echo", new WebSocketRouter() {
+							@Override
+							public Object onOpen(WebSocketSession session) {
+								return null;
+							}
+
+							//直接返回收到的缓冲区
+							@Override
+							public Object onRecived(WebSocketSession session, Object obj) {
+								return obj;
+							}
+
+							@Override
+							public void onSent(WebSocketSession session, Object obj) {
+							}
+
+							@Override
+							public void onClose(WebSocketSession session) {
+							}
+						})
+						.syncServe();
+				waitServerReady();
+			}
+		}
+	}
+
+	/**
+	 * 服务启动后的首个连接可能需要较长时间才被处理, 轮询直到服务可用
+	 */
+	private static void waitServerReady() throws IOException {
+		long deadline = System.currentTimeMillis() + 120 * 1000;
+		while (System.currentTimeMillis() < deadline) {
+			try (Socket socket = new Socket("127.0.0.1", PORT)) {
+				socket.setSoTimeout(5000);
+				socket.getOutputStream().write(("GET /test HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+				byte[] buffer = new byte[1024];
+				int length = socket.getInputStream().read(buffer);
+				if (length > 0 && new String(buffer, 0, length, StandardCharsets.ISO_8859_1).startsWith("HTTP/1.1 200")) {
+					return;
+				}
+			} catch (IOException e) {
+				TEnv.sleep(500);
+			}
+		}
+		throw new IOException("WebServer is not ready on port " + PORT);
+	}
+
+	private static Socket connect() throws IOException {
+		Socket socket = new Socket("127.0.0.1", PORT);
+		socket.setSoTimeout(10000);
+		socket.getOutputStream().write(("GET /echo HTTP/1.1\r\nHost: 127.0.0.1\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n" +
+				"Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+
+		//读取到响应头结束
+		StringBuilder head = new StringBuilder();
+		while (!head.toString().endsWith("\r\n\r\n")) {
+			int value = socket.getInputStream().read();
+			if (value < 0) {
+				break;
+			}
+			head.append((char) value);
+		}
+		assertTrue(head.toString(), head.toString().startsWith("HTTP/1.1 101"));
+		return socket;
+	}
+
+	private static void writeFrame(OutputStream outputStream, WebSocketFrame.Opcode opcode, String message) throws IOException {
+		ByteBuffer byteBuffer = WebSocketFrame.newInstance(true, opcode, true, ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8))).toByteBuffer();
+		byte[] bytes = new byte[byteBuffer.remaining()];
+		byteBuffer.get(bytes);
+		outputStream.write(bytes);
+	}
+
+	/**
+	 * 读取一个服务端发送的帧
+	 * @return [操作码, 负载]
+	 */
+	private static Object[] readFrame(DataInputStream inputStream) throws IOException {
+		int opcode = inputStream.readUnsignedByte() & 0x0F;
+		int length = inputStream.readUnsignedByte() & 0x7F;
+		if (length == 126) {
+			length = inputStream.readUnsignedShort();
+		} else if (length == 127) {
+			length = (int) inputStream.readLong();
+		}
+		byte[] payload = new byte[length];
+		inputStream.readFully(payload);
+		return new Object[]{opcode, new String(payload, StandardCharsets.UTF_8)};
+	}
+
+	private static String genMessage(int length, int seed) {
+		StringBuilder stringBuilder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			stringBuilder.append((char) ('a' + (i + seed) % 26));
+		}
+		return stringBuilder.toString();
+	}
+
+	public void testEcho() throws Exception {
+		try (Socket socket = connect()) {
+			DataInputStream inputStream = new DataInputStream(socket.getInputStream());
+
+			//回送的数据不引用已释放的接收缓冲区
+			for (int i = 0; i < 50; i++) {
+				String message = genMessage(1 + i * 97, i);
+				writeFrame(socket.getOutputStream(), WebSocketFrame.Opcode.TEXT, message);
+				Object[] frame = readFrame(inputStream);
+				assertEquals(1, frame[0]);
+				assertEquals(message, frame[1]);
+			}
+		}
+	}
+
+	public void testPing() throws Exception {
+		try (Socket socket = connect()) {
+			DataInputStream inputStream = new DataInputStream(socket.getInputStream());
+
+			for (int i = 0; i < 20; i++) {
+				String message = genMessage(10 + i, i);
+				writeFrame(socket.getOutputStream(), WebSocketFrame.Opcode.PING, message);
+				Object[] frame = readFrame(inputStream);
+				assertEquals(10, frame[0]);
+				assertEquals(message, frame[1]);
+			}
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package org.voovan.test.http.router;
+
+import junit.framework.TestCase;
+import org.voovan.http.message.Request;
+import org.voovan.http.message.Response;
+import org.voovan.http.server.HttpRequest;
+import org.voovan.http.server.HttpResponse;
+import org.voovan.http.server.exception.ResourceNotFound;
+import org.voovan.http.server.router.MimeFileRouter;
+import org.voovan.tools.TEnv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * MimeFileRouter 文件缓存单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class MimeFileRouterUnit extends TestCase {
+
+	private File rootDir;
+
+	public MimeFileRouterUnit(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		rootDir = Files.createTempDirectory("voovan-mime").toFile();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = rootDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		rootDir.delete();
+	}
+
+	private File writeFile(String name, byte[] content) throws IOException {
+		File file = new File(rootDir, name);
+		Files.write(file.toPath(), content);
+		return file;
+	}
+
+	private static byte[] genContent(int length, char value) {
+		byte[] content = new byte[length];
+		Arrays.fill(content, (byte) value);
+		return content;
+	}
+
+	private static String process(MimeFileRouter router, String path) throws Exception {
+		HttpRequest request = new HttpRequest(new Request(), "UTF-8", null) {};
+		request.protocol().setPath(path);
+		HttpResponse response = new HttpResponse(new Response(), "UTF-8", null) {};
+		router.process(request, response);
+		return response.body().getBodyString();
+	}
+
+	public void testCacheHit() throws Exception {
+		MimeFileRouter router = new MimeFileRouter(rootDir.getPath(), 1024);
+		writeFile("a.bin", "hello".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals("hello", process(router, "/a.bin"));
+		assertEquals(1, router.getCachedFileCount());
+		assertEquals(5, router.getCachedFileSize());
+
+		//不同的请求路径指向同一个文件时共用缓存
+		assertEquals("hello", process(router, "/./a.bin"));
+		assertEquals(1, router.getCachedFileCount());
+	}
+
+	public void testInvalidate() throws Exception {
+		MimeFileRouter router = new MimeFileRouter(rootDir.getPath(), 1024);
+		File file = writeFile("a.bin", "hello".getBytes(StandardCharsets.UTF_8));
+		assertEquals("hello", process(router, "/a.bin"));
+
+		//修改时间变化后重新加载
+		long lastModified = file.lastModified();
+		writeFile("a.bin", "changed!".getBytes(StandardCharsets.UTF_8));
+		file.setLastModified(lastModified + 2000);
+		TEnv.sleep((int) MimeFileRouter.CHECK_INTERVAL + 100);
+
+		assertEquals("changed!", process(router, "/a.bin"));
+		assertEquals(1, router.getCachedFileCount());
+		assertEquals(8, router.getCachedFileSize());
+	}
+
+	public void testCacheSizeLimit() throws Exception {
+		MimeFileRouter router = new MimeFileRouter(rootDir.getPath(), 4000, 3000);
+		for (char name = 'a'; name <= 'd'; name++) {
+			writeFile(name + ".bin", genContent(1000, name));
+		}
+		writeFile("e.bin", genContent(3500, 'e'));
+
+		process(router, "/a.bin");
+		process(router, "/b.bin");
+		process(router, "/c.bin");
+		process(router, "/a.bin");
+
+		//超过上限时淘汰最久未使用的 b.bin
+		process(router, "/d.bin");
+		assertEquals(3, router.getCachedFileCount());
+		assertEquals(3000, router.getCachedFileSize());
+
+		//超过上限的文件直接返回, 不进入缓存
+		assertEquals(3500, process(router, "/e.bin").length());
+		assertEquals(3, router.getCachedFileCount());
+
+		for (char name = 'a'; name <= 'e'; name++) {
+			new File(rootDir, name + ".bin").delete();
+		}
+
+		//检查间隔内缓存的文件不再访问磁盘
+		assertEquals(new String(genContent(1000, 'a'), StandardCharsets.UTF_8), process(router, "/a.bin"));
+		assertEquals(new String(genContent(1000, 'd'), StandardCharsets.UTF_8), process(router, "/d.bin"));
+		try {
+			process(router, "/b.bin");
+			fail();
+		} catch (ResourceNotFound e) {
+			assertEquals(3, router.getCachedFileCount());
+		}
+	}
+}
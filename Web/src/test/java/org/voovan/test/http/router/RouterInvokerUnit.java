@@ -0,0 +1,112 @@
+package org.voovan.test.http.router;
+
+import junit.framework.TestCase;
+import org.voovan.http.server.module.annontationRouter.router.RouterInvoker;
+
+import java.lang.reflect.Method;
+
+/**
+ * RouterInvoker 单元测试
+ *
+ * @author helyho
+ *
+ * Voovan Framework.
+ * WebSite: https://github.com/helyho/Voovan
+ * Licence: Apache v2 License
+ */
+public class RouterInvokerUnit extends TestCase {
+
+	public static class PublicRouter {
+		public String hello(String name, int count) {
+			return name + count;
+		}
+
+		public void empty() {
+		}
+
+		public String fail(String message) {
+			throw new IllegalStateException(message);
+		}
+
+		public static String staticHello(String name) {
+			return "static " + name;
+		}
+
+		private String privateHello(String name) {
+			return "private " + name;
+		}
+	}
+
+	static class PackageRouter {
+		private PackageRouter() {
+		}
+
+		String hello(String name) {
+			return "package " + name;
+		}
+
+		String fail(String message) {
+			throw new IllegalStateException(message);
+		}
+	}
+
+	public RouterInvokerUnit(String name) {
+		super(name);
+	}
+
+	private static Method method(Class clazz, String name, Class... parameterTypes) throws NoSuchMethodException {
+		return clazz.getDeclaredMethod(name, parameterTypes);
+	}
+
+	public void testGenerated() throws Exception {
+		RouterInvoker invoker = RouterInvoker.newInstance(PublicRouter.class, method(PublicRouter.class, "hello", String.class, int.class));
+		assertFalse(invoker instanceof RouterInvoker.ReflectInvoker);
+
+		Object target = invoker.newInstance();
+		assertTrue(target instanceof PublicRouter);
+		assertEquals("voovan3", invoker.invoke(target, new Object[]{"voovan", 3}));
+
+		invoker = RouterInvoker.newInstance(PublicRouter.class, method(PublicRouter.class, "empty"));
+		assertNull(invoker.invoke(target, new Object[0]));
+	}
+
+	public void testStatic() throws Exception {
+		RouterInvoker invoker = RouterInvoker.newInstance(PublicRouter.class, method(PublicRouter.class, "staticHello", String.class));
+		assertTrue(invoker instanceof RouterInvoker.ReflectInvoker);
+		assertEquals("static voovan", invoker.invoke(null, new Object[]{"voovan"}));
+	}
+
+	public void testNonPublic() throws Exception {
+		//非 public 的类, 使用反射调用
+		RouterInvoker invoker = RouterInvoker.newInstance(PackageRouter.class, method(PackageRouter.class, "hello", String.class));
+		assertTrue(invoker instanceof RouterInvoker.ReflectInvoker);
+		Object target = invoker.newInstance();
+		assertTrue(target instanceof PackageRouter);
+		assertEquals("package voovan", invoker.invoke(target, new Object[]{"voovan"}));
+
+		//非 public 的方法, 生成失败后使用反射调用
+		invoker = RouterInvoker.newInstance(PublicRouter.class, method(PublicRouter.class, "privateHello", String.class));
+		assertTrue(invoker instanceof RouterInvoker.ReflectInvoker);
+		assertEquals("private voovan", invoker.invoke(new PublicRouter(), new Object[]{"voovan"}));
+	}
+
+	public void testException() throws Exception {
+		//两种调用器都直接抛出路由方法的异常
+		RouterInvoker invoker = RouterInvoker.newInstance(PublicRouter.class, method(PublicRouter.class, "fail", String.class));
+		assertFalse(invoker instanceof RouterInvoker.ReflectInvoker);
+		assertThrows(invoker, invoker.newInstance());
+
+		invoker = RouterInvoker.newInstance(PackageRouter.class, method(PackageRouter.class, "fail", String.class));
+		assertTrue(invoker instanceof RouterInvoker.ReflectInvoker);
+		assertThrows(invoker, invoker.newInstance());
+	}
+
+	private static void assertThrows(RouterInvoker invoker, Object target) throws Exception {
+		try {
+			invoker.invoke(target, new Object[]{"error"});
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("error", e.getMessage());
+		}
+	}
+}